@@ -0,0 +1,117 @@
+// Catalano Core Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Core.Concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Parallel loop over a range of indexes.
+ * <p>
+ * The range [0, n) is split in contiguous partitions, one per thread of the
+ * {@link MulticoreExecutor}, and each partition is computed by the body.
+ * Small ranges are computed in the caller's thread. An exception thrown by
+ * the body is rethrown to the caller, the range is never computed twice.
+ *
+ * @author Diego Catalano
+ */
+public final class ParallelFor {
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private ParallelFor() {}
+
+    /**
+     * Body of the loop.
+     */
+    public static interface Body {
+
+        /**
+         * Compute the indexes in [from, to).
+         * @param from First index, inclusive.
+         * @param to Last index, exclusive.
+         */
+        void Compute(int from, int to);
+    }
+
+    /**
+     * Run the loop over [0, n).
+     * @param n Number of indexes.
+     * @param body Body of the loop.
+     */
+    public static void Run(int n, Body body) {
+        Run(n, 1, body);
+    }
+
+    /**
+     * Run the loop over [0, n).
+     * @param n Number of indexes.
+     * @param grain Minimum number of indexes of each partition.
+     * @param body Body of the loop.
+     */
+    public static void Run(int n, int grain, final Body body) {
+        if (n <= 0) return;
+
+        int partitions = Math.min(MulticoreExecutor.getThreadPoolSize(), (n + grain - 1) / Math.max(1, grain));
+        if (partitions <= 1) {
+            body.Compute(0, n);
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(partitions);
+        int part = n / partitions;
+        int start = 0;
+        for (int i = 0; i < partitions; i++) {
+            final int from = start;
+            final int to = (i == partitions - 1) ? n : start + part;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    body.Compute(from, to);
+                    return null;
+                }
+            });
+            start = to;
+        }
+
+        try {
+            MulticoreExecutor.run(tasks);
+        } catch (ExecutionException ex) {
+            // Some partitions may be already computed, the range can't be computed again.
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw new RuntimeException(cause);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -44,6 +44,14 @@ public class CentroidDefuzzifier implements IDefuzzifier{
         this.intervals = intervals;
     }
     
+    /**
+     * Get number of segments of the speech universe.
+     * @return Number of segments.
+     */
+    public int getIntervals() {
+        return intervals;
+    }
+    
     @Override
     public float Defuzzify(FuzzyOutput fuzzyOutput, INorm normOperator) {
         // results and accumulators
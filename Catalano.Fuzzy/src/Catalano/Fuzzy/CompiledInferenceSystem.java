@@ -0,0 +1,316 @@
+// Catalano Fuzzy Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Fuzzy;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compiled fuzzy inference system.
+ * <p>
+ * The rules of an output variable are flattened in a single program in
+ * reverse polish notation, evaluated with a primitive stack. Each clause
+ * (variable IS label) is computed once per input, and the memberships of
+ * the output labels are tabulated at the points of the centroid defuzzifier.
+ * Use {@link InferenceSystem#Compile(String, String...)} to build it.
+ *
+ * @author Diego Catalano
+ */
+public class CompiledInferenceSystem {
+    
+    // operators of the program, the clauses are the non negative codes
+    private static final int AND = -1;
+    private static final int OR = -2;
+    private static final int NOT = -3;
+    private static final int VERY = -4;
+    
+    // codes of all the rules
+    private final int[] program;
+    // first code of each rule, the last one is the program length
+    private final int[] ruleStart;
+    // output label of each rule
+    private final int[] ruleLabel;
+    // maximum depth of the stack
+    private final int stackSize;
+    
+    // input column of each clause
+    private final int[] clauseInput;
+    // fuzzy set of each clause
+    private final FuzzySet[] clauseLabel;
+    
+    // the output linguistic variable
+    private final LinguisticVariable output;
+    // names of the output labels
+    private final String[] labels;
+    // points of the centroid defuzzifier
+    private final float[] points;
+    // membership of each output label at the points, null for other defuzzifiers
+    private final float[][] table;
+    
+    private final IDefuzzifier defuzzifier;
+    private final INorm normOperator;
+    private final ICoNorm conormOperator;
+    private final IUnaryOperator notOperator;
+
+    /**
+     * Initializes a new instance of the CompiledInferenceSystem class.
+     * @param database Database with the linguistic variables.
+     * @param rules Rules of the inference system.
+     * @param outputVariable Name of the output variable.
+     * @param inputVariables Name of the variable of each input column.
+     * @param defuzzifier Defuzzifier.
+     * @param normOperator Norm operator used in rules and deffuzification.
+     * @param conormOperator CoNorm operator used in rules.
+     */
+    CompiledInferenceSystem(Database database, Rule[] rules, String outputVariable, String[] inputVariables, IDefuzzifier defuzzifier, INorm normOperator, ICoNorm conormOperator) {
+        this.output = database.getVariable(outputVariable);
+        this.defuzzifier = defuzzifier;
+        this.normOperator = normOperator;
+        this.conormOperator = conormOperator;
+        this.notOperator = new NotOperator();
+        
+        HashMap<String, Integer> columns = new HashMap<String, Integer>();
+        for (int i = 0; i < inputVariables.length; i++)
+            columns.put(inputVariables[i], i);
+        
+        HashMap<String, Integer> clauses = new HashMap<String, Integer>();
+        List<Integer> inputs = new ArrayList<Integer>();
+        List<FuzzySet> sets = new ArrayList<FuzzySet>();
+        HashMap<String, Integer> outputLabels = new HashMap<String, Integer>();
+        List<String> names = new ArrayList<String>();
+        
+        List<Integer> codes = new ArrayList<Integer>();
+        List<Integer> starts = new ArrayList<Integer>();
+        List<Integer> ruleLabels = new ArrayList<Integer>();
+        int maxDepth = 0;
+        
+        // select only rules with the variable as output
+        for (Rule r : rules) {
+            if (!r.getOutput().getVariable().getName().equals(outputVariable)) continue;
+            
+            starts.add(codes.size());
+            int depth = 0;
+            for (Object o : r.getRPNTokenList()) {
+                if (o instanceof Clause) {
+                    Clause c = (Clause)o;
+                    String key = c.toString();
+                    Integer index = clauses.get(key);
+                    if (index == null) {
+                        Integer column = columns.get(c.getVariable().getName());
+                        if (column == null)
+                            throw new IllegalArgumentException("The linguistic variable " + c.getVariable().getName() + " is not an input.");
+                        index = sets.size();
+                        clauses.put(key, index);
+                        inputs.add(column);
+                        sets.add(c.getLabel());
+                    }
+                    codes.add(index);
+                    depth++;
+                }
+                else {
+                    String op = o.toString();
+                    if (op.equals("AND")) { codes.add(AND); depth--; }
+                    else if (op.equals("OR")) { codes.add(OR); depth--; }
+                    else if (op.equals("NOT")) codes.add(NOT);
+                    else if (op.equals("VERY")) codes.add(VERY);
+                    else throw new IllegalArgumentException("Invalid token " + op + " in the rule " + r.getName() + ".");
+                }
+                maxDepth = Math.max(maxDepth, depth);
+            }
+            if (depth != 1)
+                throw new IllegalArgumentException("Invalid expression in the rule " + r.getName() + ".");
+            
+            String label = r.getOutput().getLabel().Name();
+            Integer index = outputLabels.get(label);
+            if (index == null) {
+                index = names.size();
+                outputLabels.put(label, index);
+                names.add(label);
+            }
+            ruleLabels.add(index);
+        }
+        starts.add(codes.size());
+        
+        this.program = ToArray(codes);
+        this.ruleStart = ToArray(starts);
+        this.ruleLabel = ToArray(ruleLabels);
+        this.stackSize = maxDepth;
+        this.clauseInput = ToArray(inputs);
+        this.clauseLabel = sets.toArray(new FuzzySet[sets.size()]);
+        this.labels = names.toArray(new String[names.size()]);
+        
+        // tabulate the output labels at the same points of the centroid
+        if (defuzzifier instanceof CentroidDefuzzifier) {
+            float start = output.getStart();
+            float end = output.getEnd();
+            float increment = ( end - start ) / ((CentroidDefuzzifier)defuzzifier).getIntervals();
+            
+            int n = 0;
+            if (increment > 0)
+                for ( float x = start; x < end; x += increment ) n++;
+            
+            this.points = new float[n];
+            int k = 0;
+            for ( float x = start; k < n; x += increment ) points[k++] = x;
+            
+            this.table = new float[labels.length][n];
+            for (int i = 0; i < labels.length; i++) {
+                FuzzySet fs = output.getLabel(labels[i]);
+                for (int j = 0; j < n; j++)
+                    table[i][j] = fs.getMembership(points[j]);
+            }
+        }
+        else {
+            this.points = null;
+            this.table = null;
+        }
+    }
+    
+    /**
+     * Get the number of compiled rules.
+     * @return Number of rules.
+     */
+    public int getNumberOfRules() {
+        return ruleLabel.length;
+    }
+    
+    /**
+     * Get the output linguistic variable.
+     * @return Linguistic variable.
+     */
+    public LinguisticVariable getOutputVariable() {
+        return output;
+    }
+    
+    /**
+     * Evaluate the output variable.
+     * @param input Value of each input variable, in the order given to the compiler.
+     * @return Numerical output, NaN if all the memberships are zero.
+     */
+    public float Evaluate(float[] input) {
+        return Evaluate(input, new float[clauseLabel.length], new float[stackSize], new float[ruleLabel.length]);
+    }
+    
+    /**
+     * Evaluate the output variable of many inputs, computed in parallel.
+     * @param inputs Inputs, one per row.
+     * @return Numerical output of each input.
+     */
+    public float[] Evaluate(final float[][] inputs) {
+        final float[] result = new float[inputs.length];
+        ParallelFor.Run(inputs.length, 64, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                float[] membership = new float[clauseLabel.length];
+                float[] stack = new float[stackSize];
+                float[] strength = new float[ruleLabel.length];
+                for (int i = from; i < to; i++)
+                    result[i] = Evaluate(inputs[i], membership, stack, strength);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Evaluate the firing strength of each rule.
+     * @param input Value of each input variable, in the order given to the compiler.
+     * @return Firing strength [0..1] of each rule.
+     */
+    public float[] EvaluateFiringStrength(float[] input) {
+        float[] membership = new float[clauseLabel.length];
+        float[] stack = new float[stackSize];
+        float[] strength = new float[ruleLabel.length];
+        Fire(input, membership, stack, strength);
+        return strength;
+    }
+    
+    private float Evaluate(float[] input, float[] membership, float[] stack, float[] strength) {
+        Fire(input, membership, stack, strength);
+        return table != null ? Centroid(strength) : Defuzzify(strength);
+    }
+    
+    private void Fire(float[] input, float[] membership, float[] stack, float[] strength) {
+        
+        // each clause is evaluated once
+        for (int i = 0; i < membership.length; i++)
+            membership[i] = clauseLabel[i].getMembership(input[clauseInput[i]]);
+        
+        for (int r = 0; r < strength.length; r++) {
+            int top = -1;
+            for (int i = ruleStart[r]; i < ruleStart[r + 1]; i++) {
+                int code = program[i];
+                if (code >= 0) {
+                    stack[++top] = membership[code];
+                    continue;
+                }
+                
+                float y = stack[top--];
+                switch (code) {
+                    case AND: stack[top] = normOperator.Evaluate(stack[top], y); break;
+                    case OR: stack[top] = conormOperator.Evaluate(stack[top], y); break;
+                    case NOT: stack[++top] = notOperator.Evaluate(y); break;
+                    case VERY: stack[++top] = y * y; break;
+                }
+            }
+            strength[r] = stack[0];
+        }
+    }
+    
+    private float Centroid(float[] strength) {
+        
+        // only the rules which fire constrain the output
+        int n = 0;
+        int[] active = new int[strength.length];
+        for (int r = 0; r < strength.length; r++)
+            if (strength[r] > 0) active[n++] = r;
+        
+        // results and accumulators
+        float weightSum = 0, membershipSum = 0;
+        for (int k = 0; k < points.length; k++) {
+            float x = points[k];
+            for (int i = 0; i < n; i++) {
+                int r = active[i];
+                float constrainedMembership = normOperator.Evaluate(table[ruleLabel[r]][k], strength[r]);
+                weightSum += x * constrainedMembership;
+                membershipSum += constrainedMembership;
+            }
+        }
+        
+        return weightSum / membershipSum;
+    }
+    
+    private float Defuzzify(float[] strength) {
+        FuzzyOutput fuzzyOutput = new FuzzyOutput(output);
+        for (int r = 0; r < strength.length; r++)
+            if (strength[r] > 0) fuzzyOutput.addOutput(labels[ruleLabel[r]], strength[r]);
+        return defuzzifier.Defuzzify(fuzzyOutput, normOperator);
+    }
+    
+    private static int[] ToArray(List<Integer> list) {
+        int[] v = new int[list.size()];
+        for (int i = 0; i < v.length; i++)
+            v[i] = list.get(i);
+        return v;
+    }
+}
\ No newline at end of file
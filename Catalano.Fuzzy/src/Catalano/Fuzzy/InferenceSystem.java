@@ -77,6 +77,16 @@ public class InferenceSystem {
         return res;
     }
     
+    /**
+     * Compile the rules of an output variable, to evaluate many inputs fast.
+     * @param variableName Name of the output variable.
+     * @param inputVariables Name of the variable of each input column.
+     * @return Compiled inference system.
+     */
+    public CompiledInferenceSystem Compile( String variableName, String... inputVariables ){
+        return new CompiledInferenceSystem( database, rulebase.getRules( ), variableName, inputVariables, defuzzifier, normOperator, conormOperator );
+    }
+    
     public FuzzyOutput ExecuteInference( String variableName ){
         // gets the variable
         LinguisticVariable lingVar = database.getVariable( variableName );
@@ -80,6 +80,14 @@ public class Rule {
         return output;
     }
     
+    /**
+     * Gets the parsed RPN expression, with clauses and operators.
+     * @return RPN token list.
+     */
+    ArrayList<Object> getRPNTokenList(){
+        return rpnTokenList;
+    }
+    
     /**
      * Initializes a new instance of the <see cref="Rule"/> class.
      * @param fuzzyDatabase A fuzzy <see cref="Database"/> containig the linguistic variables see <see cref="LinguisticVariable"/>) that will be used in the Rule.
@@ -365,8 +373,9 @@ public class Rule {
 
             // operation
             if (o.toString().equals("AND")) s.push( normOperator.Evaluate( x, y ) );
-            if (o.toString().equals("OR")) s.push( normOperator.Evaluate( x, y ) );
-            if (o.toString().equals("NOT")) s.push( normOperator.Evaluate( x, y ) );
+            if (o.toString().equals("OR")) s.push( conormOperator.Evaluate( x, y ) );
+            if (o.toString().equals("NOT")) s.push( notOperator.Evaluate( y ) );
+            if (o.toString().equals("VERY")) s.push( y * y );
         }
     }
 
@@ -25,6 +25,7 @@
 package Catalano.Fuzzy;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,7 +41,7 @@ public class Rulebase {
      * Initializes a new instance of the Rulebase class.
      */
     public Rulebase() {
-        this.rules = new HashMap<String, Rule>(20);
+        this.rules = new LinkedHashMap<String, Rule>(20);
     }
     
     /**
@@ -77,19 +78,10 @@ public class Rulebase {
     }
     
     /**
-     * Gets all the rules of the rulebase.
+     * Gets all the rules of the rulebase, in the order they were added.
      * @return An array with all the rulebase rules.
      */
     public Rule[] getRules(){
-        Rule[] r = new Rule[rules.size()];
-
-        for (int i = 0; i < rules.size(); i++) {
-            r[i] = rules.get(Integer.toString(i));
-        }
-        
-        //for ( KeyValuePair<String, Rule> kvp : rules )
-            //r[i++] = kvp.Value;
-
-        return r;
+        return rules.values().toArray(new Rule[rules.size()]);
     }
 }
\ No newline at end of file
@@ -25,7 +25,8 @@ package Catalano.Genetic.Fitness;
 import Catalano.Genetic.IChromosome;
 
 /**
- *
+ * Fitness function of the chromosomes.
+ * The Population evaluates the chromosomes in parallel, unless disabled by setParallel.
  * @author Diego
  */
 public interface IFitness {
@@ -22,6 +22,11 @@
 
 package Catalano.Genetic.Optimization;
 
+import Catalano.Core.DoubleRange;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
 /**
  * Abstract class for evolutionary algorithms.
  * @author Diego Catalano
@@ -30,6 +35,13 @@ public abstract class AbstractEvolutionaryOptimization implements IOptimization{
     
     protected int populationSize;
     protected int generations;
+    protected long seed;
+    protected boolean parallel = true;
+    
+    protected double[][] initialPopulation;
+    protected double[] initialFitness;
+    protected double[][] population;
+    protected double[] populationFitness;
     
     /**
      * Get population size.
@@ -63,4 +75,190 @@ public abstract class AbstractEvolutionaryOptimization implements IOptimization{
         this.generations = generations;
     }
     
+    /**
+     * Get random seed.
+     * @return Random seed, 0 if a new seed is used for each run.
+     */
+    public long getSeed(){
+        return seed;
+    }
+    
+    /**
+     * Set random seed.
+     * The same seed gives the same result, regardless of the number of threads.
+     * @param seed Random seed, 0 to use a new seed for each run.
+     */
+    public void setSeed(long seed){
+        this.seed = seed;
+    }
+    
+    /**
+     * Check if the solutions of each generation are evaluated in parallel.
+     * @return True if the solutions are evaluated in parallel.
+     */
+    public boolean isParallel(){
+        return parallel;
+    }
+    
+    /**
+     * Set if the solutions of each generation are evaluated in parallel.
+     * The objective function must be thread safe when enabled.
+     * @param parallel True to evaluate the solutions in parallel.
+     */
+    public void setParallel(boolean parallel){
+        this.parallel = parallel;
+    }
+    
+    /**
+     * Get the initial population.
+     * @return Initial population, null if it is generated at random.
+     */
+    public double[][] getInitialPopulation(){
+        return initialPopulation;
+    }
+    
+    /**
+     * Set the initial population, e.g. the last population of a previous run.
+     * The missing solutions are generated at random.
+     * @param population Solutions, one per row, null to generate all of them at random.
+     * @param fitness Fitness of each solution, one per row of the population, null to compute it.
+     */
+    public void setInitialPopulation(double[][] population, double[] fitness){
+        if(population != null && fitness != null && fitness.length != population.length)
+            throw new IllegalArgumentException("The fitness must have one value per solution.");
+        this.initialPopulation = population;
+        this.initialFitness = fitness;
+    }
+    
+    /**
+     * Get the population at the end of the last run.
+     * @return Solutions, one per row.
+     */
+    public double[][] getPopulation(){
+        return population;
+    }
+    
+    /**
+     * Get the fitness of the population at the end of the last run.
+     * @return Fitness of each solution.
+     */
+    public double[] getPopulationFitness(){
+        return populationFitness;
+    }
+    
+    /**
+     * Create the random number generator of a run.
+     * @return Random number generator.
+     */
+    protected Random CreateRandom(){
+        return seed == 0 ? new Random() : new Random(seed);
+    }
+    
+    /**
+     * Evaluate the objective of each solution.
+     * Batch functions compute all the solutions at once, otherwise they are
+     * computed in parallel when enabled.
+     * @param function Objective function.
+     * @param values Solutions, one per row.
+     * @param result Objective of each solution.
+     */
+    protected void Evaluate(ISingleObjectiveFunction function, double[][] values, double[] result){
+        if(function instanceof IBatchObjectiveFunction){
+            ((IBatchObjectiveFunction)function).Compute(values, result);
+        }
+        else if(parallel){
+            new ParallelObjectiveFunction(function).Compute(values, result);
+        }
+        else{
+            for (int i = 0; i < values.length; i++)
+                result[i] = function.Compute(values[i]);
+        }
+    }
+    
+    /**
+     * Initialize the population of a run.
+     * The solutions are taken from the initial population, if any, and the
+     * remaining ones are generated at random.
+     * @param function Objective function.
+     * @param boundConstraint Constraints.
+     * @param rand Random number generator.
+     * @param pop Solutions, one per row.
+     * @param fitness Fitness of each solution.
+     * @return Number of evaluations.
+     */
+    protected int Initialize(ISingleObjectiveFunction function, List<DoubleRange> boundConstraint, Random rand, double[][] pop, double[] fitness){
+        int n = initialPopulation == null ? 0 : Math.min(initialPopulation.length, pop.length);
+        for (int i = 0; i < n; i++) {
+            pop[i] = Arrays.copyOf(initialPopulation[i], initialPopulation[i].length);
+        }
+        double[][] news = UniformRandom(pop.length - n, boundConstraint, rand);
+        System.arraycopy(news, 0, pop, n, news.length);
+        
+        //Compute the fitness of the solutions without it
+        int known = initialFitness == null ? 0 : n;
+        System.arraycopy(initialFitness == null ? fitness : initialFitness, 0, fitness, 0, known);
+        double[][] values = Arrays.copyOfRange(pop, known, pop.length);
+        double[] result = new double[values.length];
+        Evaluate(function, values, result);
+        System.arraycopy(result, 0, fitness, known, result.length);
+        
+        return values.length;
+    }
+    
+    /**
+     * Save the population at the end of a run.
+     * @param pop Solutions, one per row.
+     * @param fitness Fitness of each solution.
+     */
+    protected void SavePopulation(double[][] pop, double[] fitness){
+        this.population = pop;
+        this.populationFitness = fitness;
+    }
+    
+    /**
+     * Save the population at the end of a run.
+     * @param pop Individuals.
+     */
+    protected void SavePopulation(List<Individual> pop){
+        double[][] values = new double[pop.size()][];
+        double[] fitness = new double[pop.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = pop.get(i).getLocation();
+            fitness[i] = pop.get(i).getFitness();
+        }
+        SavePopulation(values, fitness);
+    }
+    
+    /**
+     * Generate uniform random solutions inside the bound constraints.
+     * @param size Number of solutions.
+     * @param boundConstraint Constraints.
+     * @param rand Random number generator.
+     * @return Solutions, one per row.
+     */
+    protected static double[][] UniformRandom(int size, List<DoubleRange> boundConstraint, Random rand){
+        double[][] pop = new double[size][boundConstraint.size()];
+        for (int i = 0; i < pop.length; i++) {
+            for (int j = 0; j < pop[0].length; j++) {
+                DoubleRange range = boundConstraint.get(j);
+                pop[i][j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
+            }
+        }
+        return pop;
+    }
+    
+    /**
+     * Shuffle the values.
+     * @param values Values.
+     * @param rand Random number generator.
+     */
+    protected static void Shuffle(int[] values, Random rand){
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+    }
+    
 }
\ No newline at end of file
@@ -22,12 +22,11 @@
 
 package Catalano.Genetic.Optimization;
 
-import Catalano.Core.ArraysUtil;
 import Catalano.Core.DoubleRange;
 import Catalano.Math.Matrix;
-import Catalano.Math.Random.Random;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Differential Evolution (DE).
@@ -251,28 +250,25 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
     
     private double[] Rand(ISingleObjectiveFunction function, List<DoubleRange> boundConstraint, Strategy strategy){
         
-        Random rand = new Random();
+        Random rand = CreateRandom();
         
         //Generate the population
-        double[][] pop = new double[populationSize][boundConstraint.size()];
-        for (int i = 0; i < pop.length; i++) {
-            for (int j = 0; j < pop[0].length; j++) {
-                DoubleRange range = boundConstraint.get(j);
-                pop[i][j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
-            }
-        }
-
-        //Compute fitness
+        double[][] pop = new double[populationSize][];
         double[] fitness = new double[pop.length];
-        for (int i = 0; i < fitness.length; i++) {
-            fitness[i] = function.Compute(pop[i]);
-        }
-        
+        nEval += Initialize(function, boundConstraint, rand, pop, fitness);
         
         //Best of the all solution
         double[] best = null;
-
-        int[] idx = Matrix.Indices(0, pop.length);        
+        for (int i = 0; i < fitness.length; i++) {
+            if(fitness[i] < minError){
+                best = pop[i];
+                minError = fitness[i];
+            }
+        }
+        
+        int[] idx = Matrix.Indices(0, pop.length);
+        double[][] trials = new double[pop.length][];
+        double[] fTrials = new double[pop.length];
         for (int g = 0; g < generations; g++) {
             for (int p = 0; p < pop.length; p++) {
                 
@@ -282,7 +278,7 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
 
                 switch(strategy){
                     case RAND_1_BIN:
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         for (int i = 0; i < trial.length; i++) {
                             if(rand.nextDouble() <= prob || i == var){
                                 trial[i] = pop[idx[0]][i] + f * (pop[idx[1]][i] - pop[idx[2]][i]);
@@ -293,7 +289,7 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                         }
                     break;
                     case RAND_2_BIN:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         for (int i = 0; i < trial.length; i++) {
                             if(rand.nextDouble() <= prob || i == var){
                                 trial[i] = pop[idx[0]][i] + f * (pop[idx[1]][i] - pop[idx[2]][i] + pop[idx[3]][i] - pop[idx[4]][i]);
@@ -303,8 +299,9 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             }
                         }
                     }
+                    break;
                     case RAND_1_EXP:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         int l = 0;
                         
                         //Mutation vector
@@ -320,8 +317,9 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             var = (var + 1) % pop[0].length;
                         } while (rand.nextDouble() <= prob && l < pop[0].length);
                     }
+                    break;
                     case RAND_2_EXP:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         int l = 0;
                         
                         //Mutation vector
@@ -337,6 +335,7 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             var = (var + 1) % pop[0].length;
                         } while (rand.nextDouble() <= prob && l < pop[0].length);
                     }
+                    break;
                 }
                 
                 //Fix constraint
@@ -345,8 +344,17 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                     trial[i] = trial[i] > boundConstraint.get(i).getMax() ? boundConstraint.get(i).getMax() : trial[i];
                 }
 
-                double fTrial = function.Compute(trial);
-                nEval++;
+                trials[p] = trial;
+            }
+            
+            //Compute the fitness of the trials
+            Evaluate(function, trials, fTrials);
+            nEval += trials.length;
+            
+            //Selection
+            for (int p = 0; p < pop.length; p++) {
+                double[] trial = trials[p];
+                double fTrial = fTrials[p];
                 if(fTrial < fitness[p]){
                     pop[p] = trial;
                     fitness[p] = fTrial;
@@ -358,40 +366,42 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
             }
         }
         
+        SavePopulation(pop, fitness);
+        
         return best;
     }
     
     private double[] Best(ISingleObjectiveFunction function, List<DoubleRange> boundConstraint, Strategy strategy){
         
-        Random rand = new Random();
-        double[] best = null;
+        Random rand = CreateRandom();
 
         //Generate the population
-        double[][] pop = new double[populationSize][boundConstraint.size()];
-        for (int i = 0; i < pop.length; i++) {
-            for (int j = 0; j < pop[0].length; j++) {
-                DoubleRange range = boundConstraint.get(j);
-                pop[i][j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
-            }
-        }
-
-        //Compute fitness
+        double[][] pop = new double[populationSize][];
         double[] fitness = new double[pop.length];
+        nEval += Initialize(function, boundConstraint, rand, pop, fitness);
+        
+        //Best of the all solution
+        double[] best = null;
         for (int i = 0; i < fitness.length; i++) {
-            fitness[i] = function.Compute(pop[i]);
+            if(fitness[i] < minError){
+                best = pop[i];
+                minError = fitness[i];
+            }
         }
         
         int[] idx = Matrix.Indices(0, pop.length);
+        double[][] trials = new double[pop.length][];
+        double[] fTrials = new double[pop.length];
         for (int g = 0; g < generations; g++) {
             for (int p = 0; p < pop.length; p++) {
                 
-                int var = rand.nextInt(pop[0].length + 1);
+                int var = rand.nextInt(pop[0].length);
 
                 double[] trial = new double[pop[0].length];
 
                 switch(strategy){
                     case BEST_1_BIN:
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         for (int i = 0; i < trial.length; i++) {
                             if(rand.nextDouble() <= prob || i == var){
                                 trial[i] = best[i] + f * (pop[idx[0]][i] - pop[idx[1]][i]);
@@ -402,7 +412,7 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                         }
                     break;
                     case BEST_2_BIN:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         for (int i = 0; i < trial.length; i++) {
                             if(rand.nextDouble() <= prob || i == var){
                                 trial[i] = best[i] + f * (pop[idx[0]][i] - pop[idx[1]][i] + pop[idx[2]][i] - pop[idx[3]][i]);
@@ -412,8 +422,9 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             }
                         }
                     }
+                    break;
                     case BEST_1_EXP:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         int l = 0;
                         
                         //Mutation vector
@@ -429,8 +440,9 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             var = (var + 1) % pop[0].length;
                         } while (rand.nextDouble() <= prob && l < pop[0].length);
                     }
+                    break;
                     case BEST_2_EXP:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         int l = 0;
                         
                         //Mutation vector
@@ -446,8 +458,9 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             var = (var + 1) % pop[0].length;
                         } while (rand.nextDouble() <= prob && l < pop[0].length);
                     }
+                    break;
                     case RAND_TO_BEST_BIN:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         for (int i = 0; i < trial.length; i++) {
                             if(rand.nextDouble() <= prob || i == var){
                                 trial[i] = pop[idx[1]][i] + f * (pop[idx[2]][i] - pop[idx[3]][i]) + f2 * (best[i] - pop[idx[0]][i]);
@@ -457,8 +470,9 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             }
                         }
                     }
+                    break;
                     case CURRENT_TO_BEST_BIN:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         for (int i = 0; i < trial.length; i++) {
                             if(rand.nextDouble() <= prob || i == var){
                                 trial[i] = pop[p][i] + f * (pop[idx[0]][i] - pop[idx[1]][i]) + f2 * (best[i] - pop[p][i]);
@@ -468,8 +482,9 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             }
                         }
                     }
+                    break;
                     case CURRENT_TO_RAND_BIN:{
-                        ArraysUtil.Shuffle(idx);
+                        Shuffle(idx, rand);
                         for (int i = 0; i < trial.length; i++) {
                             if(rand.nextDouble() <= prob || i == var){
                                 trial[i] = pop[p][i] + f * (pop[idx[1]][i] - pop[idx[2]][i]) + f2 * (pop[idx[0]][i] - pop[p][i]);
@@ -479,6 +494,7 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                             }
                         }
                     }
+                    break;
                 }
                 
                 //Fix constraint
@@ -487,8 +503,17 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
                     trial[i] = trial[i] > boundConstraint.get(i).getMax() ? boundConstraint.get(i).getMax() : trial[i];
                 }
 
-                double fTrial = function.Compute(trial);
-                nEval++;
+                trials[p] = trial;
+            }
+            
+            //Compute the fitness of the trials
+            Evaluate(function, trials, fTrials);
+            nEval += trials.length;
+            
+            //Selection
+            for (int p = 0; p < pop.length; p++) {
+                double[] trial = trials[p];
+                double fTrial = fTrials[p];
                 if(fTrial < fitness[p]){
                     pop[p] = trial;
                     fitness[p] = fTrial;
@@ -500,6 +525,8 @@ public class DifferentialEvolution extends AbstractEvolutionaryOptimization{
             }
         }
         
+        SavePopulation(pop, fitness);
+        
         return best;
     }
 }
\ No newline at end of file
@@ -208,6 +208,7 @@ public class FireflyOptimization extends AbstractEvolutionaryOptimization implem
     public FireflyOptimization(int population, int generations, double alpha, double beta0, double gamma, double alphaDamp, double delta){
         this.populationSize = population;
         this.generations = generations;
+        this.alpha = alpha;
         this.beta0 = beta0;
         this.gamma = gamma;
         this.alphaDamp = alphaDamp;
@@ -221,10 +222,13 @@ public class FireflyOptimization extends AbstractEvolutionaryOptimization implem
         minError = Double.MAX_VALUE;
         nEval = 0;
         
-        Random rand = new Random();
+        Random rand = CreateRandom();
         
         //Generate population
-        List<Individual> pop = Individual.CreatePopulation(populationSize, boundConstraint, function);
+        double[][] init = new double[populationSize][];
+        double[] initFitness = new double[init.length];
+        nEval += Initialize(function, boundConstraint, rand, init, initFitness);
+        List<Individual> pop = Individual.CreatePopulation(init, initFitness);
         
         //Calculate dmax
         double[] min = new double[boundConstraint.size()];
@@ -245,12 +249,16 @@ public class FireflyOptimization extends AbstractEvolutionaryOptimization implem
                 newPop.add(new Individual(null, Double.MAX_VALUE));
             }
             
-            //Compute
+            //Move each firefly towards each other
+            double[][] newsols = new double[populationSize * populationSize][];
             for (int i = 0; i < populationSize; i++) {
                 for (int j = 0; j < populationSize; j++) {
                     double rij = Matrix.Norm2(Matrix.Subtract(pop.get(i).getLocation(), pop.get(j).getLocation())) / dmax;
                     double beta = beta0 * Math.exp(-gamma * (rij*rij));
-                    double[] e = Matrix.Multiply(Matrix.UniformRandom(-1, 1, boundConstraint.size()), delta);
+                    double[] e = new double[boundConstraint.size()];
+                    for (int k = 0; k < e.length; k++) {
+                        e[k] = (2 * rand.nextDouble() - 1) * delta;
+                    }
 
                     //New solution
                     double[] newsol = new double[boundConstraint.size()];
@@ -260,9 +268,18 @@ public class FireflyOptimization extends AbstractEvolutionaryOptimization implem
                         newsol[k] = a.getLocation()[k] + beta * rand.nextDouble() * (b.getLocation()[k] - a.getLocation()[k]) + damp * e[k];
                         newsol[k] = Tools.Clamp(newsol[k], boundConstraint.get(k));
                     }
-
-                    double newfit = function.Compute(newsol);
-                    nEval++;
+                    newsols[i * populationSize + j] = newsol;
+                }
+            }
+            
+            //Compute
+            double[] newfits = new double[newsols.length];
+            Evaluate(function, newsols, newfits);
+            nEval += newsols.length;
+            for (int i = 0; i < populationSize; i++) {
+                for (int j = 0; j < populationSize; j++) {
+                    double[] newsol = newsols[i * populationSize + j];
+                    double newfit = newfits[i * populationSize + j];
                     if(newfit <= newPop.get(i).getFitness()){
                         newPop.set(i, new Individual(newsol, newfit));
                         if(newfit < minError){
@@ -280,11 +297,13 @@ public class FireflyOptimization extends AbstractEvolutionaryOptimization implem
             Collections.sort(pop);
             
             //Truncate
-            pop = pop.subList(0, populationSize);
+            pop = new ArrayList<Individual>(pop.subList(0, populationSize));
             
             damp = damp*alphaDamp;
         }
         
+        SavePopulation(pop);
+        
         return best;
         
     }
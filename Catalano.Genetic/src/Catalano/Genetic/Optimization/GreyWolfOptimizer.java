@@ -26,6 +26,7 @@
 package Catalano.Genetic.Optimization;
 
 import Catalano.Core.DoubleRange;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -67,7 +68,9 @@ public class GreyWolfOptimizer extends AbstractEvolutionaryOptimization implemen
     /**
      * Initializes a new instance of the GreyWolfOptimizer class.
      */
-    public GreyWolfOptimizer() {}
+    public GreyWolfOptimizer() {
+        this(30, 100);
+    }
 
     /**
      * Initializes a new instance of the GreyWolfOptimizer class.
@@ -82,7 +85,7 @@ public class GreyWolfOptimizer extends AbstractEvolutionaryOptimization implemen
     @Override
     public double[] Compute(ISingleObjectiveFunction function, List<DoubleRange> boundConstraint) {
         
-        Random rand = new Random();
+        Random rand = CreateRandom();
         
         int iter = 0;
 
@@ -98,7 +101,9 @@ public class GreyWolfOptimizer extends AbstractEvolutionaryOptimization implemen
         alphaScore = betaScore = deltaScore = Double.MAX_VALUE;
         
         //Initialize the population
-        double[][] pop = InitializePopulation(populationSize, boundConstraint);
+        double[][] pop = new double[populationSize][];
+        double[] fitness = new double[pop.length];
+        eval += Initialize(function, boundConstraint, rand, pop, fitness);
         
         //Best solution
         double[] best = new double[pop[0].length];
@@ -109,27 +114,24 @@ public class GreyWolfOptimizer extends AbstractEvolutionaryOptimization implemen
             //Update alpha, beta and delta
             for (int i = 0; i < pop.length; i++) {
                 
-                double fitness = function.Compute(pop[i]);
-                eval++;
-                
-                if(fitness < alphaScore){
-                    alphaScore = fitness;
-                    alpha = pop[i];
+                if(fitness[i] < alphaScore){
+                    alphaScore = fitness[i];
+                    alpha = Arrays.copyOf(pop[i], pop[i].length);
                 }
                 
-                if(fitness > alphaScore && fitness < betaScore){
-                    betaScore = fitness;
-                    beta = pop[i];
+                if(fitness[i] > alphaScore && fitness[i] < betaScore){
+                    betaScore = fitness[i];
+                    beta = Arrays.copyOf(pop[i], pop[i].length);
                 }
                 
-                if(fitness > alphaScore && fitness > betaScore && fitness < deltaScore){
-                    deltaScore = fitness;
-                    delta = pop[i];
+                if(fitness[i] > alphaScore && fitness[i] > betaScore && fitness[i] < deltaScore){
+                    deltaScore = fitness[i];
+                    delta = Arrays.copyOf(pop[i], pop[i].length);
                 }
                 
-                if(fitness < minError){
-                    minError = fitness;
-                    best = pop[i];
+                if(fitness[i] < minError){
+                    minError = fitness[i];
+                    best = Arrays.copyOf(pop[i], pop[i].length);
                 }
                 
             }
@@ -174,28 +176,25 @@ public class GreyWolfOptimizer extends AbstractEvolutionaryOptimization implemen
                 }
             }
             
+            Evaluate(function, pop, fitness);
+            eval += pop.length;
+            
             iter++;
             
         }
         
-        return best;
-        
-    }
-    
-    private double[][] InitializePopulation(int population, List<DoubleRange> boundConstraint){
-        
-        double[][] pop = new double[population][boundConstraint.size()];
-        
-        Random rand = new Random();
-        
+        //Best of the last population
         for (int i = 0; i < pop.length; i++) {
-            for (int j = 0; j < pop[0].length; j++) {
-                DoubleRange range = boundConstraint.get(j);
-                pop[i][j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
+            if(fitness[i] < minError){
+                minError = fitness[i];
+                best = Arrays.copyOf(pop[i], pop[i].length);
             }
         }
         
-        return pop;
+        SavePopulation(pop, fitness);
+        
+        return best;
         
     }
+    
 }
\ No newline at end of file
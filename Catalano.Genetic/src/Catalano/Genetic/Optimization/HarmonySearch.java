@@ -48,7 +48,6 @@
 package Catalano.Genetic.Optimization;
 
 import Catalano.Core.DoubleRange;
-import Catalano.Math.Matrix;
 import Catalano.Math.Tools;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -246,10 +245,13 @@ public class HarmonySearch extends AbstractEvolutionaryOptimization implements I
         //Reset parameters
         eval = 0;
         
-        Random rand = new Random();
+        Random rand = CreateRandom();
         
         //Initialize the population
-        List<Individual> pop = Individual.CreatePopulation(populationSize, boundConstraint, function);
+        double[][] init = new double[populationSize][];
+        double[] initFitness = new double[init.length];
+        eval += Initialize(function, boundConstraint, rand, init, initFitness);
+        List<Individual> pop = Individual.CreatePopulation(init, initFitness);
         
         //Sort population by your fitness
         Collections.sort(pop);
@@ -264,12 +266,8 @@ public class HarmonySearch extends AbstractEvolutionaryOptimization implements I
         //Initialize the algorithm
         for (int g = 0; g < generations; g++) {
             
-            //Initialize new pop
-            List<Individual> newPop = new ArrayList<Individual>(newHarmonies);
-            for (int i = 0; i < newHarmonies; i++) {
-                double[] values = Matrix.UniformRandom(boundConstraint);
-                newPop.add(new Individual(values));
-            }
+            //Initialize new harmonies
+            double[][] values = UniformRandom(newHarmonies, boundConstraint, rand);
             
             for (int i = 0; i < newHarmonies; i++) {
                 for (int j = 0; j < boundConstraint.size(); j++) {
@@ -277,24 +275,26 @@ public class HarmonySearch extends AbstractEvolutionaryOptimization implements I
                     //Harmony memory
                     if(rand.nextDouble() <= hmcr){
                         int randPos = rand.nextInt(pop.size());
-                        newPop.get(i).getLocation()[j] = pop.get(randPos).getLocation()[j];
+                        values[i][j] = pop.get(randPos).getLocation()[j];
                     }
                     
                     //Pitch adjustment
-                    double v = newPop.get(i).getLocation()[j];
+                    double v = values[i][j];
                     if(rand.nextDouble() <= pitch){
                         v += rand.nextGaussian() * fretWidth[j];
                     }
                     
                     //Clamp value
-                    newPop.get(i).getLocation()[j] = Tools.Clamp(v, boundConstraint.get(j));
+                    values[i][j] = Tools.Clamp(v, boundConstraint.get(j));
                 }
-                
-                //Compute fitness
-                newPop.get(i).setFitness(function.Compute(newPop.get(i).getLocation()));
-                eval++;
             }
             
+            //Compute fitness
+            double[] fitness = new double[newHarmonies];
+            Evaluate(function, values, fitness);
+            eval += newHarmonies;
+            List<Individual> newPop = Individual.CreatePopulation(values, fitness);
+            
             //Merge harmonies
             pop.addAll(newPop);
             
@@ -302,7 +302,7 @@ public class HarmonySearch extends AbstractEvolutionaryOptimization implements I
             Collections.sort(pop);
             
             //Truncate
-            pop = pop.subList(0, populationSize);
+            pop = new ArrayList<Individual>(pop.subList(0, populationSize));
             
             //Damp fret width
             for (int i = 0; i < fretWidth.length; i++) {
@@ -315,6 +315,8 @@ public class HarmonySearch extends AbstractEvolutionaryOptimization implements I
             
         }
         
+        SavePopulation(pop);
+        
         return best;
         
     }
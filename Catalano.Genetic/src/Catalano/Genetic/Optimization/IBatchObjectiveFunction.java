@@ -0,0 +1,37 @@
+// Catalano Genetic Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2018
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Genetic.Optimization;
+
+/**
+ * Common interface to single objective functions which evaluate many solutions at once.
+ * @author Diego Catalano
+ */
+public interface IBatchObjectiveFunction extends ISingleObjectiveFunction {
+    
+    /**
+     * Compute the objective of each solution.
+     * @param values Solutions, one per row.
+     * @param result Objective of each solution.
+     */
+    void Compute(double[][] values, double[] result);
+}
\ No newline at end of file
@@ -24,6 +24,9 @@ package Catalano.Genetic.Optimization;
 
 /**
  * Common interface to single objetive function.
+ * <p>
+ * The optimizers evaluate the solutions of a generation in parallel, so the
+ * function must be thread safe. Disable it with setParallel(false) otherwise.
  * @author Diego Catalano
  */
 public interface ISingleObjectiveFunction {
@@ -0,0 +1,364 @@
+// Catalano Genetic Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2018
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Genetic.Optimization;
+
+import Catalano.Core.ArraysUtil;
+import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Core.DoubleRange;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Island model.
+ * <p>
+ * Each island is an optimizer with its own population, which evolves in a
+ * separate thread. Every migration interval the islands stop and the best
+ * solutions of each island replace the worst ones of its neighbors, given by
+ * the topology. The islands can be different optimizers, but each island
+ * needs its own instance.
+ * <p>
+ * Each island runs the number of generations of its optimizer, at least one,
+ * starting from its initial population if it has one. The schedules
+ * of the optimizers (e.g. temperature, damping) restart at each interval.
+ * The same seed gives the same result, regardless of the number of threads.
+ * 
+ * @author Diego Catalano
+ */
+public class IslandModel implements IOptimization{
+    
+    /**
+     * Migration topology.
+     */
+    public static enum Topology{
+        
+        /**
+         * Each island receives the migrants of the previous island.
+         */
+        RING,
+        
+        /**
+         * Each island receives the migrants of all the other islands.
+         */
+        FULLY_CONNECTED,
+        
+        /**
+         * Each island receives the migrants of a random island.
+         */
+        RANDOM};
+    
+    private List<AbstractEvolutionaryOptimization> islands;
+    private int interval;
+    private int migrants;
+    private Topology topology;
+    private long seed;
+    
+    private long nEval;
+    private double minError;
+
+    @Override
+    public long getNumberOfEvaluations() {
+        return nEval;
+    }
+
+    @Override
+    public double getError() {
+        return minError;
+    }
+
+    /**
+     * Get the islands.
+     * @return Islands.
+     */
+    public List<AbstractEvolutionaryOptimization> getIslands() {
+        return islands;
+    }
+
+    /**
+     * Get migration interval.
+     * @return Number of generations between migrations.
+     */
+    public int getMigrationInterval() {
+        return interval;
+    }
+
+    /**
+     * Set migration interval.
+     * @param interval Number of generations between migrations.
+     */
+    public void setMigrationInterval(int interval) {
+        this.interval = Math.max(1, interval);
+    }
+
+    /**
+     * Get number of migrants.
+     * @return Number of solutions sent by each island.
+     */
+    public int getMigrants() {
+        return migrants;
+    }
+
+    /**
+     * Set number of migrants.
+     * @param migrants Number of solutions sent by each island.
+     */
+    public void setMigrants(int migrants) {
+        this.migrants = migrants;
+    }
+
+    /**
+     * Get migration topology.
+     * @return Topology.
+     */
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Set migration topology.
+     * @param topology Topology.
+     */
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+    }
+    
+    /**
+     * Get random seed.
+     * @return Random seed, 0 if a new seed is used for each run.
+     */
+    public long getSeed(){
+        return seed;
+    }
+    
+    /**
+     * Set random seed.
+     * @param seed Random seed, 0 to use a new seed for each run.
+     */
+    public void setSeed(long seed){
+        this.seed = seed;
+    }
+
+    /**
+     * Initializes a new instance of the IslandModel class.
+     * @param islands Optimizer of each island.
+     */
+    public IslandModel(AbstractEvolutionaryOptimization... islands) {
+        this(Arrays.asList(islands));
+    }
+    
+    /**
+     * Initializes a new instance of the IslandModel class.
+     * @param islands Optimizer of each island.
+     */
+    public IslandModel(List<AbstractEvolutionaryOptimization> islands) {
+        this(islands, 10, 2, Topology.RING);
+    }
+    
+    /**
+     * Initializes a new instance of the IslandModel class.
+     * @param islands Optimizer of each island.
+     * @param interval Number of generations between migrations.
+     * @param migrants Number of solutions sent by each island.
+     * @param topology Migration topology.
+     */
+    public IslandModel(List<AbstractEvolutionaryOptimization> islands, int interval, int migrants, Topology topology) {
+        this.islands = islands;
+        this.interval = Math.max(1, interval);
+        this.migrants = migrants;
+        this.topology = topology;
+    }
+
+    @Override
+    public double[] Compute(final ISingleObjectiveFunction function, final List<DoubleRange> boundConstraint) {
+        
+        nEval = 0;
+        minError = Double.MAX_VALUE;
+        double[] best = null;
+        
+        int n = islands.size();
+        Random rand = seed == 0 ? new Random() : new Random(seed);
+        
+        //Keep the settings of the islands
+        int[] generations = new int[n];
+        long[] seeds = new long[n];
+        boolean[] parallel = new boolean[n];
+        double[][][] initial = new double[n][][];
+        double[][] initialFitness = new double[n][];
+        int epochs = 0;
+        for (int i = 0; i < n; i++) {
+            AbstractEvolutionaryOptimization island = islands.get(i);
+            for (int j = 0; j < i; j++) {
+                if(islands.get(j) == island)
+                    throw new IllegalArgumentException("The islands " + j + " and " + i + " must be different optimizers.");
+            }
+            if(island.getGenerations() < 1)
+                throw new IllegalArgumentException("The island " + i + " must have at least one generation.");
+            generations[i] = island.getGenerations();
+            seeds[i] = island.getSeed();
+            parallel[i] = island.isParallel();
+            initial[i] = island.initialPopulation;
+            initialFitness[i] = island.initialFitness;
+            epochs = Math.max(epochs, (generations[i] + interval - 1) / interval);
+        }
+        
+        //The islands evaluate in parallel only with spare threads
+        boolean inner = n < MulticoreExecutor.getThreadPoolSize();
+        
+        final double[][][] pops = new double[n][][];
+        final double[][] fits = new double[n][];
+        final double[][] results = new double[n][];
+        
+        try{
+            for (int e = 0; e < epochs; e++) {
+
+                //Evolve the islands
+                final List<AbstractEvolutionaryOptimization> active = new ArrayList<AbstractEvolutionaryOptimization>(n);
+                final List<Integer> index = new ArrayList<Integer>(n);
+                for (int i = 0; i < n; i++) {
+                    AbstractEvolutionaryOptimization island = islands.get(i);
+                    int remaining = generations[i] - e * interval;
+                    long s = rand.nextLong();
+                    if(remaining <= 0) continue;
+
+                    island.setGenerations(Math.min(interval, remaining));
+                    island.setSeed(s == 0 ? 1 : s);
+                    island.setParallel(inner && parallel[i]);
+                    if(e == 0)
+                        island.setInitialPopulation(initial[i], initialFitness[i]);
+                    else
+                        island.setInitialPopulation(pops[i], fits[i]);
+                    active.add(island);
+                    index.add(i);
+                }
+
+                ParallelFor.Run(active.size(), new ParallelFor.Body() {
+                    @Override
+                    public void Compute(int from, int to) {
+                        for (int i = from; i < to; i++)
+                            results[index.get(i)] = active.get(i).Compute(function, boundConstraint);
+                    }
+                });
+
+                //Update the best solution, in the order of the islands
+                for (int i = 0; i < active.size(); i++) {
+                    AbstractEvolutionaryOptimization island = active.get(i);
+                    int k = index.get(i);
+                    pops[k] = island.getPopulation().clone();
+                    fits[k] = island.getPopulationFitness().clone();
+                    nEval += island.getNumberOfEvaluations();
+                    if(island.getError() < minError){
+                        minError = island.getError();
+                        best = Arrays.copyOf(results[k], results[k].length);
+                    }
+                }
+
+                if(e < epochs - 1)
+                    Migrate(pops, fits, rand);
+            }
+        }
+        finally{
+            for (int i = 0; i < n; i++) {
+                AbstractEvolutionaryOptimization island = islands.get(i);
+                island.setGenerations(generations[i]);
+                island.setSeed(seeds[i]);
+                island.setParallel(parallel[i]);
+                island.setInitialPopulation(initial[i], initialFitness[i]);
+            }
+        }
+        
+        return best;
+        
+    }
+    
+    /**
+     * Migrate the best solutions of each island to its neighbors.
+     * @param pops Population of each island.
+     * @param fits Fitness of each island.
+     * @param rand Random number generator.
+     */
+    private void Migrate(double[][][] pops, double[][] fits, Random rand){
+        
+        int n = pops.length;
+        if(n < 2 || migrants <= 0) return;
+        
+        //Emigrants, the best solutions of each island
+        double[][][] emigrants = new double[n][][];
+        double[][] emigrantsFitness = new double[n][];
+        for (int i = 0; i < n; i++) {
+            int[] order = ArraysUtil.Argsort(fits[i], true);
+            int m = Math.min(migrants, order.length);
+            emigrants[i] = new double[m][];
+            emigrantsFitness[i] = new double[m];
+            for (int j = 0; j < m; j++) {
+                emigrants[i][j] = Arrays.copyOf(pops[i][order[j]], pops[i][order[j]].length);
+                emigrantsFitness[i][j] = fits[i][order[j]];
+            }
+        }
+        
+        //Immigrants of each island replace the worst solutions
+        for (int i = 0; i < n; i++) {
+            
+            List<double[]> values = new ArrayList<double[]>();
+            List<Double> fitness = new ArrayList<Double>();
+            switch(topology){
+                case RING:{
+                    int j = (i + n - 1) % n;
+                    values.addAll(Arrays.asList(emigrants[j]));
+                    for (double f : emigrantsFitness[j]) fitness.add(f);
+                }
+                break;
+                case FULLY_CONNECTED:{
+                    for (int j = 0; j < n; j++) {
+                        if(j == i) continue;
+                        values.addAll(Arrays.asList(emigrants[j]));
+                        for (double f : emigrantsFitness[j]) fitness.add(f);
+                    }
+                }
+                break;
+                case RANDOM:{
+                    int j = rand.nextInt(n - 1);
+                    if(j >= i) j++;
+                    values.addAll(Arrays.asList(emigrants[j]));
+                    for (double f : emigrantsFitness[j]) fitness.add(f);
+                }
+                break;
+            }
+            
+            double[] f = new double[fitness.size()];
+            for (int j = 0; j < f.length; j++) f[j] = fitness.get(j);
+            int[] immigrants = ArraysUtil.Argsort(f, true);
+            int[] residents = ArraysUtil.Argsort(fits[i], false);
+            
+            //The best immigrant replaces the worst resident, the best resident is kept
+            int m = Math.min(immigrants.length, residents.length - 1);
+            for (int j = 0; j < m; j++) {
+                int k = residents[j];
+                if(f[immigrants[j]] >= fits[i][k]) break;
+                pops[i][k] = values.get(immigrants[j]);
+                fits[i][k] = f[immigrants[j]];
+            }
+        }
+    }
+}
\ No newline at end of file
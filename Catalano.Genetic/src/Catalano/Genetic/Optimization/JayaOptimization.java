@@ -73,27 +73,21 @@ public class JayaOptimization extends AbstractEvolutionaryOptimization implement
         minError = Double.MAX_VALUE;
         evals = 0;
         
-        Random rand = new Random();
+        Random rand = CreateRandom();
         
         //Generate the individuals
-        double[][] pop = new double[populationSize][boundConstraint.size()];
-        for (int i = 0; i < pop.length; i++) {
-            for (int j = 0; j < pop[0].length; j++) {
-                DoubleRange range = boundConstraint.get(j);
-                pop[i][j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
-            }
-        }
-
-        //Compute fitness
+        double[][] pop = new double[populationSize][];
         double[] fitness = new double[pop.length];
+        evals += Initialize(function, boundConstraint, rand, pop, fitness);
         for (int i = 0; i < fitness.length; i++){
-            fitness[i] = function.Compute(pop[i]);
             if(fitness[i] < minError){
                 minError = fitness[i];
                 best = Arrays.copyOf(pop[i], pop[0].length);
             }
         }
         
+        double[][] newPop = new double[pop.length][];
+        double[] newFitness = new double[pop.length];
         
         //Jaya algorithm
         for (int it = 0; it < generations; it++) {
@@ -112,21 +106,28 @@ public class JayaOptimization extends AbstractEvolutionaryOptimization implement
                     //Clamp values
                     newSolution[j] = Tools.Clamp(newSolution[j], boundConstraint.get(j));
                 }
-                
-                double f = function.Compute(newSolution);
-                evals++;
-                
+                newPop[i] = newSolution;
+            }
+            
+            //Compute fitness of the new solutions
+            Evaluate(function, newPop, newFitness);
+            evals += newPop.length;
+            
+            for (int i = 0; i < pop.length; i++) {
+                double f = newFitness[i];
                 if(f < fitness[i]){
-                    pop[i] = newSolution;
+                    pop[i] = newPop[i];
                     fitness[i] = f;
                 }
                 if(f < minError){
                     minError = f;
-                    best = Arrays.copyOf(newSolution, pop[0].length);
+                    best = Arrays.copyOf(newPop[i], pop[0].length);
                 }
             }
         }
         
+        SavePopulation(pop, fitness);
+        
         return best;
     }
 
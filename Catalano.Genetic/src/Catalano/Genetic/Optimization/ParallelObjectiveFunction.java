@@ -0,0 +1,64 @@
+// Catalano Genetic Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2018
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Genetic.Optimization;
+
+import Catalano.Core.Concurrent.ParallelFor;
+
+/**
+ * Evaluates the solutions of a single objective function in parallel.
+ * <p>
+ * The solutions are split among the threads and each result is stored at
+ * the index of its solution, so the results don't depend on the number of
+ * threads. An error of the function is thrown to the caller. The function
+ * must be thread safe.
+ * 
+ * @author Diego Catalano
+ */
+public class ParallelObjectiveFunction implements IBatchObjectiveFunction {
+    
+    private ISingleObjectiveFunction function;
+
+    /**
+     * Initializes a new instance of the ParallelObjectiveFunction class.
+     * @param function Objective function.
+     */
+    public ParallelObjectiveFunction(ISingleObjectiveFunction function) {
+        this.function = function;
+    }
+
+    @Override
+    public double Compute(double[] values) {
+        return function.Compute(values);
+    }
+
+    @Override
+    public void Compute(final double[][] values, final double[] result) {
+        ParallelFor.Run(values.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++)
+                    result[i] = function.Compute(values[i]);
+            }
+        });
+    }
+}
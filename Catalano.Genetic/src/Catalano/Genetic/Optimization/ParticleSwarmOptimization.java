@@ -58,7 +58,6 @@ import java.util.Random;
  */
 public class ParticleSwarmOptimization extends AbstractEvolutionaryOptimization implements IOptimization{
     
-    private long seed;
     private long nEval;
     
     private double gBest;
@@ -68,7 +67,7 @@ public class ParticleSwarmOptimization extends AbstractEvolutionaryOptimization
     private double C1;
     private double C2;
     
-    private Random random = new Random();
+    private Random random;
     
     private List<Particle> swarm;
 
@@ -154,7 +153,11 @@ public class ParticleSwarmOptimization extends AbstractEvolutionaryOptimization
         double wf = w;
 
         //Initialize the particles
-        Initialize(populationSize, boundConstraint, function, seed);
+        random = CreateRandom();
+        CreateSwarm(populationSize, boundConstraint, function);
+        
+        double[][] locations = new double[populationSize][];
+        double[] fitness = new double[populationSize];
         
         for (int i = 0; i < generations; i++) {
             
@@ -190,9 +193,18 @@ public class ParticleSwarmOptimization extends AbstractEvolutionaryOptimization
                     newLocation[k] = newLocation[k] > boundConstraint.get(k).getMax() ? boundConstraint.get(k).getMax() : newLocation[k];
                 }
                 p.setLocation(newLocation);
+                locations[j] = newLocation;
                 
-                p.setFitness(function.Compute(newLocation));
-                nEval++;
+            }
+            
+            //Compute the fitness of the swarm
+            Evaluate(function, locations, fitness);
+            nEval += populationSize;
+            
+            for (int j = 0; j < populationSize; j++) {
+                
+                Particle p = swarm.get(j);
+                p.setFitness(fitness[j]);
                 
                 if(p.getFitness() < p.getBestFitness()){
                     p.setBestLocation(p.getLocation());
@@ -203,10 +215,6 @@ public class ParticleSwarmOptimization extends AbstractEvolutionaryOptimization
                         gBest = p.getBestFitness();
                     }
                 }
-                
-                //Swap the swarm
-                swarm.set(j, p);
-                
             }
             
             //Dumping factor
@@ -214,35 +222,38 @@ public class ParticleSwarmOptimization extends AbstractEvolutionaryOptimization
             
         }
         
+        //The population is given by the best location of each particle
+        for (int j = 0; j < populationSize; j++) {
+            locations[j] = swarm.get(j).getBestLocation();
+            fitness[j] = swarm.get(j).getBestFitness();
+        }
+        SavePopulation(locations, fitness);
+        
         return gBestLocation;
         
     }
     
-    private void Initialize(int swarmSize, List<DoubleRange> location, ISingleObjectiveFunction function, long seed) {
+    private void CreateSwarm(int swarmSize, List<DoubleRange> location, ISingleObjectiveFunction function) {
         
         swarm = new ArrayList<Particle>(swarmSize);
         
         int size = location.size();
         
-        if(seed != 0) random.setSeed(seed);
+        // randomize location inside the bound constraint.
+        double[][] loc = new double[swarmSize][];
+        double[] fitness = new double[swarmSize];
+        nEval += Initialize(function, location, random, loc, fitness);
         
         for(int i = 0; i < swarmSize; i++) {
 
-            // randomize location inside the bound constraint.
-            double[] loc = new double[size];
-            for (int j = 0; j < size; j++) {
-                DoubleRange range = location.get(j);
-                loc[j] = range.getMin() + random.nextDouble() * (range.getMax() - range.getMin());
-            }
-
             // Initialize velocity.
             double[] vel = new double[size];
             
             Particle p = new Particle();
-            p.setLocation(loc);
-            p.setBestLocation(loc);
+            p.setLocation(loc[i]);
+            p.setBestLocation(loc[i]);
             p.setVelocity(vel);
-            p.setFitness(function.Compute(loc));
+            p.setFitness(fitness[i]);
             p.setBestFitness(p.getFitness());
             
             if(p.getFitness() < gBest){
@@ -47,7 +47,6 @@
 
 package Catalano.Genetic.Optimization;
 
-import Catalano.Core.ArraysUtil;
 import Catalano.Core.DoubleRange;
 import Catalano.Math.Matrix;
 import Catalano.Math.Tools;
@@ -132,24 +131,17 @@ public class RealCodedGeneticAlgorithm extends AbstractEvolutionaryOptimization
     @Override
     public double[] Compute(ISingleObjectiveFunction function, List<DoubleRange> boundConstraint) {
         
-         Random rand = new Random();
+         Random rand = CreateRandom();
          
          int popCO = 2*(int)(populationSize * crossoverPercentage)/2;
          int popMU = (int)(populationSize * mutationPercentage);
         
         //Generate the population
         int pSize = populationSize + popCO * 2 + popMU;
-        List<Individual> population = new ArrayList<Individual>(pSize);
-        for (int i = 0; i < pSize; i++) {
-            double[] values = new double[boundConstraint.size()];
-            for (int j = 0; j < values.length; j++) {
-                DoubleRange range = boundConstraint.get(j);
-                values[j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
-            }
-
-            Individual c = new Individual(values, function.Compute(values));
-            population.add(c);
-        }
+        double[][] init = new double[pSize][];
+        double[] initFitness = new double[pSize];
+        nEval = Initialize(function, boundConstraint, rand, init, initFitness);
+        List<Individual> population = Individual.CreatePopulation(init, initFitness);
         
         
         //Sort
@@ -164,17 +156,18 @@ public class RealCodedGeneticAlgorithm extends AbstractEvolutionaryOptimization
         for (int g = 0; g < generations; g++) {
             
             //Crossover
-            List<Individual> news = new ArrayList<Individual>(popCO + popMU);
+            double[][] news = new double[popCO / 2 * 2 + popMU][];
+            int n = 0;
             for (int i = 0; i < popCO/2; i++) {
                 
                 //Selection
                 int[] index = null;
                 switch(selection){
                     case Random:
-                        index = RandomSelection(population);
+                        index = RandomSelection(population, rand);
                     break;
                     case RoulleteWheelSelection:
-                        index = RoulleteWheelSelection(population, beta, maxError);
+                        index = RoulleteWheelSelection(population, beta, maxError, rand);
                     break;
                     case Elite:
                         index = EliteSelection();
@@ -184,32 +177,33 @@ public class RealCodedGeneticAlgorithm extends AbstractEvolutionaryOptimization
                 Individual c1 = population.get(index[0]);
                 Individual c2 = population.get(index[1]);
                 
-                double[][] elem = Crossover(c1.getLocation(), c2.getLocation(), 0.4, boundConstraint);
-
-                c1 = new Individual(elem[0], function.Compute(elem[0]));
-                c2 = new Individual(elem[1], function.Compute(elem[1]));
-                news.add(c1);
-                news.add(c2);
-                
-                nEval += 2;
+                double[][] elem = Crossover(c1.getLocation(), c2.getLocation(), 0.4, boundConstraint, rand);
+                news[n++] = elem[0];
+                news[n++] = elem[1];
             }
             
+            //Mutation
             for (int i = 0; i < popMU; i++) {
-                double[] elem = Mutation(population.get(rand.nextInt(population.size())).getLocation(), mutationRate, boundConstraint);
-                news.add(new Individual(elem, function.Compute(elem)));
-                nEval++;
+                news[n++] = Mutation(population.get(rand.nextInt(population.size())).getLocation(), mutationRate, boundConstraint, rand);
             }
             
-            population.addAll(news);
+            //Compute the fitness of the offspring
+            double[] fitness = new double[news.length];
+            Evaluate(function, news, fitness);
+            nEval += news.length;
+            
+            population.addAll(Individual.CreatePopulation(news, fitness));
             Collections.sort(population);
             
             best = Arrays.copyOf(population.get(0).getLocation(), boundConstraint.size());
             minError = population.get(0).getFitness();
             
-            population = population.subList(0, populationSize);
+            population = new ArrayList<Individual>(population.subList(0, populationSize));
             
         }
         
+        SavePopulation(population);
+        
         return best;
         
     }
@@ -228,11 +222,10 @@ public class RealCodedGeneticAlgorithm extends AbstractEvolutionaryOptimization
     /**
      * Random selection algorithm.
      * @param lst List of chromosomes.
+     * @param rand Random number generator.
      * @return Index of the selected chromosome.
      */
-    private int[] RandomSelection(List<Individual> lst){
-        
-        Random rand = new Random();
+    private int[] RandomSelection(List<Individual> lst, Random rand){
         
         int[] index = new int[2];
         index[0] = rand.nextInt(lst.size());
@@ -246,11 +239,11 @@ public class RealCodedGeneticAlgorithm extends AbstractEvolutionaryOptimization
      * Roullete Wheel Selection.
      * @param lst List of the chromosome.
      * @param worstError Worst error.
+     * @param rand Random number generator.
      * @return Index of the selected chromosome.
      */
-    private int[] RoulleteWheelSelection(List<Individual> lst, double beta, double worstError){
+    private int[] RoulleteWheelSelection(List<Individual> lst, double beta, double worstError, Random rand){
         
-        Random rand = new Random();
         double[] fitness = new double[lst.size()];
         
         double sum = 0;
@@ -282,9 +275,7 @@ public class RealCodedGeneticAlgorithm extends AbstractEvolutionaryOptimization
         return index;
     }
     
-    private double[][] Crossover(double[] a, double[] b, double gamma, List<DoubleRange> boundConstraint){
-        
-        Random rand = new Random();
+    private double[][] Crossover(double[] a, double[] b, double gamma, List<DoubleRange> boundConstraint, Random rand){
         
         double min = -gamma;
         double max = 1+gamma;
@@ -309,12 +300,10 @@ public class RealCodedGeneticAlgorithm extends AbstractEvolutionaryOptimization
         
     }
     
-    private double[] Mutation(double[] a, double mu, List<DoubleRange> boundConstraint){
-        
-        Random rand = new Random();
+    private double[] Mutation(double[] a, double mu, List<DoubleRange> boundConstraint, Random rand){
         
         int[] j = Matrix.Indices(0, a.length);
-        ArraysUtil.Shuffle(j);
+        Shuffle(j, rand);
         
         int n = (int)Math.ceil(mu*a.length);
         j = Arrays.copyOf(j, n);
@@ -48,7 +48,6 @@ package Catalano.Genetic.Optimization;
 
 import Catalano.Core.ArraysUtil;
 import Catalano.Core.DoubleRange;
-import Catalano.Math.Matrix;
 import Catalano.Math.Tools;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -277,25 +276,17 @@ public class RealCodedSimulatedAnnealing extends AbstractEvolutionaryOptimizatio
         minError = Double.MAX_VALUE;
         nEval = 0;
         
-        Random rand = new Random();
+        Random rand = CreateRandom();
 
         //Generate the individuals
-        double[][] pop = new double[populationSize][boundConstraint.size()];
-        for (int i = 0; i < pop.length; i++) {
-            for (int j = 0; j < pop[0].length; j++) {
-                DoubleRange range = boundConstraint.get(j);
-                pop[i][j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
-            }
-        }
-
-        //Compute fitness
+        double[][] pop = new double[populationSize][];
         double[] fitness = new double[pop.length];
-        for (int i = 0; i < fitness.length; i++)
-            fitness[i] = function.Compute(pop[i]);
+        nEval += Initialize(function, boundConstraint, rand, pop, fitness);
 
         
         //Initialize temp
         double t = t0;
+        double s = sigma;
         for (int i = 0; i < generations; i++) {
             
             double[][] newPop = new double[pop.length * move][pop[0].length];
@@ -305,7 +296,7 @@ public class RealCodedSimulatedAnnealing extends AbstractEvolutionaryOptimizatio
             double[] sigmaRange = new double[boundConstraint.size()];
             for (int m = 0; m < sigmaRange.length; m++) {
                 DoubleRange range = boundConstraint.get(m);
-                sigmaRange[m] = sigma * (range.getMax() - range.getMin());
+                sigmaRange[m] = s * (range.getMax() - range.getMin());
             }
             
             for (int j = 0; j < maxSub; j++) {
@@ -315,12 +306,14 @@ public class RealCodedSimulatedAnnealing extends AbstractEvolutionaryOptimizatio
                         
                         //Mutate
                         newPop[index] = Mutate(pop[k], mu, sigmaRange, boundConstraint, rand);
-                        newFitness[index] = function.Compute(newPop[index]);
                         index++;
-                        nEval++;
                     }
                 }
                 
+                //Compute fitness
+                Evaluate(function, newPop, newFitness);
+                nEval += newPop.length;
+                
                 //Sort
                 int[] order = ArraysUtil.Argsort(newFitness, true);
 
@@ -348,22 +341,23 @@ public class RealCodedSimulatedAnnealing extends AbstractEvolutionaryOptimizatio
             //Update Temp.
             t *= alpha;
 
-            sigma *= 0.98;
+            s *= 0.98;
         }
         
+        SavePopulation(pop, fitness);
+        
         return best;
         
     }
     
     private double[] Mutate(double[] solution, double mu, double[] sigmaRange, List<DoubleRange> boundConstraint, Random rand){
         
-        double[] v = Matrix.UniformRandom(0, 1, solution.length);
         List<Integer> lst = new ArrayList<Integer>();
-        for (int i = 0; i < v.length; i++) {
-            if(v[i] <= mu) lst.add(i);
+        for (int i = 0; i < solution.length; i++) {
+            if(rand.nextDouble() <= mu) lst.add(i);
         }
         
-        v = Arrays.copyOf(solution, solution.length);
+        double[] v = Arrays.copyOf(solution, solution.length);
         for (Integer i : lst) {
             v[i] = solution[i] + sigmaRange[i] * rand.nextGaussian();
             v[i] = Tools.Clamp(v[i], boundConstraint.get(i));
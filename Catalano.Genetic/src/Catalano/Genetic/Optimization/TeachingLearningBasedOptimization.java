@@ -97,21 +97,16 @@ public class TeachingLearningBasedOptimization extends AbstractEvolutionaryOptim
         minError = Double.MAX_VALUE;
         nEval = 0;
         
-        Random rand = new Random();
+        Random rand = CreateRandom();
 
         //Generate the individuals
-        double[][] pop = new double[populationSize][boundConstraint.size()];
-        for (int i = 0; i < pop.length; i++) {
-            for (int j = 0; j < pop[0].length; j++) {
-                DoubleRange range = boundConstraint.get(j);
-                pop[i][j] = range.getMin() + rand.nextDouble() * (range.getMax() - range.getMin());
-            }
-        }
-
-        //Compute fitness
+        double[][] pop = new double[populationSize][];
         double[] fitness = new double[pop.length];
-        for (int i = 0; i < fitness.length; i++)
-            fitness[i] = function.Compute(pop[i]);
+        nEval += Initialize(function, boundConstraint, rand, pop, fitness);
+        Update(pop, fitness, pop, fitness);
+        
+        double[][] newPop = new double[pop.length][];
+        double[] newFitness = new double[pop.length];
         
         //TLBO algorithm
         for (int it = 0; it < generations; it++) {
@@ -131,20 +126,13 @@ public class TeachingLearningBasedOptimization extends AbstractEvolutionaryOptim
                     newsol[j] = pop[i][j] + rand.nextDouble() * (teacher[j] - tf * mean[j]);
                     newsol[j] = Tools.Clamp(newsol[j], boundConstraint.get(j));
                 }
-                
-                double f = function.Compute(newsol);
-                nEval++;
-                
-                if(f < fitness[i]){
-                    pop[i] = newsol;
-                    fitness[i] = f;
-                    if(f < minError){
-                        minError = f;
-                        best = Arrays.copyOf(newsol, newsol.length);
-                    }
-                }
+                newPop[i] = newsol;
             }
             
+            Evaluate(function, newPop, newFitness);
+            nEval += newPop.length;
+            Update(pop, fitness, newPop, newFitness);
+            
             //Learner phase
             for (int i = 0; i < populationSize; i++) {
                 
@@ -162,21 +150,37 @@ public class TeachingLearningBasedOptimization extends AbstractEvolutionaryOptim
                     newsol[j] = pop[i][j] + rand.nextDouble() * step[j];
                     newsol[j] = Tools.Clamp(newsol[j], boundConstraint.get(j));
                 }
-                
-                double f = function.Compute(newsol);
-                nEval++;
-                
-                if(f < fitness[i]){
-                    pop[i] = newsol;
-                    fitness[i] = f;
-                    if(f < minError){
-                        minError = f;
-                        best = Arrays.copyOf(pop[i], pop[i].length);
-                    }
-                }
+                newPop[i] = newsol;
             }
+            
+            Evaluate(function, newPop, newFitness);
+            nEval += newPop.length;
+            Update(pop, fitness, newPop, newFitness);
         }
         
+        SavePopulation(pop, fitness);
+        
         return best;
     }
+    
+    /**
+     * Keep the new solutions which improve the learners and update the best solution.
+     * @param pop Learners.
+     * @param fitness Fitness of the learners.
+     * @param newPop New solutions.
+     * @param newFitness Fitness of the new solutions.
+     */
+    private void Update(double[][] pop, double[] fitness, double[][] newPop, double[] newFitness){
+        for (int i = 0; i < pop.length; i++) {
+            double f = newFitness[i];
+            if(f < fitness[i]){
+                pop[i] = newPop[i];
+                fitness[i] = f;
+            }
+            if(f < minError){
+                minError = f;
+                best = Arrays.copyOf(newPop[i], newPop[i].length);
+            }
+        }
+    }
 }
\ No newline at end of file
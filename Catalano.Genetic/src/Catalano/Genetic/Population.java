@@ -6,13 +6,13 @@
 
 package Catalano.Genetic;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Genetic.Crossover.ICrossover;
 import Catalano.Genetic.Fitness.IFitness;
 import Catalano.Genetic.Mutation.IMutation;
 import Catalano.Genetic.Selection.ISelection;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 
@@ -27,11 +27,13 @@ public class Population {
     private float crossoverRate;
     private float mutationRate;
     private List<IChromosome> list;
+    private List<IChromosome> offspring;
     
     private ISelection selection;
     private ICrossover crossover;
     private IMutation mutation;
     private boolean autoShuffle = false;
+    private boolean parallel = true;
     
     private IChromosome best;
     private double minError;
@@ -48,6 +50,23 @@ public class Population {
         this.autoShuffle = autoShuffle;
     }
 
+    /**
+     * Check if the fitness of the chromosomes is evaluated in parallel.
+     * @return True if the fitness is evaluated in parallel.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Set if the fitness of the chromosomes is evaluated in parallel.
+     * The fitness function must be thread safe when enabled.
+     * @param parallel True to evaluate the fitness in parallel.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     public Population(IChromosome base, int population, IFitness function, float crossoverRate, float mutationRate) {
         this.population = population;
         this.crossoverRate = crossoverRate;
@@ -63,28 +82,24 @@ public class Population {
     }
     
     private void Generate(IChromosome chromossome){
-        list = new ArrayList<IChromosome>(population);
-        
-        chromossome.Evaluate(function);
-        minError = chromossome.getFitness();
-        best = chromossome.Clone();
+        list = new ArrayList<IChromosome>(2 * population);
+        offspring = new ArrayList<IChromosome>(population);
         
         list.add(chromossome);
         for (int i = 1; i < population; i++) {
-            IChromosome c = chromossome.CreateNew();
-            c.Evaluate(function);
-            list.add(c);
-            
-            if(c.getFitness() < minError){
-                minError = c.getFitness();
-                best = c.Clone();
-            }
+            list.add(chromossome.CreateNew());
         }
+        Evaluate(list);
+        
+        IChromosome b = FindBestChromossome(list);
+        minError = b.getFitness();
+        best = b.Clone();
     }
     
     public void RunEpoch(){
         
         Random rand = new Random();
+        offspring.clear();
             
         //Crossover
         for (int i = 1; i < population; i+=2) {
@@ -94,21 +109,24 @@ public class Population {
                 int[] index = selection.Compute(list);
                 
                 List<IChromosome> elem = crossover.Compute(list.get(index[0]), list.get(index[1]));
-                elem.get(0).Evaluate(function);
-                elem.get(1).Evaluate(function);
-                list.addAll(elem);
+                offspring.addAll(elem);
             }
         }
         
-        //Mutation
-        for (int i = 0; i < list.size(); i++) {
+        //Mutation of the parents and of the children of the crossover
+        int size = list.size() + offspring.size();
+        for (int i = 0; i < size; i++) {
             if(rand.nextFloat() < mutationRate){
-                IChromosome c = (IChromosome)mutation.Compute(list.get(i));
-                c.Evaluate(function);
-                list.add(c);
+                IChromosome c = i < list.size() ? list.get(i) : offspring.get(i - list.size());
+                offspring.add((IChromosome)mutation.Compute(c));
             }
         }
         
+        //Evaluate the offspring
+        Evaluate(offspring);
+        list.addAll(offspring);
+        offspring.clear();
+        
         //Find best chromossome
         IChromosome bTemp = FindBestChromossome(list);
         if(bTemp.getFitness() > minError){
@@ -116,14 +134,15 @@ public class Population {
             best = bTemp.Clone();
         }
         
-        //Sort the chromossomes
+        //Move the new population to the front
         if(autoShuffle)
             Collections.shuffle(list);
         else
-            Sort();
+            Select(list, population, rand);
         
         //Get the new population
-        list = list.subList(0, population);
+        if(list.size() > population)
+            list.subList(population, list.size()).clear();
         
     }
     
@@ -134,7 +153,7 @@ public class Population {
         for (IChromosome c : list) {
             if(c.getFitness() > f){
                 f = c.getFitness();
-                b = c.Clone();
+                b = c;
             }
         }
         
@@ -142,14 +161,52 @@ public class Population {
         
     }
     
-    private void Sort(){
-        list.sort(new Comparator<IChromosome>() {
-
+    /**
+     * Evaluate the fitness of the chromosomes, in parallel if enabled.
+     * @param chromosomes Chromosomes.
+     */
+    private <C extends IChromosome<?>> void Evaluate(final List<C> chromosomes){
+        if(!parallel){
+            for (int i = 0; i < chromosomes.size(); i++)
+                chromosomes.get(i).Evaluate(function);
+            return;
+        }
+        
+        ParallelFor.Run(chromosomes.size(), new ParallelFor.Body() {
             @Override
-            public int compare(IChromosome o1, IChromosome o2) {
-                return Double.compare(o2.getFitness(), o1.getFitness());
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++)
+                    chromosomes.get(i).Evaluate(function);
             }
         });
     }
     
+    /**
+     * Partial selection of the chromosomes with the largest fitness.
+     * The k best chromosomes are moved to the front, not sorted.
+     * @param list Chromosomes.
+     * @param k Number of chromosomes.
+     * @param rand Random number generator of the pivots.
+     */
+    private static <C extends IChromosome<?>> void Select(List<C> list, int k, Random rand){
+        int left = 0;
+        int right = list.size() - 1;
+        while (left < right && k > left && k <= right) {
+            // Partition around a random pivot, larger fitness first.
+            Collections.swap(list, left + rand.nextInt(right - left + 1), right);
+            double pivot = list.get(right).getFitness();
+            int store = left;
+            for (int i = left; i < right; i++) {
+                if(list.get(i).getFitness() > pivot)
+                    Collections.swap(list, i, store++);
+            }
+            Collections.swap(list, store, right);
+            
+            if(store < k)
+                left = store + 1;
+            else
+                right = store - 1;
+        }
+    }
+    
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+// Catalano Graph Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of edges, used to build a {@link SparseGraph} from a stream of edges.
+ * The number of nodes is given by the largest node index.
+ * @author Diego Catalano
+ */
+public class EdgeList {
+    
+    private int[] from;
+    private int[] to;
+    private double[] weights;
+    private int size;
+    private int nodes;
+    private boolean weighted;
+
+    /**
+     * Initializes a new instance of the EdgeList class.
+     */
+    public EdgeList() {
+        this(16);
+    }
+    
+    /**
+     * Initializes a new instance of the EdgeList class.
+     * @param capacity Initial capacity.
+     */
+    public EdgeList(int capacity) {
+        capacity = Math.max(1, capacity);
+        this.from = new int[capacity];
+        this.to = new int[capacity];
+        this.weights = new double[capacity];
+    }
+    
+    /**
+     * Get number of edges.
+     * @return Number of edges.
+     */
+    public int getNumberOfEdges(){
+        return size;
+    }
+    
+    /**
+     * Get number of nodes.
+     * @return Number of nodes, the largest node index plus one.
+     */
+    public int getNumberOfNodes(){
+        return nodes;
+    }
+    
+    /**
+     * Check if any edge has a weight different of one.
+     * @return True if the edges are weighted.
+     */
+    public boolean isWeighted(){
+        return weighted;
+    }
+    
+    /**
+     * Get source node of each edge.
+     * @return Source nodes.
+     */
+    public int[] getSources(){
+        return Arrays.copyOf(from, size);
+    }
+    
+    /**
+     * Get target node of each edge.
+     * @return Target nodes.
+     */
+    public int[] getTargets(){
+        return Arrays.copyOf(to, size);
+    }
+    
+    /**
+     * Get weight of each edge.
+     * @return Weights.
+     */
+    public double[] getWeights(){
+        return Arrays.copyOf(weights, size);
+    }
+    
+    /**
+     * Add a directed edge.
+     * @param from Source node.
+     * @param to Target node.
+     */
+    public void Add(int from, int to){
+        Add(from, to, 1);
+    }
+    
+    /**
+     * Add a directed edge.
+     * @param from Source node.
+     * @param to Target node.
+     * @param weight Weight.
+     */
+    public void Add(int from, int to, double weight){
+        if(from < 0 || to < 0)
+            throw new IllegalArgumentException("The node index must be positive.");
+        
+        if(size == this.from.length){
+            int capacity = size * 2;
+            this.from = Arrays.copyOf(this.from, capacity);
+            this.to = Arrays.copyOf(this.to, capacity);
+            this.weights = Arrays.copyOf(this.weights, capacity);
+        }
+        
+        this.from[size] = from;
+        this.to[size] = to;
+        this.weights[size] = weight;
+        size++;
+        
+        nodes = Math.max(nodes, Math.max(from, to) + 1);
+        if(weight != 1) weighted = true;
+    }
+    
+    /**
+     * Add an undirected edge, stored as two directed edges.
+     * @param a Node.
+     * @param b Node.
+     */
+    public void AddUndirected(int a, int b){
+        AddUndirected(a, b, 1);
+    }
+    
+    /**
+     * Add an undirected edge, stored as two directed edges.
+     * @param a Node.
+     * @param b Node.
+     * @param weight Weight.
+     */
+    public void AddUndirected(int a, int b, double weight){
+        Add(a, b, weight);
+        if(a != b) Add(b, a, weight);
+    }
+    
+    /**
+     * Remove all the edges.
+     */
+    public void Clear(){
+        size = 0;
+        nodes = 0;
+        weighted = false;
+    }
+}
\ No newline at end of file
@@ -7,31 +7,65 @@
 package Catalano.Graph.Network;
 
 import Catalano.Graph.AdjacencyMatrix;
+import Catalano.Graph.Pathfinding.ShortestPaths;
+import Catalano.Graph.SparseGraph;
 
 /**
- *
+ * Closeness centrality.
+ * <p>
+ * The closeness of a node is the inverse of the average distance to the nodes
+ * it reaches, scaled by the fraction of nodes reached, so the graphs don't
+ * need to be connected. The distances follow the edges out of the node and
+ * the weights are the lengths of the edges.
+ * <p>
+ * The shortest paths from all the nodes are computed in parallel by
+ * {@link ShortestPaths}, keeping only one row of distances per thread.
+ * 
  * @author Diego
  */
 public class ClosenessCentrality {
 
+    /**
+     * Initializes a new instance of the ClosenessCentrality class.
+     */
     public ClosenessCentrality() {}
     
+    /**
+     * Compute closeness centrality.
+     * @param matrix Adjacency matrix, each non zero entry is an edge.
+     * @return Closeness of each node.
+     */
     public double[] Compute(AdjacencyMatrix matrix){
+        return Compute(new SparseGraph(matrix));
+    }
+    
+    /**
+     * Compute closeness centrality.
+     * @param graph Sparse graph.
+     * @return Closeness of each node.
+     */
+    public double[] Compute(SparseGraph graph){
         
-        double[] dc = new double[matrix.getData().length];
+        final double[] cc = new double[graph.getNumberOfNodes()];
+        final int n = cc.length;
         
-        double[][] data = matrix.getData();
-        for (int i = 0; i < data.length; i++) {
-            double v = 0;
-            for (int j = 0; j < data[0].length; j++) {
-                if(data[i][j] != 0 && data[i][j] != Double.POSITIVE_INFINITY){
-                    v += data[i][j];
+        new ShortestPaths(graph).Compute(new ShortestPaths.Receiver() {
+            @Override
+            public void Receive(int source, double[] distances) {
+                double sum = 0;
+                int reached = 0;
+                for (int i = 0; i < distances.length; i++) {
+                    if(i != source && distances[i] != Double.POSITIVE_INFINITY){
+                        sum += distances[i];
+                        reached++;
+                    }
                 }
+                if(sum > 0)
+                    cc[source] = (reached / sum) * (reached / (double)(n - 1));
             }
-            dc[i] = v / ((double)dc.length - 1);
-        }
+        });
         
-        return dc;
+        return cc;
     }
     
 }
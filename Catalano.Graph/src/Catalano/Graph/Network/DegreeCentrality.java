@@ -7,6 +7,7 @@
 package Catalano.Graph.Network;
 
 import Catalano.Graph.AdjacencyMatrix;
+import Catalano.Graph.SparseGraph;
 
 /**
  * 
@@ -42,4 +43,20 @@ public class DegreeCentrality {
         
         return dc;
     }
+    
+    public double[] Compute(SparseGraph graph){
+        
+        double[] dc = new double[graph.getNumberOfNodes()];
+        double edges = dc.length - 1;
+        
+        for (int i = 0; i < dc.length; i++) {
+            dc[i] = graph.getDegree(i);
+        }
+        
+        if(normalize)
+            for (int i = 0; i < dc.length; i++)
+                dc[i] /= edges;
+        
+        return dc;
+    }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@
 package Catalano.Graph.Network;
 
 import Catalano.Graph.AdjacencyMatrix;
+import Catalano.Graph.SparseGraph;
 import Catalano.Math.Matrix;
 
 /**
@@ -26,4 +27,12 @@ public class EigenvectorCentrality {
         
     }
     
+    public double[] Compute(SparseGraph graph){
+        
+        double[] dc = new DegreeCentrality().Compute(graph);
+        
+        return graph.Multiply(dc);
+        
+    }
+    
 }
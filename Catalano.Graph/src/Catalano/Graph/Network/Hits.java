@@ -23,6 +23,7 @@
 package Catalano.Graph.Network;
 
 import Catalano.Graph.AdjacencyMatrix;
+import Catalano.Graph.SparseGraph;
 import Catalano.Math.Matrix;
 
 /**
@@ -99,6 +100,24 @@ public class Hits {
         Compute(matrix);
     }
     
+    /**
+     * Initialize a new instance of the Hits class.
+     * @param graph Sparse graph.
+     */
+    public Hits(SparseGraph graph) {
+        Compute(graph);
+    }
+    
+    /**
+     * Initialize a new instance of the Hits class.
+     * @param graph Sparse graph.
+     * @param epsilon Epsilon value.
+     */
+    public Hits(SparseGraph graph, double epsilon){
+        setEpsilon(epsilon);
+        Compute(graph);
+    }
+    
     /**
      * Compute Hits.
      * @param matrix Adjacency matrix.
@@ -129,6 +148,7 @@ public class Hits {
         authority = weights;
         hubs = weights;
         
+        it = 0;
         double maxDiff = Double.MAX_VALUE;
         while(maxDiff > epsilon){
         
@@ -147,6 +167,70 @@ public class Hits {
         
     }
     
+    /**
+     * Compute Hits.
+     * @param graph Sparse graph.
+     */
+    public void Compute(SparseGraph graph){
+        //Basic weights.
+        double[] weights = Matrix.CreateMatrix1D(graph.getNumberOfNodes(), 1D);
+        Compute(graph, weights);
+    }
+    
+    /**
+     * Compute Hits.
+     * Each iteration is O(E), the products are computed in parallel over the nodes.
+     * @param graph Sparse graph.
+     * @param weights Normalized weights.[0..1]
+     */
+    public void Compute(SparseGraph graph, double[] weights){
+        
+        int n = graph.getNumberOfNodes();
+        if(n != weights.length)
+            throw new IllegalArgumentException("The number of nodes must be the same lenght of the weights.");
+        
+        SparseGraph t = graph.Transpose();
+        double[] temp = new double[n];
+        
+        //Create Authority and Hubs weights.
+        authority = weights;
+        hubs = weights;
+        
+        it = 0;
+        double maxDiff = Double.MAX_VALUE;
+        while(maxDiff > epsilon){
+        
+            //Compute authority: a = A' * A * a
+            double[] a = new double[n];
+            graph.Multiply(authority, temp);
+            t.Multiply(temp, a);
+            Normalize(a);
+
+            //Compute hubs = h = A * A' * h
+            double[] h = new double[n];
+            t.Multiply(hubs, temp);
+            graph.Multiply(temp, h);
+            Normalize(h);
+            
+            maxDiff = Convergency(authority, hubs, a, h);
+            
+            authority = a;
+            hubs = h;
+            it++;
+        }
+        
+    }
+    
+    private void Normalize(double[] v){
+        double sum = 0;
+        for (int i = 0; i < v.length; i++) {
+            sum += v[i];
+        }
+        for (int i = 0; i < v.length; i++) {
+            v[i] /= sum;
+        }
+    }
+    
     /**
      * Equivalent like Multiply by Transpose, but with normalizations.
      * @param m Matrix.
@@ -178,10 +262,10 @@ public class Hits {
     
     private double Convergency(double[] oldAuthority, double[] oldHubs, double[] authority, double[] hubs){
         
-        double maxDiff = Double.MAX_VALUE;
+        double maxDiff = 0;
         for (int i = 0; i < oldAuthority.length; i++) {
-            maxDiff = Math.min(maxDiff, Math.abs(oldAuthority[i] - authority[i]));
-            maxDiff = Math.min(maxDiff, Math.abs(oldHubs[i] - hubs[i]));
+            maxDiff = Math.max(maxDiff, Math.abs(oldAuthority[i] - authority[i]));
+            maxDiff = Math.max(maxDiff, Math.abs(oldHubs[i] - hubs[i]));
         }
         
         return maxDiff;
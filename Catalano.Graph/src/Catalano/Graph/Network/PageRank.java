@@ -22,7 +22,9 @@
 
 package Catalano.Graph.Network;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Graph.AdjacencyMatrix;
+import Catalano.Graph.SparseGraph;
 
 /**
  * PageRank algorithm.
@@ -100,7 +102,7 @@ public class PageRank {
         
         //Basic weights. 1/n
         double[] w = new double[matrix.getData().length];
-        double t = 1 / w.length;
+        double t = 1 / (double)w.length;
         for (int i = 0; i < w.length; i++) {
             w[i] = t;
         }
@@ -120,7 +122,6 @@ public class PageRank {
             throw new IllegalArgumentException("The matrix lenght must be the same lenght of the weights.");
         
         double[][] m = matrix.getData();
-        double[] ranks = new double[m.length];
         double[] outs = new double[m.length];
         
         //Calculate the number of outs for each node
@@ -134,15 +135,16 @@ public class PageRank {
         }
         
         //Inital wwights to all nodes
-        ranks = weights;
+        double[] ranks = weights.clone();
         
         //Common calculation for all nodes
         double part1 = (1 - factor) / (double)m.length;
         
+        it = 0;
         double maxDiff = Double.MAX_VALUE;
-        double[] oldRanks = ranks.clone();
         while(maxDiff > epsilon){
             //Calculate page rank
+            double[] newRanks = new double[m.length];
             for (int j = 0; j < m[0].length; j++) {
                 double part2 = 0;
                 for (int i = 0; i < m.length; i++) {
@@ -150,10 +152,84 @@ public class PageRank {
                         part2 += ranks[i] / outs[i];
                     }
                 }
-                ranks[j] = part1 + factor * part2;
+                newRanks[j] = part1 + factor * part2;
             }
             
-            maxDiff = Convergency(oldRanks, ranks);
+            maxDiff = Convergency(ranks, newRanks);
+            ranks = newRanks;
+            it++;
+        }
+        return ranks;
+    }
+    
+    /**
+     * Compute PageRank.
+     * @param graph Sparse graph.
+     * @return Ranks.
+     */
+    public double[] Compute(SparseGraph graph){
+        
+        //Basic weights. 1/n
+        double[] w = new double[graph.getNumberOfNodes()];
+        double t = 1 / (double)w.length;
+        for (int i = 0; i < w.length; i++) {
+            w[i] = t;
+        }
+        
+        return Compute(graph, w);
+    }
+    
+    /**
+     * Compute PageRank.
+     * Each iteration is O(E), the ranks of the nodes are computed in parallel from the edges to them.
+     * @param graph Sparse graph.
+     * @param weights Inital weights,
+     * @return Ranks.
+     */
+    public double[] Compute(SparseGraph graph, double[] weights){
+        
+        final int n = graph.getNumberOfNodes();
+        if(n != weights.length)
+            throw new IllegalArgumentException("The number of nodes must be the same lenght of the weights.");
+        
+        //Edges to each node
+        SparseGraph t = graph.Transpose();
+        final int[] offsets = t.getOffsets();
+        final int[] sources = t.getTargets();
+        
+        double[] ranks = weights.clone();
+        final double[] share = new double[n];
+        
+        //Common calculation for all nodes
+        final double part1 = (1 - factor) / (double)n;
+        
+        it = 0;
+        double maxDiff = Double.MAX_VALUE;
+        while(maxDiff > epsilon){
+            
+            //Rank given by each node to each of its outs
+            for (int i = 0; i < n; i++) {
+                int outs = graph.getDegree(i);
+                share[i] = outs == 0 ? 0 : ranks[i] / outs;
+            }
+            
+            //Calculate page rank
+            final double[] newRanks = new double[n];
+            ParallelFor.Run(n, 1024, new ParallelFor.Body() {
+                @Override
+                public void Compute(int from, int to) {
+                    for (int j = from; j < to; j++) {
+                        double part2 = 0;
+                        for (int k = offsets[j]; k < offsets[j + 1]; k++) {
+                            part2 += share[sources[k]];
+                        }
+                        newRanks[j] = part1 + factor * part2;
+                    }
+                }
+            });
+            
+            maxDiff = Convergency(ranks, newRanks);
+            ranks = newRanks;
             it++;
         }
         return ranks;
@@ -167,9 +243,9 @@ public class PageRank {
      */
     private double Convergency(double[] oldRanks, double[] ranks){
         
-        double maxDiff = Double.MAX_VALUE;
+        double maxDiff = 0;
         for (int i = 0; i < ranks.length; i++) {
-            maxDiff = Math.min(maxDiff, oldRanks[i] - ranks[i]);
+            maxDiff = Math.max(maxDiff, Math.abs(oldRanks[i] - ranks[i]));
         }
         return maxDiff;
         
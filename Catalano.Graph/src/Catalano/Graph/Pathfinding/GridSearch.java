@@ -0,0 +1,470 @@
+// Catalano Graph Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Graph.Pathfinding;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Core.IntPoint;
+import Catalano.Graph.Pathfinding.AStar.AStar;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Grid search, A* over a cost map.
+ * <p>
+ * The nodes are the cells of the map, stored by index. Each thread keeps a
+ * workspace with a primitive binary heap and the arrays of the search, which
+ * are reused across queries: a generation stamp marks the visited cells, so
+ * they are not cleared. The cost of a move is the cost of the entered cell,
+ * times sqrt(2) for the diagonals. Cells with zero cost are blocked and the
+ * diagonal moves can't cut their corners.
+ * <p>
+ * The coordinates are the same of {@link AStar}, costMap[x][y]. The map must
+ * not be changed while searching.
+ * 
+ * @author Diego Catalano
+ */
+public class GridSearch implements ISearch {
+    
+    protected static final double SQRT2 = Math.sqrt(2);
+    
+    protected int width;
+    protected int height;
+    protected double[] cost;
+    protected AStar.Neighbor neighbor;
+    
+    private double minCost = -1;
+    
+    private final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>();
+
+    /**
+     * Get width of the map.
+     * @return Width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get height of the map.
+     * @return Height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get neighbor size of the algorithm.
+     * @return Neighbor.
+     */
+    public AStar.Neighbor getNeighbor() {
+        return neighbor;
+    }
+    
+    /**
+     * Get cost from a point.
+     * @param x X axis coordinate.
+     * @param y Y axis coordinate.
+     * @return Cost.
+     */
+    public double getCost(int x, int y){
+        return cost[x * width + y];
+    }
+    
+    /**
+     * Set cost.
+     * @param x X axis coordinate.
+     * @param y Y axis coordinate.
+     * @param cost Cost, zero to block the cell.
+     */
+    public void setCost(int x, int y, double cost){
+        if(cost < 0)
+            throw new IllegalArgumentException("The cost must be positive.");
+        this.cost[x * width + y] = cost;
+        minCost = -1;
+    }
+    
+    /**
+     * Verify if the cell is blocked.
+     * @param x X axis coordinate.
+     * @param y Y axis coordinate.
+     * @return True if is blocked, otherwise false.
+     */
+    public boolean isBlocked(int x, int y){
+        return cost[x * width + y] == 0;
+    }
+
+    /**
+     * Initializes a new instance of the GridSearch class.
+     * @param costMap Cost map.
+     */
+    public GridSearch(double[][] costMap) {
+        this(costMap, AStar.Neighbor.Eight);
+    }
+    
+    /**
+     * Initializes a new instance of the GridSearch class.
+     * @param costMap Cost map.
+     * @param neighbor Neighbor.
+     */
+    public GridSearch(double[][] costMap, AStar.Neighbor neighbor) {
+        this.height = costMap.length;
+        this.width = costMap[0].length;
+        this.neighbor = neighbor;
+        this.cost = new double[width * height];
+        for (int x = 0; x < height; x++) {
+            for (int y = 0; y < width; y++) {
+                setCost(x, y, costMap[x][y]);
+            }
+        }
+    }
+
+    @Override
+    public ArrayList<IntPoint> FindPath(IntPoint start, IntPoint end) {
+        return FindPath(start.x, start.y, end.x, end.y);
+    }
+    
+    /**
+     * Find path.
+     * @param startX Start X axis coordinate.
+     * @param startY Start Y axis coordinate.
+     * @param endX End X axis coordinate.
+     * @param endY End Y axis coordinate.
+     * @return List of points from the start to the end, empty if there is no path.
+     */
+    @Override
+    public ArrayList<IntPoint> FindPath(int startX, int startY, int endX, int endY) {
+        ArrayList<IntPoint> path = new ArrayList<IntPoint>();
+        Workspace w = getWorkspace();
+        int start = startX * width + startY;
+        int end = endX * width + endY;
+        if(Search(w, start, end) < 0) return path;
+        
+        //Jump back from the end to the start
+        int n = 0;
+        for (int node = end; node != -1; node = w.parent[node]) {
+            w.path[n++] = node;
+        }
+        path.add(new IntPoint(startX, startY));
+        for (int i = n - 1; i > 0; i--) {
+            AddPath(path, w.path[i], w.path[i - 1]);
+        }
+        return path;
+    }
+    
+    /**
+     * Find the cost of the shortest path, without building it.
+     * @param startX Start X axis coordinate.
+     * @param startY Start Y axis coordinate.
+     * @param endX End X axis coordinate.
+     * @param endY End Y axis coordinate.
+     * @return Cost of the path, infinity if there is no path.
+     */
+    public double Distance(int startX, int startY, int endX, int endY) {
+        double d = Search(getWorkspace(), startX * width + startY, endX * width + endY);
+        return d < 0 ? Double.POSITIVE_INFINITY : d;
+    }
+    
+    /**
+     * Find the path of many queries, computed in parallel.
+     * @param starts Start points.
+     * @param ends End points.
+     * @return Path of each query.
+     */
+    public List<ArrayList<IntPoint>> FindPaths(final IntPoint[] starts, final IntPoint[] ends) {
+        if(starts.length != ends.length)
+            throw new IllegalArgumentException("The number of start and end points must be the same.");
+        
+        final List<ArrayList<IntPoint>> paths = new ArrayList<ArrayList<IntPoint>>(Collections.nCopies(starts.length, (ArrayList<IntPoint>)null));
+        ParallelFor.Run(starts.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++)
+                    paths.set(i, FindPath(starts[i], ends[i]));
+            }
+        });
+        return paths;
+    }
+    
+    /**
+     * Find the cost of the shortest path of many queries, computed in parallel.
+     * @param starts Start points.
+     * @param ends End points.
+     * @return Cost of each path, infinity if there is no path.
+     */
+    public double[] Distances(final IntPoint[] starts, final IntPoint[] ends) {
+        if(starts.length != ends.length)
+            throw new IllegalArgumentException("The number of start and end points must be the same.");
+        
+        final double[] distances = new double[starts.length];
+        ParallelFor.Run(starts.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++)
+                    distances[i] = Distance(starts[i].x, starts[i].y, ends[i].x, ends[i].y);
+            }
+        });
+        return distances;
+    }
+    
+    /**
+     * A* search.
+     * @param w Workspace.
+     * @param start Start node.
+     * @param end End node.
+     * @return Cost of the path, -1 if there is no path.
+     */
+    private double Search(Workspace w, int start, int end) {
+        if(cost[start] == 0 || cost[end] == 0) return -1;
+        
+        int gen = w.Next();
+        w.seen[start] = gen;
+        w.g[start] = 0;
+        w.parent[start] = -1;
+        w.Push(start, Heuristic(start, end));
+        
+        while (w.size > 0) {
+            int current = w.Pop();
+            if(current == end) return w.g[end];
+            w.closed[current] = gen;
+            
+            int n = Successors(w, current, w.parent[current], end);
+            for (int i = 0; i < n; i++) {
+                int next = w.successors[i];
+                if(w.closed[next] == gen) continue;
+                
+                double g = w.g[current] + w.steps[i];
+                if(w.seen[next] != gen){
+                    w.seen[next] = gen;
+                    w.g[next] = g;
+                    w.parent[next] = current;
+                    w.Push(next, g + Heuristic(next, end));
+                }
+                else if(g < w.g[next]){
+                    w.g[next] = g;
+                    w.parent[next] = current;
+                    w.Decrease(next, g + Heuristic(next, end));
+                }
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Compute the successors of a node.
+     * @param w Workspace, receives the successors and the cost of each step.
+     * @param node Node.
+     * @param parent Parent of the node, -1 for the start.
+     * @param end End node.
+     * @return Number of successors.
+     */
+    protected int Successors(Workspace w, int node, int parent, int end) {
+        int x = node / width;
+        int y = node % width;
+        int n = 0;
+        
+        boolean up = isWalkable(x - 1, y);
+        boolean down = isWalkable(x + 1, y);
+        boolean left = isWalkable(x, y - 1);
+        boolean right = isWalkable(x, y + 1);
+        
+        if(up) { w.successors[n] = node - width; w.steps[n++] = cost[node - width]; }
+        if(down) { w.successors[n] = node + width; w.steps[n++] = cost[node + width]; }
+        if(left) { w.successors[n] = node - 1; w.steps[n++] = cost[node - 1]; }
+        if(right) { w.successors[n] = node + 1; w.steps[n++] = cost[node + 1]; }
+        
+        if(neighbor == AStar.Neighbor.Eight){
+            if(up && left && isWalkable(x - 1, y - 1)) { w.successors[n] = node - width - 1; w.steps[n++] = SQRT2 * cost[node - width - 1]; }
+            if(up && right && isWalkable(x - 1, y + 1)) { w.successors[n] = node - width + 1; w.steps[n++] = SQRT2 * cost[node - width + 1]; }
+            if(down && left && isWalkable(x + 1, y - 1)) { w.successors[n] = node + width - 1; w.steps[n++] = SQRT2 * cost[node + width - 1]; }
+            if(down && right && isWalkable(x + 1, y + 1)) { w.successors[n] = node + width + 1; w.steps[n++] = SQRT2 * cost[node + width + 1]; }
+        }
+        
+        return n;
+    }
+    
+    /**
+     * Admissible heuristic, the distance to the end with the minimum cost.
+     * @param node Node.
+     * @param end End node.
+     * @return Lower bound of the cost to the end.
+     */
+    protected double Heuristic(int node, int end) {
+        double c = minCost;
+        if(c < 0){
+            c = Double.MAX_VALUE;
+            for (int i = 0; i < cost.length; i++)
+                if(cost[i] > 0 && cost[i] < c) c = cost[i];
+            minCost = c;
+        }
+        
+        int dx = Math.abs(node / width - end / width);
+        int dy = Math.abs(node % width - end % width);
+        if(neighbor == AStar.Neighbor.Four)
+            return c * (dx + dy);
+        return c * Octile(dx, dy);
+    }
+    
+    /**
+     * Add the cells of a step of the path.
+     * @param path Path.
+     * @param from Node already in the path.
+     * @param to Next node.
+     */
+    protected void AddPath(ArrayList<IntPoint> path, int from, int to) {
+        path.add(new IntPoint(to / width, to % width));
+    }
+    
+    /**
+     * Check if the cell is inside the map and not blocked.
+     * @param x X axis coordinate.
+     * @param y Y axis coordinate.
+     * @return True if the cell is walkable.
+     */
+    protected boolean isWalkable(int x, int y) {
+        return x >= 0 && y >= 0 && x < height && y < width && cost[x * width + y] > 0;
+    }
+    
+    /**
+     * Octile distance.
+     * @param dx Absolute difference in X.
+     * @param dy Absolute difference in Y.
+     * @return Distance with diagonal moves.
+     */
+    protected static double Octile(int dx, int dy) {
+        int min = Math.min(dx, dy);
+        return Math.max(dx, dy) - min + SQRT2 * min;
+    }
+    
+    private Workspace getWorkspace() {
+        Workspace w = workspace.get();
+        if(w == null){
+            w = new Workspace(width * height);
+            workspace.set(w);
+        }
+        return w;
+    }
+    
+    /**
+     * Arrays of a search, reused across queries.
+     */
+    protected static class Workspace {
+        
+        int generation;
+        int[] seen;
+        int[] closed;
+        double[] g;
+        int[] parent;
+        int[] path;
+        
+        // successors of a node and the cost of each step
+        int[] successors = new int[8];
+        double[] steps = new double[8];
+        
+        // binary heap of nodes by f, with the position of each node
+        int size;
+        int[] heap;
+        double[] f;
+        int[] position;
+
+        Workspace(int nodes) {
+            seen = new int[nodes];
+            closed = new int[nodes];
+            g = new double[nodes];
+            parent = new int[nodes];
+            path = new int[nodes];
+            heap = new int[nodes];
+            f = new double[nodes];
+            position = new int[nodes];
+        }
+        
+        /**
+         * Start a new search.
+         * @return Generation.
+         */
+        int Next() {
+            size = 0;
+            if(++generation == Integer.MAX_VALUE){
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                generation = 1;
+            }
+            return generation;
+        }
+        
+        void Push(int node, double value) {
+            f[node] = value;
+            position[node] = size;
+            heap[size++] = node;
+            Up(size - 1);
+        }
+        
+        void Decrease(int node, double value) {
+            f[node] = value;
+            Up(position[node]);
+        }
+        
+        int Pop() {
+            int top = heap[0];
+            int last = heap[--size];
+            if(size > 0){
+                heap[0] = last;
+                position[last] = 0;
+                Down(0);
+            }
+            return top;
+        }
+        
+        private void Up(int i) {
+            int node = heap[i];
+            double v = f[node];
+            while (i > 0) {
+                int p = (i - 1) >> 1;
+                if(f[heap[p]] <= v) break;
+                heap[i] = heap[p];
+                position[heap[i]] = i;
+                i = p;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+        
+        private void Down(int i) {
+            int node = heap[i];
+            double v = f[node];
+            while (true) {
+                int c = 2 * i + 1;
+                if(c >= size) break;
+                if(c + 1 < size && f[heap[c + 1]] < f[heap[c]]) c++;
+                if(f[heap[c]] >= v) break;
+                heap[i] = heap[c];
+                position[heap[i]] = i;
+                i = c;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+    }
+}
\ No newline at end of file
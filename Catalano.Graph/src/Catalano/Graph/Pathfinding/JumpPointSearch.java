@@ -0,0 +1,176 @@
+// Catalano Graph Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Graph.Pathfinding;
+
+import Catalano.Core.IntPoint;
+import Catalano.Graph.Pathfinding.AStar.AStar;
+import java.util.ArrayList;
+
+/**
+ * Jump Point Search.
+ * <p>
+ * A* for uniform-cost grids with eight neighbors. The straight and diagonal
+ * runs without forced neighbors are skipped, so only the jump points are
+ * pushed into the heap. The costs of the map only tell the blocked cells,
+ * each move costs 1 and the diagonal moves sqrt(2), so the paths have the
+ * same cost of a {@link GridSearch} over a map of ones.
+ * 
+ * @author Diego Catalano
+ */
+public class JumpPointSearch extends GridSearch {
+
+    /**
+     * Initializes a new instance of the JumpPointSearch class.
+     * @param costMap Cost map, zero for blocked cells.
+     */
+    public JumpPointSearch(double[][] costMap) {
+        super(costMap, AStar.Neighbor.Eight);
+    }
+
+    @Override
+    protected int Successors(Workspace w, int node, int parent, int end) {
+        int x = node / width;
+        int y = node % width;
+        int n = 0;
+        
+        if(parent == -1){
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if(dx == 0 && dy == 0) continue;
+                    if(dx != 0 && dy != 0 && !(isWalkable(x + dx, y) && isWalkable(x, y + dy))) continue;
+                    n = AddJump(w, n, x, y, dx, dy, end);
+                }
+            }
+            return n;
+        }
+        
+        int dx = Integer.signum(x - parent / width);
+        int dy = Integer.signum(y - parent % width);
+        
+        if(dx != 0 && dy != 0){
+            boolean vertical = isWalkable(x + dx, y);
+            boolean horizontal = isWalkable(x, y + dy);
+            if(vertical) n = AddJump(w, n, x, y, dx, 0, end);
+            if(horizontal) n = AddJump(w, n, x, y, 0, dy, end);
+            if(vertical && horizontal) n = AddJump(w, n, x, y, dx, dy, end);
+        }
+        else if(dx != 0){
+            boolean next = isWalkable(x + dx, y);
+            boolean left = isWalkable(x, y - 1);
+            boolean right = isWalkable(x, y + 1);
+            if(next){
+                n = AddJump(w, n, x, y, dx, 0, end);
+                if(left) n = AddJump(w, n, x, y, dx, -1, end);
+                if(right) n = AddJump(w, n, x, y, dx, 1, end);
+            }
+            if(left) n = AddJump(w, n, x, y, 0, -1, end);
+            if(right) n = AddJump(w, n, x, y, 0, 1, end);
+        }
+        else{
+            boolean next = isWalkable(x, y + dy);
+            boolean up = isWalkable(x - 1, y);
+            boolean down = isWalkable(x + 1, y);
+            if(next){
+                n = AddJump(w, n, x, y, 0, dy, end);
+                if(up) n = AddJump(w, n, x, y, -1, dy, end);
+                if(down) n = AddJump(w, n, x, y, 1, dy, end);
+            }
+            if(up) n = AddJump(w, n, x, y, -1, 0, end);
+            if(down) n = AddJump(w, n, x, y, 1, 0, end);
+        }
+        
+        return n;
+    }
+    
+    @Override
+    protected double Heuristic(int node, int end) {
+        return Octile(Math.abs(node / width - end / width), Math.abs(node % width - end % width));
+    }
+
+    @Override
+    protected void AddPath(ArrayList<IntPoint> path, int from, int to) {
+        int x = from / width;
+        int y = from % width;
+        int tx = to / width;
+        int ty = to % width;
+        int dx = Integer.signum(tx - x);
+        int dy = Integer.signum(ty - y);
+        while (x != tx || y != ty) {
+            x += dx;
+            y += dy;
+            path.add(new IntPoint(x, y));
+        }
+    }
+    
+    /**
+     * Jump from a node and add the jump point found as successor.
+     * @return Number of successors.
+     */
+    private int AddJump(Workspace w, int n, int x, int y, int dx, int dy, int end) {
+        int jump = Jump(x + dx, y + dy, dx, dy, end);
+        if(jump >= 0){
+            w.successors[n] = jump;
+            w.steps[n] = Octile(Math.abs(jump / width - x), Math.abs(jump % width - y));
+            n++;
+        }
+        return n;
+    }
+    
+    /**
+     * Walk in a direction until a jump point.
+     * @param x X axis coordinate of the first cell.
+     * @param y Y axis coordinate of the first cell.
+     * @param dx Direction in X.
+     * @param dy Direction in Y.
+     * @param end End node.
+     * @return Jump point, -1 if the walk reaches a blocked cell.
+     */
+    private int Jump(int x, int y, int dx, int dy, int end) {
+        while (isWalkable(x, y)) {
+            int node = x * width + y;
+            if(node == end) return node;
+            
+            if(dx != 0 && dy != 0){
+                // a diagonal move stops where a straight walk finds a jump point
+                if(Jump(x + dx, y, dx, 0, end) >= 0 || Jump(x, y + dy, 0, dy, end) >= 0)
+                    return node;
+                if(!(isWalkable(x + dx, y) && isWalkable(x, y + dy)))
+                    return -1;
+            }
+            else if(dx != 0){
+                if((isWalkable(x, y - 1) && !isWalkable(x - dx, y - 1)) ||
+                   (isWalkable(x, y + 1) && !isWalkable(x - dx, y + 1)))
+                    return node;
+            }
+            else{
+                if((isWalkable(x - 1, y) && !isWalkable(x - 1, y - dy)) ||
+                   (isWalkable(x + 1, y) && !isWalkable(x + 1, y - dy)))
+                    return node;
+            }
+            
+            x += dx;
+            y += dy;
+        }
+        return -1;
+    }
+}
\ No newline at end of file
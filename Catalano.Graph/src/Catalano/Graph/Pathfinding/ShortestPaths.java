@@ -0,0 +1,512 @@
+// Catalano Graph Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Graph.Pathfinding;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Graph.AdjacencyMatrix;
+import Catalano.Graph.SparseGraph;
+import java.util.Arrays;
+
+/**
+ * Shortest paths from one or many sources.
+ * <p>
+ * The distances are computed over a {@link SparseGraph}, the edge weights are
+ * the lengths and must be non negative. Unweighted graphs use a breadth-first
+ * search, weighted graphs Dijkstra with an indexed binary heap or
+ * delta-stepping, which keeps the nodes in buckets of width delta.
+ * <p>
+ * Many sources are computed in parallel, one source per task. The rows can be
+ * streamed to a {@link Receiver}, so only one row per thread is kept in memory.
+ * 
+ * @author Diego Catalano
+ */
+public class ShortestPaths {
+    
+    /**
+     * Algorithm of the single source search.
+     */
+    public static enum Algorithm {
+        
+        /**
+         * Breadth-first search for unweighted graphs, otherwise Dijkstra.
+         */
+        Auto,
+        
+        /**
+         * Breadth-first search, each edge has length 1.
+         */
+        BreadthFirst,
+        
+        /**
+         * Dijkstra.
+         */
+        Dijkstra,
+        
+        /**
+         * Delta-stepping.
+         */
+        DeltaStepping
+    }
+    
+    /**
+     * Receiver of the distances from a source.
+     */
+    public static interface Receiver {
+        
+        /**
+         * Receive the distances from a source.
+         * It can be called from many threads at once, and the array is reused after it returns.
+         * @param source Source node.
+         * @param distances Distances to each node, infinity if the node is not reachable.
+         */
+        void Receive(int source, double[] distances);
+    }
+    
+    private SparseGraph graph;
+    private Algorithm algorithm;
+    private double delta;
+    private double maxWeight;
+
+    /**
+     * Get the algorithm.
+     * @return Algorithm.
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Set the algorithm.
+     * @param algorithm Algorithm.
+     */
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Get width of the buckets of delta-stepping.
+     * @return Delta, zero to choose from the graph.
+     */
+    public double getDelta() {
+        return delta;
+    }
+
+    /**
+     * Set width of the buckets of delta-stepping.
+     * @param delta Delta, zero to choose from the graph.
+     */
+    public void setDelta(double delta) {
+        if(delta < 0)
+            throw new IllegalArgumentException("Delta must be positive.");
+        this.delta = delta;
+    }
+    
+    /**
+     * Initializes a new instance of the ShortestPaths class.
+     * @param matrix Adjacency matrix.
+     */
+    public ShortestPaths(AdjacencyMatrix matrix) {
+        this(new SparseGraph(matrix));
+    }
+    
+    /**
+     * Initializes a new instance of the ShortestPaths class.
+     * @param matrix Adjacency matrix.
+     * @param algorithm Algorithm.
+     */
+    public ShortestPaths(AdjacencyMatrix matrix, Algorithm algorithm) {
+        this(new SparseGraph(matrix), algorithm);
+    }
+
+    /**
+     * Initializes a new instance of the ShortestPaths class.
+     * @param graph Sparse graph.
+     */
+    public ShortestPaths(SparseGraph graph) {
+        this(graph, Algorithm.Auto);
+    }
+    
+    /**
+     * Initializes a new instance of the ShortestPaths class.
+     * @param graph Sparse graph.
+     * @param algorithm Algorithm.
+     */
+    public ShortestPaths(SparseGraph graph, Algorithm algorithm) {
+        double[] weights = graph.getWeights();
+        if(weights != null){
+            for (int i = 0; i < weights.length; i++) {
+                if(!(weights[i] >= 0))
+                    throw new IllegalArgumentException("The weights must be non negative.");
+                if(weights[i] != Double.POSITIVE_INFINITY)
+                    maxWeight = Math.max(maxWeight, weights[i]);
+            }
+        }
+        else{
+            maxWeight = 1;
+        }
+        
+        this.graph = graph;
+        this.algorithm = algorithm;
+    }
+    
+    /**
+     * Compute the distances from a source.
+     * @param source Source node.
+     * @return Distances to each node, infinity if the node is not reachable.
+     */
+    public double[] Compute(int source){
+        double[] distances = new double[graph.getNumberOfNodes()];
+        Compute(source, distances, null);
+        return distances;
+    }
+    
+    /**
+     * Compute the distances from a source.
+     * @param source Source node.
+     * @param distances Receives the distances to each node, infinity if the node is not reachable.
+     * @param parents Receives the previous node in the path from the source, -1 for the source and the unreachable nodes. Can be null.
+     */
+    public void Compute(int source, double[] distances, int[] parents){
+        Compute(new Workspace(graph.getNumberOfNodes()), source, distances, parents);
+    }
+    
+    /**
+     * Compute the distances between all the nodes.
+     * @return Distance matrix, [source][node].
+     */
+    public double[][] Compute(){
+        int[] sources = new int[graph.getNumberOfNodes()];
+        for (int i = 0; i < sources.length; i++)
+            sources[i] = i;
+        return Compute(sources);
+    }
+    
+    /**
+     * Compute the distances from many sources in parallel.
+     * @param sources Source nodes.
+     * @return Distance matrix, one row per source.
+     */
+    public double[][] Compute(final int[] sources){
+        final int n = graph.getNumberOfNodes();
+        final double[][] distances = new double[sources.length][n];
+        ParallelFor.Run(sources.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                Workspace w = new Workspace(n);
+                for (int i = from; i < to; i++)
+                    ShortestPaths.this.Compute(w, sources[i], distances[i], null);
+            }
+        });
+        return distances;
+    }
+    
+    /**
+     * Compute the distances between all the nodes, streamed to a receiver.
+     * @param receiver Receiver of the distances of each source.
+     */
+    public void Compute(Receiver receiver){
+        int[] sources = new int[graph.getNumberOfNodes()];
+        for (int i = 0; i < sources.length; i++)
+            sources[i] = i;
+        Compute(sources, receiver);
+    }
+    
+    /**
+     * Compute the distances from many sources in parallel, streamed to a receiver.
+     * @param sources Source nodes.
+     * @param receiver Receiver of the distances of each source.
+     */
+    public void Compute(final int[] sources, final Receiver receiver){
+        final int n = graph.getNumberOfNodes();
+        ParallelFor.Run(sources.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                Workspace w = new Workspace(n);
+                double[] distances = new double[n];
+                for (int i = from; i < to; i++){
+                    ShortestPaths.this.Compute(w, sources[i], distances, null);
+                    receiver.Receive(sources[i], distances);
+                }
+            }
+        });
+    }
+    
+    private void Compute(Workspace w, int source, double[] distances, int[] parents){
+        if(source < 0 || source >= graph.getNumberOfNodes())
+            throw new IllegalArgumentException("The source must be a node of the graph.");
+        
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        if(parents != null) Arrays.fill(parents, -1);
+        distances[source] = 0;
+        
+        Algorithm alg = algorithm;
+        if(alg == Algorithm.Auto)
+            alg = graph.isWeighted() ? Algorithm.Dijkstra : Algorithm.BreadthFirst;
+        
+        switch(alg){
+            case BreadthFirst:
+                BreadthFirst(w, source, distances, parents);
+                break;
+            case DeltaStepping:
+                DeltaStepping(w, source, distances, parents);
+                break;
+            default:
+                Dijkstra(w, source, distances, parents);
+                break;
+        }
+    }
+    
+    private void BreadthFirst(Workspace w, int source, double[] distances, int[] parents){
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        int[] queue = w.queue;
+        
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int u = queue[head++];
+            double d = distances[u] + 1;
+            for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                int v = targets[k];
+                if(distances[v] == Double.POSITIVE_INFINITY && (weights == null || weights[k] != Double.POSITIVE_INFINITY)){
+                    distances[v] = d;
+                    if(parents != null) parents[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+    }
+    
+    private void Dijkstra(Workspace w, int source, double[] distances, int[] parents){
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        
+        w.size = 0;
+        w.Push(source, distances);
+        while (w.size > 0) {
+            int u = w.Pop(distances);
+            double d = distances[u];
+            for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                int v = targets[k];
+                double nd = d + (weights == null ? 1 : weights[k]);
+                if(nd < distances[v]){
+                    // popped nodes are never improved, an infinite distance means not pushed
+                    boolean pushed = distances[v] != Double.POSITIVE_INFINITY;
+                    distances[v] = nd;
+                    if(parents != null) parents[v] = u;
+                    if(pushed)
+                        w.Up(w.position[v], distances);
+                    else
+                        w.Push(v, distances);
+                }
+            }
+        }
+    }
+    
+    private void DeltaStepping(Workspace w, int source, double[] distances, int[] parents){
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights();
+        
+        double dt = delta;
+        if(dt == 0){
+            double degree = graph.getNumberOfEdges() / (double)graph.getNumberOfNodes();
+            dt = maxWeight / Math.max(1, degree);
+        }
+        // at most one bucket per node
+        dt = Math.max(dt, maxWeight / graph.getNumberOfNodes());
+        if(dt == 0) dt = 1;
+        
+        // tentative distances lie in [i, i + maxWeight], so the buckets are reused cyclically
+        int buckets = (int)Math.floor(maxWeight / dt) + 2;
+        w.Buckets(buckets);
+        w.Insert(source, 0, dt);
+        
+        int[] settled = w.queue;
+        int[] frontier = w.position;
+        for (long i = 0; w.count > 0; i++) {
+            int b = (int)(i % buckets);
+            if(w.head[b] == -1) continue;
+            
+            int gen = w.Next();
+            int r = 0;
+            while (w.head[b] != -1) {
+                // remove the bucket and relax its light edges, which can refill it
+                int f = 0;
+                for (int u = w.head[b]; u != -1; u = w.next[u]) {
+                    frontier[f++] = u;
+                    w.slot[u] = -1;
+                    w.count--;
+                    if(w.stamp[u] != gen){
+                        w.stamp[u] = gen;
+                        settled[r++] = u;
+                    }
+                }
+                w.head[b] = -1;
+                
+                for (int j = 0; j < f; j++) {
+                    int u = frontier[j];
+                    double d = distances[u];
+                    for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                        double c = weights == null ? 1 : weights[k];
+                        if(c <= dt) Relax(w, u, targets[k], d + c, dt, distances, parents);
+                    }
+                }
+            }
+            
+            for (int j = 0; j < r; j++) {
+                int u = settled[j];
+                double d = distances[u];
+                for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                    double c = weights == null ? 1 : weights[k];
+                    if(c > dt) Relax(w, u, targets[k], d + c, dt, distances, parents);
+                }
+            }
+        }
+    }
+    
+    private void Relax(Workspace w, int u, int v, double d, double delta, double[] distances, int[] parents){
+        if(d < distances[v]){
+            distances[v] = d;
+            if(parents != null) parents[v] = u;
+            w.Insert(v, d, delta);
+        }
+    }
+    
+    /**
+     * Arrays of a search, reused across the sources of a task.
+     */
+    private static class Workspace {
+        
+        int[] queue;
+        
+        // indexed binary heap by distance
+        int size;
+        int[] heap;
+        int[] position;
+        
+        // cyclic buckets, doubly linked lists of nodes
+        int count;
+        int[] head;
+        int[] next;
+        int[] prev;
+        int[] slot;
+        int generation;
+        int[] stamp;
+
+        Workspace(int nodes) {
+            queue = new int[nodes];
+            heap = new int[nodes];
+            position = new int[nodes];
+        }
+        
+        void Push(int node, double[] key) {
+            heap[size] = node;
+            position[node] = size;
+            Up(size++, key);
+        }
+        
+        int Pop(double[] key) {
+            int top = heap[0];
+            int last = heap[--size];
+            if(size > 0){
+                heap[0] = last;
+                position[last] = 0;
+                Down(0, key);
+            }
+            return top;
+        }
+        
+        void Up(int i, double[] key) {
+            int node = heap[i];
+            double v = key[node];
+            while (i > 0) {
+                int p = (i - 1) >> 1;
+                if(key[heap[p]] <= v) break;
+                heap[i] = heap[p];
+                position[heap[i]] = i;
+                i = p;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+        
+        void Down(int i, double[] key) {
+            int node = heap[i];
+            double v = key[node];
+            while (true) {
+                int c = 2 * i + 1;
+                if(c >= size) break;
+                if(c + 1 < size && key[heap[c + 1]] < key[heap[c]]) c++;
+                if(key[heap[c]] >= v) break;
+                heap[i] = heap[c];
+                position[heap[i]] = i;
+                i = c;
+            }
+            heap[i] = node;
+            position[node] = i;
+        }
+        
+        void Buckets(int buckets) {
+            int nodes = queue.length;
+            if(next == null){
+                next = new int[nodes];
+                prev = new int[nodes];
+                slot = new int[nodes];
+                stamp = new int[nodes];
+            }
+            if(head == null || head.length != buckets)
+                head = new int[buckets];
+            Arrays.fill(head, -1);
+            Arrays.fill(slot, -1);
+            count = 0;
+        }
+        
+        int Next() {
+            if(++generation == Integer.MAX_VALUE){
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+            return generation;
+        }
+        
+        void Insert(int node, double distance, double delta) {
+            if(slot[node] != -1){
+                if(prev[node] == -1) head[slot[node]] = next[node];
+                else next[prev[node]] = next[node];
+                if(next[node] != -1) prev[next[node]] = prev[node];
+                count--;
+            }
+            int b = (int)((long)(distance / delta) % head.length);
+            slot[node] = b;
+            prev[node] = -1;
+            next[node] = head[b];
+            if(head[b] != -1) prev[head[b]] = node;
+            head[b] = node;
+            count++;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,367 @@
+// Catalano Graph Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Graph;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import java.util.Arrays;
+
+/**
+ * Sparse graph in compressed sparse row (CSR) format.
+ * <p>
+ * The targets of the edges of each node are stored contiguously and sorted,
+ * so the memory is O(V + E) and the network algorithms iterate only over
+ * the existing edges. Undirected graphs store each edge in both directions.
+ * Duplicated edges are merged, adding their weights.
+ * @author Diego Catalano
+ */
+public class SparseGraph {
+    
+    private int nodes;
+    private int[] offsets;
+    private int[] targets;
+    private double[] weights;
+    
+    private SparseGraph transpose;
+
+    /**
+     * Initializes a new instance of the SparseGraph class.
+     * @param edges Edges.
+     */
+    public SparseGraph(EdgeList edges) {
+        this(edges.getNumberOfNodes(), edges);
+    }
+    
+    /**
+     * Initializes a new instance of the SparseGraph class.
+     * @param nodes Number of nodes, at least the number of nodes of the edges.
+     * @param edges Edges.
+     */
+    public SparseGraph(int nodes, EdgeList edges) {
+        this(nodes, edges.getSources(), edges.getTargets(), edges.isWeighted() ? edges.getWeights() : null);
+    }
+    
+    /**
+     * Initializes a new instance of the SparseGraph class.
+     * @param nodes Number of nodes.
+     * @param from Source node of each edge.
+     * @param to Target node of each edge.
+     */
+    public SparseGraph(int nodes, int[] from, int[] to) {
+        this(nodes, from, to, null);
+    }
+    
+    /**
+     * Initializes a new instance of the SparseGraph class.
+     * @param nodes Number of nodes.
+     * @param from Source node of each edge.
+     * @param to Target node of each edge.
+     * @param weights Weight of each edge, null for unweighted edges.
+     */
+    public SparseGraph(int nodes, int[] from, int[] to, double[] weights) {
+        if(from.length != to.length || (weights != null && weights.length != from.length))
+            throw new IllegalArgumentException("The edges must have the same number of sources, targets and weights.");
+        
+        int e = from.length;
+        for (int i = 0; i < e; i++) {
+            if(from[i] < 0 || from[i] >= nodes || to[i] < 0 || to[i] >= nodes)
+                throw new IllegalArgumentException("The edge " + from[i] + " -> " + to[i] + " is out of the graph.");
+        }
+        
+        //Counting sort by target, then stable by source
+        int[] byTarget = new int[e];
+        int[] count = new int[nodes + 1];
+        for (int i = 0; i < e; i++) count[to[i] + 1]++;
+        for (int i = 0; i < nodes; i++) count[i + 1] += count[i];
+        for (int i = 0; i < e; i++) byTarget[count[to[i]]++] = i;
+        
+        int[] start = new int[nodes + 1];
+        for (int i = 0; i < e; i++) start[from[i] + 1]++;
+        for (int i = 0; i < nodes; i++) start[i + 1] += start[i];
+        int[] order = new int[e];
+        int[] next = Arrays.copyOf(start, nodes);
+        for (int i = 0; i < e; i++) {
+            int k = byTarget[i];
+            order[next[from[k]]++] = k;
+        }
+        
+        //Merge the duplicated edges
+        this.nodes = nodes;
+        this.offsets = new int[nodes + 1];
+        this.targets = new int[e];
+        this.weights = weights == null ? null : new double[e];
+        int size = 0;
+        for (int i = 0; i < nodes; i++) {
+            offsets[i] = size;
+            for (int j = start[i]; j < start[i + 1]; j++) {
+                int k = order[j];
+                if(size > offsets[i] && targets[size - 1] == to[k]){
+                    if(weights != null) this.weights[size - 1] += weights[k];
+                    continue;
+                }
+                targets[size] = to[k];
+                if(weights != null) this.weights[size] = weights[k];
+                size++;
+            }
+        }
+        offsets[nodes] = size;
+        
+        if(size < e){
+            targets = Arrays.copyOf(targets, size);
+            if(weights != null) this.weights = Arrays.copyOf(this.weights, size);
+        }
+    }
+    
+    /**
+     * Initializes a new instance of the SparseGraph class.
+     * Each non zero entry of the matrix is an edge.
+     * @param matrix Adjacency matrix.
+     */
+    public SparseGraph(AdjacencyMatrix matrix) {
+        double[][] data = matrix.getData();
+        this.nodes = data.length;
+        this.offsets = new int[nodes + 1];
+        
+        int e = 0;
+        boolean weighted = false;
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 0; j < nodes; j++) {
+                if(data[i][j] != 0){
+                    e++;
+                    if(data[i][j] != 1) weighted = true;
+                }
+            }
+        }
+        
+        this.targets = new int[e];
+        this.weights = weighted ? new double[e] : null;
+        int size = 0;
+        for (int i = 0; i < nodes; i++) {
+            offsets[i] = size;
+            for (int j = 0; j < nodes; j++) {
+                if(data[i][j] != 0){
+                    targets[size] = j;
+                    if(weighted) weights[size] = data[i][j];
+                    size++;
+                }
+            }
+        }
+        offsets[nodes] = size;
+    }
+    
+    private SparseGraph() {}
+    
+    /**
+     * Get number of nodes.
+     * @return Number of nodes.
+     */
+    public int getNumberOfNodes(){
+        return nodes;
+    }
+    
+    /**
+     * Get number of directed edges.
+     * @return Number of edges.
+     */
+    public int getNumberOfEdges(){
+        return targets.length;
+    }
+    
+    /**
+     * Check if the edges are weighted.
+     * @return True if the edges are weighted, otherwise all the weights are one.
+     */
+    public boolean isWeighted(){
+        return weights != null;
+    }
+    
+    /**
+     * Get the offsets of the edges of each node.
+     * The edges of the node i are in [offsets[i], offsets[i + 1]).
+     * @return Offsets, number of nodes plus one.
+     */
+    public int[] getOffsets(){
+        return offsets;
+    }
+    
+    /**
+     * Get the target node of each edge.
+     * @return Targets.
+     */
+    public int[] getTargets(){
+        return targets;
+    }
+    
+    /**
+     * Get the weight of each edge.
+     * @return Weights, null if the edges are unweighted.
+     */
+    public double[] getWeights(){
+        return weights;
+    }
+    
+    /**
+     * Get the out degree of a node.
+     * @param node Node.
+     * @return Degree.
+     */
+    public int getDegree(int node){
+        return offsets[node + 1] - offsets[node];
+    }
+    
+    /**
+     * Get the weight of an edge.
+     * @param from Source node.
+     * @param to Target node.
+     * @return Weight, zero if the edge doesn't exist.
+     */
+    public double getWeight(int from, int to){
+        int k = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        if(k < 0) return 0;
+        return weights == null ? 1 : weights[k];
+    }
+    
+    /**
+     * Get the maximum out degree.
+     * @return Maximum degree.
+     */
+    public int getMaxDegree(){
+        int max = 0;
+        for (int i = 0; i < nodes; i++)
+            max = Math.max(max, getDegree(i));
+        return max;
+    }
+    
+    /**
+     * Computes the average out degree of a node in the graph.
+     * @return Average degree.
+     */
+    public double getAverageDegree(){
+        return nodes == 0 ? 0 : targets.length / (double)nodes;
+    }
+    
+    /**
+     * Get number of self loops in the graph.
+     * @return Number of self loops.
+     */
+    public int getNumberOfSelfLoops(){
+        int loops = 0;
+        for (int i = 0; i < nodes; i++) {
+            if(Arrays.binarySearch(targets, offsets[i], offsets[i + 1], i) >= 0) loops++;
+        }
+        return loops;
+    }
+    
+    /**
+     * Check if the graph is symmetric, each edge has the reverse one with the same weight.
+     * @return True if is symmetric, otherwise false.
+     */
+    public boolean isSymmetric(){
+        SparseGraph t = Transpose();
+        return Arrays.equals(offsets, t.offsets) && Arrays.equals(targets, t.targets) && Arrays.equals(weights, t.weights);
+    }
+    
+    /**
+     * Get the transpose graph, with the reverse edges.
+     * The targets of the transpose are the sources of the edges to each node.
+     * @return Transpose graph.
+     */
+    public synchronized SparseGraph Transpose(){
+        if(transpose == null){
+            int e = targets.length;
+            int[] start = new int[nodes + 1];
+            for (int i = 0; i < e; i++) start[targets[i] + 1]++;
+            for (int i = 0; i < nodes; i++) start[i + 1] += start[i];
+            
+            //Sources are visited in order, so each row is sorted
+            int[] next = Arrays.copyOf(start, nodes);
+            int[] sources = new int[e];
+            double[] w = weights == null ? null : new double[e];
+            for (int i = 0; i < nodes; i++) {
+                for (int k = offsets[i]; k < offsets[i + 1]; k++) {
+                    int p = next[targets[k]]++;
+                    sources[p] = i;
+                    if(w != null) w[p] = weights[k];
+                }
+            }
+            transpose = new SparseGraph();
+            transpose.nodes = nodes;
+            transpose.offsets = start;
+            transpose.targets = sources;
+            transpose.weights = w;
+            transpose.transpose = this;
+        }
+        return transpose;
+    }
+    
+    /**
+     * Multiply the adjacency matrix by a vector, computed in parallel.
+     * @param x Vector.
+     * @return A * x.
+     */
+    public double[] Multiply(double[] x){
+        double[] result = new double[nodes];
+        Multiply(x, result);
+        return result;
+    }
+    
+    /**
+     * Multiply the adjacency matrix by a vector, computed in parallel.
+     * @param x Vector.
+     * @param result A * x.
+     */
+    public void Multiply(final double[] x, final double[] result){
+        if(x.length != nodes)
+            throw new IllegalArgumentException("The vector length must be the number of nodes.");
+        
+        ParallelFor.Run(nodes, 1024, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    double r = 0;
+                    if(weights == null){
+                        for (int k = offsets[i]; k < offsets[i + 1]; k++)
+                            r += x[targets[k]];
+                    }
+                    else{
+                        for (int k = offsets[i]; k < offsets[i + 1]; k++)
+                            r += weights[k] * x[targets[k]];
+                    }
+                    result[i] = r;
+                }
+            }
+        });
+    }
+    
+    /**
+     * Convert to an adjacency matrix.
+     * @return Adjacency matrix.
+     */
+    public AdjacencyMatrix ToAdjacencyMatrix(){
+        double[][] data = new double[nodes][nodes];
+        for (int i = 0; i < nodes; i++) {
+            for (int k = offsets[i]; k < offsets[i + 1]; k++)
+                data[i][targets[k]] = weights == null ? 1 : weights[k];
+        }
+        return new AdjacencyMatrix(data);
+    }
+}
\ No newline at end of file
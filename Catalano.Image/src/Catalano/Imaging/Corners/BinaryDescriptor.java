@@ -0,0 +1,135 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Corners;
+
+import Catalano.Math.Distances.Distance;
+import java.util.Arrays;
+
+/**
+ * Binary descriptor packed in 64 bit words.
+ * <p>
+ * The bit i is the bit (i % 64) of the word i / 64, so the Hamming distance
+ * is the population count of the exclusive or of the words.
+ * 
+ * @author Diego Catalano
+ */
+public class BinaryDescriptor {
+    
+    private long[] bits;
+    private int length;
+
+    /**
+     * Get the words of the descriptor.
+     * @return Words, 64 bits each.
+     */
+    public long[] getBits() {
+        return bits;
+    }
+
+    /**
+     * Get the number of bits.
+     * @return Length.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Initializes a new instance of the BinaryDescriptor class.
+     * @param bits Words, 64 bits each, the bits after the length must be zero.
+     * @param length Number of bits.
+     */
+    public BinaryDescriptor(long[] bits, int length) {
+        if(bits.length != (length + 63) / 64)
+            throw new IllegalArgumentException("The number of words must be the length divided by 64.");
+        this.bits = bits;
+        this.length = length;
+    }
+    
+    /**
+     * Create a descriptor from bytes, as in the FREAK descriptor.
+     * The bit j of the byte i is the bit 8i + j of the descriptor.
+     * @param bytes Bytes.
+     * @return Binary descriptor.
+     */
+    public static BinaryDescriptor FromBytes(byte[] bytes){
+        long[] bits = new long[(bytes.length + 7) / 8];
+        for (int i = 0; i < bytes.length; i++)
+            bits[i >> 3] |= (bytes[i] & 0xFFL) << ((i & 7) << 3);
+        return new BinaryDescriptor(bits, bytes.length * 8);
+    }
+    
+    /**
+     * Create a descriptor from a string of binary values.
+     * @param binary String of '0' and '1', the first char is the bit 0.
+     * @return Binary descriptor.
+     */
+    public static BinaryDescriptor FromBinary(String binary){
+        long[] bits = new long[(binary.length() + 63) / 64];
+        for (int i = 0; i < binary.length(); i++)
+            if(binary.charAt(i) == '1')
+                bits[i >> 6] |= 1L << (i & 63);
+        return new BinaryDescriptor(bits, binary.length());
+    }
+    
+    /**
+     * Get a bit.
+     * @param index Index of the bit.
+     * @return True if the bit is set.
+     */
+    public boolean getBit(int index){
+        return (bits[index >> 6] & (1L << (index & 63))) != 0;
+    }
+    
+    /**
+     * Compute the Hamming distance to another descriptor.
+     * @param descriptor Descriptor with the same length.
+     * @return Number of different bits.
+     */
+    public int Distance(BinaryDescriptor descriptor){
+        return Distance.Hamming(bits, descriptor.bits);
+    }
+    
+    /**
+     * Convert the descriptor to a string of binary values.
+     * @return A string containing a binary value representing the descriptor.
+     */
+    public String toBinary(){
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            sb.append(getBit(i) ? '1' : '0');
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(!(obj instanceof BinaryDescriptor)) return false;
+        BinaryDescriptor d = (BinaryDescriptor)obj;
+        return length == d.length && Arrays.equals(bits, d.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,233 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Corners;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import java.util.Arrays;
+
+/**
+ * Brute force matcher of binary descriptors.
+ * <p>
+ * The train descriptors are packed in a single array of words and each query
+ * is compared with all of them by the population count of the exclusive or.
+ * The queries are matched in parallel blocks. A match can be rejected by the
+ * ratio test (best distance / second best distance), by the maximum distance
+ * and by the cross check (the query must be the best match of its train descriptor too).
+ * 
+ * @author Diego Catalano
+ */
+public class BinaryDescriptorMatcher {
+    
+    private double ratio = 1;
+    private int maxDistance = Integer.MAX_VALUE;
+    private boolean crossCheck = false;
+    
+    private int[] distances;
+
+    /**
+     * Get the ratio of the ratio test.
+     * @return Ratio.
+     */
+    public double getRatio() {
+        return ratio;
+    }
+
+    /**
+     * Set the ratio of the ratio test.
+     * A match is accepted if its distance is less than ratio * second best distance, 1 disables the test.
+     * @param ratio Ratio in (0, 1].
+     */
+    public void setRatio(double ratio) {
+        if(ratio <= 0 || ratio > 1)
+            throw new IllegalArgumentException("The ratio must be in (0, 1].");
+        this.ratio = ratio;
+    }
+
+    /**
+     * Get the maximum distance of a match.
+     * @return Maximum distance.
+     */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Set the maximum distance of a match.
+     * @param maxDistance Maximum distance.
+     */
+    public void setMaxDistance(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Check if the cross check is enabled.
+     * @return True if the cross check is enabled.
+     */
+    public boolean isCrossCheck() {
+        return crossCheck;
+    }
+
+    /**
+     * Enable the cross check.
+     * @param crossCheck True to keep only the mutual best matches.
+     */
+    public void setCrossCheck(boolean crossCheck) {
+        this.crossCheck = crossCheck;
+    }
+
+    /**
+     * Get the distances of the last matches.
+     * @return Distance of each query to its best train descriptor.
+     */
+    public int[] getDistances() {
+        return distances;
+    }
+
+    /**
+     * Initializes a new instance of the BinaryDescriptorMatcher class.
+     */
+    public BinaryDescriptorMatcher() {}
+
+    /**
+     * Initializes a new instance of the BinaryDescriptorMatcher class.
+     * @param ratio Ratio of the ratio test.
+     * @param crossCheck True to keep only the mutual best matches.
+     */
+    public BinaryDescriptorMatcher(double ratio, boolean crossCheck) {
+        setRatio(ratio);
+        this.crossCheck = crossCheck;
+    }
+    
+    /**
+     * Match the query descriptors with the train descriptors.
+     * @param query Query descriptors.
+     * @param train Train descriptors.
+     * @return Index of the train descriptor matched by each query, -1 if the match is rejected.
+     */
+    public int[] Match(BinaryDescriptor[] query, BinaryDescriptor[] train){
+        
+        if(query.length == 0 || train.length == 0){
+            distances = new int[query.length];
+            int[] r = new int[query.length];
+            Arrays.fill(r, -1);
+            return r;
+        }
+        
+        final int words = query[0].getBits().length;
+        final long[] q = Pack(query, words);
+        final long[] t = Pack(train, words);
+        final int nq = query.length;
+        final int nt = train.length;
+        
+        final int[] best = new int[nq];
+        final int[] dist = new int[nq];
+        final int[] second = new int[nq];
+        Nearest(q, nq, t, nt, words, best, dist, second);
+        
+        int[] reverse = null;
+        if(crossCheck){
+            reverse = new int[nt];
+            Nearest(t, nt, q, nq, words, reverse, new int[nt], new int[nt]);
+        }
+        
+        for (int i = 0; i < nq; i++) {
+            int j = best[i];
+            if(dist[i] > maxDistance)
+                best[i] = -1;
+            else if(ratio < 1 && nt > 1 && dist[i] >= ratio * second[i])
+                best[i] = -1;
+            else if(reverse != null && reverse[j] != i)
+                best[i] = -1;
+        }
+        
+        this.distances = dist;
+        return best;
+    }
+    
+    /**
+     * Pack the descriptors in a single array.
+     * @param descriptors Descriptors.
+     * @param words Words of each descriptor.
+     * @return Packed words.
+     */
+    private static long[] Pack(BinaryDescriptor[] descriptors, int words){
+        long[] packed = new long[descriptors.length * words];
+        for (int i = 0; i < descriptors.length; i++) {
+            long[] b = descriptors[i].getBits();
+            if(b.length != words)
+                throw new IllegalArgumentException("The descriptors must have the same length.");
+            System.arraycopy(b, 0, packed, i * words, words);
+        }
+        return packed;
+    }
+    
+    /**
+     * Find the best and second best distance of each query.
+     */
+    private static void Nearest(final long[] q, int nq, final long[] t, final int nt, final int words, final int[] best, final int[] dist, final int[] second){
+        
+        // Blocks of queries, so the train descriptors stay in the cache while they are compared.
+        final int block = 64;
+        int blocks = (nq + block - 1) / block;
+        final int n = nq;
+        
+        ParallelFor.Run(blocks, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int b = from; b < to; b++) {
+                    int start = b * block;
+                    int end = Math.min(n, start + block);
+                    for (int i = start; i < end; i++) {
+                        dist[i] = Integer.MAX_VALUE;
+                        second[i] = Integer.MAX_VALUE;
+                        best[i] = -1;
+                    }
+                    
+                    // Tiles of the train descriptors.
+                    for (int tj = 0; tj < nt; tj += 256) {
+                        int tEnd = Math.min(nt, tj + 256);
+                        for (int i = start; i < end; i++) {
+                            int qo = i * words;
+                            int d1 = dist[i], d2 = second[i], bi = best[i];
+                            for (int j = tj; j < tEnd; j++) {
+                                int to2 = j * words;
+                                int d = 0;
+                                for (int w = 0; w < words && d < d2; w++)
+                                    d += Long.bitCount(q[qo + w] ^ t[to2 + w]);
+                                if(d < d1){
+                                    d2 = d1;
+                                    d1 = d;
+                                    bi = j;
+                                }
+                                else if(d < d2){
+                                    d2 = d;
+                                }
+                            }
+                            dist[i] = d1; second[i] = d2; best[i] = bi;
+                        }
+                    }
+                }
+            }
+        });
+    }
+}
\ No newline at end of file
@@ -25,6 +25,7 @@
 package Catalano.Imaging.Corners.FREAK;
 
 import Catalano.Core.IntPoint;
+import Catalano.Imaging.Corners.BinaryDescriptor;
 
 /**
  * Fast Retina Keypoint (FREAK) point.
@@ -90,6 +91,14 @@ public class FastRetinaKeypoint {
         return descriptor;
     }
 
+    /**
+     * Gets the descriptor packed in 64 bit words, for the Hamming distance.
+     * @return Binary descriptor.
+     */
+    public BinaryDescriptor getBinaryDescriptor() {
+        return BinaryDescriptor.FromBytes(descriptor);
+    }
+
     /**
      * Sets the descriptor vector associated with this point.
      * @param descriptor Descriptor.
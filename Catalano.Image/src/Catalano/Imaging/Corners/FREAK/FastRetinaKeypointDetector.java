@@ -30,6 +30,7 @@ import Catalano.Imaging.Corners.ICornersDetector;
 import Catalano.Imaging.Corners.ICornersFeatureDetector;
 import Catalano.Imaging.Corners.SusanCornersDetector;
 import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.Tools.ImagePyramidCache;
 import Catalano.Imaging.Tools.IntegralImage;
 import java.util.ArrayList;
 import java.util.List;
@@ -114,6 +115,22 @@ public class FastRetinaKeypointDetector {
             grayImage.toGrayscale();
         }
         
+        return ProcessImage(grayImage, null);
+    }
+    
+    /**
+     * Process the grayscale image and integral image of a cache, shared with other detectors.
+     * @param cache Image pyramid cache of the frame.
+     * @return List of keypoints.
+     */
+    public List<FastRetinaKeypoint> ProcessImage(ImagePyramidCache cache){
+        return ProcessImage(cache.getGrayscale(0), cache.getIntegralImage(0));
+    }
+    
+    private List<FastRetinaKeypoint> ProcessImage(FastBitmap gray, IntegralImage integralImage){
+        
+        grayImage = gray;
+        
         // 1. Extract corners points from the image.
         List<FastRetinaKeypoint> features = new ArrayList<FastRetinaKeypoint>();
         if(Detector != null){
@@ -130,7 +147,7 @@ public class FastRetinaKeypointDetector {
         }
 
         // 2. Compute the integral for the given image
-        integral = IntegralImage.FromFastBitmap(grayImage);
+        integral = integralImage != null ? integralImage : IntegralImage.FromFastBitmap(grayImage);
 
         // 3. Compute feature descriptors if required
         descriptor = null;
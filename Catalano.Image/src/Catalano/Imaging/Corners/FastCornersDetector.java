@@ -23,6 +23,7 @@
 package Catalano.Imaging.Corners;
 
 import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.Tools.ImagePyramidCache;
 import java.util.List;
 
 /**
@@ -135,6 +136,15 @@ public class FastCornersDetector implements ICornersFeatureDetector{
         this.algorithm = algorithm;
     }
     
+    /**
+     * Process the grayscale image of a cache, shared with other detectors.
+     * @param cache Image pyramid cache of the frame.
+     * @return A list of points considered corners.
+     */
+    public List<FeaturePoint> ProcessImage(ImagePyramidCache cache){
+        return ProcessImage(cache.getGrayscale(0));
+    }
+    
     @Override
     public List<FeaturePoint> ProcessImage(FastBitmap fastBitmap){
         
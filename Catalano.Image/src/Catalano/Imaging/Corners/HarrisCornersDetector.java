@@ -27,6 +27,7 @@ package Catalano.Imaging.Corners;
 import Catalano.Core.ArraysUtil;
 import Catalano.Core.IntPoint;
 import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.Tools.ImagePyramidCache;
 import Catalano.Math.Constants;
 import java.util.ArrayList;
 import java.util.List;
@@ -233,6 +234,15 @@ public class HarrisCornersDetector implements ICornersDetector{
     }
     
 
+    /**
+     * Process the grayscale image of a cache, shared with other detectors.
+     * @param cache Image pyramid cache of the frame.
+     * @return A list of points considered corners.
+     */
+    public List<IntPoint> ProcessImage(ImagePyramidCache cache){
+        return ProcessImage(cache.getGrayscale(0));
+    }
+    
     @Override
     public List<IntPoint> ProcessImage(FastBitmap fastBitmap) {
         
@@ -0,0 +1,374 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Corners;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import java.util.Arrays;
+
+/**
+ * Multi-index hashing of binary descriptors.
+ * <p>
+ * The descriptors are split in m disjoint substrings and each substring is indexed
+ * in its own table. If two descriptors differ in less than m(r + 1) bits, at least one of
+ * their substrings differ in at most r bits, so a query looks up the substrings of
+ * growing radius r and stops as soon as the k-th best distance is less than m(r + 1).
+ * The search is exact and it only compares a small part of the descriptors when they
+ * are well spread, so it is suited for millions of descriptors.
+ * <p>
+ * References: Mohammad Norouzi, Ali Punjani, David J. Fleet. "Fast Search in Hamming Space with Multi-Index Hashing." CVPR, 2012.
+ * 
+ * @author Diego Catalano
+ */
+public class MultiIndexHashing {
+    
+    private long[] data;
+    private int words;
+    private int length;
+    private int size;
+    
+    // Substrings: first bit and number of bits.
+    private int m;
+    private int[] start;
+    private int[] bits;
+    
+    // Tables sorted by key.
+    private int[][] keys;
+    private int[][] ids;
+    
+    private final ThreadLocal<Workspace> workspace = new ThreadLocal<Workspace>(){
+        @Override
+        protected Workspace initialValue() {
+            return new Workspace(size);
+        }
+    };
+
+    /**
+     * Get the number of descriptors.
+     * @return Number of descriptors.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of substrings.
+     * @return Number of substrings.
+     */
+    public int getNumberOfSubstrings() {
+        return m;
+    }
+
+    /**
+     * Initializes a new instance of the MultiIndexHashing class.
+     * The number of substrings is the length of the descriptors divided by log2 of the number of descriptors.
+     * @param descriptors Descriptors.
+     */
+    public MultiIndexHashing(BinaryDescriptor[] descriptors) {
+        this(descriptors, DefaultSubstrings(descriptors));
+    }
+
+    /**
+     * Initializes a new instance of the MultiIndexHashing class.
+     * @param descriptors Descriptors.
+     * @param substrings Number of substrings, each substring must have at most 32 bits.
+     */
+    public MultiIndexHashing(BinaryDescriptor[] descriptors, int substrings) {
+        if(descriptors.length == 0)
+            throw new IllegalArgumentException("The index needs at least one descriptor.");
+        
+        this.length = descriptors[0].getLength();
+        if(substrings < 1 || substrings > length || (length + substrings - 1) / substrings > 32)
+            throw new IllegalArgumentException("The number of substrings must be in [length / 32, length].");
+        
+        this.size = descriptors.length;
+        this.words = descriptors[0].getBits().length;
+        this.data = new long[size * words];
+        for (int i = 0; i < size; i++) {
+            if(descriptors[i].getLength() != length)
+                throw new IllegalArgumentException("The descriptors must have the same length.");
+            System.arraycopy(descriptors[i].getBits(), 0, data, i * words, words);
+        }
+        
+        this.m = substrings;
+        this.start = new int[m];
+        this.bits = new int[m];
+        int s = 0;
+        for (int i = 0; i < m; i++) {
+            bits[i] = length / m + (i < length % m ? 1 : 0);
+            start[i] = s;
+            s += bits[i];
+        }
+        
+        this.keys = new int[m][];
+        this.ids = new int[m][];
+        ParallelFor.Run(m, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int t = from; t < to; t++) {
+                    // Key in the high bits and id in the low bits, so a single sort groups the ids by key.
+                    long[] pairs = new long[size];
+                    for (int i = 0; i < size; i++)
+                        pairs[i] = (Substring(data, i * words, start[t], bits[t]) << 31) | i;
+                    Arrays.sort(pairs);
+                    
+                    int[] k = new int[size];
+                    int[] id = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        k[i] = (int)(pairs[i] >>> 31);
+                        id[i] = (int)(pairs[i] & 0x7FFFFFFFL);
+                    }
+                    keys[t] = k;
+                    ids[t] = id;
+                }
+            }
+        });
+    }
+    
+    private static int DefaultSubstrings(BinaryDescriptor[] descriptors){
+        if(descriptors.length == 0)
+            throw new IllegalArgumentException("The index needs at least one descriptor.");
+        int length = descriptors[0].getLength();
+        int log = Math.max(8, 32 - Integer.numberOfLeadingZeros(descriptors.length));
+        int m = Math.max(1, (int)Math.round(length / (double)log));
+        return Math.min(length, Math.max(m, (length + 31) / 32));
+    }
+    
+    /**
+     * Find the nearest descriptor.
+     * @param query Query descriptor.
+     * @return Index of the nearest descriptor.
+     */
+    public int Nearest(BinaryDescriptor query){
+        return Nearest(query, 1, null)[0];
+    }
+    
+    /**
+     * Find the k nearest descriptors.
+     * @param query Query descriptor.
+     * @param k Number of neighbors.
+     * @return Indexes of the neighbors, sorted by distance.
+     */
+    public int[] Nearest(BinaryDescriptor query, int k){
+        return Nearest(query, k, null);
+    }
+    
+    /**
+     * Find the k nearest descriptors.
+     * @param query Query descriptor.
+     * @param k Number of neighbors.
+     * @param distances Distance of each neighbor, can be null.
+     * @return Indexes of the neighbors, sorted by distance.
+     */
+    public int[] Nearest(BinaryDescriptor query, int k, int[] distances){
+        if(query.getLength() != length)
+            throw new IllegalArgumentException("The query must have the same length of the descriptors.");
+        if(k < 1)
+            throw new IllegalArgumentException("The number of neighbors must be at least 1.");
+        
+        k = Math.min(k, size);
+        int[] result = new int[k];
+        int[] dist = distances != null ? distances : new int[k];
+        Search(query.getBits(), k, result, dist, workspace.get());
+        return result;
+    }
+    
+    /**
+     * Find the nearest descriptor of each query in parallel.
+     * @param queries Query descriptors.
+     * @return Index of the nearest descriptor of each query.
+     */
+    public int[] Nearest(BinaryDescriptor[] queries){
+        return Nearest(queries, null);
+    }
+    
+    /**
+     * Find the nearest descriptor of each query in parallel.
+     * @param queries Query descriptors.
+     * @param distances Distance of each query to its nearest descriptor, can be null.
+     * @return Index of the nearest descriptor of each query.
+     */
+    public int[] Nearest(final BinaryDescriptor[] queries, final int[] distances){
+        for (int i = 0; i < queries.length; i++)
+            if(queries[i].getLength() != length)
+                throw new IllegalArgumentException("The query must have the same length of the descriptors.");
+        
+        final int[] result = new int[queries.length];
+        ParallelFor.Run(queries.length, 16, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                Workspace w = workspace.get();
+                int[] r = new int[1];
+                int[] d = new int[1];
+                for (int i = from; i < to; i++) {
+                    Search(queries[i].getBits(), 1, r, d, w);
+                    result[i] = r[0];
+                    if(distances != null) distances[i] = d[0];
+                }
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Search the k nearest descriptors.
+     */
+    private void Search(long[] q, int k, int[] result, int[] dist, Workspace w){
+        
+        int stamp = w.Next();
+        Arrays.fill(dist, 0, k, Integer.MAX_VALUE);
+        Arrays.fill(result, 0, k, -1);
+        
+        int[] query = new int[m];
+        for (int t = 0; t < m; t++)
+            query[t] = (int)Substring(q, 0, start[t], bits[t]);
+        
+        int seen = 0;
+        long work = 0;
+        int maxBits = bits[0];
+        for (int r = 0; r <= maxBits; r++) {
+            
+            // The balls grow as C(b, r), when they cost more than the remaining scan, scan it.
+            long lookups = 0;
+            for (int t = 0; t < m; t++)
+                lookups += Binomial(bits[t], r);
+            if(work + lookups > size){
+                for (int i = 0; i < size; i++)
+                    if(w.seen[i] != stamp)
+                        Insert(i, Distance(q, i, dist[k - 1]), k, result, dist);
+                break;
+            }
+            work += lookups;
+            
+            for (int t = 0; t < m && seen < size; t++) {
+                int b = bits[t];
+                if(r > b) continue;
+                int[] key = keys[t];
+                int[] id = ids[t];
+                
+                // Masks with r bits set, in increasing order.
+                long mask = (1L << r) - 1;
+                long limit = 1L << b;
+                while (mask < limit) {
+                    int target = query[t] ^ (int)mask;
+                    for (int p = LowerBound(key, target); p < size && key[p] == target; p++) {
+                        int i = id[p];
+                        if(w.seen[i] == stamp) continue;
+                        w.seen[i] = stamp;
+                        seen++;
+                        Insert(i, Distance(q, i, dist[k - 1]), k, result, dist);
+                    }
+                    if(mask == 0) break;
+                    long c = mask & -mask;
+                    long n = mask + c;
+                    mask = (((n ^ mask) >>> 2) / c) | n;
+                }
+            }
+            
+            if(seen == size || dist[k - 1] < m * (r + 1))
+                break;
+        }
+    }
+    
+    /**
+     * Insert a candidate in the sorted list of neighbors.
+     */
+    private static void Insert(int i, int d, int k, int[] result, int[] dist){
+        if(d >= dist[k - 1]) return;
+        int p = k - 1;
+        while (p > 0 && dist[p - 1] > d) {
+            dist[p] = dist[p - 1];
+            result[p] = result[p - 1];
+            p--;
+        }
+        dist[p] = d;
+        result[p] = i;
+    }
+    
+    /**
+     * Hamming distance of the query to a descriptor, stops as soon as it reaches the bound.
+     */
+    private int Distance(long[] q, int i, int bound){
+        int o = i * words;
+        int d = 0;
+        for (int w = 0; w < words && d < bound; w++)
+            d += Long.bitCount(q[w] ^ data[o + w]);
+        return d;
+    }
+    
+    /**
+     * First position of the key in the sorted table, compared as unsigned.
+     */
+    private static int LowerBound(int[] key, int target){
+        long t = target & 0xFFFFFFFFL;
+        int lo = 0, hi = key.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if((key[mid] & 0xFFFFFFFFL) < t)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+    
+    private static long Binomial(int n, int k){
+        if(k < 0 || k > n) return 0;
+        long c = 1;
+        for (int i = 1; i <= k; i++)
+            c = c * (n - k + i) / i;
+        return c;
+    }
+    
+    /**
+     * Extract up to 32 bits of a packed descriptor.
+     */
+    private static long Substring(long[] words, int offset, int first, int count){
+        int w = first >> 6;
+        int s = first & 63;
+        long v = words[offset + w] >>> s;
+        if(s + count > 64)
+            v |= words[offset + w + 1] << (64 - s);
+        return v & ((1L << count) - 1);
+    }
+    
+    /**
+     * Candidates seen by the current query.
+     */
+    private static class Workspace {
+        
+        int[] seen;
+        int stamp;
+
+        Workspace(int size) {
+            this.seen = new int[size];
+        }
+        
+        int Next(){
+            if(++stamp == 0){
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+    }
+}
\ No newline at end of file
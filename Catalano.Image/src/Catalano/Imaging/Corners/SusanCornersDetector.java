@@ -26,6 +26,7 @@ package Catalano.Imaging.Corners;
 
 import Catalano.Core.IntPoint;
 import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.Tools.ImagePyramidCache;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -90,6 +91,15 @@ public class SusanCornersDetector implements ICornersDetector{
         this.geometricalThreshold = geometricalThreshold;
     }
     
+    /**
+     * Process the grayscale image of a cache, shared with other detectors.
+     * @param cache Image pyramid cache of the frame.
+     * @return A list of points considered corners.
+     */
+    public List<IntPoint> ProcessImage(ImagePyramidCache cache){
+        return ProcessImage(cache.getGrayscale(0));
+    }
+    
     /**
      * Process image looking for corners.
      * @param fastBitmap FastBitmap for find corners.
@@ -98,9 +108,12 @@ public class SusanCornersDetector implements ICornersDetector{
     @Override
     public List<IntPoint> ProcessImage(FastBitmap fastBitmap){
         
-        FastBitmap l = new FastBitmap(fastBitmap);
+        FastBitmap l = fastBitmap;
         
-        if (fastBitmap.isRGB()) l.toGrayscale();
+        if (fastBitmap.isRGB()){
+            l = new FastBitmap(fastBitmap);
+            l.toGrayscale();
+        }
         
         int width = l.getWidth();
         int height = l.getHeight();
@@ -22,8 +22,10 @@
 
 package Catalano.Imaging.Filters;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Imaging.FastBitmap;
 import Catalano.Imaging.IApplyInPlace;
+import Catalano.Imaging.Tools.LocalStatistics;
 
 /**
  * Bernsen Threshold.
@@ -105,29 +107,32 @@ public class BernsenThreshold implements IApplyInPlace{
         
         if (fastBitmap.isGrayscale()){
             
-            FastBitmap max = new FastBitmap(fastBitmap);
-            FastBitmap min = new FastBitmap(fastBitmap);
+            final byte[] data = fastBitmap.getGrayData();
+            final int width = fastBitmap.getWidth();
+            final byte[] max = LocalStatistics.Maximum(fastBitmap, radius);
+            final byte[] min = LocalStatistics.Minimum(fastBitmap, radius);
             
-            Maximum maximum = new Maximum(radius);
-            maximum.applyInPlace(max);
-            
-            Minimum minimum = new Minimum(radius);
-            minimum.applyInPlace(min);
-            
-            int size = fastBitmap.getSize();
-            
-            for (int i = 0; i < size; i++) {
-                double localContrast = max.getGray(i) - min.getGray(i);
-                double midG = (max.getGray(i) + min.getGray(i)) / 2;
-
-                int g = fastBitmap.getGray(i);
-                if (localContrast < c)
-                    g = (midG >= 128) ? 255 : 0;
-                else
-                    g = (g >= midG) ? 255 : 0;
-
-                fastBitmap.setGray(i, g);
-            }
+            ParallelFor.Run(fastBitmap.getHeight(), Math.max(1, 65536 / Math.max(1, width)), new ParallelFor.Body() {
+                @Override
+                public void Compute(int from, int to) {
+                    for (int x = from; x < to; x++) {
+                        for (int y = 0, i = x * width; y < width; y++, i++) {
+                            int maxG = max[i] & 0xFF;
+                            int minG = min[i] & 0xFF;
+                            double localContrast = maxG - minG;
+                            double midG = (maxG + minG) / 2;
+                            
+                            int g = data[i] & 0xFF;
+                            if (localContrast < c)
+                                g = (midG >= 128) ? 255 : 0;
+                            else
+                                g = (g >= midG) ? 255 : 0;
+                            
+                            data[i] = (byte)g;
+                        }
+                    }
+                }
+            });
         }
         else{
             throw new IllegalArgumentException("Bernsen Threshold only works in grayscale images.");
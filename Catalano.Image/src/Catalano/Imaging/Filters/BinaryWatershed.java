@@ -26,7 +26,9 @@ package Catalano.Imaging.Filters;
 import Catalano.Core.IntPoint;
 import Catalano.Imaging.FastBitmap;
 import Catalano.Imaging.IApplyInPlace;
-import Catalano.Imaging.Tools.ImageStatistics;
+import Catalano.Imaging.Tools.BlobDetection;
+import Catalano.Imaging.Tools.ConnectedComponentsLabeling;
+import Catalano.Imaging.Tools.Watershed;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -48,9 +50,6 @@ public class BinaryWatershed implements IApplyInPlace{
     private final int[] DIR_Y_OFFSET = new int[] { -1, -1,  0,  1,  1,  1,  0, -1 };
     private int[]     dirOffset;
     private final float SQRT2 = 1.4142135624f;
-    private int       intEncodeXMask;               // needed for encoding x & y in a single int (watershed): mask for x
-    private int       intEncodeYMask;               // needed for encoding x & y in a single int (watershed): mask for y
-    private int       intEncodeShift;               // needed for encoding x & y in a single int (watershed): shift of y
     
     private DistanceTransform.Distance distance = DistanceTransform.Distance.Euclidean;
     private float tolerance = 0.5f;
@@ -98,79 +97,60 @@ public class BinaryWatershed implements IApplyInPlace{
     private void Watershed(FastBitmap fastBitmap){
         
         DistanceTransform dt = new DistanceTransform(distance);
-        float[][] distance = dt.Compute(fastBitmap);
-        
-        //Convert 2D to 1D - ImageJ Compatibility
-        float[] distance1D = new float[distance.length * distance[0].length];
-        int p = 0;
-        for (int i = 0; i < fastBitmap.getHeight(); i++) {
-            for (int j = 0; j < fastBitmap.getWidth(); j++) {
-                distance1D[p++] = distance[i][j];
-            }
-        }
-        
-        //Make directions offsets
-        makeDirectionOffsets(distance[0].length);
+        float[] distance = dt.ComputeMap(fastBitmap);
         
         int width = fastBitmap.getWidth();
         int height = fastBitmap.getHeight();
         
+        //Make directions offsets
+        makeDirectionOffsets(width);
+        
         FastBitmap back = new FastBitmap(width, height, FastBitmap.ColorSpace.Grayscale);
         
         //Get all maximum points
-        long[] maxPoints = getSortedMaxPoints(distance, distance1D, back, 0, dt.getMaximumDistance(), -808080.0);
+        long[] maxPoints = getSortedMaxPoints(distance, width, height, back, 0, dt.getMaximumDistance(), -808080.0);
         
         //Analise e marque as maxima em imagem de background
         float maxSortingError = 1.1f * SQRT2/2f;
-        analyseAndMarkMaxima(distance1D, back, maxPoints, tolerance, maxSortingError);
+        analyseAndMarkMaxima(distance, back, maxPoints, tolerance, maxSortingError);
         
         //Transform em 8bit 0..255
-        FastBitmap outImage = make8Bit(distance, back, dt.getMaximumDistance(), -808080.0);
+        FastBitmap outImage = make8Bit(distance, width, height, back, dt.getMaximumDistance(), -808080.0);
         
         cleanupMaxima(outImage, back, maxPoints);
         watershedSegment(outImage);
-        watershedPostProcess(outImage);
         
         fastBitmap.setImage(outImage);
     }
     
     private void makeDirectionOffsets(int width) {
-        int shift = 0, mult=1;
-        do {
-            shift++; mult*=2;
-        }
-        while (mult < width);
-        intEncodeXMask = mult-1;
-        intEncodeYMask = ~intEncodeXMask;
-        intEncodeShift = shift;
-        
         dirOffset  = new int[] {-width, -width+1, +1, +width+1, +width, +width-1,   -1, -width-1 };
         //dirOffset is created last, so check for it being null before makeDirectionOffsets
         //(in case we have multiple threads using the same MaximumFinder)
     }
     
-    private long[] getSortedMaxPoints(float[][] distance, float[] distance1D, FastBitmap back, float globalMin, float globalMax, double threshold){
+    private long[] getSortedMaxPoints(float[] distance, int width, int height, FastBitmap back, float globalMin, float globalMax, double threshold){
         
         //Create the back image
         byte[] types = back.getGrayData();
         
         int nMax = 0;
-        for (int y = 0; y < distance.length; y++) {
-            for (int x = 0, i = x+y*distance[0].length; x < distance[0].length; x++, i++) {
-                float v = distance[y][x];
-                float vTrue = trueEdmHeight(x, y, distance1D, distance[0].length, distance.length);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, i = x+y*width; x < width; x++, i++) {
+                float v = distance[i];
+                float vTrue = trueEdmHeight(x, y, distance, width, height);
                 if(!(v==globalMin)){
-                    if (!(x==0 || x==distance[0].length-1 || y==0 || y==distance.length-1)){
+                    if (!(x==0 || x==width-1 || y==0 || y==height-1)){
                         if (!(v<threshold)){
                             boolean isMax = true;
                             /* check wheter we have a local maximum.
                              Note: For an EDM, we need all maxima: those of the EDM-corrected values
                              (needed by findMaxima) and those of the raw values (needed by cleanupMaxima) */
-                            boolean isInner = (y!=0 && y!=distance.length-1) && (x!=0 && x!=distance[0].length-1); //not necessary, but faster than isWithin
+                            boolean isInner = (y!=0 && y!=height-1) && (x!=0 && x!=width-1); //not necessary, but faster than isWithin
                             for (int d=0; d<8; d++) {                         // compare with the 8 neighbor pixels
-                                if (isInner || isWithin(x, y, d, distance[0].length, distance.length)) {
-                                    float vNeighbor = distance[y+DIR_Y_OFFSET[d]][x+DIR_X_OFFSET[d]];
-                                    float vNeighborTrue = trueEdmHeight(x+DIR_X_OFFSET[d], y+DIR_Y_OFFSET[d], distance1D, distance[0].length, distance.length);
+                                if (isInner || isWithin(x, y, d, width, height)) {
+                                    float vNeighbor = distance[i+dirOffset[d]];
+                                    float vNeighborTrue = trueEdmHeight(x+DIR_X_OFFSET[d], y+DIR_Y_OFFSET[d], distance, width, height);
                                     if (vNeighbor > v && vNeighborTrue > vTrue) {
                                         isMax = false;
                                         break;
@@ -190,10 +170,10 @@ public class BinaryWatershed implements IApplyInPlace{
         float vFactor = (float)(2e9/(globalMax-globalMin)); //for converting float values into a 32-bit int
         long[] maxPoints = new long[nMax];                  //value (int) is in the upper 32 bit, pixel offset in the lower
         int iMax = 0;
-        for (int y=0; y<distance.length; y++)           //enter all maxima into an array
-            for (int x=0, pp=x+y*distance[0].length; x<distance[0].length; x++, pp++)
+        for (int y=0; y<height; y++)           //enter all maxima into an array
+            for (int x=0, pp=x+y*width; x<width; x++, pp++)
                 if (types[pp]==(byte)1) {
-                    float fValue = trueEdmHeight(x,y,distance1D, distance[0].length, distance.length);
+                    float fValue = trueEdmHeight(x,y,distance, width, height);
                     int iValue = (int)((fValue-globalMin)*vFactor); //32-bit int, linear function of float value
                     maxPoints[iMax++] = (long)iValue<<32|pp;
                 }
@@ -314,10 +294,8 @@ public class BinaryWatershed implements IApplyInPlace{
         return uep;
     }
     
-    private FastBitmap make8Bit(float[][] distance, FastBitmap back, float globalMax, double threshold){
+    private FastBitmap make8Bit(float[] distance, int width, int height, FastBitmap back, float globalMax, double threshold){
         
-        int width = distance[0].length;
-        int height = distance.length;
         byte[] types = back.getGrayData();
         threshold = 0.5;
         double minValue = 1;
@@ -334,7 +312,7 @@ public class BinaryWatershed implements IApplyInPlace{
         long v;
         for (int y=0, i=0; y<height; y++) {
             for (int x=0; x<width; x++, i++) {
-                float rawValue = distance[y][x];//ip.getPixelValue(x, y);
+                float rawValue = distance[i];
                 if (rawValue<threshold)
                     pixels[i] = (byte)0;
                 else if ((types[i]&(byte)8)!=0)
@@ -409,171 +387,25 @@ public class BinaryWatershed implements IApplyInPlace{
         } // for all maxima iMax
     }
     
-    private boolean watershedSegment(FastBitmap ip) {
-        int width = ip.getWidth();
-        int height = ip.getHeight();
+    private void watershedSegment(FastBitmap ip) {
+        int size = ip.getWidth()*ip.getHeight();
         byte[] pixels = ip.getGrayData();
-        // Create an array with the coordinates of all points between value 1 and 254
-        // This method, suggested by Stein Roervik (stein_at_kjemi-dot-unit-dot-no),
-        // greatly speeds up the watershed segmentation routine.
         
-        ImageStatistics is = new ImageStatistics(ip);
+        //The "true" maxima and their surroundings (255) are the markers
+        int[] labels = new ConnectedComponentsLabeling(BlobDetection.Algorithm.EightWay).Compute(ip);
         
-        int[] histogram = is.getHistogramGray().getValues();
-        int arraySize = width*height - histogram[0] -histogram[255];
-        int[] coordinates = new int[arraySize];    //from pixel coordinates, low bits x, high bits y
-        int highestValue = 0;
-        int maxBinSize = 0;
-        int offset = 0;
-        int[] levelStart = new int[256];
-        for (int v=1; v<255; v++) {
-            levelStart[v] = offset;
-            offset += histogram[v];
-            if (histogram[v] > 0) highestValue = v;
-            if (histogram[v] > maxBinSize) maxBinSize = histogram[v];
-        }
-        int[] levelOffset = new int[highestValue + 1];
-        for (int y=0, i=0; y<height; y++) {
-            for (int x=0; x<width; x++, i++) {
-                int v = pixels[i]&255;
-                if (v>0 && v<255) {
-                    offset = levelStart[v] + levelOffset[v];
-                    coordinates[offset] = x | y<<intEncodeShift;
-                    levelOffset[v] ++;
-                }
-           } //for x
-        } //for y
-        // Create an array of the points (pixel offsets) that we set to 255 in one pass.
-        // If we remember this list we need not create a snapshot of the ImageProcessor. 
-        int[] setPointList = new int[Math.min(maxBinSize, (width*height+2)/3)];
-        // now do the segmentation, starting at the highest level and working down.
-        // At each level, dilate the particle (set pixels to 255), constrained to pixels
-        // whose values are at that level and also constrained (by the fateTable)
-        // to prevent features from merging.
-        int[] table = makeFateTable();
-        final int[] directionSequence = new int[] {7, 3, 1, 5, 0, 4, 2, 6}; // diagonal directions first
-        for (int level=highestValue; level>=1; level--) {
-            int remaining = histogram[level];  //number of points in the level that have not been processed
-            int idle = 0;
-            while (remaining>0 && idle<8) {
-                int dIndex = 0;
-                do {                        // expand each level in 8 directions
-                    int n = processLevel(directionSequence[dIndex%8], ip, table,
-                            levelStart[level], remaining, coordinates, setPointList);
-                    //IJ.log("level="+level+" direction="+directionSequence[dIndex%8]+" remain="+remaining+"-"+n);
-                    remaining -= n;         // number of points processed
-                    if (n > 0) idle = 0;    // nothing processed in this direction?
-                    dIndex++;
-                } while (remaining>0 && idle++<8);
-            }
-            if (remaining>0 && level>1) {   // any pixels that we have not reached?
-                int nextLevel = level;      // find the next level to process
-                do
-                    nextLevel--;
-                while (nextLevel>1 && histogram[nextLevel]==0);
-                // in principle we should add all unprocessed pixels of this level to the
-                // tasklist of the next level. This would make it very slow for some images,
-                // however. Thus we only add the pixels if they are at the border (of the
-                // image or a thresholded area) and correct unprocessed pixels at the very
-                // end by CleanupExtraLines
-                if (nextLevel > 0) {
-                    int newNextLevelEnd = levelStart[nextLevel] + histogram[nextLevel];
-                    for (int i=0, p=levelStart[level]; i<remaining; i++, p++) {
-                        int xy = coordinates[p];
-                        int x = xy&intEncodeXMask;
-                        int y = (xy&intEncodeYMask)>>intEncodeShift;
-                        int pOffset = x + y*width;
-                        boolean addToNext = false;
-                        if (x==0 || y==0 || x==width-1 || y==height-1)
-                            addToNext = true;           //image border
-                        else for (int d=0; d<8; d++)
-                            if (isWithin(x, y, d, width, height) && pixels[pOffset+dirOffset[d]]==0) {
-                                addToNext = true;       //border of area below threshold
-                                break;
-                            }
-                        if (addToNext)
-                            coordinates[newNextLevelEnd++] = xy;
-                    }
-                    //tasklist for the next level to process becomes longer by this:
-                    histogram[nextLevel] = newNextLevelEnd - levelStart[nextLevel];
-                }
-            }
+        //Flood from the highest distance down, the background is out of the mask
+        for (int i=0; i<size; i++) {
+            int v = pixels[i]&255;
+            if (v == 0)
+                labels[i] = -1;
+            else if (v < 255)
+                pixels[i] = (byte)(255 - v);
         }
-        return true;
-    }
-    
-    private int processLevel(int pass, FastBitmap ip, int[] fateTable,
-            int levelStart, int levelNPoints, int[] coordinates, int[] setPointList) {
-        int width = ip.getWidth();
-        int height = ip.getHeight();
-        int xmax = width - 1;
-        int ymax = height - 1;
-        byte[] pixels = ip.getGrayData();
+        new Watershed().Compute(ip, labels);
         
-        int nChanged = 0;
-        int nUnchanged = 0;
-        for (int i=0, p=levelStart; i<levelNPoints; i++, p++) {
-            int xy = coordinates[p];
-            int x = xy&intEncodeXMask;
-            int y = (xy&intEncodeYMask)>>intEncodeShift;
-            int offset = x + y*width;
-            int index = 0;      //neighborhood pixel ocupation: index in fateTable
-            if (y>0 && (pixels[offset-width]&255)==255)
-                index ^= 1;
-            if (x<xmax && y>0 && (pixels[offset-width+1]&255)==255)
-                index ^= 2;
-            if (x<xmax && (pixels[offset+1]&255)==255)
-                index ^= 4;
-            if (x<xmax && y<ymax && (pixels[offset+width+1]&255)==255)
-                index ^= 8;
-            if (y<ymax && (pixels[offset+width]&255)==255)
-                index ^= 16;
-            if (x>0 && y<ymax && (pixels[offset+width-1]&255)==255)
-                index ^= 32;
-            if (x>0 && (pixels[offset-1]&255)==255)
-                index ^= 64;
-            if (x>0 && y>0 && (pixels[offset-width-1]&255)==255)
-                index ^= 128;
-            int mask = 1<<pass;
-            if ((fateTable[index]&mask)==mask)
-                setPointList[nChanged++] = offset;  //remember to set pixel to 255
-            else
-                coordinates[levelStart+(nUnchanged++)] = xy; //keep this pixel for future passes
-
-        } // for pixel i
-        for (int i=0; i<nChanged; i++)
-            pixels[setPointList[i]] = (byte)255;
-        return nChanged;
-    }
-    
-    private int[] makeFateTable() {
-        int[] table = new int[256];
-        boolean[] isSet = new boolean[8];
-        for (int item=0; item<256; item++) {        //dissect into pixels
-            for (int i=0, mask=1; i<8; i++) {
-                isSet[i] = (item&mask)==mask;
-                mask*=2;
-            }
-            for (int i=0, mask=1; i<8; i++) {       //we dilate in the direction opposite to the direction of the existing neighbors
-                if (isSet[(i+4)%8]) table[item] |= mask;
-                mask*=2;
-            }
-            for (int i=0; i<8; i+=2)                //if side pixels are set, for counting transitions it is as good as if the adjacent edges were also set
-                if (isSet[i]) {
-                    isSet[(i+1)%8] = true;
-                    isSet[(i+7)%8] = true;
-                }
-            int transitions=0;
-            for (int i=0, mask=1; i<8; i++) {
-                if (isSet[i] != isSet[(i+1)%8])
-                    transitions++;
-            }
-            if (transitions>=4) {                   //if neighbors contain more than one region, dilation ito this pixel is forbidden
-                table[item] = 0;
-            } else {
-            }
-        }
-        return table;
+        for (int i=0; i<size; i++)
+            pixels[i] = labels[i] > 0 ? (byte)255 : (byte)0;
     }
     
     private boolean isWithin(int x, int y, int direction, int width, int height) {
@@ -629,13 +461,4 @@ public class BinaryWatershed implements IApplyInPlace{
         }
     }
     
-    private static void watershedPostProcess(FastBitmap ip) {
-        byte[] pixels = ip.getGrayData();
-        int size = ip.getWidth()*ip.getHeight();
-        for (int i=0; i<size; i++) {
-           if ((pixels[i]&255)<255)
-                pixels[i] = (byte)0;
-        }
-    }
-    
 }
\ No newline at end of file
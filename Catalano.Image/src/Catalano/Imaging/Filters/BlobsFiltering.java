@@ -21,12 +21,10 @@
 
 package Catalano.Imaging.Filters;
 
-import Catalano.Core.IntPoint;
 import Catalano.Imaging.FastBitmap;
 import Catalano.Imaging.IApplyInPlace;
-import Catalano.Imaging.Tools.Blob;
-import Catalano.Imaging.Tools.BlobDetection;
-import java.util.List;
+import Catalano.Imaging.Shapes.IntRectangle;
+import Catalano.Imaging.Tools.ConnectedComponentsLabeling;
 
 /**
  * Eliminates blobs with certain area or size.
@@ -190,69 +188,34 @@ public class BlobsFiltering implements IApplyInPlace{
     @Override
     public void applyInPlace(FastBitmap fastBitmap){
         
-        List<Blob> blobs = new BlobDetection().ProcessImage(fastBitmap);
+        ConnectedComponentsLabeling ccl = new ConnectedComponentsLabeling();
+        int[] labels = ccl.Compute(fastBitmap);
         
-        switch(filter){
-            case Area:
-                int area;
-                for (int i = 0; i < blobs.size(); i++) {
-                    area = blobs.get(i).getArea();
-                    if(remove){
-                        if (area < minArea) {
-                            for (IntPoint p : blobs.get(i).getPoints()) {
-                                fastBitmap.setGray(p.x, p.y, 0);
-                            }
-                        }
-                    }
-                    else{
-                        if (area > minArea) {
-                            for (IntPoint p : blobs.get(i).getPoints()) {
-                                fastBitmap.setGray(p.x, p.y, 0);
-                            }
-                        }
-                    }
-                }
-            break;
-            case Size:
-                int blobWidth;
-                int blobHeight;
-                for (int i = 0; i < blobs.size(); i++) {
-                    blobWidth = blobs.get(i).getWidth();
-                    blobHeight = blobs.get(i).getHeight();
+        //Blobs to be erased
+        boolean[] erase = new boolean[ccl.getNumberOfComponents() + 1];
+        for (int i = 1; i < erase.length; i++) {
+            switch(filter){
+                case Area:
+                    int area = ccl.getArea(i);
+                    erase[i] = remove ? area < minArea : area > minArea;
+                break;
+                case Size:
+                    IntRectangle rect = ccl.getBoundingBox(i);
+                    int blobWidth = rect.width;
+                    int blobHeight = rect.height;
                     if(logic == Logic.Or){
-                        if(remove){
-                            if (blobWidth < minWidth || blobHeight < minHeight) {
-                                for (IntPoint p : blobs.get(i).getPoints()) {
-                                    fastBitmap.setGray(p.x, p.y, 0);
-                                }
-                            }
-                        }
-                        else{
-                            if (blobWidth > minWidth || blobHeight > minHeight) {
-                                for (IntPoint p : blobs.get(i).getPoints()) {
-                                    fastBitmap.setGray(p.x, p.y, 0);
-                                }
-                            }
-                        }
+                        erase[i] = remove ? (blobWidth < minWidth || blobHeight < minHeight) : (blobWidth > minWidth || blobHeight > minHeight);
                     }
                     else{
-                        if(remove){
-                            if (blobWidth < minWidth && blobHeight < minHeight) {
-                                for (IntPoint p : blobs.get(i).getPoints()) {
-                                    fastBitmap.setGray(p.x, p.y, 0);
-                                }
-                            }
-                        }
-                        else{
-                            if (blobWidth > minWidth && blobHeight > minHeight) {
-                                for (IntPoint p : blobs.get(i).getPoints()) {
-                                    fastBitmap.setGray(p.x, p.y, 0);
-                                }
-                            }
-                        }
+                        erase[i] = remove ? (blobWidth < minWidth && blobHeight < minHeight) : (blobWidth > minWidth && blobHeight > minHeight);
                     }
-                }
-            break;
+                break;
+            }
+        }
+        
+        for (int i = 0; i < labels.length; i++) {
+            if(erase[labels[i]])
+                fastBitmap.setGray(i, 0);
         }
     }
 }
\ No newline at end of file
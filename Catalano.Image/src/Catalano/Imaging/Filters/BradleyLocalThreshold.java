@@ -24,9 +24,10 @@
 
 package Catalano.Imaging.Filters;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Imaging.FastBitmap;
 import Catalano.Imaging.IApplyInPlace;
-import Catalano.Imaging.Tools.IntegralImage;
+import Catalano.Imaging.Tools.LocalStatistics;
 
 /**
  * Adaptive thresholding using the integral image.
@@ -96,40 +97,24 @@ public class BradleyLocalThreshold implements IApplyInPlace{
 
     @Override
     public void applyInPlace(FastBitmap fastBitmap) {
-        IntegralImage im = new IntegralImage(fastBitmap);
+        final LocalStatistics stats = new LocalStatistics(fastBitmap);
+        final byte[] data = fastBitmap.getGrayData();
+        final int width = fastBitmap.getWidth();
         
-        int width    = fastBitmap.getWidth();
-        int height   = fastBitmap.getHeight();
-        int widthM1  = width - 1;
-        int heightM1 = height - 1;
+        final int radius = windowSize / 2;
         
-        int radius = windowSize / 2;
+        final float avgBrightnessPart = 1.0f - pixelBrightnessDifferenceLimit;
         
-        float avgBrightnessPart = 1.0f - pixelBrightnessDifferenceLimit;
-        
-        for (int x = 0; x < height; x++) {
-            
-                int x1 = x - radius;
-                int x2 = x + radius;
-
-                if ( x1 < 0 )
-                    x1 = 0;
-                if ( x2 > heightM1 )
-                    x2 = heightM1;
-            
-            for (int y = 0; y < width; y++) {
-                    int y1 = y - radius;
-                    int y2 = y + radius;
-
-                    if ( y1 < 0 )
-                        y1 = 0;
-                    if ( y2 > widthM1 )
-                        y2 = widthM1;
-                    
-                    
-                    int gray = fastBitmap.getGray(x, y) < (int)(im.getRectangleMeanUnsafe(x1, y1, x2, y2) * avgBrightnessPart) ? 0 : 255;
-                    fastBitmap.setGray(x, y, gray);
+        ParallelFor.Run(fastBitmap.getHeight(), Math.max(1, 65536 / Math.max(1, width)), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int x = from; x < to; x++) {
+                    for (int y = 0, i = x * width; y < width; y++, i++) {
+                        float mean = (float)stats.getMean(x, y, radius);
+                        data[i] = (byte)((data[i] & 0xFF) < (int)(mean * avgBrightnessPart) ? 0 : 255);
+                    }
+                }
             }
-        }
+        });
     }
 }
\ No newline at end of file
@@ -24,11 +24,15 @@
 
 package Catalano.Imaging.Filters;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Core.IntPoint;
 import Catalano.Imaging.FastBitmap;
+import java.util.Arrays;
 
 /**
  * Distance Transform.
+ * <p>
+ * Distance of each non zero pixel to the nearest zero pixel. The distances are exact for all the metrics.
  * 
  * <p><li>Supported types: Grayscale.
  * <br><li>Coordinate System: Matrix.
@@ -62,6 +66,9 @@ public class DistanceTransform {
         SquaredEuclidean};
     
     private float[][] image;
+    private float[] map;
+    private int width;
+    private int height;
     private float max = 0;
     private IntPoint ued;
     private Distance distance = Distance.Euclidean;
@@ -103,157 +110,235 @@ public class DistanceTransform {
      */
     public float[][] Compute(FastBitmap fastBitmap){
         
-        if (fastBitmap.isGrayscale()){
-            int width = fastBitmap.getWidth();
-            int height = fastBitmap.getHeight();
-            byte[] bPixels = fastBitmap.getGrayData();
-            float[] fPixels = new float[bPixels.length];
-
-            for (int i=0; i<width*height; i++)
-                if (bPixels[i]!=0)
-                    fPixels[i] = Float.MAX_VALUE;
-
-            int[][] pointBufs = new int[2][width];
-
-            // pass 1 & 2: increasing y
-            for (int x=0; x<width; x++) {
-                pointBufs[0][x] = -1;
-                pointBufs[1][x] = -1;
+        float[] map = ComputeMap(fastBitmap);
+        
+        image = new float[height][width];
+        for (int i = 0; i < height; i++)
+            System.arraycopy(map, i * width, image[i], 0, width);
+        
+        return image;
+    }
+    
+    /**
+     * Compute Distance Transform in one array.
+     * <p>
+     * Exact transform of Meijster et al., separable in a column pass and a row pass.
+     * Each pass is computed in parallel, over bands of columns and then over rows.
+     * 
+     * @param fastBitmap Image to be processed.
+     * @return Distance map, x * width + y.
+     */
+    public float[] ComputeMap(FastBitmap fastBitmap){
+        
+        if (!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("Distance Transform only works in grayscale images.");
+        
+        this.width = fastBitmap.getWidth();
+        this.height = fastBitmap.getHeight();
+        this.image = null;
+        this.max = 0;
+        this.ued = null;
+        
+        final byte[] data = fastBitmap.getGrayData();
+        final int w = width;
+        final int h = height;
+        final int[] g = new int[w * h];
+        final float[] map = new float[w * h];
+        this.map = map;
+        
+        // Without background all the distances are undefined
+        boolean background = false;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == 0){
+                background = true;
+                break;
             }
-            for (int y=0; y<height; y++)
-                edmLine(bPixels, fPixels, pointBufs, width, y*width, y);
-
-            //pass 3 & 4: decreasing y
-            for (int x=0; x<width; x++) {
-                pointBufs[0][x] = -1;
-                pointBufs[1][x] = -1;
+        }
+        if (!background){
+            Arrays.fill(map, Float.MAX_VALUE);
+            if (distance == Distance.Euclidean)
+                Arrays.fill(map, (float)Math.sqrt(Float.MAX_VALUE));
+            if (map.length > 0){
+                max = map[0];
+                ued = new IntPoint(0, 0);
             }
-            for (int y=height-1; y>=0; y--)
-                edmLine(bPixels, fPixels, pointBufs, width, y*width, y);
-
-            image = new float[height][width];
-            int p = 0;
-            
-            if(distance == Distance.Euclidean){
-                for (int i = 0; i < height; i++) {
-                    for (int j = 0; j < width; j++) {
-                        if(fPixels[p] < 0f)
-                            image[i][j] = 0;
-                        else
-                            image[i][j] = (float)Math.sqrt(fPixels[p]);
-                        if(image[i][j] > max){
-                            max = image[i][j];
-                            ued = new IntPoint(i, j);
-                        }
-                        p++;
+            return map;
+        }
+        
+        // Phase 1: distance to the nearest background pixel of the same column
+        final int inf = w + h;
+        ParallelFor.Run(w, Math.max(1, 65536 / Math.max(1, h)), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int y = from; y < to; y++)
+                    g[y] = data[y] == 0 ? 0 : inf;
+                for (int x = 1; x < h; x++) {
+                    for (int y = from, i = x * w + from; y < to; y++, i++)
+                        g[i] = data[i] == 0 ? 0 : g[i - w] + 1;
+                }
+                for (int x = h - 2; x >= 0; x--) {
+                    for (int y = from, i = x * w + from; y < to; y++, i++) {
+                        if (g[i + w] < g[i])
+                            g[i] = g[i + w] + 1;
                     }
                 }
             }
-            else{
-                for (int i = 0; i < height; i++) {
-                    for (int j = 0; j < width; j++) {
-                        if(fPixels[p] < 0f)
-                            image[i][j] = 0;
-                        else
-                            image[i][j] = fPixels[p];
-                        if(image[i][j] > max){
-                            max = image[i][j];
-                            ued = new IntPoint(i, j);
+        });
+        
+        // Phase 2: lower envelope of the column distances along each row
+        final boolean euclidean = distance == Distance.Euclidean || distance == Distance.SquaredEuclidean;
+        ParallelFor.Run(h, Math.max(1, 65536 / Math.max(1, w)), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int[] s = new int[w];
+                int[] t = new int[w];
+                long[] f = new long[w];
+                float localMax = 0;
+                int localIndex = -1;
+                
+                for (int x = from; x < to; x++) {
+                    int o = x * w;
+                    if (euclidean)
+                        EuclideanRow(g, o, w, s, t, f, map);
+                    else
+                        Row(g, o, w, s, t, map);
+                    
+                    // The first maximum in raster order
+                    for (int y = 0; y < w; y++) {
+                        if (map[o + y] > localMax){
+                            localMax = map[o + y];
+                            localIndex = o + y;
                         }
-                        p++;
+                    }
+                }
+                
+                synchronized(DistanceTransform.this){
+                    if (localIndex >= 0 && (localMax > max || (localMax == max && localIndex < ued.x * w + ued.y))){
+                        max = localMax;
+                        ued = new IntPoint(localIndex / w, localIndex % w);
                     }
                 }
             }
+        });
         
-            return image;
-        }
-        else{
-            throw new IllegalArgumentException("Distance Transform only works in grayscale images.");
-        }
-        
+        return map;
     }
     
-    // Handle a line; two passes: left-to-right and right-to-left
-    private void edmLine(byte[] bPixels, float[] fPixels, int[][] pointBufs, int width, int offset, int y) {
-        int[] points = pointBufs[0];        // the buffer for the left-to-right pass
-        int pPrev = -1;
-        int pDiag = -1;               // point at (-/+1, -/+1) to current one (-1,-1 in the first pass)
-        int pNextDiag;
-        int distSqr = Integer.MAX_VALUE;    // this value is used only if edges are not background
-        for (int x=0; x<width; x++, offset++) {
-            pNextDiag = points[x];
-            if (bPixels[offset] == 0) {
-                points[x] = x | y<<16;      // remember coordinates as a candidate for nearest background point
-            } else {                        // foreground pixel:
-                float dist2 = minDist2(points, pPrev, pDiag, x, y, distSqr, distance);
-                if (fPixels[offset] > dist2) fPixels[offset] = dist2;
+    /**
+     * Lower envelope of the parabolas of one row, euclidean distances.
+     * @param g Column distances.
+     * @param o Offset of the row.
+     * @param w Width.
+     * @param s Columns of the parabolas in the envelope.
+     * @param t First pixel of each parabola in the envelope.
+     * @param f Squared column distances of the row.
+     * @param map Distance map.
+     */
+    private void EuclideanRow(int[] g, int o, int w, int[] s, int[] t, long[] f, float[] map){
+        
+        for (int u = 0; u < w; u++)
+            f[u] = (long)g[o + u] * g[o + u];
+        
+        int q = 0;
+        s[0] = 0;
+        t[0] = 0;
+        for (int u = 1; u < w; u++) {
+            long fu = f[u];
+            while (q >= 0){
+                long d = t[q] - s[q];
+                long e = t[q] - u;
+                if (d * d + f[s[q]] <= e * e + fu) break;
+                q--;
             }
-            pPrev = points[x];
-            pDiag = pNextDiag;
-        }
-        offset--; //now points to the last pixel in the line
-        points = pointBufs[1];              // the buffer for the right-to-left pass. Low short contains x, high short y
-        pPrev = -1;
-        pDiag = -1;
-        for (int x=width-1; x>=0; x--, offset--) {
-            pNextDiag = points[x];
-            if (bPixels[offset] == 0) {
-                points[x] = x | y<<16;      // remember coordinates as a candidate for nearest background point
-            } else {                        // foreground pixel:
-                float dist2 = minDist2(points, pPrev, pDiag, x, y, distSqr, distance);
-                if (fPixels[offset] > dist2) fPixels[offset] = dist2;
+            if (q < 0){
+                q = 0;
+                s[0] = u;
+            }
+            else{
+                int i = s[q];
+                long sep = 1 + ((long)u * u - (long)i * i + fu - f[i]) / (2L * (u - i));
+                if (sep < w){
+                    q++;
+                    s[q] = u;
+                    t[q] = (int)sep;
+                }
             }
-            pPrev = points[x];
-            pDiag = pNextDiag;
+        }
+        
+        boolean sqrt = distance == Distance.Euclidean;
+        for (int u = w - 1; u >= 0; u--) {
+            long d = u - s[q];
+            float v = d * d + f[s[q]];
+            map[o + u] = sqrt ? (float)Math.sqrt(v) : v;
+            if (u == t[q]) q--;
         }
     }
     
-    private float minDist2 (int[] points, int pPrev, int pDiag, int x, int y, int distSqr, Distance distance) {
-        int p0 = points[x];              // the nearest background point for the same x in the previous line
-        int nearestPoint = p0;
-        if (p0 != -1) {
-            int x0 = p0& 0xffff; int y0 = (p0>>16)&0xffff;
-            int dist1Sqr = calcDistance(x, y, x0, y0, distance);
-            if (dist1Sqr < distSqr)
-                distSqr = dist1Sqr;
-        }
-        if (pDiag!=p0 && pDiag!=-1) {
-            int x1 = pDiag&0xffff; int y1 = (pDiag>>16)&0xffff;
-            int dist1Sqr = calcDistance(x, y, x1, y1, distance);
-            if (dist1Sqr < distSqr) {
-                nearestPoint = pDiag;
-                distSqr = dist1Sqr;
+    /**
+     * Lower envelope of one row, manhattan and chessboard distances.
+     * @param g Column distances.
+     * @param o Offset of the row.
+     * @param w Width.
+     * @param s Columns in the envelope.
+     * @param t First pixel of each column in the envelope.
+     * @param map Distance map.
+     */
+    private void Row(int[] g, int o, int w, int[] s, int[] t, float[] map){
+        
+        int q = 0;
+        s[0] = 0;
+        t[0] = 0;
+        for (int u = 1; u < w; u++) {
+            while (q >= 0 && F(t[q], s[q], g[o + s[q]]) > F(t[q], u, g[o + u]))
+                q--;
+            if (q < 0){
+                q = 0;
+                s[0] = u;
             }
-        }
-        if (pPrev!=pDiag && pPrev!=-1) {
-            int x1 = pPrev& 0xffff; int y1 = (pPrev>>16)&0xffff;
-            int dist1Sqr = calcDistance(x, y, x1, y1, distance);
-            if (dist1Sqr < distSqr) {
-                nearestPoint = pPrev;
-                distSqr = dist1Sqr;
+            else{
+                int sep = 1 + Sep(s[q], u, g[o + s[q]], g[o + u]);
+                if (sep < w){
+                    q++;
+                    s[q] = u;
+                    t[q] = sep;
+                }
             }
         }
-        points[x] = nearestPoint;
-        return (float)distSqr;
+        for (int u = w - 1; u >= 0; u--) {
+            map[o + u] = F(u, s[q], g[o + s[q]]);
+            if (u == t[q]) q--;
+        }
     }
     
-    private int calcDistance(int x, int y, int x0, int y0, Distance distance){
-        int v = 0;
-        switch(distance){
-            case Euclidean:
-                v = (x-x0)*(x-x0)+(y-y0)*(y-y0);
-            break;
-            case Manhattan:
-                v = Math.abs(x-x0) + Math.abs(y-y0);
-            break;
-            case Chessboard:
-                v = Math.max(Math.abs(x-x0), Math.abs(y-y0));
-            break;
-            case SquaredEuclidean:
-                v = (x-x0)*(x-x0)+(y-y0)*(y-y0);
-            break;
+    /**
+     * Distance between the pixel u of a row and the nearest background pixel of the column i.
+     * @param u Column of the pixel.
+     * @param i Column of the background.
+     * @param gi Column distance of i.
+     * @return Distance.
+     */
+    private int F(int u, int i, int gi){
+        if (distance == Distance.Manhattan)
+            return Math.abs(u - i) + gi;
+        return Math.max(Math.abs(u - i), gi);
+    }
+    
+    /**
+     * First column from where the column u is nearer than the column i, minus one.
+     * @param i Column, i &lt; u.
+     * @param u Column.
+     * @param gi Column distance of i.
+     * @param gu Column distance of u.
+     * @return Separator.
+     */
+    private int Sep(int i, int u, int gi, int gu){
+        if (distance == Distance.Manhattan){
+            if (gu >= gi + u - i) return Integer.MAX_VALUE - 1;
+            if (gi > gu + u - i) return Integer.MIN_VALUE;
+            return (gu - gi + u + i) / 2;
         }
-        return v;
+        if (gi <= gu) return Math.max(i + gu, (i + u) / 2);
+        return Math.min(u - gi, (i + u) / 2);
     }
     
     /**
@@ -262,14 +347,11 @@ public class DistanceTransform {
      */
     public FastBitmap toFastBitmap(){
         
-        int width = image[0].length;
-        int height = image.length;
-        
         FastBitmap fb = new FastBitmap(width, height, FastBitmap.ColorSpace.Grayscale);
         
         for (int i = 0; i < height; i++) {
             for (int j = 0; j < width; j++) {
-                fb.setGray(i, j, (int)Catalano.Math.Tools.Scale(0, max, 0, 255, image[i][j]));
+                fb.setGray(i, j, (int)Catalano.Math.Tools.Scale(0, max, 0, 255, map[i * width + j]));
             }
         }
         
@@ -0,0 +1,445 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Filters;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.IApplyInPlace;
+import Catalano.Math.Functions.Gaussian;
+import java.util.Arrays;
+
+/**
+ * Fast Canny edge detector.
+ * <p>
+ * Same steps and parameters of {@link CannyEdgeDetector}, computed in one sweep over
+ * the rows without intermediate images. Each row is blurred by a separable gaussian
+ * and derived by Sobel, and the non maximum suppression runs on a rolling buffer of
+ * three rows of gradients. The sweep is split in bands of rows computed in parallel.
+ * 
+ * <p>The hysteresis keeps the pixels above the low threshold that are connected to a
+ * pixel above the high threshold by a path of such pixels (8 neighbours), tracing with
+ * an explicit stack.
+ * The edges keep their gradient magnitude scaled to [0, 255], the other pixels are 0.
+ * 
+ * <p><li>Supported types: Grayscale.
+ * <br><li>Coordinate System: Matrix.
+ * 
+ * @see CannyEdgeDetector
+ * @author Diego Catalano
+ */
+public class FastCannyEdgeDetector implements IApplyInPlace{
+    
+    // tan(22.5) and tan(67.5)
+    private static final float TAN22 = 0.41421356f;
+    private static final float TAN67 = 2.41421356f;
+    
+    // state of the pixels in the hysteresis
+    private static final byte WEAK = 1;
+    private static final byte EDGE = 2;
+    
+    private double sigma = 1.4D;
+    private int size = 1;
+    private int lowThreshold = 20;
+    private int highThreshold = 100;
+    
+    private float maxGradient;
+
+    /**
+     * Get Low threshold.
+     * Used for Hysteresis.
+     * @return Low threshold.
+     */
+    public int getLowThreshold() {
+        return lowThreshold;
+    }
+
+    /**
+     * Set Low threshold.
+     * @param lowThreshold Threshold value.
+     */
+    public void setLowThreshold(int lowThreshold) {
+        this.lowThreshold = lowThreshold;
+    }
+
+    /**
+     * Get High threshold.
+     * Used for Hysteresis.
+     * @return Threshold value.
+     */
+    public int getHighThreshold() {
+        return highThreshold;
+    }
+
+    /**
+     * Set High threshold.
+     * @param highThreshold Threshold value.
+     */
+    public void setHighThreshold(int highThreshold) {
+        this.highThreshold = highThreshold;
+    }
+
+    /**
+     * Get Gaussian sigma.
+     * @return Gaussian sigma.
+     */
+    public double getSigma() {
+        return sigma;
+    }
+
+    /**
+     * Set Gaussian sigma.
+     * @param sigma Gaussian sigma.
+     */
+    public void setSigma(double sigma) {
+        this.sigma = sigma;
+    }
+
+    /**
+     * Get Gaussian kernel size.
+     * @return Gaussian kernel size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Set Gaussian kernel size.
+     * @param size Gaussian kernel size.
+     */
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Initialize a new instance of the FastCannyEdgeDetector class.
+     */
+    public FastCannyEdgeDetector() {}
+    
+    /**
+     * Initialize a new instance of the FastCannyEdgeDetector class.
+     * @param lowThreshold Low threshold. (Used for hysteresis).
+     * @param highThreshold High Threshold. (Used for hysteresis).
+     */
+    public FastCannyEdgeDetector(int lowThreshold, int highThreshold){
+       this.lowThreshold = lowThreshold;
+       this.highThreshold = highThreshold;
+    }
+    
+    /**
+     * Initialize a new instance of the FastCannyEdgeDetector class.
+     * @param lowThreshold Low threshold. (Used for hysteresis).
+     * @param highThreshold High Threshold. (Used for hysteresis).
+     * @param sigma Gaussian sigma.
+     */
+    public FastCannyEdgeDetector(int lowThreshold, int highThreshold, double sigma){
+       this.lowThreshold = lowThreshold;
+       this.highThreshold = highThreshold;
+       this.sigma = sigma;
+    }
+    
+    /**
+     * Initialize a new instance of the FastCannyEdgeDetector class.
+     * @param lowThreshold Low threshold. (Used for hysteresis).
+     * @param highThreshold High Threshold. (Used for hysteresis).
+     * @param sigma Gaussian sigma.
+     * @param size Size of gaussian kernel.
+     */
+    public FastCannyEdgeDetector(int lowThreshold, int highThreshold, double sigma, int size){
+       this.lowThreshold = lowThreshold;
+       this.highThreshold = highThreshold;
+       this.sigma = sigma;
+       this.size = size;
+    }
+
+    @Override
+    public void applyInPlace(FastBitmap fastBitmap) {
+        
+        if (!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("FastCannyEdgeDetector only works in grayscale images.");
+        
+        final int width = fastBitmap.getWidth();
+        final int height = fastBitmap.getHeight();
+        final byte[] data = fastBitmap.getGrayData();
+        final float[] kernel = CreateKernel();
+        final float[] suppressed = new float[width * height];
+        
+        // Blur, gradient and non maximum suppression, in bands of rows
+        maxGradient = 0;
+        int grain = Math.max(16, 65536 / Math.max(1, width));
+        ParallelFor.Run(height, grain, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                float max = Sweep(data, width, height, kernel, from, to, suppressed);
+                synchronized(FastCannyEdgeDetector.this){
+                    if (max > maxGradient) maxGradient = max;
+                }
+            }
+        });
+        
+        // Scale the magnitudes and classify the pixels for the hysteresis
+        final byte[] state = new byte[width * height];
+        final float max = maxGradient;
+        ParallelFor.Run(height, grain, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from * width; i < to * width; i++) {
+                    int v = max > 0 ? (int)(suppressed[i] / max * 255) : 0;
+                    data[i] = (byte)v;
+                    state[i] = v >= highThreshold ? EDGE : (v >= lowThreshold ? WEAK : 0);
+                }
+            }
+        });
+        
+        Hysteresis(state, width, height, grain);
+        
+        ParallelFor.Run(height, grain, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from * width; i < to * width; i++) {
+                    if (state[i] != EDGE) data[i] = 0;
+                }
+            }
+        });
+    }
+    
+    /**
+     * Blur, derive and suppress the non maximum gradients of a band of rows.
+     * The rows of the band need the gradients of one row above and below, and the
+     * gradients need the blurred rows around them, so those rows are computed again
+     * by the neighbor bands.
+     * 
+     * @param data Image.
+     * @param width Width.
+     * @param height Height.
+     * @param kernel Gaussian kernel.
+     * @param from First row.
+     * @param to Last row, exclusive.
+     * @param suppressed Gradient magnitude of the maximums, 0 elsewhere.
+     * @return Maximum gradient magnitude of the band.
+     */
+    private float Sweep(byte[] data, int width, int height, float[] kernel, int from, int to, float[] suppressed){
+        
+        float[][] blur = new float[3][width];
+        float[] magnitude = new float[3 * width];
+        byte[][] direction = new byte[3][width];
+        float[] column = new float[width];
+        float max = 0;
+        
+        // Only the inner pixels have gradient
+        int first = Math.max(1, from);
+        int last = Math.min(height - 1, to);
+        if (first >= last) return 0;
+        
+        int nextBlur = first - 2 < 0 ? 0 : first - 2;
+        for (int m = first - 1; m <= last; m++) {
+            
+            // Gradient of the row m, from the blurred rows m - 1, m and m + 1
+            int slot = (m % 3) * width;
+            if (m == 0 || m == height - 1){
+                Arrays.fill(magnitude, slot, slot + width, 0);
+            }
+            else{
+                while (nextBlur <= m + 1) {
+                    Blur(data, width, height, kernel, nextBlur, column, blur[nextBlur % 3]);
+                    nextBlur++;
+                }
+                float mm = Sobel(blur[(m - 1) % 3], blur[m % 3], blur[(m + 1) % 3], width, magnitude, slot, direction[m % 3]);
+                if (mm > max) max = mm;
+            }
+            
+            // Suppression of the row m - 1
+            int x = m - 1;
+            if (x >= first)
+                Suppress(magnitude, ((x + 2) % 3) * width, (x % 3) * width, (m % 3) * width, direction[x % 3], width, suppressed, x * width);
+        }
+        
+        return max;
+    }
+    
+    /**
+     * Separable gaussian blur of one row, the borders are replicated.
+     */
+    private void Blur(byte[] data, int width, int height, float[] kernel, int row, float[] column, float[] out){
+        int r = kernel.length / 2;
+        
+        // Vertical
+        Arrays.fill(column, 0);
+        for (int i = 0; i < kernel.length; i++) {
+            int x = Math.min(height - 1, Math.max(0, row + i - r));
+            float k = kernel[i];
+            for (int y = 0, o = x * width; y < width; y++, o++)
+                column[y] += k * (data[o] & 0xFF);
+        }
+        
+        // Horizontal
+        for (int y = 0; y < width; y++) {
+            float v = 0;
+            if (y >= r && y < width - r){
+                for (int j = 0, c = y - r; j < kernel.length; j++, c++)
+                    v += kernel[j] * column[c];
+            }
+            else{
+                for (int j = 0; j < kernel.length; j++)
+                    v += kernel[j] * column[Math.min(width - 1, Math.max(0, y + j - r))];
+            }
+            out[y] = v;
+        }
+    }
+    
+    /**
+     * Sobel gradient of one row, same convention of {@link CannyEdgeDetector}.
+     * @return Maximum magnitude of the row.
+     */
+    private float Sobel(float[] b0, float[] b1, float[] b2, int width, float[] mag, int slot, byte[] dir){
+        float max = 0;
+        for (int y = 1; y < width - 1; y++) {
+            float gx = b0[y + 1] + b2[y + 1] - b0[y - 1] - b2[y - 1] + 2 * (b1[y + 1] - b1[y - 1]);
+            float gy = b0[y - 1] + b0[y + 1] - b2[y - 1] - b2[y + 1] + 2 * (b0[y] - b2[y]);
+            
+            float g = (float)Math.sqrt(gx * gx + gy * gy);
+            mag[slot + y] = g;
+            if (g > max) max = g;
+            
+            // Closest angle of 0, 45, 90 and 135 degrees, without atan and branches.
+            // The direction of a null gradient does not matter, it is never a maximum.
+            float ax = Math.abs(gx);
+            float ay = Math.abs(gy);
+            int d = (ay < TAN22 * ax ? 0 : 1) + (ay < TAN67 * ax ? 0 : 1);
+            int opposite = (Float.floatToRawIntBits(gx) ^ Float.floatToRawIntBits(gy)) >>> 31;
+            dir[y] = (byte)(d + ((d & 1) * opposite << 1));
+        }
+        mag[slot] = mag[slot + width - 1] = 0;
+        return max;
+    }
+    
+    /**
+     * Non maximum suppression of one row.
+     * @param mag Magnitudes of the three rows.
+     * @param above Offset of the row above.
+     * @param row Offset of the row.
+     * @param below Offset of the row below.
+     * @param dir Directions of the row.
+     * @param width Width.
+     * @param suppressed Output.
+     * @param offset Offset of the row in the output.
+     */
+    private void Suppress(float[] mag, int above, int row, int below, byte[] dir, int width, float[] suppressed, int offset){
+        
+        // The two neighbors along each direction
+        int[] left = {row - 1, below - 1, below, below + 1};
+        int[] right = {row + 1, above + 1, above, above - 1};
+        
+        for (int y = 1; y < width - 1; y++) {
+            int d = dir[y];
+            float g = mag[row + y];
+            float l = mag[left[d] + y];
+            float r = mag[right[d] + y];
+            suppressed[offset + y] = (g < l || g < r) ? 0 : g;
+        }
+    }
+    
+    /**
+     * Hysteresis, the weak pixels connected to an edge become edges.
+     * Each band traces its own rows, then the paths crossing the bands are traced from the rows at their borders.
+     * @param state State of each pixel.
+     * @param width Width.
+     * @param height Height.
+     * @param grain Minimum number of rows of each band.
+     */
+    private void Hysteresis(final byte[] state, final int width, final int height, int grain){
+        
+        final boolean[] border = new boolean[height];
+        ParallelFor.Run(height, grain, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                border[from] = true;
+                int[] stack = new int[64];
+                for (int i = from * width; i < to * width; i++) {
+                    if (state[i] == EDGE)
+                        stack = Trace(state, width, from, to, i, stack);
+                }
+            }
+        });
+        
+        int[] stack = new int[64];
+        for (int x = 1; x < height; x++) {
+            if (!border[x]) continue;
+            for (int i = (x - 1) * width; i < (x + 1) * width; i++) {
+                if (state[i] == EDGE)
+                    stack = Trace(state, width, 0, height, i, stack);
+            }
+        }
+    }
+    
+    /**
+     * Trace the weak pixels connected to an edge, between two rows.
+     * The image borders have no gradient, so they are never weak.
+     * @param state State of each pixel.
+     * @param width Width.
+     * @param from First row.
+     * @param to Last row, exclusive.
+     * @param seed Edge pixel.
+     * @param stack Stack.
+     * @return The stack, it may have grown.
+     */
+    private int[] Trace(byte[] state, int width, int from, int to, int seed, int[] stack){
+        int lo = from * width;
+        int hi = to * width;
+        int n = 0;
+        stack[n++] = seed;
+        while (n > 0) {
+            int p = stack[--n];
+            for (int dx = -width; dx <= width; dx += width) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    int q = p + dx + dy;
+                    if (q >= lo && q < hi && state[q] == WEAK){
+                        state[q] = EDGE;
+                        if (n == stack.length)
+                            stack = Arrays.copyOf(stack, n * 2);
+                        stack[n++] = q;
+                    }
+                }
+            }
+        }
+        return stack;
+    }
+    
+    /**
+     * 1-D gaussian kernel, with the limits of {@link GaussianBlur}.
+     * @return Kernel.
+     */
+    private float[] CreateKernel(){
+        double s = Math.max(0.5, Math.min(5.0, sigma));
+        int n = Math.max(3, Math.min(21, size | 1));
+        double[] k = new Gaussian(s).Kernel1D(n);
+        
+        double sum = 0;
+        for (int i = 0; i < n; i++)
+            sum += k[i];
+        
+        float[] kernel = new float[n];
+        for (int i = 0; i < n; i++)
+            kernel[i] = (float)(k[i] / sum);
+        return kernel;
+    }
+}
\ No newline at end of file
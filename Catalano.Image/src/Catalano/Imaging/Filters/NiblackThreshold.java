@@ -22,11 +22,10 @@
 
 package Catalano.Imaging.Filters;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Imaging.FastBitmap;
-import Catalano.Imaging.Filters.Integral.IntegralMean;
-import Catalano.Imaging.Filters.Integral.IntegralVariance;
 import Catalano.Imaging.IApplyInPlace;
-import Catalano.Math.Matrix;
+import Catalano.Imaging.Tools.LocalStatistics;
 
 /**
  * Niblack Threshold.
@@ -126,25 +125,23 @@ public class NiblackThreshold implements IApplyInPlace{
         
         if (fastBitmap.isGrayscale()){
             
-            FastBitmap mean = new FastBitmap(fastBitmap);
-            FastBitmap var = new FastBitmap(fastBitmap);
-            
-            IntegralMean im = new IntegralMean(radius);
-            im.applyInPlace(mean);
-            
-            IntegralVariance iv = new IntegralVariance(radius);
-            iv.applyInPlace(var);
-            
-            int size = fastBitmap.getSize();
-            for (int i = 0; i < size; i++) {
-                float P = fastBitmap.getGray(i);
-                float mP = mean.getGray(i);
-                float vP = var.getGray(i);
-                int g = (P > (mP + k * Math.sqrt(vP) - c)) ? 255 : 0;
-
-                fastBitmap.setGray(i, g);
-            }
+            final LocalStatistics stats = new LocalStatistics(fastBitmap);
+            final byte[] data = fastBitmap.getGrayData();
+            final int width = fastBitmap.getWidth();
             
+            ParallelFor.Run(fastBitmap.getHeight(), Math.max(1, 65536 / Math.max(1, width)), new ParallelFor.Body() {
+                @Override
+                public void Compute(int from, int to) {
+                    for (int x = from; x < to; x++) {
+                        for (int y = 0, i = x * width; y < width; y++, i++) {
+                            double P = data[i] & 0xFF;
+                            double mP = stats.getMean(x, y, radius);
+                            double sP = stats.getStandardDeviation(x, y, radius);
+                            data[i] = (byte)((P > (mP + k * sP - c)) ? 255 : 0);
+                        }
+                    }
+                }
+            });
         }
         else{
             throw new IllegalArgumentException("Niblack Threshold only works in grayscale images.");
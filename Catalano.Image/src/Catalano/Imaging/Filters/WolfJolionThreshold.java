@@ -22,11 +22,10 @@
 
 package Catalano.Imaging.Filters;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Imaging.FastBitmap;
-import Catalano.Imaging.Filters.Integral.IntegralMean;
-import Catalano.Imaging.Filters.Integral.IntegralVariance;
 import Catalano.Imaging.IApplyInPlace;
-import Catalano.Math.Matrix;
+import Catalano.Imaging.Tools.LocalStatistics;
 
 /**
  * Wolf Jolion Threshold.
@@ -127,39 +126,47 @@ public class WolfJolionThreshold implements IApplyInPlace{
         
         if (fastBitmap.isGrayscale()){
             
-            FastBitmap mean = new FastBitmap(fastBitmap);
-            FastBitmap var = new FastBitmap(fastBitmap);
+            final LocalStatistics stats = new LocalStatistics(fastBitmap);
+            final byte[] data = fastBitmap.getGrayData();
+            final int width = fastBitmap.getWidth();
+            final int height = fastBitmap.getHeight();
+            int grain = Math.max(1, 65536 / Math.max(1, width));
             
-            IntegralMean im = new IntegralMean(radius);
-            im.applyInPlace(mean);
-            
-            IntegralVariance iv = new IntegralVariance(radius);
-            iv.applyInPlace(var);
-            
-            int size = fastBitmap.getSize();
-            
-            int maxV = 0;
-            for (int i = 0; i < size; i++) {
-                int g = var.getGray(i);
-                if (g > maxV) maxV = g;
-            }
-            
-            int minG = 255;
-            for (int i = 0; i < size; i++) {
-                int g = fastBitmap.getGray(i);
-                if (g < minG) minG = g;
-            }
-            
-            for (int i = 0; i < size; i++) {
-                double P = fastBitmap.getGray(i);
-                double mP = mean.getGray(i);
-                double vP = var.getGray(i);
-
-                int g = (P > (mP + k * ((Math.sqrt(vP) / (double)maxV - 1.0) * (mP - (double)minG)))) ? 255 : 0;
-
-                fastBitmap.setGray(i, g);
-            }
+            //Maximum standard deviation and minimum gray level of the image
+            final double[] range = {0, 255};
+            ParallelFor.Run(height, grain, new ParallelFor.Body() {
+                @Override
+                public void Compute(int from, int to) {
+                    double maxV = 0;
+                    int minG = 255;
+                    for (int x = from; x < to; x++) {
+                        for (int y = 0, i = x * width; y < width; y++, i++) {
+                            maxV = Math.max(maxV, stats.getVariance(x, y, radius));
+                            minG = Math.min(minG, data[i] & 0xFF);
+                        }
+                    }
+                    synchronized(range){
+                        range[0] = Math.max(range[0], maxV);
+                        range[1] = Math.min(range[1], minG);
+                    }
+                }
+            });
+            final double maxS = Math.sqrt(range[0]);
+            final double minG = range[1];
             
+            ParallelFor.Run(height, grain, new ParallelFor.Body() {
+                @Override
+                public void Compute(int from, int to) {
+                    for (int x = from; x < to; x++) {
+                        for (int y = 0, i = x * width; y < width; y++, i++) {
+                            double P = data[i] & 0xFF;
+                            double mP = stats.getMean(x, y, radius);
+                            double sP = stats.getStandardDeviation(x, y, radius);
+                            data[i] = (byte)((P > (mP + k * ((sP / maxS - 1.0) * (mP - minG)))) ? 255 : 0);
+                        }
+                    }
+                }
+            });
         }
         else{
             throw new IllegalArgumentException("Wolf Threshold only works in grayscale images.");
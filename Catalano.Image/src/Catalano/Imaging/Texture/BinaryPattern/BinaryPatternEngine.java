@@ -0,0 +1,461 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Texture.BinaryPattern;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.Tools.ImageHistogram;
+import java.util.Arrays;
+
+/**
+ * Binary pattern engine.
+ * <p>
+ * Computes the codes of the 3x3 binary patterns of the whole image once, from the gray data and
+ * without branches in the comparisons, and maps them to the bins by a lookup table
+ * (uniform, rotation invariant and so on). The histogram of the image and the
+ * spatial histograms of all the blocks are then built in a single pass over the codes.
+ * Large images are computed in parallel bands of rows.
+ * <p>
+ * The codes are the same of {@link LocalBinaryPattern}, {@link UniformLocalBinaryPattern},
+ * {@link CenterSymmetricLocalBinaryPattern}, {@link ImprovedLocalBinaryPattern} and {@link LocalTernaryPattern}.
+ * The border of the image has no code.
+ * 
+ * @author Diego Catalano
+ */
+public class BinaryPatternEngine implements IBinaryPattern {
+    
+    /**
+     * Binary pattern.
+     */
+    public static enum Pattern {
+        
+        /**
+         * Local binary pattern, 256 bins.
+         */
+        LBP,
+        
+        /**
+         * Uniform local binary pattern, 59 bins.
+         */
+        Uniform,
+        
+        /**
+         * Rotation invariant local binary pattern, 36 bins.
+         */
+        RotationInvariant,
+        
+        /**
+         * Rotation invariant uniform local binary pattern, 10 bins.
+         */
+        RotationInvariantUniform,
+        
+        /**
+         * Center symmetric local binary pattern, 16 bins.
+         */
+        CenterSymmetric,
+        
+        /**
+         * Improved local binary pattern, 511 bins.
+         */
+        Improved,
+        
+        /**
+         * Local ternary pattern, 256 bins of the upper pattern followed by 256 bins of the lower pattern.
+         */
+        Ternary
+    }
+    
+    private Pattern pattern;
+    private double threshold;
+    private boolean nonUniform = true;
+    
+    private int[] map;
+    private int bins;
+    
+    private int width;
+    private int height;
+    private int[] codes;
+
+    /**
+     * Get the pattern.
+     * @return Pattern.
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Get the threshold of the center symmetric and ternary patterns.
+     * @return Threshold.
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Set the threshold of the center symmetric and ternary patterns.
+     * @param threshold Threshold.
+     */
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Check if the uniform patterns have the non uniform bin.
+     * @return True if the uniform patterns have the non uniform bin.
+     */
+    public boolean isNonUniform() {
+        return nonUniform;
+    }
+
+    /**
+     * Set if the uniform patterns have the non uniform bin.
+     * @param nonUniform True if needs the non uniform bin, otherwise the non uniform codes are not counted.
+     */
+    public void setNonUniform(boolean nonUniform) {
+        this.nonUniform = nonUniform;
+        BuildMap();
+    }
+    
+    /**
+     * Get the number of bins of the histograms.
+     * @return Number of bins.
+     */
+    public int getNumberOfBins(){
+        return bins;
+    }
+    
+    /**
+     * Get the codes of the last image, before the mapping to the bins.
+     * The ternary pattern has the upper code in the low byte and the lower code in the high byte, the border is -1.
+     * @return Codes in row major order.
+     */
+    public int[] getCodes() {
+        return codes;
+    }
+
+    /**
+     * Initializes a new instance of the BinaryPatternEngine class.
+     */
+    public BinaryPatternEngine() {
+        this(Pattern.LBP);
+    }
+    
+    /**
+     * Initializes a new instance of the BinaryPatternEngine class.
+     * @param pattern Pattern.
+     */
+    public BinaryPatternEngine(Pattern pattern) {
+        this(pattern, pattern == Pattern.Ternary ? 5 : 0);
+    }
+    
+    /**
+     * Initializes a new instance of the BinaryPatternEngine class.
+     * @param pattern Pattern.
+     * @param threshold Threshold of the center symmetric and ternary patterns.
+     */
+    public BinaryPatternEngine(Pattern pattern, double threshold) {
+        this.pattern = pattern;
+        this.threshold = threshold;
+        BuildMap();
+    }
+    
+    @Override
+    public ImageHistogram ComputeFeatures(FastBitmap fastBitmap) {
+        ProcessImage(fastBitmap);
+        return getHistogram();
+    }
+    
+    /**
+     * Compute the spatial histogram of the image.
+     * @param fastBitmap Image to be processed.
+     * @param wBlock Number of width blocks.
+     * @param hBlock Number of height blocks.
+     * @return Histograms of the blocks, concatenated in row major order.
+     */
+    public int[] ComputeSpatialHistogram(FastBitmap fastBitmap, int wBlock, int hBlock){
+        ProcessImage(fastBitmap);
+        return getSpatialHistogram(wBlock, hBlock);
+    }
+    
+    /**
+     * Compute the codes of the image.
+     * @param fastBitmap Image to be processed.
+     */
+    public void ProcessImage(FastBitmap fastBitmap){
+        
+        if(!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("Binary patterns only works in grayscale images.");
+        
+        this.width = fastBitmap.getWidth();
+        this.height = fastBitmap.getHeight();
+        if(codes == null || codes.length != width * height)
+            codes = new int[width * height];
+        
+        final byte[] gray = fastBitmap.getGrayData();
+        final int t = (int)Math.floor(threshold);
+        
+        Arrays.fill(codes, 0, width, -1);
+        Arrays.fill(codes, (height - 1) * width, height * width, -1);
+        
+        ParallelFor.Run(height - 2, Grain(), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int x = from + 1; x <= to; x++)
+                    Row(gray, x, t);
+            }
+        });
+    }
+    
+    /**
+     * Get the histogram of the last image.
+     * @return Histogram.
+     */
+    public ImageHistogram getHistogram(){
+        return new ImageHistogram(getSpatialHistogram(1, 1));
+    }
+    
+    /**
+     * Get the spatial histogram of the last image.
+     * The image is split in blocks of equal size, the block (i,j) has the rows [i * height / hBlock, (i + 1) * height / hBlock).
+     * @param wBlock Number of width blocks.
+     * @param hBlock Number of height blocks.
+     * @return Histograms of the blocks, concatenated in row major order.
+     */
+    public int[] getSpatialHistogram(final int wBlock, final int hBlock){
+        
+        if(codes == null)
+            throw new IllegalArgumentException("The image must be processed first.");
+        if(wBlock < 1 || hBlock < 1 || wBlock > width || hBlock > height)
+            throw new IllegalArgumentException("The number of blocks must be in [1, size of the image].");
+        
+        final int[] hist = new int[wBlock * hBlock * bins];
+        final int[] column = new int[width];
+        for (int y = 0; y < width; y++)
+            column[y] = (int)((long)y * wBlock / width) * bins;
+        
+        // A single block row is split in bands, each one with its own histogram.
+        final boolean split = hBlock == 1;
+        final int n = split ? height : hBlock;
+        ParallelFor.Run(n, split ? Grain() : 1, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int x1, x2;
+                int[] h;
+                if(split){
+                    x1 = from; x2 = to;
+                    h = new int[hist.length];
+                }
+                else{
+                    x1 = (int)((long)from * height / hBlock);
+                    x2 = (int)((long)to * height / hBlock);
+                    h = hist;
+                }
+                
+                boolean ternary = pattern == Pattern.Ternary;
+                for (int x = x1; x < x2; x++) {
+                    int b = split ? 0 : (int)((long)x * hBlock / height) * wBlock * bins;
+                    int o = x * width;
+                    for (int y = 0; y < width; y++) {
+                        int c = codes[o + y];
+                        if(c < 0) continue;
+                        if(ternary){
+                            h[b + column[y] + (c & 0xFF)]++;
+                            h[b + column[y] + 256 + (c >> 8)]++;
+                        }
+                        else{
+                            int bin = map[c];
+                            if(bin >= 0) h[b + column[y] + bin]++;
+                        }
+                    }
+                }
+                
+                if(split){
+                    synchronized(hist){
+                        for (int i = 0; i < hist.length; i++)
+                            hist[i] += h[i];
+                    }
+                }
+            }
+        });
+        
+        return hist;
+    }
+    
+    /**
+     * Get the image of the bins of the last image.
+     * @return Bins of the codes, the border and the discarded codes are zero.
+     */
+    public FastBitmap toFastBitmap(){
+        if(bins > 256 || pattern == Pattern.Ternary)
+            throw new IllegalArgumentException("The bins of the pattern don't fit in a grayscale image.");
+        
+        FastBitmap fb = new FastBitmap(width, height, FastBitmap.ColorSpace.Grayscale);
+        byte[] data = fb.getGrayData();
+        for (int i = 0; i < codes.length; i++)
+            if(codes[i] >= 0 && map[codes[i]] > 0) data[i] = (byte)map[codes[i]];
+        return fb;
+    }
+    
+    /**
+     * Minimum number of rows of each thread, about 64K pixels.
+     */
+    private int Grain(){
+        return Math.max(1, 65536 / Math.max(1, width));
+    }
+    
+    /**
+     * Compute the codes of a row, the comparisons are the sign bits of the differences.
+     */
+    private void Row(byte[] gray, int x, int t){
+        int w = width;
+        int o = x * w;
+        codes[o] = -1;
+        codes[o + w - 1] = -1;
+        
+        for (int y = 1; y < w - 1; y++) {
+            int p = o + y;
+            int c = gray[p] & 0xFF;
+            int n0 = gray[p - w - 1] & 0xFF;
+            int n1 = gray[p - w] & 0xFF;
+            int n2 = gray[p - w + 1] & 0xFF;
+            int n3 = gray[p + 1] & 0xFF;
+            int n4 = gray[p + w + 1] & 0xFF;
+            int n5 = gray[p + w] & 0xFF;
+            int n6 = gray[p + w - 1] & 0xFF;
+            int n7 = gray[p - 1] & 0xFF;
+            
+            int code;
+            switch(pattern){
+                case CenterSymmetric:
+                    // n - m > t
+                    code = ((t - n0 + n4) >>> 31) << 3
+                         | ((t - n1 + n5) >>> 31) << 2
+                         | ((t - n2 + n6) >>> 31) << 1
+                         | ((t - n3 + n7) >>> 31);
+                    break;
+                case Improved:
+                    int mean = (c + n0 + n1 + n2 + n3 + n4 + n5 + n6 + n7) / 9;
+                    code = Greater(n0, n1, n2, n3, n4, n5, n6, n7, mean) | (~(c - mean) >>> 31) << 8;
+                    if(code == 511) code = 0;
+                    break;
+                case Ternary:
+                    // n > c + t and n < c - t
+                    int upper = Greater(n0, n1, n2, n3, n4, n5, n6, n7, c + t + 1);
+                    int lower = Greater(c - n0, c - n1, c - n2, c - n3, c - n4, c - n5, c - n6, c - n7, t + 1);
+                    code = upper | lower << 8;
+                    break;
+                default:
+                    code = Greater(n0, n1, n2, n3, n4, n5, n6, n7, c);
+                    break;
+            }
+            codes[p] = code;
+        }
+    }
+    
+    /**
+     * Code of the neighbors greater or equal than the value, the first neighbor is the most significant bit.
+     */
+    private static int Greater(int n0, int n1, int n2, int n3, int n4, int n5, int n6, int n7, int v){
+        return (~(n0 - v) >>> 31) << 7
+             | (~(n1 - v) >>> 31) << 6
+             | (~(n2 - v) >>> 31) << 5
+             | (~(n3 - v) >>> 31) << 4
+             | (~(n4 - v) >>> 31) << 3
+             | (~(n5 - v) >>> 31) << 2
+             | (~(n6 - v) >>> 31) << 1
+             | (~(n7 - v) >>> 31);
+    }
+    
+    /**
+     * Build the lookup table from the codes to the bins.
+     */
+    private void BuildMap(){
+        switch(pattern){
+            case Uniform:
+                map = new int[256];
+                int idx = 0;
+                for (int i = 0; i < 256; i++)
+                    map[i] = Transitions(i) <= 2 ? idx++ : (nonUniform ? 58 : -1);
+                bins = nonUniform ? 59 : 58;
+                break;
+            case RotationInvariant:
+                map = new int[256];
+                int[] bin = new int[256];
+                Arrays.fill(bin, -1);
+                int count = 0;
+                for (int i = 0; i < 256; i++) {
+                    int r = MinimumRotation(i);
+                    if(bin[r] < 0) bin[r] = count++;
+                    map[i] = bin[r];
+                }
+                bins = count;
+                break;
+            case RotationInvariantUniform:
+                map = new int[256];
+                for (int i = 0; i < 256; i++)
+                    map[i] = Transitions(i) <= 2 ? Integer.bitCount(i) : (nonUniform ? 9 : -1);
+                bins = nonUniform ? 10 : 9;
+                break;
+            case CenterSymmetric:
+                map = Identity(16);
+                bins = 16;
+                break;
+            case Improved:
+                map = Identity(511);
+                bins = 511;
+                break;
+            case Ternary:
+                map = null;
+                bins = 512;
+                break;
+            default:
+                map = Identity(256);
+                bins = 256;
+                break;
+        }
+    }
+    
+    private static int[] Identity(int n){
+        int[] m = new int[n];
+        for (int i = 0; i < n; i++)
+            m[i] = i;
+        return m;
+    }
+    
+    /**
+     * Number of circular transitions 0/1 of the 8 bits.
+     */
+    private static int Transitions(int code){
+        int rotated = ((code << 1) | (code >> 7)) & 0xFF;
+        return Integer.bitCount(code ^ rotated);
+    }
+    
+    private static int MinimumRotation(int code){
+        int min = code;
+        for (int i = 1; i < 8; i++) {
+            code = ((code << 1) | (code >> 7)) & 0xFF;
+            min = Math.min(min, code);
+        }
+        return min;
+    }
+}
\ No newline at end of file
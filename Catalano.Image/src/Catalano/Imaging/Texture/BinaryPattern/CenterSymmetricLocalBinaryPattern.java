@@ -77,11 +77,10 @@ public class CenterSymmetricLocalBinaryPattern implements IBinaryPattern{
         for (int x = 1; x < height; x++) {
             for (int y = 1; y < width; y++) {
                 sum = 0;
-                threshold = fastBitmap.getGray(x, y);
-                if (Math.abs(fastBitmap.getGray(x - 1, y - 1) - fastBitmap.getGray(x + 1, y + 1)) >= threshold)    sum += 8;
-                if (Math.abs(fastBitmap.getGray(x - 1, y) - fastBitmap.getGray(x + 1, y)) >= threshold)            sum += 4;
-                if (Math.abs(fastBitmap.getGray(x - 1, y + 1) - fastBitmap.getGray(x + 1, y - 1)) >= threshold)    sum += 2;
-                if (Math.abs(fastBitmap.getGray(x, y + 1) - fastBitmap.getGray(x, y - 1)) >= threshold)            sum += 1;
+                if (fastBitmap.getGray(x - 1, y - 1) - fastBitmap.getGray(x + 1, y + 1) > threshold)    sum += 8;
+                if (fastBitmap.getGray(x - 1, y) - fastBitmap.getGray(x + 1, y) > threshold)            sum += 4;
+                if (fastBitmap.getGray(x - 1, y + 1) - fastBitmap.getGray(x + 1, y - 1) > threshold)    sum += 2;
+                if (fastBitmap.getGray(x, y + 1) - fastBitmap.getGray(x, y - 1) > threshold)            sum += 1;
                 g[sum]++;
             }
         }
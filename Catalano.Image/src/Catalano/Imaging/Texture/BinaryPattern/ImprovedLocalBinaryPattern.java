@@ -50,9 +50,8 @@ public class ImprovedLocalBinaryPattern implements IBinaryPattern{
         int[] g = new int[511];
         int mean;
         for (int x = 1; x < height; x++) {
-            mean = 0;
             for (int y = 1; y < width; y++) {
-                mean += fastBitmap.getGray(x-1, y-1);
+                mean = fastBitmap.getGray(x-1, y-1);
                 mean += fastBitmap.getGray(x-1, y);
                 mean += fastBitmap.getGray(x-1, y+1);
                 mean += fastBitmap.getGray(x, y-1);
@@ -128,6 +128,9 @@ public class LocalTernaryPattern implements IBinaryPattern{
                     bin /= 2;
                 }
                 
+                if(ternary[1][0] == 1) sumU += bin;
+                if(ternary[1][0] == -1) sumL += bin;
+                
                 upper[sumU]++;
                 lower[sumL]++;
                 
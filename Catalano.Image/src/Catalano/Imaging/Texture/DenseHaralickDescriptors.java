@@ -0,0 +1,402 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Texture;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.Texture.GrayLevelCooccurrenceMatrix.Degree;
+
+/**
+ * Dense Haralick descriptors.
+ * <p>
+ * Computes the {@link HaralickDescriptors} of the GLCM of every window of the image.
+ * The window slides along the columns and only the pairs of the leaving and entering
+ * columns change, so the integer counts of the GLCM are updated instead of computed again.
+ * All the directions are updated in the same pass and each feature is kept as a running
+ * sum of the counts, so the features of a window cost the same of a single slide.
+ * The rows of windows are computed in parallel bands.
+ * <p>
+ * The gray levels are quantized as {@link GrayLevelCooccurrenceMatrix} does with the whole image,
+ * and the features are the ones of the normalized GLCM, in the order of {@link HaralickDescriptors#getFeatures(double[][])}.
+ * 
+ * @author Diego Catalano
+ */
+public class DenseHaralickDescriptors {
+    
+    /**
+     * Number of features of each direction.
+     */
+    public static final int NumberOfFeatures = 11;
+    
+    private int windowSize = 15;
+    private int distance = 1;
+    private int levels = 8;
+    private Degree[] degrees = Degree.values();
+    private boolean sumDirections = false;
+    
+    private int countX;
+    private int countY;
+    private float[] features;
+
+    /**
+     * Get the size of the window.
+     * @return Size of the window.
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Get the distance of the pairs.
+     * @return Distance.
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Get the number of gray levels.
+     * @return Number of gray levels.
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * Get the directions.
+     * @return Directions.
+     */
+    public Degree[] getDegrees() {
+        return degrees;
+    }
+
+    /**
+     * Check if the directions are summed in a single GLCM.
+     * @return True if the directions are summed.
+     */
+    public boolean isSumDirections() {
+        return sumDirections;
+    }
+
+    /**
+     * Sum the directions in a single GLCM, for features invariant to the rotation.
+     * @param sumDirections True to sum the directions, otherwise each direction has its own features.
+     */
+    public void setSumDirections(boolean sumDirections) {
+        this.sumDirections = sumDirections;
+    }
+    
+    /**
+     * Get the number of GLCM of each window.
+     * @return 1 if the directions are summed, otherwise the number of directions.
+     */
+    public int getNumberOfMatrices(){
+        return sumDirections ? 1 : degrees.length;
+    }
+
+    /**
+     * Get the number of window rows of the last image.
+     * @return Number of window rows.
+     */
+    public int getCountX() {
+        return countX;
+    }
+
+    /**
+     * Get the number of window columns of the last image.
+     * @return Number of window columns.
+     */
+    public int getCountY() {
+        return countY;
+    }
+    
+    /**
+     * Get the features of all the windows.
+     * The features of the matrix d of the window at (x,y) start at ((x * countY + y) * matrices + d) * NumberOfFeatures.
+     * @return Features.
+     */
+    public float[] getFeatures() {
+        return features;
+    }
+    
+    /**
+     * Get the features of a window.
+     * @param x Top row of the window.
+     * @param y Left column of the window.
+     * @return Features of each matrix, one after the other.
+     */
+    public double[] getFeatures(int x, int y){
+        int length = getNumberOfMatrices() * NumberOfFeatures;
+        double[] f = new double[length];
+        int offset = (x * countY + y) * length;
+        for (int i = 0; i < length; i++)
+            f[i] = features[offset + i];
+        return f;
+    }
+    
+    /**
+     * Get the map of a feature.
+     * @param feature Index of the feature.
+     * @param matrix Index of the matrix.
+     * @return Map of the feature, the value of the window at (x,y) is at [x][y].
+     */
+    public double[][] getFeatureMap(int feature, int matrix){
+        int m = getNumberOfMatrices();
+        double[][] map = new double[countX][countY];
+        for (int i = 0; i < countX; i++)
+            for (int j = 0; j < countY; j++)
+                map[i][j] = features[((i * countY + j) * m + matrix) * NumberOfFeatures + feature];
+        return map;
+    }
+
+    /**
+     * Initializes a new instance of the DenseHaralickDescriptors class.
+     */
+    public DenseHaralickDescriptors() {}
+    
+    /**
+     * Initializes a new instance of the DenseHaralickDescriptors class.
+     * @param windowSize Size of the window.
+     * @param distance Distance of the pairs.
+     * @param levels Number of gray levels.
+     */
+    public DenseHaralickDescriptors(int windowSize, int distance, int levels) {
+        this(windowSize, distance, levels, Degree.values());
+    }
+    
+    /**
+     * Initializes a new instance of the DenseHaralickDescriptors class.
+     * @param windowSize Size of the window.
+     * @param distance Distance of the pairs.
+     * @param levels Number of gray levels.
+     * @param degrees Directions.
+     */
+    public DenseHaralickDescriptors(int windowSize, int distance, int levels, Degree... degrees) {
+        if(distance < 1 || distance >= windowSize)
+            throw new IllegalArgumentException("The distance must be in [1, window size).");
+        if(levels < 2)
+            throw new IllegalArgumentException("The number of levels must be at least 2.");
+        if(degrees.length == 0)
+            throw new IllegalArgumentException("At least one direction is needed.");
+        this.windowSize = windowSize;
+        this.distance = distance;
+        this.levels = levels;
+        this.degrees = degrees;
+    }
+    
+    /**
+     * Compute the features of every window of the image.
+     * @param fastBitmap Image to be processed.
+     */
+    public void ProcessImage(FastBitmap fastBitmap){
+        
+        if(!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("DenseHaralickDescriptors only works in grayscale images.");
+        
+        final int height = fastBitmap.getHeight();
+        final int width = fastBitmap.getWidth();
+        countX = Math.max(0, height - windowSize + 1);
+        countY = Math.max(0, width - windowSize + 1);
+        
+        final int matrices = getNumberOfMatrices();
+        final int length = matrices * NumberOfFeatures;
+        if(features == null || features.length != countX * countY * length)
+            features = new float[countX * countY * length];
+        if(countX == 0 || countY == 0) return;
+        
+        // Quantization of GrayLevelCooccurrenceMatrix.
+        final byte[] gray = fastBitmap.getGrayData();
+        int max = 0;
+        for (int i = 0; i < gray.length; i++)
+            max = Math.max(max, gray[i] & 0xFF);
+        if(max < levels) max = levels;
+        final int div = max / (levels - 1);
+        final short[] q = new short[gray.length];
+        ParallelFor.Run(gray.length, 4096, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++)
+                    q[i] = (short)Math.min((gray[i] & 0xFF) / div, levels - 1);
+            }
+        });
+        
+        // Offset of the second pixel of the pairs, as GrayLevelCooccurrenceMatrix.
+        final int[] dx = new int[degrees.length];
+        final int[] dy = new int[degrees.length];
+        final int[] slot = new int[degrees.length];
+        final int[] pairs = new int[matrices];
+        for (int d = 0; d < degrees.length; d++) {
+            switch(degrees[d]){
+                case Degree_0: dx[d] = 0; dy[d] = distance; break;
+                case Degree_45: dx[d] = -distance; dy[d] = distance; break;
+                case Degree_90: dx[d] = distance; dy[d] = 0; break;
+                case Degree_135: dx[d] = -distance; dy[d] = -distance; break;
+            }
+            slot[d] = sumDirections ? 0 : d;
+            pairs[slot[d]] += (windowSize - Math.abs(dx[d])) * (windowSize - Math.abs(dy[d]));
+        }
+        
+        ParallelFor.Run(countX, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                Matrix[] m = new Matrix[matrices];
+                for (int i = 0; i < matrices; i++)
+                    m[i] = new Matrix(levels, pairs[i]);
+                
+                for (int x = from; x < to; x++) {
+                    for (int d = 0; d < dx.length; d++)
+                        for (int c = 0; c < windowSize; c++)
+                            Column(q, width, m[slot[d]], x, 0, c, dx[d], dy[d], 1);
+                    
+                    for (int y = 0; y < countY; y++) {
+                        int offset = (x * countY + y) * length;
+                        for (int i = 0; i < matrices; i++)
+                            m[i].Features(features, offset + i * NumberOfFeatures);
+                        
+                        // Remove the pairs leaving with the first column, add the pairs entering with the next one.
+                        if(y + 1 < countY) {
+                            for (int d = 0; d < dx.length; d++) {
+                                Column(q, width, m[slot[d]], x, y, y + Math.abs(dy[d]), dx[d], dy[d], -1);
+                                Column(q, width, m[slot[d]], x, y + 1, y + windowSize, dx[d], dy[d], 1);
+                            }
+                        }
+                    }
+                    
+                    // Remove the last window, so the counts are zero again.
+                    for (int d = 0; d < dx.length; d++)
+                        for (int c = countY - 1; c < countY - 1 + windowSize; c++)
+                            Column(q, width, m[slot[d]], x, countY - 1, c, dx[d], dy[d], -1);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Add or remove the pairs of the window whose rightmost pixel is in the column.
+     * @param x Top row of the window.
+     * @param left Left column of the window.
+     * @param column Column of the rightmost pixel of the pairs.
+     */
+    private void Column(short[] q, int width, Matrix m, int x, int left, int column, int dx, int dy, int delta){
+        if(column - Math.abs(dy) < left) return;
+        
+        int y = column - Math.max(0, dy);
+        int x1 = x + Math.max(0, -dx);
+        int x2 = x + windowSize - Math.max(0, dx);
+        int step = dx * width + dy;
+        for (int i = x1; i < x2; i++) {
+            int a = i * width + y;
+            m.Update(q[a], q[a + step], delta);
+        }
+    }
+    
+    /**
+     * GLCM with integer counts and the running sums of the features.
+     */
+    private static class Matrix {
+        
+        final int levels;
+        final int pairs;
+        final int[] counts;
+        final int[] differences;
+        final double[] entropy;
+        
+        long energy;
+        long sumI, sumJ, sumII, sumJJ, sumIJ;
+        long sumS2, sumS3, sumS4;
+        long sumD, sumDD;
+        double sumEntropy;
+
+        Matrix(int levels, int pairs) {
+            this.levels = levels;
+            this.pairs = pairs;
+            this.counts = new int[levels * levels];
+            this.differences = new int[levels];
+            
+            // p log2(p + 1) of every count.
+            this.entropy = new double[pairs + 1];
+            for (int c = 0; c <= pairs; c++) {
+                double p = c / (double)pairs;
+                entropy[c] = p * Math.log(p + 1) / Math.log(2);
+            }
+        }
+        
+        void Update(int i, int j, int delta){
+            int k = i * levels + j;
+            int c = counts[k];
+            counts[k] = c + delta;
+            
+            energy += delta * (2L * c + delta);
+            sumEntropy += entropy[c + delta] - entropy[c];
+            
+            sumI += delta * i;
+            sumJ += delta * j;
+            sumII += delta * i * i;
+            sumJJ += delta * j * j;
+            sumIJ += delta * i * j;
+            
+            long s = i + j;
+            sumS2 += delta * s * s;
+            sumS3 += delta * s * s * s;
+            sumS4 += delta * s * s * s * s;
+            
+            int d = Math.abs(i - j);
+            differences[d] += delta;
+            sumD += delta * d;
+            sumDD += delta * d * d;
+        }
+        
+        void Features(float[] f, int offset){
+            double n = pairs;
+            double meanI = sumI / n;
+            double meanJ = sumJ / n;
+            double m = meanI + meanJ;
+            double s2 = sumS2 / n, s3 = sumS3 / n, s4 = sumS4 / n;
+            double m2 = m * m;
+            
+            double varI = sumII / n - meanI * meanI;
+            double varJ = sumJJ / n - meanJ * meanJ;
+            double cov = sumIJ / n - meanI * meanJ;
+            double correlation = varI <= 0 || varJ <= 0 ? 1 : cov / Math.sqrt(varI * varJ);
+            
+            double id = 0, idm = 0;
+            for (int d = 0; d < levels; d++) {
+                id += differences[d] / (1.0 + d);
+                idm += differences[d] / (1.0 + d * d);
+            }
+            id /= n;
+            idm /= n;
+            
+            f[offset] = (float)(s4 - 4 * m * s3 + 6 * m2 * s2 - 3 * m2 * m2);
+            f[offset + 1] = (float)(s3 - 3 * m * s2 + 2 * m2 * m);
+            f[offset + 2] = (float)(s2 - m2);
+            f[offset + 3] = (float)(sumD / n);
+            f[offset + 4] = (float)correlation;
+            f[offset + 5] = (float)(energy / (n * n));
+            f[offset + 6] = (float)-sumEntropy;
+            f[offset + 7] = (float)(sumDD / n);
+            f[offset + 8] = (float)id;
+            f[offset + 9] = (float)idm;
+            f[offset + 10] = (float)id;
+        }
+    }
+}
\ No newline at end of file
@@ -32,6 +32,13 @@ public final class HaralickDescriptors {
      */
     public HaralickDescriptors(){};
     
+    /**
+     * Compute all the metrics, in the order: cluster prominence, cluster shade, cluster tendency,
+     * contrast, correlation, energy, entropy, inertia, inverse difference, inverse difference moment
+     * and texture homogeneity.
+     * @param coocurrenceMatrix Normalized coocurrence matrix.
+     * @return Features.
+     */
     public double[] getFeatures(double[][] coocurrenceMatrix){
         
         double[] f = new double[11];
@@ -118,35 +125,26 @@ public final class HaralickDescriptors {
      * @return Correlation.
      */
     public static double Correlation(double[][] coocurrenceMatrix){
-        double meanI = 0;
-        double stdI = 0;
+        double meanI = 0, meanJ = 0;
         for (int i = 0; i < coocurrenceMatrix.length; i++) {
             for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
-                meanI += coocurrenceMatrix[i][j];
-            }
-            for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
-                stdI += Math.pow(i - meanI, 2) * coocurrenceMatrix[i][j];
-            }
-        }
-        
-        double meanJ = 0;
-        double stdJ = 0;
-        for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
-            for (int i = 0; i < coocurrenceMatrix.length; i++) {
-                meanJ += coocurrenceMatrix[i][j];
-            }
-            for (int i = 0; i < coocurrenceMatrix.length; i++) {
-                stdJ += Math.pow(j - meanJ, 2) * coocurrenceMatrix[i][j];
+                meanI += i * coocurrenceMatrix[i][j];
+                meanJ += j * coocurrenceMatrix[i][j];
             }
         }
         
-        double r = 0;
+        double varI = 0, varJ = 0, cov = 0;
         for (int i = 0; i < coocurrenceMatrix.length; i++) {
             for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
-                r += (i * j * coocurrenceMatrix[i][j] - meanI * meanJ) / stdI * stdJ;
+                varI += (i - meanI) * (i - meanI) * coocurrenceMatrix[i][j];
+                varJ += (j - meanJ) * (j - meanJ) * coocurrenceMatrix[i][j];
+                cov += (i - meanI) * (j - meanJ) * coocurrenceMatrix[i][j];
             }
         }
-        return r;
+        
+        // A constant texture is fully correlated.
+        if(varI <= 0 || varJ <= 0) return 1;
+        return cov / Math.sqrt(varI * varJ);
     }
     
     /**
@@ -200,30 +198,7 @@ public final class HaralickDescriptors {
      * @return Cluster tendency.
      */
     public static double ClusterTendency(double[][] coocurrenceMatrix){
-        double[] meanI = new double[coocurrenceMatrix.length];
-        double[] meanJ = new double[coocurrenceMatrix[0].length];
-        
-        for (int i = 0; i < meanI.length; i++) {
-            for (int j = 0; j < coocurrenceMatrix.length; j++) {
-                meanI[i] += coocurrenceMatrix[i][j];
-            }
-            meanI[i] /= coocurrenceMatrix.length;
-        }
-        
-        for (int j = 0; j < meanJ.length; j++) {
-            for (int i = 0; i < coocurrenceMatrix.length; i++) {
-                meanJ[i] += coocurrenceMatrix[i][j];
-            }
-            meanJ[j] /= coocurrenceMatrix[0].length;
-        }
-        
-        double r = 0;
-        for (int i = 0; i < coocurrenceMatrix.length; i++) {
-            for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
-                r += Math.pow((i - meanI[i]) + (j - meanJ[j]), 2) * coocurrenceMatrix[i][j];
-            }
-        }
-        return r;
+        return Cluster(coocurrenceMatrix, 2);
     }
     
     /**
@@ -232,30 +207,7 @@ public final class HaralickDescriptors {
      * @return Cluster shade.
      */
     public static double ClusterShade(double[][] coocurrenceMatrix){
-        double[] meanI = new double[coocurrenceMatrix.length];
-        double[] meanJ = new double[coocurrenceMatrix[0].length];
-        
-        for (int i = 0; i < meanI.length; i++) {
-            for (int j = 0; j < coocurrenceMatrix.length; j++) {
-                meanI[i] += coocurrenceMatrix[i][j];
-            }
-            meanI[i] /= coocurrenceMatrix.length;
-        }
-        
-        for (int j = 0; j < meanJ.length; j++) {
-            for (int i = 0; i < coocurrenceMatrix.length; i++) {
-                meanJ[i] += coocurrenceMatrix[i][j];
-            }
-            meanJ[j] /= coocurrenceMatrix[0].length;
-        }
-        
-        double r = 0;
-        for (int i = 0; i < coocurrenceMatrix.length; i++) {
-            for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
-                r += Math.pow((i - meanI[i]) + (j - meanJ[j]), 3) * coocurrenceMatrix[i][j];
-            }
-        }
-        return r;
+        return Cluster(coocurrenceMatrix, 3);
     }
     
     /**
@@ -264,27 +216,28 @@ public final class HaralickDescriptors {
      * @return Cluster priminence.
      */
     public static double ClusterProminence(double[][] coocurrenceMatrix){
-        double[] meanI = new double[coocurrenceMatrix.length];
-        double[] meanJ = new double[coocurrenceMatrix[0].length];
-        
-        for (int i = 0; i < meanI.length; i++) {
-            for (int j = 0; j < coocurrenceMatrix.length; j++) {
-                meanI[i] += coocurrenceMatrix[i][j];
-            }
-            meanI[i] /= coocurrenceMatrix.length;
-        }
-        
-        for (int j = 0; j < meanJ.length; j++) {
-            for (int i = 0; i < coocurrenceMatrix.length; i++) {
-                meanJ[i] += coocurrenceMatrix[i][j];
+        return Cluster(coocurrenceMatrix, 4);
+    }
+
+    /**
+     * Weighs the probabilities by the deviation of i + j from the sum of the means.
+     * @param coocurrenceMatrix Coocurrence matrix.
+     * @param power Power of the deviation.
+     * @return Cluster metric.
+     */
+    private static double Cluster(double[][] coocurrenceMatrix, int power){
+        double meanI = 0, meanJ = 0;
+        for (int i = 0; i < coocurrenceMatrix.length; i++) {
+            for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
+                meanI += i * coocurrenceMatrix[i][j];
+                meanJ += j * coocurrenceMatrix[i][j];
             }
-            meanJ[j] /= coocurrenceMatrix[0].length;
         }
         
         double r = 0;
         for (int i = 0; i < coocurrenceMatrix.length; i++) {
             for (int j = 0; j < coocurrenceMatrix[0].length; j++) {
-                r += Math.pow((i - meanI[i]) + (j - meanJ[j]), 4) * coocurrenceMatrix[i][j];
+                r += Math.pow(i + j - meanI - meanJ, power) * coocurrenceMatrix[i][j];
             }
         }
         return r;
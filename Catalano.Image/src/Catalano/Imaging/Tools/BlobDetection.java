@@ -23,14 +23,15 @@ package Catalano.Imaging.Tools;
 
 import Catalano.Core.IntPoint;
 import Catalano.Imaging.FastBitmap;
-import Catalano.Imaging.Shapes.IntRectangle;
-import Catalano.Math.Geometry.PointsCloud;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Detects blobs.
+ * <p>
+ * The white pixels are labeled by {@link ConnectedComponentsLabeling} and the
+ * points of each blob are collected in one sweep over the labels.
  * @author Diego Catalano
  */
 public class BlobDetection {
@@ -38,18 +39,10 @@ public class BlobDetection {
     public static enum Algorithm{ FourWay, EightWay };
     
     private Algorithm algorithm = Algorithm.FourWay;
-    private int width;
-    private int height;
-    private FastBitmap copy;
     private int size; //All blobs
-    private int rR = 0,rG = 0,rB = 0;
-    private List<Blob> blobs;
-    private Blob blob; //Blob object
-    private int id = 0; //ID blob
     private boolean filterBlob = false;
     private int minArea = 1,maxArea; //filter blobs;
     private int idBigBlob; //Biggest blob
-    private int areaBig = 0; //Biggest area
 
     public BlobDetection() {}
     
@@ -92,186 +85,56 @@ public class BlobDetection {
     public List<Blob> ProcessImage(FastBitmap fastBitmap) {
         
         if(fastBitmap.isGrayscale()){
-            width = fastBitmap.getWidth();
-            height = fastBitmap.getHeight();
+            int width = fastBitmap.getWidth();
+            int height = fastBitmap.getHeight();
 
             if (maxArea == 0) {
                 maxArea = width*height;
             }
-
-            //Create another FastBitmap
-            copy  = new FastBitmap(fastBitmap);
-            copy.toRGB();
-            blobs = new ArrayList<Blob>();
-
+            
+            ConnectedComponentsLabeling ccl = new ConnectedComponentsLabeling(algorithm);
+            int[] labels = ccl.Compute(fastBitmap);
+            int n = ccl.getNumberOfComponents();
+            
+            //Blob id of each label, -1 if filtered
+            int[] ids = new int[n + 1];
+            List<Blob> blobs = new ArrayList<Blob>();
+            List<ArrayList<IntPoint>> points = new ArrayList<ArrayList<IntPoint>>(Collections.nCopies(n + 1, (ArrayList<IntPoint>)null));
+            
+            size = 0;
+            idBigBlob = 0;
+            int areaBig = 0;
+            for (int l = 1; l <= n; l++) {
+                int blobArea = ccl.getArea(l);
+                if (filterBlob && !((blobArea > minArea ) && (blobArea < maxArea))) {
+                    ids[l] = -1;
+                    continue;
+                }
+                
+                if (blobArea > areaBig) {
+                    areaBig = blobArea;
+                    idBigBlob = size;
+                }
+                
+                ids[l] = size;
+                points.set(l, new ArrayList<IntPoint>(blobArea));
+                blobs.add(new Blob(size, blobArea, ccl.getCenter(l), points.get(l), ccl.getBoundingBox(l)));
+                size++;
+            }
+            
             for (int x = 0; x < height; x++) {
                 for (int y = 0; y < width; y++) {
-
-                    // Can be any channel
-                    if (copy.getRed(x, y) == 255) {
-                        ShuffleColor();
-                        TagBlob(x,y,rR,rG,rB);
+                    int l = labels[x * width + y];
+                    if (l > 0 && ids[l] >= 0) {
+                        points.get(l).add(new IntPoint(x, y));
                     }
                 }
             }
+            
             return blobs;
         }
         else{
             throw new IllegalArgumentException("Blob detection only works in grayscale images.");
         }
     }
-    
-    /**
-     * Tag blob with any color.
-     */
-    private void ShuffleColor(){
-        if (rB == 255) {
-            if (rG == 255) {
-                if (rR == 255) {
-                    rR = rG = rB = 0;
-                }
-                rR++;
-                rG = 0;
-            }
-            else{
-                rG++;
-                rB = 0;
-            }
-        }
-        else{
-            rB++;
-        }
-    }
-    
-    private void TagBlob(int x,int y, int r, int g, int b){
-        ArrayList<IntPoint> blobPoints = new ArrayList<IntPoint>();
-        LinkedList<IntPoint> examList = new LinkedList<IntPoint>();
-        
-        int xc = 0,yc = 0; //Centroid
-        int blobArea = 0; //Area total
-        
-        int iR = copy.getRed(x, y);
-        int iG = copy.getGreen(x, y);
-        int iB = copy.getBlue(x, y);
-        int iRGB = iR << 16 | iG << 8 | iB;
-        
-        int _r,_g,_b;
-        examList.addFirst(new IntPoint(x,y));
-        
-        switch(algorithm){
-            case FourWay:
-                while (examList.size() > 0) {
-                    IntPoint p = examList.removeLast();
-                    _r = copy.getRed(p.x, p.y);
-                    _g = copy.getGreen(p.x, p.y);
-                    _b = copy.getBlue(p.x, p.y);
-                    int _RGB = _r << 16 | _g << 8 | _b;
-
-                    if (_RGB == iRGB) {
-                        x = p.x;
-                        y = p.y;
-
-                        copy.setRGB(x, y, r, g, b);
-                        blobArea++;
-                        blobPoints.add(new IntPoint(x, y));
-                        xc += p.x;
-                        yc += p.y;
-
-                        if (x-1 >= 0) {
-                            examList.addFirst(new IntPoint(x-1,y));        // check west neighbor
-                        }
-                        if (x+1 < height) {
-                            examList.addFirst(new IntPoint(x+1,y));        // check east neighbor
-                        }
-                        if (y-1 >= 0) {
-                            examList.addFirst(new IntPoint(x,y-1));        // check north neighbor
-                        }
-                        if (y+1 < width) {
-                            examList.addFirst(new IntPoint(x,y+1));        // check south neighbor
-                        }
-                    }
-                }
-            break;
-            case EightWay:
-                while (examList.size() > 0) {
-                    IntPoint p = examList.removeLast();
-                    _r = copy.getRed(p.x, p.y);
-                    _g = copy.getGreen(p.x, p.y);
-                    _b = copy.getBlue(p.x, p.y);
-                    int _RGB = _r << 16 | _g << 8 | _b;
-
-                    if (_RGB == iRGB) {
-                        x = p.x;
-                        y = p.y;
-
-                        copy.setRGB(x, y, r, g, b);
-                        blobArea++;
-                        blobPoints.add(new IntPoint(x, y));
-                        xc += p.x;
-                        yc += p.y;
-
-                        if (x-1 >= 0 && y-1 >= 0) {
-                            examList.addFirst(new IntPoint(x-1,y-1));        // check west-north neighbor
-                        }
-                        if (x-1 >= 0) {
-                            examList.addFirst(new IntPoint(x-1,y));        // check north neighbor
-                        }
-                        if (x-1 >= 0 && y+1 < width) {
-                            examList.addFirst(new IntPoint(x-1,y+1));        // check east-north neighbor
-                        }
-                        if (y-1 >= 0) {
-                            examList.addFirst(new IntPoint(x,y-1));        // check west neighbor
-                        }
-                        if (y+1 < width) {
-                            examList.addFirst(new IntPoint(x,y+1));        // check east neighbor
-                        }
-                        if (x+1 < height && y-1 >= 0) {
-                            examList.addFirst(new IntPoint(x+1,y-1));        // check south-west neighbor
-                        }
-                        if (x+1 < height) {
-                            examList.addFirst(new IntPoint(x+1,y));        // check south neighbor
-                        }
-                        if (x+1 < height && y+1 < width) {
-                            examList.addFirst(new IntPoint(x+1,y+1));        // check south-east neighbor
-                        }
-                    }
-                }
-            break;
-        }
-        
-        if (filterBlob == true) {
-            if ((blobArea > minArea ) && (blobArea < maxArea)) {
-                    
-                    if (blobArea > areaBig) {
-                        areaBig = blobArea;
-                        idBigBlob = id;
-                    }
-                    
-                    //Discover width, height and bounding box using Point Cloud
-                    List<IntPoint> lst = PointsCloud.GetBoundingRectangle(blobPoints);
-                    int h = Math.abs(lst.get(0).x - lst.get(1).x);
-                    int w = Math.abs(lst.get(0).y - lst.get(1).y);
-                
-                    blob = new Blob(id, blobArea, new IntPoint(xc/blobArea, yc/blobArea),blobPoints, new IntRectangle(lst.get(0).x, lst.get(0).y, w, h));
-                    blobs.add(blob);
-                    size++;
-                    id++;
-            }
-        }else{
-            if (blobArea > areaBig) {
-                areaBig = blobArea;
-                idBigBlob = id;
-            }
-            
-            //Discover width, height and bounding box using Point Cloud
-            List<IntPoint> lst = PointsCloud.GetBoundingRectangle(blobPoints);
-            int h = Math.abs(lst.get(0).x - lst.get(1).x);
-            int w = Math.abs(lst.get(0).y - lst.get(1).y);
-            
-            blob = new Blob(id, blobArea, new IntPoint(xc/blobArea, yc/blobArea),blobPoints, new IntRectangle(lst.get(0).x, lst.get(0).y, w, h));
-            blobs.add(blob);
-            size++;
-            id++;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,425 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Core.IntPoint;
+import Catalano.Imaging.FastBitmap;
+import Catalano.Imaging.Shapes.IntRectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Connected components labeling.
+ * <p>
+ * Two pass labeling with union-find over the white pixels of a binary image.
+ * The first pass labels horizontal strips of the image in parallel, with the
+ * index of the first pixel of each provisional label, and the labels that
+ * touch across the strips are merged. The second pass writes the final
+ * labels and computes the area, bounding box, centroid and second order
+ * moments of each component.
+ * <p>
+ * The components are numbered from 1 in the order of their first pixel, the
+ * same order of {@link BlobDetection}, and the background is 0.
+ * 
+ * <p><li>Supported types: Grayscale.
+ * <br><li>Coordinate System: Matrix.
+ * 
+ * @author Diego Catalano
+ */
+public class ConnectedComponentsLabeling {
+    
+    private BlobDetection.Algorithm algorithm = BlobDetection.Algorithm.FourWay;
+    
+    private int width;
+    private int height;
+    private int[] labels;
+    private int count;
+    
+    private Statistics stats;
+    
+    /**
+     * Statistics of a set of labels, index 0 is the background.
+     */
+    private static final class Statistics {
+        
+        final int[] area;
+        final int[] minX, maxX, minY, maxY;
+        final long[] sumX, sumY, sumXX, sumXY, sumYY;
+
+        Statistics(int n) {
+            area = new int[n];
+            minX = new int[n];
+            maxX = new int[n];
+            minY = new int[n];
+            maxY = new int[n];
+            sumX = new long[n];
+            sumY = new long[n];
+            sumXX = new long[n];
+            sumXY = new long[n];
+            sumYY = new long[n];
+        }
+        
+        /**
+         * Add a pixel, the pixels of each label are added in raster order.
+         */
+        void Add(int l, int x, int y) {
+            if(area[l]++ == 0){
+                minX[l] = x;
+                minY[l] = maxY[l] = y;
+            }
+            maxX[l] = x;
+            if(y < minY[l]) minY[l] = y;
+            if(y > maxY[l]) maxY[l] = y;
+            sumX[l] += x;
+            sumY[l] += y;
+            sumXX[l] += (long)x * x;
+            sumXY[l] += (long)x * y;
+            sumYY[l] += (long)y * y;
+        }
+        
+        /**
+         * Add the statistics of the index k of other set to the label l.
+         */
+        void Add(int l, Statistics other, int k) {
+            if(area[l] == 0){
+                minX[l] = other.minX[k];
+                maxX[l] = other.maxX[k];
+                minY[l] = other.minY[k];
+                maxY[l] = other.maxY[k];
+            }
+            else{
+                minX[l] = Math.min(minX[l], other.minX[k]);
+                maxX[l] = Math.max(maxX[l], other.maxX[k]);
+                minY[l] = Math.min(minY[l], other.minY[k]);
+                maxY[l] = Math.max(maxY[l], other.maxY[k]);
+            }
+            area[l] += other.area[k];
+            sumX[l] += other.sumX[k];
+            sumY[l] += other.sumY[k];
+            sumXX[l] += other.sumXX[k];
+            sumXY[l] += other.sumXY[k];
+            sumYY[l] += other.sumYY[k];
+        }
+    }
+
+    /**
+     * Get the connectivity.
+     * @return Algorithm.
+     */
+    public BlobDetection.Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Set the connectivity.
+     * @param algorithm Algorithm.
+     */
+    public void setAlgorithm(BlobDetection.Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+    
+    /**
+     * Get the label of each pixel, computed by the last call to Compute.
+     * @return Labels, x * width + y.
+     */
+    public int[] getLabels() {
+        return labels;
+    }
+    
+    /**
+     * Get the number of components.
+     * @return Number of components.
+     */
+    public int getNumberOfComponents() {
+        return count;
+    }
+
+    /**
+     * Initializes a new instance of the ConnectedComponentsLabeling class.
+     */
+    public ConnectedComponentsLabeling() {}
+    
+    /**
+     * Initializes a new instance of the ConnectedComponentsLabeling class.
+     * @param algorithm Connectivity.
+     */
+    public ConnectedComponentsLabeling(BlobDetection.Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+    
+    /**
+     * Get the area of a component.
+     * @param label Label.
+     * @return Area.
+     */
+    public int getArea(int label) {
+        return stats.area[label];
+    }
+    
+    /**
+     * Get the bounding box of a component, with the same size of {@link Blob}.
+     * @param label Label.
+     * @return Bounding box.
+     */
+    public IntRectangle getBoundingBox(int label) {
+        Statistics s = stats;
+        return new IntRectangle(s.minX[label], s.minY[label], s.maxY[label] - s.minY[label], s.maxX[label] - s.minX[label]);
+    }
+    
+    /**
+     * Get the center of a component, rounded as in {@link Blob}.
+     * @param label Label.
+     * @return Center.
+     */
+    public IntPoint getCenter(int label) {
+        return new IntPoint((int)(stats.sumX[label] / stats.area[label]), (int)(stats.sumY[label] / stats.area[label]));
+    }
+    
+    /**
+     * Get the centroid of a component.
+     * @param label Label.
+     * @return Centroid, [x, y].
+     */
+    public double[] getCentroid(int label) {
+        return new double[] {stats.sumX[label] / (double)stats.area[label], stats.sumY[label] / (double)stats.area[label]};
+    }
+    
+    /**
+     * Get the second order central moments of a component.
+     * @param label Label.
+     * @return Central moments, [mu20, mu11, mu02].
+     */
+    public double[] getCentralMoments(int label) {
+        Statistics s = stats;
+        double a = s.area[label];
+        double cx = s.sumX[label] / a;
+        double cy = s.sumY[label] / a;
+        return new double[] {
+            s.sumXX[label] - cx * s.sumX[label],
+            s.sumXY[label] - cx * s.sumY[label],
+            s.sumYY[label] - cy * s.sumY[label]
+        };
+    }
+    
+    /**
+     * Get the label of the biggest component.
+     * @return Label, 0 if there are no components.
+     */
+    public int getBiggestComponent() {
+        int big = 0;
+        for (int i = 1; i <= count; i++)
+            if(stats.area[i] > stats.area[big]) big = i;
+        return big;
+    }
+    
+    /**
+     * Get the points of a component.
+     * @param label Label.
+     * @return List of points.
+     */
+    public ArrayList<IntPoint> getPoints(int label) {
+        Statistics s = stats;
+        ArrayList<IntPoint> points = new ArrayList<IntPoint>(s.area[label]);
+        for (int x = s.minX[label]; x <= s.maxX[label]; x++) {
+            for (int y = s.minY[label]; y <= s.maxY[label]; y++) {
+                if(labels[x * width + y] == label)
+                    points.add(new IntPoint(x, y));
+            }
+        }
+        return points;
+    }
+    
+    /**
+     * Compute the components of the white pixels.
+     * @param fastBitmap Binary image.
+     * @return Labels of each pixel, x * width + y.
+     */
+    public int[] Compute(FastBitmap fastBitmap) {
+        
+        if(!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("Connected components labeling only works in grayscale images.");
+        
+        this.width = fastBitmap.getWidth();
+        this.height = fastBitmap.getHeight();
+        final byte[] data = fastBitmap.getGrayData();
+        final int[] lab = new int[width * height];
+        final int[] parent = new int[width * height];
+        final boolean[] strip = new boolean[height];
+        final boolean eight = algorithm == BlobDetection.Algorithm.EightWay;
+        
+        //First pass, provisional labels of each strip
+        int grain = Math.max(1, 65536 / Math.max(1, width));
+        ParallelFor.Run(height, grain, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                strip[from] = true;
+                for (int x = from; x < to; x++) {
+                    for (int y = 0; y < width; y++) {
+                        int i = x * width + y;
+                        if((data[i] & 0xFF) != 255){
+                            lab[i] = -1;
+                            continue;
+                        }
+                        
+                        int l = (y > 0) ? lab[i - 1] : -1;
+                        if(x > from){
+                            l = Merge(parent, l, lab[i - width]);
+                            if(eight){
+                                if(y > 0) l = Merge(parent, l, lab[i - width - 1]);
+                                if(y < width - 1) l = Merge(parent, l, lab[i - width + 1]);
+                            }
+                        }
+                        
+                        if(l < 0){
+                            l = i;
+                            parent[i] = i;
+                        }
+                        lab[i] = l;
+                    }
+                }
+            }
+        });
+        
+        //Merge the labels across the strips
+        for (int x = 1; x < height; x++) {
+            if(!strip[x]) continue;
+            for (int y = 0; y < width; y++) {
+                int i = x * width + y;
+                if(lab[i] < 0) continue;
+                Merge(parent, lab[i], lab[i - width]);
+                if(eight){
+                    if(y > 0) Merge(parent, lab[i], lab[i - width - 1]);
+                    if(y < width - 1) Merge(parent, lab[i], lab[i - width + 1]);
+                }
+            }
+        }
+        
+        //The root is the first pixel of a component and the parents come before the children,
+        //so one ordered sweep numbers the roots and flattens the trees, final labels are negative.
+        //The labels that start in each row are kept, a strip owns the labels that start in it.
+        count = 0;
+        final int[] first = new int[height + 1];
+        for (int x = 0; x < height; x++) {
+            first[x] = count + 1;
+            for (int i = x * width, end = i + width; i < end; i++) {
+                if(lab[i] == i){
+                    if(parent[i] == i)
+                        parent[i] = -(++count);
+                    else
+                        parent[i] = parent[parent[i]];
+                }
+            }
+        }
+        first[height] = count + 1;
+        
+        final Statistics all = new Statistics(count + 1);
+        final List<int[]> sharedLabels = new ArrayList<int[]>();
+        final List<Statistics> shared = new ArrayList<Statistics>();
+        
+        //Second pass, final labels and statistics.
+        //The labels owned by the strip are written in place, the ones that start in a previous strip
+        //cross its first row, so they are few and they are merged at the end.
+        ParallelFor.Run(height, grain, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                
+                //Labels of the first row and the ones that start before the strip
+                int row = from * width;
+                int k = 0;
+                int[] foreign = new int[width];
+                for (int i = row; i < row + width; i++) {
+                    lab[i] = lab[i] < 0 ? 0 : -parent[lab[i]];
+                    if(lab[i] > 0 && lab[i] < first[from]) foreign[k++] = lab[i];
+                }
+                Arrays.sort(foreign, 0, k);
+                int n = 0;
+                for (int i = 0; i < k; i++)
+                    if(n == 0 || foreign[i] != foreign[n - 1]) foreign[n++] = foreign[i];
+                foreign = Arrays.copyOf(foreign, n);
+                Statistics local = new Statistics(n);
+                
+                int lo = first[from];
+                int last = -1, slot = -1;
+                for (int x = from; x < to; x++) {
+                    for (int y = 0; y < width; y++) {
+                        int i = x * width + y;
+                        if(x > from)
+                            lab[i] = lab[i] < 0 ? 0 : -parent[lab[i]];
+                        
+                        int l = lab[i];
+                        if(l >= lo){
+                            all.Add(l, x, y);
+                        }
+                        else if(l > 0){
+                            if(l != last){
+                                last = l;
+                                slot = Arrays.binarySearch(foreign, l);
+                            }
+                            local.Add(slot, x, y);
+                        }
+                    }
+                }
+                
+                if(n > 0){
+                    synchronized(shared){
+                        sharedLabels.add(foreign);
+                        shared.add(local);
+                    }
+                }
+            }
+        });
+        
+        for (int s = 0; s < shared.size(); s++) {
+            int[] foreign = sharedLabels.get(s);
+            for (int k = 0; k < foreign.length; k++)
+                all.Add(foreign[k], shared.get(s), k);
+        }
+        
+        this.stats = all;
+        this.labels = lab;
+        return lab;
+    }
+    
+    /**
+     * Union of two provisional labels, the root is the smallest.
+     * @param parent Union-find forest.
+     * @param a First label, -1 for none.
+     * @param b Second label, -1 for none.
+     * @return Root of the union.
+     */
+    private static int Merge(int[] parent, int a, int b) {
+        if(b < 0) return a;
+        if(a < 0) return b;
+        
+        while (parent[a] != a) a = parent[a] = parent[parent[a]];
+        while (parent[b] != b) b = parent[b] = parent[parent[b]];
+        if(a < b){
+            parent[b] = a;
+            return a;
+        }
+        parent[a] = b;
+        return b;
+    }
+}
\ No newline at end of file
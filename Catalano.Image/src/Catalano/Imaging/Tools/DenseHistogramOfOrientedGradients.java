@@ -0,0 +1,338 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+import java.util.Arrays;
+
+/**
+ * Dense Histograms of Oriented Gradients.
+ * <p>
+ * The cell histograms and the normalized blocks at every cell position are
+ * computed once per image, in parallel bands of cell rows, and stored in flat
+ * float buffers. The descriptor of any window aligned to the cells is then
+ * gathered from the blocks without computing the gradients again, so many
+ * overlapping windows of a sliding window detector share the work.
+ * <p>
+ * The gradients and bins are the same of {@link HistogramOfOrientedGradients},
+ * but the gradients of the window borders come from the whole image.
+ * 
+ * @author Diego Catalano
+ */
+public class DenseHistogramOfOrientedGradients {
+    
+    private int numberOfBins = 9;
+    private int cellSize = 6;  // size of the cell, in number of pixels
+    private int blockSize = 3; // size of the block, in number of cells
+    private int blockStride = 3; // step between the blocks of a window, in number of cells
+    
+    private float epsilon = 1e-10f;
+    
+    private int cellCountX;
+    private int cellCountY;
+    private int blockCountX;
+    private int blockCountY;
+    private float[] cells;
+    private float[] blocks;
+
+    /**
+     * Gets the number of histogram bins.
+     * @return Number of histogram bins.
+     */
+    public int getNumberOfBins() {
+        return numberOfBins;
+    }
+
+    /**
+     * Gets the size of a cell, in pixels.
+     * @return Size of a cell.
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Gets the size of a block, in cells.
+     * @return Size of a block.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Gets the step between the blocks of a window, in cells.
+     * @return Block stride.
+     */
+    public int getBlockStride() {
+        return blockStride;
+    }
+
+    /**
+     * Sets the step between the blocks of a window, in cells.
+     * The default is the block size, as {@link HistogramOfOrientedGradients}, 1 gives overlapping blocks.
+     * @param blockStride Block stride.
+     */
+    public void setBlockStride(int blockStride) {
+        if(blockStride < 1)
+            throw new IllegalArgumentException("Block stride must be at least 1.");
+        this.blockStride = blockStride;
+    }
+    
+    /**
+     * Gets the number of cell rows of the last image.
+     * @return Number of cell rows.
+     */
+    public int getCellCountX() {
+        return cellCountX;
+    }
+
+    /**
+     * Gets the number of cell columns of the last image.
+     * @return Number of cell columns.
+     */
+    public int getCellCountY() {
+        return cellCountY;
+    }
+    
+    /**
+     * Gets the cell histograms, numberOfBins values per cell in row major order.
+     * @return Cell histograms.
+     */
+    public float[] getCells() {
+        return cells;
+    }
+
+    /**
+     * Gets the normalized blocks at every cell position, see {@link #getBlockOffset(int, int)}.
+     * @return Normalized blocks.
+     */
+    public float[] getBlocks() {
+        return blocks;
+    }
+    
+    /**
+     * Gets the length of a block.
+     * @return Block length.
+     */
+    public int getBlockLength() {
+        return blockSize * blockSize * numberOfBins;
+    }
+
+    /**
+     * Initializes a new instance of the DenseHistogramOfOrientedGradients class.
+     */
+    public DenseHistogramOfOrientedGradients() {}
+    
+    /**
+     * Initializes a new instance of the DenseHistogramOfOrientedGradients class.
+     * @param numberOfBins The number of histogram bins.
+     * @param blockSize The size of a block, measured in cells.
+     * @param cellSize The size of a cell, measured in pixels.
+     */
+    public DenseHistogramOfOrientedGradients(int numberOfBins, int blockSize, int cellSize){
+        this.numberOfBins = numberOfBins;
+        this.blockSize = blockSize;
+        this.blockStride = blockSize;
+        this.cellSize = cellSize;
+    }
+    
+    /**
+     * Compute the cell histograms and the normalized blocks of the image.
+     * @param fastBitmap Image to be processed.
+     */
+    public void ProcessImage(FastBitmap fastBitmap){
+        
+        if(!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("HistogramOfOrientedGradients only works in grayscale images.");
+        
+        cellCountX = fastBitmap.getHeight() / cellSize;
+        cellCountY = fastBitmap.getWidth() / cellSize;
+        cells = ComputeCells(fastBitmap, cellSize, numberOfBins, cells);
+        
+        blockCountX = Math.max(0, cellCountX - blockSize + 1);
+        blockCountY = Math.max(0, cellCountY - blockSize + 1);
+        final int length = getBlockLength();
+        if(blocks == null || blocks.length != blockCountX * blockCountY * length)
+            blocks = new float[blockCountX * blockCountY * length];
+        
+        ParallelFor.Run(blockCountX, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int rowLength = blockSize * numberOfBins;
+                for (int i = from; i < to; i++) {
+                    for (int j = 0; j < blockCountY; j++) {
+                        int offset = (i * blockCountY + j) * length;
+                        
+                        // the cells of a block row are contiguous
+                        int c = offset;
+                        for (int x = 0; x < blockSize; x++) {
+                            System.arraycopy(cells, ((i + x) * cellCountY + j) * numberOfBins, blocks, c, rowLength);
+                            c += rowLength;
+                        }
+                        
+                        double sum = 0;
+                        for (int k = offset; k < c; k++)
+                            sum += blocks[k] * blocks[k];
+                        float norm = (float)Math.sqrt(sum) + epsilon;
+                        for (int k = offset; k < c; k++)
+                            blocks[k] /= norm;
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Gets the offset of the normalized block in {@link #getBlocks()}.
+     * @param cellX Cell row of the top left cell of the block.
+     * @param cellY Cell column of the top left cell of the block.
+     * @return Offset of the block.
+     */
+    public int getBlockOffset(int cellX, int cellY){
+        return (cellX * blockCountY + cellY) * getBlockLength();
+    }
+    
+    /**
+     * Gets the length of the descriptor of a window.
+     * @param windowHeight Height of the window, in pixels.
+     * @param windowWidth Width of the window, in pixels.
+     * @return Descriptor length.
+     */
+    public int getDescriptorLength(int windowHeight, int windowWidth){
+        return BlockCount(windowHeight) * BlockCount(windowWidth) * getBlockLength();
+    }
+    
+    /**
+     * Gets the descriptor of a window.
+     * @param x X axis coordinate of the window, multiple of the cell size.
+     * @param y Y axis coordinate of the window, multiple of the cell size.
+     * @param windowHeight Height of the window, in pixels.
+     * @param windowWidth Width of the window, in pixels.
+     * @return Descriptor.
+     */
+    public float[] getDescriptor(int x, int y, int windowHeight, int windowWidth){
+        float[] descriptor = new float[getDescriptorLength(windowHeight, windowWidth)];
+        getDescriptor(x, y, windowHeight, windowWidth, descriptor);
+        return descriptor;
+    }
+    
+    /**
+     * Gets the descriptor of a window.
+     * @param x X axis coordinate of the window, multiple of the cell size.
+     * @param y Y axis coordinate of the window, multiple of the cell size.
+     * @param windowHeight Height of the window, in pixels.
+     * @param windowWidth Width of the window, in pixels.
+     * @param descriptor Receives the descriptor, the blocks of the window in row major order.
+     */
+    public void getDescriptor(int x, int y, int windowHeight, int windowWidth, float[] descriptor){
+        if(blocks == null)
+            throw new IllegalArgumentException("The image must be processed first.");
+        if(x % cellSize != 0 || y % cellSize != 0)
+            throw new IllegalArgumentException("The window must be aligned to the cells.");
+        
+        int cx = x / cellSize;
+        int cy = y / cellSize;
+        int bx = BlockCount(windowHeight);
+        int by = BlockCount(windowWidth);
+        if(bx > 0 && by > 0 && (cx + (bx - 1) * blockStride >= blockCountX || cy + (by - 1) * blockStride >= blockCountY))
+            throw new IllegalArgumentException("The window must be inside the image.");
+        
+        int length = getBlockLength();
+        int c = 0;
+        for (int i = 0; i < bx; i++) {
+            for (int j = 0; j < by; j++) {
+                System.arraycopy(blocks, getBlockOffset(cx + i * blockStride, cy + j * blockStride), descriptor, c, length);
+                c += length;
+            }
+        }
+    }
+    
+    /**
+     * Number of blocks of a window along one axis.
+     */
+    private int BlockCount(int size){
+        int n = size / cellSize;
+        return n < blockSize ? 0 : (n - blockSize) / blockStride + 1;
+    }
+    
+    /**
+     * Compute the histogram of each cell.
+     * @param fastBitmap Grayscale image.
+     * @param cellSize Size of the cell, in pixels.
+     * @param numberOfBins Number of bins.
+     * @param cells Buffer to reuse, can be null.
+     * @return Cell histograms, numberOfBins values per cell in row major order.
+     */
+    static float[] ComputeCells(FastBitmap fastBitmap, final int cellSize, final int numberOfBins, float[] cells){
+        
+        final int width = fastBitmap.getWidth();
+        final int height = fastBitmap.getHeight();
+        final int cellCountX = height / cellSize;
+        final int cellCountY = width / cellSize;
+        final byte[] data = fastBitmap.getGrayData();
+        final double binWidth = (2.0 * Math.PI) / numberOfBins;
+        
+        if(cells == null || cells.length != cellCountX * cellCountY * numberOfBins)
+            cells = new float[cellCountX * cellCountY * numberOfBins];
+        final float[] hist = cells;
+        
+        ParallelFor.Run(cellCountX, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                Arrays.fill(hist, from * cellCountY * numberOfBins, to * cellCountY * numberOfBins, 0);
+                for (int i = from * cellSize; i < to * cellSize; i++) {
+                    
+                    // the gradient is zero on the borders of the image
+                    if(i == 0 || i == height - 1) continue;
+                    int row = (i / cellSize) * cellCountY;
+                    
+                    for (int j = 1; j < Math.min(cellCountY * cellSize, width - 1); j++) {
+                        int o = i * width + j;
+                        int p1 = data[o - width + 1] & 0xFF;
+                        int p2 = data[o + 1] & 0xFF;
+                        int p3 = data[o + width + 1] & 0xFF;
+                        int p4 = data[o - width - 1] & 0xFF;
+                        int p5 = data[o - 1] & 0xFF;
+                        int p6 = data[o + width - 1] & 0xFF;
+                        int p7 = data[o + width] & 0xFF;
+                        int p8 = data[o - width] & 0xFF;
+                        
+                        float h = ((p1 + p2 + p3) - (p4 + p5 + p6)) * 0.166666667f;
+                        float v = ((p6 + p7 + p3) - (p4 + p8 + p1)) * 0.166666667f;
+                        if(h == 0 && v == 0) continue;
+                        
+                        double ang = (float)Math.atan2(v, h);
+                        float mag = (float)Math.sqrt(h * h + v * v);
+                        
+                        // Get its angular bin
+                        int bin = Math.min(numberOfBins - 1, (int)((ang + Math.PI) / binWidth));
+                        hist[(row + j / cellSize) * numberOfBins + bin] += mag;
+                    }
+                }
+            }
+        });
+        
+        return cells;
+    }
+}
\ No newline at end of file
@@ -21,9 +21,7 @@
 
 package Catalano.Imaging.Tools;
 
-import Catalano.Core.IntPoint;
 import Catalano.Imaging.FastBitmap;
-import java.util.List;
 
 /**
  * Extract Biggest Blob from an image.
@@ -58,20 +56,23 @@ public class ExtractBiggestBlob {
         if(!fastBitmap.isGrayscale())
             throw new IllegalArgumentException("Extract Biggest Blob only works in grayscale images.");
         
-        BlobDetection bd = new BlobDetection();
-        List<Blob> blobs = bd.ProcessImage(fastBitmap);
+        ConnectedComponentsLabeling ccl = new ConnectedComponentsLabeling();
+        int[] labels = ccl.Compute(fastBitmap);
+        int big = ccl.getBiggestComponent();
+        if(big == 0)
+            throw new IllegalArgumentException("The image doesn't contain blobs.");
         
-        Blob blob = blobs.get(bd.getIdBiggestBlob());
         if(keepOriginalImage == false){
+            Blob blob = new Blob(0, ccl.getArea(big), ccl.getCenter(big), ccl.getPoints(big), ccl.getBoundingBox(big));
             BlobExtractor e = new BlobExtractor();
             return e.Extract(fastBitmap, blob);
         }
         
         FastBitmap fb = new FastBitmap(fastBitmap.getWidth(), fastBitmap.getHeight(), FastBitmap.ColorSpace.Grayscale);
         
-        List<IntPoint> points = blob.getPoints();
-        for (IntPoint p : points)
-            fb.setGray(p, fastBitmap.getGray(p));
+        for (int i = 0; i < labels.length; i++)
+            if(labels[i] == big)
+                fb.setGray(i, fastBitmap.getGray(i));
         
         return fb;
     }
@@ -0,0 +1,258 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Imaging.FastBitmap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hough line transformation with gradient voting.
+ * <p>
+ * The normal of a line is the direction of the gradient of its edge points, so given the
+ * gray image each edge point only votes the angles near its gradient direction instead
+ * of all of them. The points vote in parallel, with an accumulator per thread.
+ * The lines have the same parameters of {@link HoughLineTransformation}, so {@link HoughLine#DrawLine(FastBitmap, int)} works.
+ * 
+ * @author Diego Catalano
+ */
+public class GradientHoughLineTransformation {
+    
+    private int stepsPerDegree = 1;
+    private double angleTolerance = 10;
+    private int radius = 4;
+    private int minIntensity = 1;
+    
+    private int thetaCount;
+    private int houghHeight;
+    private int doubleHeight;
+    private int numPoints;
+    private int[] accumulator;
+    private double[] sinCache;
+    private double[] cosCache;
+
+    /**
+     * Get the number of steps per degree.
+     * @return Steps per degree.
+     */
+    public int getStepsPerDegree() {
+        return stepsPerDegree;
+    }
+
+    /**
+     * Set the number of steps per degree.
+     * @param stepsPerDegree Steps per degree, in [1, 10].
+     */
+    public void setStepsPerDegree(int stepsPerDegree) {
+        this.stepsPerDegree = Math.max(1, Math.min(10, stepsPerDegree));
+    }
+
+    /**
+     * Get the tolerance of the angle around the gradient direction.
+     * @return Tolerance, in degrees.
+     */
+    public double getAngleTolerance() {
+        return angleTolerance;
+    }
+
+    /**
+     * Set the tolerance of the angle around the gradient direction.
+     * @param angleTolerance Tolerance, in degrees.
+     */
+    public void setAngleTolerance(double angleTolerance) {
+        this.angleTolerance = Math.max(0, Math.min(90, angleTolerance));
+    }
+
+    /**
+     * Get the radius of the neighbourhood of the local maxima.
+     * @return Radius.
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Set the radius of the neighbourhood of the local maxima.
+     * @param radius Radius.
+     */
+    public void setRadius(int radius) {
+        this.radius = radius;
+    }
+
+    /**
+     * Get the minimum intensity of a line.
+     * @return Minimum intensity.
+     */
+    public int getMinIntensity() {
+        return minIntensity;
+    }
+
+    /**
+     * Set the minimum intensity of a line.
+     * @param minIntensity Minimum intensity.
+     */
+    public void setMinIntensity(int minIntensity) {
+        this.minIntensity = Math.max(1, minIntensity);
+    }
+
+    /**
+     * Get the accumulator of the last image, [theta * (2 * houghHeight) + radius].
+     * @return Accumulator.
+     */
+    public int[] getAccumulator() {
+        return accumulator;
+    }
+
+    /**
+     * Initializes a new instance of the GradientHoughLineTransformation class.
+     */
+    public GradientHoughLineTransformation() {}
+    
+    /**
+     * Initializes a new instance of the GradientHoughLineTransformation class.
+     * @param minIntensity Minimum intensity of a line.
+     * @param angleTolerance Tolerance of the angle around the gradient direction, in degrees.
+     */
+    public GradientHoughLineTransformation(int minIntensity, double angleTolerance) {
+        setMinIntensity(minIntensity);
+        setAngleTolerance(angleTolerance);
+    }
+    
+    /**
+     * Vote all the angles of the edge points.
+     * @param edges Binary image of the edges.
+     */
+    public void ProcessImage(FastBitmap edges){
+        ProcessImage(edges, null);
+    }
+    
+    /**
+     * Vote the angles near the gradient direction of the edge points.
+     * @param edges Binary image of the edges.
+     * @param gray Gray image of the gradients, null to vote all the angles.
+     */
+    public void ProcessImage(FastBitmap edges, FastBitmap gray){
+        
+        if(gray != null && (!gray.isGrayscale() || gray.getWidth() != edges.getWidth() || gray.getHeight() != edges.getHeight()))
+            throw new IllegalArgumentException("The gray image must be grayscale and have the size of the edges.");
+        
+        final int width = edges.getWidth();
+        final int height = edges.getHeight();
+        final int[] points = HoughVoting.EdgePoints(edges);
+        final byte[] data = gray == null ? null : gray.getGrayData();
+        Init(width, height);
+        
+        final float centerX = width / 2;
+        final float centerY = height / 2;
+        final int tolerance = (int)Math.round(angleTolerance * stepsPerDegree);
+        final double thetaStep = Math.PI / thetaCount;
+        
+        accumulator = HoughVoting.Vote(points.length, thetaCount * doubleHeight, new HoughVoting.Voter() {
+            @Override
+            public void Vote(int from, int to, int[] acc) {
+                for (int i = from; i < to; i++) {
+                    int x = points[i] / width;
+                    int y = points[i] % width;
+                    
+                    int t1 = 0, t2 = thetaCount;
+                    if(data != null){
+                        double angle = HoughVoting.Direction(data, width, height, points[i]);
+                        if(!Double.isNaN(angle)){
+                            if(angle < 0) angle += Math.PI;
+                            int t = (int)Math.round(angle / thetaStep);
+                            t1 = t - tolerance;
+                            t2 = t + tolerance + 1;
+                        }
+                    }
+                    
+                    for (int k = t1; k < t2; k++) {
+                        int t = k < 0 ? k + thetaCount : (k >= thetaCount ? k - thetaCount : k);
+                        int r = (int)(((x - centerX) * cosCache[t]) + ((y - centerY) * sinCache[t])) + houghHeight;
+                        if (r >= 0 && r < doubleHeight)
+                            acc[t * doubleHeight + r]++;
+                    }
+                }
+            }
+        });
+        numPoints = points.length;
+    }
+    
+    /**
+     * Get the lines, the local maxima of the accumulator.
+     * @return Lines.
+     */
+    public List<HoughLine> getLines(){
+        List<HoughLine> lines = new ArrayList<HoughLine>();
+        if (numPoints == 0) return lines;
+        
+        int max = 0;
+        for (int i = 0; i < accumulator.length; i++)
+            max = Math.max(max, accumulator[i]);
+        
+        for (int t = 0; t < thetaCount; t++) {
+            loop:
+            for (int r = radius; r < doubleHeight - radius; r++) {
+                int peak = accumulator[t * doubleHeight + r];
+                if (peak < minIntensity) continue;
+                
+                for (int dt = -radius; dt <= radius; dt++) {
+                    int tt = t + dt;
+                    if (tt < 0) tt += thetaCount;
+                    else if (tt >= thetaCount) tt -= thetaCount;
+                    int o = tt * doubleHeight + r;
+                    for (int dr = -radius; dr <= radius; dr++) {
+                        int v = accumulator[o + dr];
+                        // Plateaus keep the first cell.
+                        if (v > peak || (v == peak && (dt < 0 || (dt == 0 && dr < 0))))
+                            continue loop;
+                    }
+                }
+                lines.add(new HoughLine(t * Math.PI / thetaCount, r, peak, (double)peak / max));
+            }
+        }
+        Collections.sort(lines, new Comparator<HoughLine>() {
+            @Override
+            public int compare(HoughLine a, HoughLine b) {
+                return a.getIntensity() > b.getIntensity() ? -1 : (a.getIntensity() < b.getIntensity() ? 1 : 0);
+            }
+        });
+        return lines;
+    }
+    
+    private void Init(int width, int height){
+        thetaCount = 180 * stepsPerDegree;
+        houghHeight = (int) (Math.sqrt(2) * Math.max(height, width)) / 2;
+        doubleHeight = 2 * houghHeight;
+        
+        if(sinCache == null || sinCache.length != thetaCount){
+            sinCache = new double[thetaCount];
+            cosCache = new double[thetaCount];
+            for (int t = 0; t < thetaCount; t++) {
+                sinCache[t] = Math.sin(t * Math.PI / thetaCount);
+                cosCache[t] = Math.cos(t * Math.PI / thetaCount);
+            }
+        }
+    }
+}
\ No newline at end of file
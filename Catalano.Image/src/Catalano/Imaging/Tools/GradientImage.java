@@ -54,11 +54,11 @@ public class GradientImage {
     }
 
     /**
-     * Initialize a new instance of the GradientImage class.
+     * Initialize a new instance of the GradientImage class, with the Sobel masks.
      * @param fastBitmap Image to be processed.
      */
     public GradientImage(FastBitmap fastBitmap) {
-        Compute(fastBitmap);
+        this(fastBitmap, ConvolutionKernel.SobelHorizontal, ConvolutionKernel.SobelVertical);
     }
 
     /**
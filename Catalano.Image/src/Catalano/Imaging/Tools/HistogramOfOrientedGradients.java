@@ -29,6 +29,9 @@ import java.util.ArrayList;
 
 /**
  * Histograms of Oriented Gradients.
+ * <p>
+ * For many windows of the same image, as in a sliding window detector, use
+ * {@link DenseHistogramOfOrientedGradients}, which computes the cells once.
  * 
  * <para>
  * References:
@@ -48,7 +51,6 @@ public class HistogramOfOrientedGradients {
     private int blockSize = 3; // size of the block, in number of cells
     
     private double epsilon = 1e-10;
-    private double binWidth = 0.69813170079773183076947630739545;
 
     /**
      * Gets the number of histogram bins.
@@ -89,7 +91,6 @@ public class HistogramOfOrientedGradients {
         this.numberOfBins = numberOfBins;
         this.blockSize = blockSize;
         this.cellSize = cellSize;
-        this.binWidth = (2.0 * Math.PI) / numberOfBins; // 0 to 360
     }
     
     /**
@@ -104,63 +105,12 @@ public class HistogramOfOrientedGradients {
             int width = fastBitmap.getWidth();
             int height = fastBitmap.getHeight();
             
-            // 1. Calculate partial differences
-            float[][] direction = new float[height][width];
-            float[][] magnitude = new float[height][width];
-            
-            for (int i = 1; i < height - 1; i++) {
-                for (int j = 1; j < width - 1; j++) {
-                    
-                    int p1 = fastBitmap.getGray(i - 1, j + 1);
-                    int p2 = fastBitmap.getGray(i, j + 1);
-                    int p3 = fastBitmap.getGray(i + 1, j + 1);
-                    int p4 = fastBitmap.getGray(i - 1, j - 1);
-                    int p5 = fastBitmap.getGray(i, j - 1);
-                    int p6 = fastBitmap.getGray(i + 1, j - 1);
-                    int p7 = fastBitmap.getGray(i + 1, j);
-                    int p8 = fastBitmap.getGray(i - 1, j);
-                    
-                    float h = ((p1 + p2 + p3) - (p4 + p5 + p6)) * 0.166666667f;
-                    float v = ((p6 + p7 + p3) - (p4 + p8 + p1)) * 0.166666667f;
-                    
-                    direction[i][j] = (float)Math.atan2(v, h);
-                    magnitude[i][j] = (float)Math.sqrt(h * h + v * v);
-                }
-            }
-            
-            // 2. Compute cell histograms
+            // 1. Compute cell histograms from the partial differences
             int cellCountX = (int)Math.floor(height / (double)cellSize);
             int cellCountY = (int)Math.floor(width / (double)cellSize);
-            double[][][] histograms = new double[cellCountX][cellCountY][];
-            
-            for (int i = 0; i < cellCountX; i++){
-                for (int j = 0; j < cellCountY; j++){
-                    // Compute the histogram
-                    double[] histogram = new double[numberOfBins];
-
-                    int startCellX = i * cellSize;
-                    int startCellY = j * cellSize;
-
-                    // for each pixel in the cell
-                    for (int x = 0; x < cellSize; x++)
-                    {
-                        for (int y = 0; y < cellSize; y++)
-                        {
-                            double ang = direction[startCellX + x][startCellY + y];
-                            double mag = magnitude[startCellX + x][startCellY + y];
-
-                            // Get its angular bin
-                            int bin = (int)Math.floor((ang + Math.PI) * binWidth);
-
-                            histogram[bin] += mag;
-                        }
-                    }
-
-                    histograms[i][j] = histogram;
-                }
-            }
+            float[] cells = DenseHistogramOfOrientedGradients.ComputeCells(fastBitmap, cellSize, numberOfBins, null);
             
-            // 3. Group the cells into larger, normalized blocks
+            // 2. Group the cells into larger, normalized blocks
             int blocksCountX = (int)Math.floor(cellCountX / (double)blockSize);
             int blocksCountY = (int)Math.floor(cellCountY / (double)blockSize);
 
@@ -181,12 +131,11 @@ public class HistogramOfOrientedGradients {
                     {
                         for (int y = 0; y < blockSize; y++)
                         {
-                            double[] histogram =
-                                histograms[startBlockX + x][startBlockY + y];
+                            int offset = ((startBlockX + x) * cellCountY + startBlockY + y) * numberOfBins;
 
                             // Copy all histograms to the block vector
-                            for (int k = 0; k < histogram.length; k++)
-                                v[c++] = histogram[k];
+                            for (int k = 0; k < numberOfBins; k++)
+                                v[c++] = cells[offset + k];
                         }
                     }
 
@@ -0,0 +1,99 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+/**
+ * Represents circle of Hough Circle Transformation.
+ * @author Diego Catalano
+ */
+public class HoughCircle implements Comparable<HoughCircle> {
+    
+    private int x;
+    private int y;
+    private int radius;
+    private int intensity;
+    private double relativeIntensity;
+
+    /**
+     * Get the x coordinate (row) of the center.
+     * @return X axis coordinate.
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Get the y coordinate (column) of the center.
+     * @return Y axis coordinate.
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Get Radius.
+     * @return Radius.
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Get the number of edge points on the circle.
+     * @return Intensity.
+     */
+    public int getIntensity() {
+        return intensity;
+    }
+
+    /**
+     * Get the fraction of the circumference covered by edge points.
+     * @return Relative intensity.
+     */
+    public double getRelativeIntensity() {
+        return relativeIntensity;
+    }
+
+    /**
+     * Initialize a new instance of the HoughCircle class.
+     * @param x X axis coordinate of the center.
+     * @param y Y axis coordinate of the center.
+     * @param radius Radius.
+     * @param intensity Number of edge points on the circle.
+     * @param relativeIntensity Fraction of the circumference covered by edge points.
+     */
+    public HoughCircle(int x, int y, int radius, int intensity, double relativeIntensity) {
+        this.x = x;
+        this.y = y;
+        this.radius = radius;
+        this.intensity = intensity;
+        this.relativeIntensity = relativeIntensity;
+    }
+
+    @Override
+    public int compareTo(HoughCircle o) {
+        if (this.intensity > o.intensity) return -1;
+        if (this.intensity < o.intensity) return 1;
+        return 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,354 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hough circle transformation.
+ * <p>
+ * Given the gray image, each edge point votes only the centers along its gradient
+ * direction, at every radius of the range, in a two dimensional accumulator, and the
+ * radius of each center is the distance shared by most edge points. Without the gray
+ * image, the edge points vote the whole circles of each radius, one radius at a time.
+ * Along the gradients the points vote in parallel, with an accumulator per thread. The
+ * whole circles are voted in parallel by bands of rows of a single accumulator, reused
+ * for every radius.
+ * 
+ * @author Diego Catalano
+ */
+public class HoughCircleTransformation {
+    
+    private int minRadius = 5;
+    private int maxRadius = 50;
+    private int minDistance = 10;
+    private int minIntensity = 20;
+    
+    private int width;
+    private int height;
+    private int[] points = new int[0];
+    private int[] accumulator;
+    
+    // Centers of the whole circles: votes, offset and radius.
+    private List<int[]> candidates;
+
+    /**
+     * Get the minimum radius.
+     * @return Minimum radius.
+     */
+    public int getMinRadius() {
+        return minRadius;
+    }
+
+    /**
+     * Get the maximum radius.
+     * @return Maximum radius.
+     */
+    public int getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * Set the range of the radius.
+     * @param minRadius Minimum radius.
+     * @param maxRadius Maximum radius.
+     */
+    public void setRadius(int minRadius, int maxRadius) {
+        if(minRadius < 1 || maxRadius < minRadius)
+            throw new IllegalArgumentException("The radius must be in [1, maxRadius].");
+        this.minRadius = minRadius;
+        this.maxRadius = maxRadius;
+    }
+
+    /**
+     * Get the minimum distance between two centers.
+     * @return Minimum distance.
+     */
+    public int getMinDistance() {
+        return minDistance;
+    }
+
+    /**
+     * Set the minimum distance between two centers.
+     * @param minDistance Minimum distance.
+     */
+    public void setMinDistance(int minDistance) {
+        this.minDistance = Math.max(1, minDistance);
+    }
+
+    /**
+     * Get the minimum votes of a center.
+     * @return Minimum intensity.
+     */
+    public int getMinIntensity() {
+        return minIntensity;
+    }
+
+    /**
+     * Set the minimum votes of a center.
+     * @param minIntensity Minimum intensity.
+     */
+    public void setMinIntensity(int minIntensity) {
+        this.minIntensity = Math.max(1, minIntensity);
+    }
+
+    /**
+     * Get the accumulator of the centers of the last image, in row major order.
+     * Without the gradients, it is the maximum of the accumulators of each radius.
+     * @return Accumulator.
+     */
+    public int[] getAccumulator() {
+        return accumulator;
+    }
+
+    /**
+     * Initializes a new instance of the HoughCircleTransformation class.
+     */
+    public HoughCircleTransformation() {}
+    
+    /**
+     * Initializes a new instance of the HoughCircleTransformation class.
+     * @param minRadius Minimum radius.
+     * @param maxRadius Maximum radius.
+     * @param minIntensity Minimum votes of a center.
+     */
+    public HoughCircleTransformation(int minRadius, int maxRadius, int minIntensity) {
+        setRadius(minRadius, maxRadius);
+        setMinIntensity(minIntensity);
+    }
+    
+    /**
+     * Vote the whole circles of the edge points.
+     * @param edges Binary image of the edges.
+     */
+    public void ProcessImage(FastBitmap edges){
+        ProcessImage(edges, null);
+    }
+    
+    /**
+     * Vote the centers along the gradient direction of the edge points.
+     * @param edges Binary image of the edges.
+     * @param gray Gray image of the gradients, null to vote the whole circles.
+     */
+    public void ProcessImage(FastBitmap edges, FastBitmap gray){
+        
+        if(gray != null && (!gray.isGrayscale() || gray.getWidth() != edges.getWidth() || gray.getHeight() != edges.getHeight()))
+            throw new IllegalArgumentException("The gray image must be grayscale and have the size of the edges.");
+        
+        this.width = edges.getWidth();
+        this.height = edges.getHeight();
+        this.points = HoughVoting.EdgePoints(edges);
+        final int w = width, h = height;
+        final int[] pts = points;
+        
+        if(gray == null){
+            accumulator = new int[w * h];
+            candidates = new ArrayList<int[]>();
+            final int[] rows = Rows(pts, w, h);
+            final int[] acc = new int[w * h];
+            for (int r = minRadius; r <= maxRadius; r++) {
+                final int[] circle = Circle(r);
+                final int radius = r;
+                
+                // Each band votes the centers in its rows, from the points at most r rows away.
+                ParallelFor.Run(h, 4 * r, new ParallelFor.Body() {
+                    @Override
+                    public void Compute(int from, int to) {
+                        Arrays.fill(acc, from * w, to * w, 0);
+                        int end = rows[Math.min(h, to + radius)];
+                        for (int i = rows[Math.max(0, from - radius)]; i < end; i++) {
+                            int x = pts[i] / w;
+                            int y = pts[i] % w;
+                            for (int j = 0; j < circle.length; j += 2) {
+                                int cx = x + circle[j], cy = y + circle[j + 1];
+                                if(cx >= from && cx < to && cy >= 0 && cy < w) acc[cx * w + cy]++;
+                            }
+                        }
+                        for (int i = from * w; i < to * w; i++)
+                            accumulator[i] = Math.max(accumulator[i], acc[i]);
+                    }
+                });
+                
+                for (int[] p : Peaks(acc))
+                    candidates.add(new int[] {p[0], p[1], r, circle.length / 2});
+            }
+            return;
+        }
+        
+        final byte[] data = gray.getGrayData();
+        candidates = null;
+        accumulator = HoughVoting.Vote(pts.length, w * h, new HoughVoting.Voter() {
+            @Override
+            public void Vote(int from, int to, int[] acc) {
+                for (int i = from; i < to; i++) {
+                    double angle = HoughVoting.Direction(data, w, h, pts[i]);
+                    if(Double.isNaN(angle)) continue;
+                    
+                    int x = pts[i] / w;
+                    int y = pts[i] % w;
+                    double dx = Math.cos(angle), dy = Math.sin(angle);
+                    for (int r = minRadius; r <= maxRadius; r++) {
+                        int cx = (int)Math.round(x + r * dx), cy = (int)Math.round(y + r * dy);
+                        if(cx >= 0 && cx < h && cy >= 0 && cy < w) acc[cx * w + cy]++;
+                        cx = (int)Math.round(x - r * dx);
+                        cy = (int)Math.round(y - r * dy);
+                        if(cx >= 0 && cx < h && cy >= 0 && cy < w) acc[cx * w + cy]++;
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Get the circles of the last image.
+     * @return Circles, the most intense first.
+     */
+    public List<HoughCircle> getCircles(){
+        
+        List<HoughCircle> result = new ArrayList<HoughCircle>();
+        if(points.length == 0) return result;
+        
+        // Centers far enough from the stronger ones.
+        List<int[]> peaks = candidates != null ? candidates : Peaks(accumulator);
+        Collections.sort(peaks, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] a, int[] b) {
+                return a[0] != b[0] ? (a[0] > b[0] ? -1 : 1) : (a[1] < b[1] ? -1 : (a[1] > b[1] ? 1 : 0));
+            }
+        });
+        
+        final List<int[]> centers = new ArrayList<int[]>();
+        long d2 = (long)minDistance * minDistance;
+        for (int[] p : peaks) {
+            int x = p[1] / width, y = p[1] % width;
+            boolean far = true;
+            for (int[] c : centers) {
+                long dx = c[0] - x, dy = c[1] - y;
+                if(dx * dx + dy * dy < d2) { far = false; break; }
+            }
+            if(far) {
+                centers.add(new int[] {x, y});
+                if(candidates != null)
+                    result.add(new HoughCircle(x, y, p[2], p[0], Math.min(1, p[0] / (double)p[3])));
+            }
+        }
+        if(candidates != null) return result;
+        
+        // Radius shared by most edge points, only the points in the square of the maximum radius count.
+        final int[] rows = Rows(points, width, height);
+        final HoughCircle[] circles = new HoughCircle[centers.size()];
+        ParallelFor.Run(circles.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int[] hist = new int[maxRadius + 2];
+                for (int k = from; k < to; k++) {
+                    int cx = centers.get(k)[0], cy = centers.get(k)[1];
+                    Arrays.fill(hist, 0);
+                    int y0 = Math.max(0, cy - maxRadius), y1 = Math.min(width - 1, cy + maxRadius);
+                    for (int x = Math.max(0, cx - maxRadius); x <= Math.min(height - 1, cx + maxRadius); x++) {
+                        if(rows[x] == rows[x + 1]) continue;
+                        int i = Arrays.binarySearch(points, rows[x], rows[x + 1], x * width + y0);
+                        if(i < 0) i = -i - 1;
+                        int dx = x - cx;
+                        for (int end = x * width + y1; i < rows[x + 1] && points[i] <= end; i++) {
+                            int dy = points[i] - x * width - cy;
+                            int r = (int)Math.round(Math.sqrt(dx * dx + dy * dy));
+                            if(r >= minRadius && r <= maxRadius) hist[r]++;
+                        }
+                    }
+                    int best = minRadius;
+                    for (int r = minRadius; r <= maxRadius; r++)
+                        if(hist[r] > hist[best]) best = r;
+                    circles[k] = new HoughCircle(cx, cy, best, hist[best], Math.min(1, hist[best] / (2 * Math.PI * best)));
+                }
+            }
+        });
+        
+        Collections.addAll(result, circles);
+        Collections.sort(result);
+        return result;
+    }
+    
+    /**
+     * Local maxima of an accumulator with at least the minimum votes.
+     * @return Votes and offset of each maximum.
+     */
+    private List<int[]> Peaks(int[] acc){
+        List<int[]> peaks = new ArrayList<int[]>();
+        for (int x = 0; x < height; x++) {
+            loop:
+            for (int y = 0; y < width; y++) {
+                int v = acc[x * width + y];
+                if(v < minIntensity) continue;
+                for (int i = Math.max(0, x - 1); i <= Math.min(height - 1, x + 1); i++) {
+                    for (int j = Math.max(0, y - 1); j <= Math.min(width - 1, y + 1); j++) {
+                        int u = acc[i * width + j];
+                        if(u > v || (u == v && i * width + j < x * width + y)) continue loop;
+                    }
+                }
+                peaks.add(new int[] {v, x * width + y});
+            }
+        }
+        return peaks;
+    }
+    
+    /**
+     * Index of the first point of each row, the points are in raster order.
+     * @return Index of the first point of each row and the number of points at the end.
+     */
+    private static int[] Rows(int[] points, int width, int height){
+        int[] rows = new int[height + 1];
+        int i = 0;
+        for (int x = 0; x <= height; x++) {
+            while (i < points.length && points[i] < x * width) i++;
+            rows[x] = i;
+        }
+        return rows;
+    }
+    
+    /**
+     * Offsets of the digital circle, without duplicates.
+     */
+    private static int[] Circle(int r){
+        int steps = (int)Math.ceil(4 * Math.PI * r);
+        boolean[] seen = new boolean[(2 * r + 1) * (2 * r + 1)];
+        int[] c = new int[2 * steps];
+        int n = 0;
+        for (int s = 0; s < steps; s++) {
+            double a = 2 * Math.PI * s / steps;
+            int dx = (int)Math.round(r * Math.cos(a)), dy = (int)Math.round(r * Math.sin(a));
+            int key = (dx + r) * (2 * r + 1) + dy + r;
+            if(seen[key]) continue;
+            seen[key] = true;
+            c[n++] = dx;
+            c[n++] = dy;
+        }
+        return Arrays.copyOf(c, n);
+    }
+}
\ No newline at end of file
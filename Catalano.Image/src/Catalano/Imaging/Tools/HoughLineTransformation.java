@@ -203,15 +203,24 @@ public class HoughLineTransformation {
             this.height = fastBitmap.getHeight();
 
             init();
-            // Now find edge points and update the hough array 
-            for (int x = 0; x < height; x++) {
-                for (int y = 0; y < width; y++) {
-                    // Find non-black pixels
-                    if (fastBitmap.getGray(x, y) == 255) {
-                        addPoint(x, y);
+            // Now find edge points and vote in parallel
+            final int[] points = HoughVoting.EdgePoints(fastBitmap);
+            int[] votes = HoughVoting.Vote(points.length, maxTheta * doubleHeight, new HoughVoting.Voter() {
+                @Override
+                public void Vote(int from, int to, int[] accumulator) {
+                    for (int i = from; i < to; i++) {
+                        int x = points[i] / width;
+                        int y = points[i] % width;
+                        for (int t = 0; t < maxTheta; t++) {
+                            int r = (int) (((x - centerX) * cosCache[t]) + ((y - centerY) * sinCache[t])) + houghHeight;
+                            if (r >= 0 && r < doubleHeight) accumulator[t * doubleHeight + r]++;
+                        }
                     }
                 }
-            }
+            });
+            for (int t = 0; t < maxTheta; t++)
+                System.arraycopy(votes, t * doubleHeight, houghArray[t], 0, doubleHeight);
+            numPoints = points.length;
         }
         else{
             try {
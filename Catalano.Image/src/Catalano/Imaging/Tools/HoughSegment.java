@@ -0,0 +1,96 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.IntPoint;
+
+/**
+ * Represents a line segment of the Probabilistic Hough Line Transformation.
+ * @author Diego Catalano
+ */
+public class HoughSegment implements Comparable<HoughSegment> {
+    
+    private IntPoint start;
+    private IntPoint end;
+    private double theta;
+    private int intensity;
+
+    /**
+     * Get the start point.
+     * @return Start point.
+     */
+    public IntPoint getStart() {
+        return start;
+    }
+
+    /**
+     * Get the end point.
+     * @return End point.
+     */
+    public IntPoint getEnd() {
+        return end;
+    }
+
+    /**
+     * Get the angle of the normal of the segment.
+     * @return Theta.
+     */
+    public double getTheta() {
+        return theta;
+    }
+
+    /**
+     * Get the votes of the line of the segment.
+     * @return Intensity.
+     */
+    public int getIntensity() {
+        return intensity;
+    }
+    
+    /**
+     * Get the length of the segment.
+     * @return Length.
+     */
+    public double getLength() {
+        return start.DistanceTo(end);
+    }
+
+    /**
+     * Initialize a new instance of the HoughSegment class.
+     * @param start Start point.
+     * @param end End point.
+     * @param theta Angle of the normal of the segment.
+     * @param intensity Votes of the line of the segment.
+     */
+    public HoughSegment(IntPoint start, IntPoint end, double theta, int intensity) {
+        this.start = start;
+        this.end = end;
+        this.theta = theta;
+        this.intensity = intensity;
+    }
+
+    @Override
+    public int compareTo(HoughSegment o) {
+        return Double.compare(o.getLength(), getLength());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+
+/**
+ * Voting infrastructure of the Hough transforms.
+ * <p>
+ * The edge points are split among the threads, each thread votes in its own
+ * accumulator and the accumulators are summed at the end, so the voting needs
+ * no synchronization. The gradients are the signed Sobel derivatives of the gray image.
+ * 
+ * @author Diego Catalano
+ */
+final class HoughVoting {
+    
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private HoughVoting() {}
+    
+    /**
+     * Votes of a range of points.
+     */
+    static interface Voter {
+        
+        /**
+         * Vote the points in [from, to).
+         * @param from First point, inclusive.
+         * @param to Last point, exclusive.
+         * @param accumulator Accumulator of the thread.
+         */
+        void Vote(int from, int to, int[] accumulator);
+    }
+    
+    /**
+     * Vote all the points in parallel.
+     * @param points Number of points.
+     * @param size Size of the accumulator.
+     * @param voter Votes.
+     * @return Accumulator.
+     */
+    static int[] Vote(final int points, final int size, final Voter voter){
+        final int[] accumulator = new int[size];
+        
+        // Each point costs many votes, but a private accumulator costs its size.
+        int grain = Math.max(64, size / 64);
+        ParallelFor.Run(points, grain, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                // A single partition votes in place.
+                if(from == 0 && to == points) {
+                    voter.Vote(from, to, accumulator);
+                    return;
+                }
+                int[] local = new int[size];
+                voter.Vote(from, to, local);
+                synchronized(accumulator){
+                    for (int i = 0; i < size; i++)
+                        accumulator[i] += local[i];
+                }
+            }
+        });
+        return accumulator;
+    }
+    
+    /**
+     * Get the offsets of the edge points, the pixels with value 255.
+     * @param edges Binary image of the edges.
+     * @return Offsets of the edge points.
+     */
+    static int[] EdgePoints(FastBitmap edges){
+        if(!edges.isGrayscale())
+            throw new IllegalArgumentException("The Hough transforms only works with grayscale images.");
+        
+        byte[] data = edges.getGrayData();
+        int n = 0;
+        for (int i = 0; i < data.length; i++)
+            if((data[i] & 0xFF) == 255) n++;
+        
+        int[] points = new int[n];
+        n = 0;
+        for (int i = 0; i < data.length; i++)
+            if((data[i] & 0xFF) == 255) points[n++] = i;
+        return points;
+    }
+    
+    /**
+     * Direction of the gradient at a point, the border is replicated.
+     * @param gray Gray data.
+     * @param width Width of the image.
+     * @param height Height of the image.
+     * @param offset Offset of the point.
+     * @return Angle of the gradient, from the x axis (rows) to the y axis (columns), NaN if the gradient is zero.
+     */
+    static double Direction(byte[] gray, int width, int height, int offset){
+        int x = offset / width;
+        int y = offset % width;
+        int x0 = Math.max(0, x - 1) * width, x1 = x * width, x2 = Math.min(height - 1, x + 1) * width;
+        int y0 = Math.max(0, y - 1), y2 = Math.min(width - 1, y + 1);
+        
+        int a = gray[x0 + y0] & 0xFF, b = gray[x0 + y] & 0xFF, c = gray[x0 + y2] & 0xFF;
+        int d = gray[x1 + y0] & 0xFF, f = gray[x1 + y2] & 0xFF;
+        int g = gray[x2 + y0] & 0xFF, h = gray[x2 + y] & 0xFF, i = gray[x2 + y2] & 0xFF;
+        
+        int gx = (g + 2 * h + i) - (a + 2 * b + c);
+        int gy = (c + 2 * f + i) - (a + 2 * d + g);
+        if(gx == 0 && gy == 0) return Double.NaN;
+        return Math.atan2(gy, gx);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,316 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Image pyramid cache.
+ * <p>
+ * Keeps the data that the detectors and descriptors compute from a frame, so
+ * it is computed once and shared by all of them: the grayscale levels of the
+ * pyramid, each half the size of the previous with the Gaussian kernel of
+ * {@link Catalano.Imaging.Filters.ImagePyramids}, and the
+ * {@link IntegralImage} and {@link GradientImage} of each level. The data is
+ * built on the first request.
+ * <p>
+ * The cache lives as long as the frame, call {@link #Clear()} to release it.
+ * The memory used is tracked and, over the limit, the least recently used
+ * data is released and built again if requested. The frame and the returned
+ * data must not be modified. The methods can be called from many threads.
+ * 
+ * @author Diego Catalano
+ */
+public class ImagePyramidCache {
+    
+    private static final int GRAYSCALE = 0;
+    private static final int INTEGRAL = 1;
+    private static final int GRADIENT = 2;
+    
+    private FastBitmap frame;
+    private int levels;
+    private long memoryLimit = Long.MAX_VALUE;
+    private long memoryUsage;
+    
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<Integer, Entry>(16, 0.75f, true);
+
+    /**
+     * Get the frame.
+     * @return Frame.
+     */
+    public FastBitmap getFrame() {
+        return frame;
+    }
+    
+    /**
+     * Get the number of levels, until one of the sides is 1 pixel.
+     * @return Number of levels.
+     */
+    public int getNumberOfLevels() {
+        return levels;
+    }
+    
+    /**
+     * Get the scale of a level, the size of a pixel in pixels of the frame.
+     * @param level Level.
+     * @return Scale.
+     */
+    public int getScale(int level) {
+        return 1 << level;
+    }
+
+    /**
+     * Get the memory limit.
+     * @return Memory limit, in bytes.
+     */
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Set the memory limit, the least recently used data is released over it.
+     * @param memoryLimit Memory limit, in bytes.
+     */
+    public synchronized void setMemoryLimit(long memoryLimit) {
+        if(memoryLimit < 0)
+            throw new IllegalArgumentException("Memory limit must be positive.");
+        this.memoryLimit = memoryLimit;
+        Evict(null);
+    }
+
+    /**
+     * Get the memory used by the cached data.
+     * @return Memory usage, in bytes.
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Initializes a new instance of the ImagePyramidCache class.
+     * @param frame Frame.
+     */
+    public ImagePyramidCache(FastBitmap frame) {
+        this.frame = frame;
+        int size = Math.min(frame.getWidth(), frame.getHeight());
+        this.levels = 1;
+        while ((size >>= 1) > 0) levels++;
+    }
+    
+    /**
+     * Initializes a new instance of the ImagePyramidCache class.
+     * @param frame Frame.
+     * @param memoryLimit Memory limit, in bytes.
+     */
+    public ImagePyramidCache(FastBitmap frame, long memoryLimit) {
+        this(frame);
+        setMemoryLimit(memoryLimit);
+    }
+    
+    /**
+     * Get the grayscale image of a level.
+     * The level 0 is the frame itself when it is grayscale.
+     * @param level Level.
+     * @return Grayscale image.
+     */
+    public synchronized FastBitmap getGrayscale(int level) {
+        CheckLevel(level);
+        Entry e = entries.get(Key(GRAYSCALE, level));
+        if(e != null) return (FastBitmap)e.value;
+        
+        FastBitmap gray;
+        long bytes;
+        if(level == 0){
+            if(frame.isGrayscale()){
+                gray = frame;
+                bytes = 0;
+            }
+            else{
+                gray = new FastBitmap(frame);
+                gray.toGrayscale();
+                bytes = (long)gray.getWidth() * gray.getHeight();
+            }
+        }
+        else{
+            gray = Downscale(getGrayscale(level - 1));
+            bytes = (long)gray.getWidth() * gray.getHeight();
+        }
+        
+        Put(Key(GRAYSCALE, level), gray, bytes);
+        return gray;
+    }
+    
+    /**
+     * Get the integral image of a level.
+     * @param level Level.
+     * @return Integral image.
+     */
+    public synchronized IntegralImage getIntegralImage(int level) {
+        CheckLevel(level);
+        Entry e = entries.get(Key(INTEGRAL, level));
+        if(e != null) return (IntegralImage)e.value;
+        
+        IntegralImage integral = IntegralImage.FromFastBitmap(getGrayscale(level));
+        Put(Key(INTEGRAL, level), integral, 4L * (integral.getWidth() + 1) * (integral.getHeight() + 1));
+        return integral;
+    }
+    
+    /**
+     * Get the gradient image of a level.
+     * @param level Level.
+     * @return Gradient image.
+     */
+    public synchronized GradientImage getGradient(int level) {
+        CheckLevel(level);
+        Entry e = entries.get(Key(GRADIENT, level));
+        if(e != null) return (GradientImage)e.value;
+        
+        FastBitmap gray = getGrayscale(level);
+        GradientImage gradient = new GradientImage(gray);
+        
+        // two bitmaps and the magnitude and orientation maps
+        Put(Key(GRADIENT, level), gradient, 10L * gray.getWidth() * gray.getHeight());
+        return gradient;
+    }
+    
+    /**
+     * Release all the cached data.
+     */
+    public synchronized void Clear() {
+        entries.clear();
+        memoryUsage = 0;
+    }
+    
+    /**
+     * Release the cached data of a level.
+     * @param level Level.
+     */
+    public synchronized void Clear(int level) {
+        for (int kind = GRAYSCALE; kind <= GRADIENT; kind++) {
+            Entry e = entries.remove(Key(kind, level));
+            if(e != null) memoryUsage -= e.bytes;
+        }
+    }
+    
+    private void CheckLevel(int level) {
+        if(level < 0 || level >= levels)
+            throw new IllegalArgumentException("Level must be between 0 and " + (levels - 1) + ".");
+    }
+    
+    private static Integer Key(int kind, int level) {
+        return level * 3 + kind;
+    }
+    
+    private void Put(Integer key, Object value, long bytes) {
+        Entry e = new Entry(value, bytes);
+        entries.put(key, e);
+        memoryUsage += bytes;
+        Evict(e);
+    }
+    
+    /**
+     * Release the least recently used data over the memory limit.
+     * @param keep Entry to keep, the one just added.
+     */
+    private void Evict(Entry keep) {
+        Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator();
+        while (memoryUsage > memoryLimit && it.hasNext()) {
+            Entry e = it.next().getValue();
+            if(e == keep) continue;
+            it.remove();
+            memoryUsage -= e.bytes;
+        }
+    }
+    
+    /**
+     * Blur with the 5x5 binomial kernel, replicating the borders, and keep the even pixels.
+     * @param src Grayscale image.
+     * @return Image with half the size.
+     */
+    private static FastBitmap Downscale(FastBitmap src) {
+        final int width = src.getWidth();
+        final int height = src.getHeight();
+        final int w = width / 2;
+        final int h = height / 2;
+        final byte[] in = src.getGrayData();
+        final int[] tmp = new int[height * w];
+        
+        FastBitmap dst = new FastBitmap(w, h, FastBitmap.ColorSpace.Grayscale);
+        final byte[] out = dst.getGrayData();
+        
+        // horizontal, only the even columns
+        ParallelFor.Run(height, 64, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    int row = i * width;
+                    for (int j = 0; j < w; j++) {
+                        int c = 2 * j;
+                        int a = in[row + Math.max(c - 2, 0)] & 0xFF;
+                        int b = in[row + Math.max(c - 1, 0)] & 0xFF;
+                        int m = in[row + c] & 0xFF;
+                        int d = in[row + Math.min(c + 1, width - 1)] & 0xFF;
+                        int e = in[row + Math.min(c + 2, width - 1)] & 0xFF;
+                        tmp[i * w + j] = a + 4 * b + 6 * m + 4 * d + e;
+                    }
+                }
+            }
+        });
+        
+        // vertical, only the even rows
+        ParallelFor.Run(h, 32, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    int r = 2 * i;
+                    int a = Math.max(r - 2, 0) * w;
+                    int b = Math.max(r - 1, 0) * w;
+                    int m = r * w;
+                    int d = Math.min(r + 1, height - 1) * w;
+                    int e = Math.min(r + 2, height - 1) * w;
+                    for (int j = 0; j < w; j++) {
+                        int sum = tmp[a + j] + 4 * tmp[b + j] + 6 * tmp[m + j] + 4 * tmp[d + j] + tmp[e + j];
+                        out[i * w + j] = (byte)((sum + 128) >> 8);
+                    }
+                }
+            }
+        });
+        
+        return dst;
+    }
+    
+    private static class Entry {
+        
+        final Object value;
+        final long bytes;
+
+        Entry(Object value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,299 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+
+/**
+ * Local statistics of square windows in constant time per pixel.
+ * <p>
+ * The sums and the squared sums are kept in integral images of long values,
+ * so the mean and the variance of any window cost four lookups and are exact
+ * for any image size. The local minimum and maximum are computed with the
+ * van Herk / Gil-Werman algorithm, three comparisons per pixel for any radius.
+ * The windows are clipped at the image borders. All the passes are parallel.
+ * 
+ * <p><li>Supported types: Grayscale.
+ * <br><li>Coordinate System: Matrix.
+ * 
+ * @author Diego Catalano
+ */
+public class LocalStatistics {
+    
+    private final int width;
+    private final int height;
+    
+    // integral images, (height + 1) x (width + 1)
+    private final long[] sum;
+    private final long[] sumSq;
+
+    /**
+     * Get width.
+     * @return Width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get height.
+     * @return Height.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Initializes a new instance of the LocalStatistics class.
+     * @param fastBitmap Image.
+     */
+    public LocalStatistics(FastBitmap fastBitmap) {
+        
+        if(!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("Local statistics only works in grayscale images.");
+        
+        this.width = fastBitmap.getWidth();
+        this.height = fastBitmap.getHeight();
+        final byte[] data = fastBitmap.getGrayData();
+        final int w = width;
+        final int stride = width + 1;
+        final long[] s = sum = new long[(height + 1) * stride];
+        final long[] s2 = sumSq = new long[(height + 1) * stride];
+        
+        //Sums of each row
+        ParallelFor.Run(height, Math.max(1, 65536 / Math.max(1, width)), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int x = from; x < to; x++) {
+                    long a = 0, b = 0;
+                    int o = (x + 1) * stride + 1;
+                    for (int y = 0, i = x * w; y < w; y++, i++) {
+                        int v = data[i] & 0xFF;
+                        a += v;
+                        b += v * v;
+                        s[o + y] = a;
+                        s2[o + y] = b;
+                    }
+                }
+            }
+        });
+        
+        //Sums of the columns, over bands of columns
+        final int h = height;
+        ParallelFor.Run(stride, Math.max(1, 65536 / Math.max(1, height)), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int x = 2; x <= h; x++) {
+                    for (int y = from, i = x * stride + from; y < to; y++, i++) {
+                        s[i] += s[i - stride];
+                        s2[i] += s2[i - stride];
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Number of pixels in the window, clipped at the borders.
+     * @param x X axis coordinate of the center.
+     * @param y Y axis coordinate of the center.
+     * @param radius Radius.
+     * @return Number of pixels.
+     */
+    public int getCount(int x, int y, int radius){
+        int x1 = Math.max(0, x - radius), x2 = Math.min(height, x + radius + 1);
+        int y1 = Math.max(0, y - radius), y2 = Math.min(width, y + radius + 1);
+        return (x2 - x1) * (y2 - y1);
+    }
+    
+    /**
+     * Sum of the pixels in the window, clipped at the borders.
+     * @param x X axis coordinate of the center.
+     * @param y Y axis coordinate of the center.
+     * @param radius Radius.
+     * @return Sum.
+     */
+    public long getSum(int x, int y, int radius){
+        return Sum(sum, x, y, radius);
+    }
+    
+    /**
+     * Mean of the pixels in the window, clipped at the borders.
+     * @param x X axis coordinate of the center.
+     * @param y Y axis coordinate of the center.
+     * @param radius Radius.
+     * @return Mean.
+     */
+    public double getMean(int x, int y, int radius){
+        return (double)Sum(sum, x, y, radius) / getCount(x, y, radius);
+    }
+    
+    /**
+     * Variance of the pixels in the window, clipped at the borders.
+     * @param x X axis coordinate of the center.
+     * @param y Y axis coordinate of the center.
+     * @param radius Radius.
+     * @return Variance.
+     */
+    public double getVariance(int x, int y, int radius){
+        long n = getCount(x, y, radius);
+        long s = Sum(sum, x, y, radius);
+        long s2 = Sum(sumSq, x, y, radius);
+        return (double)(n * s2 - s * s) / (n * n);
+    }
+    
+    /**
+     * Standard deviation of the pixels in the window, clipped at the borders.
+     * @param x X axis coordinate of the center.
+     * @param y Y axis coordinate of the center.
+     * @param radius Radius.
+     * @return Standard deviation.
+     */
+    public double getStandardDeviation(int x, int y, int radius){
+        return Math.sqrt(getVariance(x, y, radius));
+    }
+    
+    /**
+     * Maximum of each window, clipped at the borders.
+     * @param fastBitmap Image.
+     * @param radius Radius.
+     * @return Maximum of the window centered at each pixel, x * width + y.
+     */
+    public static byte[] Maximum(FastBitmap fastBitmap, int radius){
+        return Extreme(fastBitmap, radius, false);
+    }
+    
+    /**
+     * Minimum of each window, clipped at the borders.
+     * @param fastBitmap Image.
+     * @param radius Radius.
+     * @return Minimum of the window centered at each pixel, x * width + y.
+     */
+    public static byte[] Minimum(FastBitmap fastBitmap, int radius){
+        return Extreme(fastBitmap, radius, true);
+    }
+    
+    private long Sum(long[] integral, int x, int y, int radius){
+        int stride = width + 1;
+        int x1 = Math.max(0, x - radius) * stride, x2 = Math.min(height, x + radius + 1) * stride;
+        int y1 = Math.max(0, y - radius), y2 = Math.min(width, y + radius + 1);
+        return integral[x2 + y2] - integral[x1 + y2] - integral[x2 + y1] + integral[x1 + y1];
+    }
+    
+    /**
+     * Separable van Herk / Gil-Werman maximum, the minimum is the maximum of the inverted image.
+     * The borders are padded with 0, so the windows behave as clipped.
+     * @param fastBitmap Image.
+     * @param radius Radius.
+     * @param invert Invert the image, to compute the minimum.
+     * @return Result.
+     */
+    private static byte[] Extreme(FastBitmap fastBitmap, int radius, boolean invert){
+        
+        if(!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("Local statistics only works in grayscale images.");
+        
+        final byte[] data = fastBitmap.getGrayData();
+        final int r = Math.max(0, radius);
+        final int k = 2 * r + 1;
+        final int w = fastBitmap.getWidth();
+        final int h = fastBitmap.getHeight();
+        final int flip = invert ? 0xFF : 0;
+        final byte[] rows = new byte[w * h];
+        final byte[] out = new byte[w * h];
+        
+        //Horizontal
+        ParallelFor.Run(h, Math.max(1, 65536 / Math.max(1, w)), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int length = (w + 2 * r + k - 1) / k * k;
+                int[] line = new int[length];
+                int[] g = new int[length];
+                int[] hh = new int[length];
+                for (int x = from; x < to; x++) {
+                    int o = x * w;
+                    for (int y = 0; y < w; y++)
+                        line[r + y] = (data[o + y] & 0xFF) ^ flip;
+                    
+                    for (int i = 0; i < length; i++)
+                        g[i] = (i % k == 0) ? line[i] : Math.max(g[i - 1], line[i]);
+                    hh[length - 1] = line[length - 1];
+                    for (int i = length - 2; i >= 0; i--)
+                        hh[i] = (i % k == k - 1) ? line[i] : Math.max(hh[i + 1], line[i]);
+                    
+                    for (int y = 0; y < w; y++)
+                        rows[o + y] = (byte)Math.max(hh[y], g[y + k - 1]);
+                }
+            }
+        });
+        
+        //Vertical, over bands of columns
+        ParallelFor.Run(w, Math.max(1, 65536 / Math.max(1, h)), new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int length = (h + 2 * r + k - 1) / k * k;
+                int band = Math.min(256, to - from);
+                byte[] g = new byte[length * band];
+                byte[] hh = new byte[length * band];
+                
+                for (int c0 = from; c0 < to; c0 += band) {
+                    int n = Math.min(band, to - c0);
+                    
+                    //Forward, the padding rows are 0
+                    for (int i = 0; i < length; i++) {
+                        int x = i - r;
+                        int o = i * band;
+                        boolean inside = x >= 0 && x < h;
+                        boolean start = i % k == 0;
+                        for (int j = 0; j < n; j++) {
+                            int v = inside ? rows[x * w + c0 + j] & 0xFF : 0;
+                            g[o + j] = (byte)(start ? v : Math.max(g[o - band + j] & 0xFF, v));
+                        }
+                    }
+                    
+                    //Backward
+                    for (int i = length - 1; i >= 0; i--) {
+                        int x = i - r;
+                        int o = i * band;
+                        boolean inside = x >= 0 && x < h;
+                        boolean end = i % k == k - 1 || i == length - 1;
+                        for (int j = 0; j < n; j++) {
+                            int v = inside ? rows[x * w + c0 + j] & 0xFF : 0;
+                            hh[o + j] = (byte)(end ? v : Math.max(hh[o + band + j] & 0xFF, v));
+                        }
+                    }
+                    
+                    for (int x = 0; x < h; x++) {
+                        int a = x * band;
+                        int b = (x + k - 1) * band;
+                        for (int j = 0; j < n; j++)
+                            out[x * w + c0 + j] = (byte)(Math.max(hh[a + j] & 0xFF, g[b + j] & 0xFF) ^ flip);
+                    }
+                }
+            }
+        });
+        
+        return out;
+    }
+}
\ No newline at end of file
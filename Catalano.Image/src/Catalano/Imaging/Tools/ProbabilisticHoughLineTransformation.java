@@ -0,0 +1,334 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.IntPoint;
+import Catalano.Imaging.FastBitmap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Progressive probabilistic Hough line transformation.
+ * <p>
+ * The edge points vote in random order. As soon as a cell of the accumulator reaches
+ * the threshold, the line is followed from the last point over the edge pixels, allowing
+ * small gaps, the pixels of the segment are removed from the image and their votes are
+ * taken back. So only a fraction of the points vote and the result is a list of segments.
+ * With the gray image, each point only votes the angles near its gradient direction,
+ * as {@link GradientHoughLineTransformation}.
+ * <p>
+ * References: J. Matas, C. Galambos, J. Kittler. "Robust Detection of Lines Using the Progressive Probabilistic Hough Transform."
+ * Computer Vision and Image Understanding 78.1 (2000): 119-137.
+ * 
+ * @author Diego Catalano
+ */
+public class ProbabilisticHoughLineTransformation {
+    
+    private int threshold = 50;
+    private int minLineLength = 30;
+    private int maxLineGap = 5;
+    private int stepsPerDegree = 1;
+    private double angleTolerance = 10;
+    private long seed = 0;
+    
+    private List<HoughSegment> segments = new ArrayList<HoughSegment>();
+
+    /**
+     * Get the minimum votes of a line.
+     * @return Threshold.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Set the minimum votes of a line.
+     * @param threshold Threshold.
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = Math.max(1, threshold);
+    }
+
+    /**
+     * Get the minimum length of a segment.
+     * @return Minimum length.
+     */
+    public int getMinLineLength() {
+        return minLineLength;
+    }
+
+    /**
+     * Set the minimum length of a segment.
+     * @param minLineLength Minimum length.
+     */
+    public void setMinLineLength(int minLineLength) {
+        this.minLineLength = minLineLength;
+    }
+
+    /**
+     * Get the maximum gap between the points of a segment.
+     * @return Maximum gap.
+     */
+    public int getMaxLineGap() {
+        return maxLineGap;
+    }
+
+    /**
+     * Set the maximum gap between the points of a segment.
+     * @param maxLineGap Maximum gap.
+     */
+    public void setMaxLineGap(int maxLineGap) {
+        this.maxLineGap = maxLineGap;
+    }
+
+    /**
+     * Get the number of steps per degree.
+     * @return Steps per degree.
+     */
+    public int getStepsPerDegree() {
+        return stepsPerDegree;
+    }
+
+    /**
+     * Set the number of steps per degree.
+     * @param stepsPerDegree Steps per degree, in [1, 10].
+     */
+    public void setStepsPerDegree(int stepsPerDegree) {
+        this.stepsPerDegree = Math.max(1, Math.min(10, stepsPerDegree));
+    }
+
+    /**
+     * Get the tolerance of the angle around the gradient direction.
+     * @return Tolerance, in degrees.
+     */
+    public double getAngleTolerance() {
+        return angleTolerance;
+    }
+
+    /**
+     * Set the tolerance of the angle around the gradient direction.
+     * @param angleTolerance Tolerance, in degrees.
+     */
+    public void setAngleTolerance(double angleTolerance) {
+        this.angleTolerance = Math.max(0, Math.min(90, angleTolerance));
+    }
+
+    /**
+     * Get the seed of the random order of the points.
+     * @return Seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the seed of the random order of the points.
+     * @param seed Seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Get the segments of the last image.
+     * @return Segments, the longest first.
+     */
+    public List<HoughSegment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Initializes a new instance of the ProbabilisticHoughLineTransformation class.
+     */
+    public ProbabilisticHoughLineTransformation() {}
+    
+    /**
+     * Initializes a new instance of the ProbabilisticHoughLineTransformation class.
+     * @param threshold Minimum votes of a line.
+     * @param minLineLength Minimum length of a segment.
+     * @param maxLineGap Maximum gap between the points of a segment.
+     */
+    public ProbabilisticHoughLineTransformation(int threshold, int minLineLength, int maxLineGap) {
+        setThreshold(threshold);
+        this.minLineLength = minLineLength;
+        this.maxLineGap = maxLineGap;
+    }
+    
+    /**
+     * Find the segments.
+     * @param edges Binary image of the edges.
+     */
+    public void ProcessImage(FastBitmap edges){
+        ProcessImage(edges, null);
+    }
+    
+    /**
+     * Find the segments.
+     * @param edges Binary image of the edges.
+     * @param gray Gray image of the gradients, null to vote all the angles.
+     */
+    public void ProcessImage(FastBitmap edges, FastBitmap gray){
+        
+        if(gray != null && (!gray.isGrayscale() || gray.getWidth() != edges.getWidth() || gray.getHeight() != edges.getHeight()))
+            throw new IllegalArgumentException("The gray image must be grayscale and have the size of the edges.");
+        
+        int width = edges.getWidth();
+        int height = edges.getHeight();
+        int[] points = HoughVoting.EdgePoints(edges);
+        byte[] data = gray == null ? null : gray.getGrayData();
+        
+        int thetaCount = 180 * stepsPerDegree;
+        double thetaStep = Math.PI / thetaCount;
+        int houghHeight = (int) (Math.sqrt(2) * Math.max(height, width)) / 2;
+        int doubleHeight = 2 * houghHeight;
+        float centerX = width / 2;
+        float centerY = height / 2;
+        int tolerance = (int)Math.round(angleTolerance * stepsPerDegree);
+        
+        double[] sin = new double[thetaCount];
+        double[] cos = new double[thetaCount];
+        for (int t = 0; t < thetaCount; t++) {
+            sin[t] = Math.sin(t * thetaStep);
+            cos[t] = Math.cos(t * thetaStep);
+        }
+        
+        // Angles voted by each point.
+        int[] first = new int[points.length];
+        int[] count = new int[points.length];
+        for (int i = 0; i < points.length; i++) {
+            count[i] = thetaCount;
+            if(data != null){
+                double angle = HoughVoting.Direction(data, width, height, points[i]);
+                if(!Double.isNaN(angle)){
+                    if(angle < 0) angle += Math.PI;
+                    first[i] = (int)Math.round(angle / thetaStep) - tolerance;
+                    count[i] = 2 * tolerance + 1;
+                }
+            }
+        }
+        
+        // Index of the point of each pixel, -1 for the removed pixels.
+        int[] mask = new int[width * height];
+        Arrays.fill(mask, -1);
+        for (int i = 0; i < points.length; i++)
+            mask[points[i]] = i;
+        boolean[] voted = new boolean[points.length];
+        
+        int[] accumulator = new int[thetaCount * doubleHeight];
+        int[] order = points.clone();
+        Random random = new Random(seed);
+        segments = new ArrayList<HoughSegment>();
+        
+        for (int n = order.length; n > 0; n--) {
+            
+            // Pick a random point.
+            int k = random.nextInt(n);
+            int p = order[k];
+            order[k] = order[n - 1];
+            int index = mask[p];
+            if(index < 0) continue;
+            
+            int x = p / width;
+            int y = p % width;
+            int maxVotes = 0, maxTheta = 0;
+            for (int j = first[index]; j < first[index] + count[index]; j++) {
+                int t = j < 0 ? j + thetaCount : (j >= thetaCount ? j - thetaCount : j);
+                int r = (int)(((x - centerX) * cos[t]) + ((y - centerY) * sin[t])) + houghHeight;
+                if(r < 0 || r >= doubleHeight) continue;
+                int v = ++accumulator[t * doubleHeight + r];
+                if(v > maxVotes){
+                    maxVotes = v;
+                    maxTheta = t;
+                }
+            }
+            voted[index] = true;
+            
+            if(maxVotes < threshold) continue;
+            
+            // Direction of the line, the major axis steps one pixel.
+            double dx = -sin[maxTheta];
+            double dy = cos[maxTheta];
+            double major = Math.max(Math.abs(dx), Math.abs(dy));
+            dx /= major;
+            dy /= major;
+            
+            // Follow the line in both directions.
+            int[][] ends = new int[2][];
+            for (int side = 0; side < 2; side++) {
+                double sx = side == 0 ? dx : -dx;
+                double sy = side == 0 ? dy : -dy;
+                int ex = x, ey = y, gap = 0;
+                for (int step = 1; ; step++) {
+                    int cx = (int)Math.round(x + step * sx);
+                    int cy = (int)Math.round(y + step * sy);
+                    if(cx < 0 || cx >= height || cy < 0 || cy >= width) break;
+                    if(mask[cx * width + cy] >= 0){
+                        gap = 0;
+                        ex = cx;
+                        ey = cy;
+                    }
+                    else if(++gap > maxLineGap) break;
+                }
+                ends[side] = new int[] {ex, ey};
+            }
+            
+            double length = Math.hypot(ends[0][0] - ends[1][0], ends[0][1] - ends[1][1]);
+            boolean good = length >= minLineLength;
+            
+            // Remove the pixels of the line, the votes of a good line are taken back.
+            int steps = Math.max(Math.abs(ends[0][0] - ends[1][0]), Math.abs(ends[0][1] - ends[1][1]));
+            for (int step = -steps; step <= steps; step++) {
+                int cx = (int)Math.round(x + step * dx);
+                int cy = (int)Math.round(y + step * dy);
+                if(!Between(cx, cy, ends[0], ends[1]) || cx < 0 || cx >= height || cy < 0 || cy >= width) continue;
+                int q = cx * width + cy;
+                int i = mask[q];
+                if(i < 0) continue;
+                if(good && voted[i]){
+                    for (int j = first[i]; j < first[i] + count[i]; j++) {
+                        int t = j < 0 ? j + thetaCount : (j >= thetaCount ? j - thetaCount : j);
+                        int r = (int)(((cx - centerX) * cos[t]) + ((cy - centerY) * sin[t])) + houghHeight;
+                        if(r >= 0 && r < doubleHeight)
+                            accumulator[t * doubleHeight + r]--;
+                    }
+                }
+                mask[q] = -1;
+            }
+            
+            if(good)
+                segments.add(new HoughSegment(new IntPoint(ends[1][0], ends[1][1]), new IntPoint(ends[0][0], ends[0][1]), maxTheta * thetaStep, maxVotes));
+        }
+        
+        Collections.sort(segments);
+    }
+    
+    /**
+     * Check if the pixel is in the bounding box of the segment.
+     */
+    private static boolean Between(int x, int y, int[] a, int[] b){
+        return x >= Math.min(a[0], b[0]) && x <= Math.max(a[0], b[0]) && y >= Math.min(a[1], b[1]) && y <= Math.max(a[1], b[1]);
+    }
+}
\ No newline at end of file
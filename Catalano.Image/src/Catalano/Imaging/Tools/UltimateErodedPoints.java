@@ -55,31 +55,22 @@ public class UltimateErodedPoints {
             throw new IllegalArgumentException("UED only works in grayscale images.");
         
         DistanceTransform dt = new DistanceTransform();
-        float[][] distance = dt.Compute(fastBitmap);
-        
-        //Convert 2D to 1D - ImageJ Compatibility
-        float[] distance1D = new float[distance.length * distance[0].length];
-        int p = 0;
-        for (int i = 0; i < fastBitmap.getHeight(); i++) {
-            for (int j = 0; j < fastBitmap.getWidth(); j++) {
-                distance1D[p++] = distance[i][j];
-            }
-        }
-        
-        //Make directions offsets
-        makeDirectionOffsets(distance[0].length);
+        float[] distance = dt.ComputeMap(fastBitmap);
         
         int width = fastBitmap.getWidth();
         int height = fastBitmap.getHeight();
         
+        //Make directions offsets
+        makeDirectionOffsets(width);
+        
         FastBitmap back = new FastBitmap(width, height, FastBitmap.ColorSpace.Grayscale);
         
         //Get all maximum points
-        long[] maxPoints = getSortedMaxPoints(distance, distance1D, back, 0, dt.getMaximumDistance(), -808080.0);
+        long[] maxPoints = getSortedMaxPoints(distance, width, height, back, 0, dt.getMaximumDistance(), -808080.0);
         
         //Analise e marque as maxima em imagem de background
         float maxSortingError = 1.1f * SQRT2/2f;
-        return analyseAndMarkMaxima(distance1D, back, maxPoints, tolerance, maxSortingError);
+        return analyseAndMarkMaxima(distance, back, maxPoints, tolerance, maxSortingError);
         
     }
     
@@ -98,28 +89,28 @@ public class UltimateErodedPoints {
         //(in case we have multiple threads using the same MaximumFinder)
     }
     
-    private long[] getSortedMaxPoints(float[][] distance, float[] distance1D, FastBitmap back, float globalMin, float globalMax, double threshold){
+    private long[] getSortedMaxPoints(float[] distance, int width, int height, FastBitmap back, float globalMin, float globalMax, double threshold){
         
         //Create the back image
         byte[] types = back.getGrayData();
         
         int nMax = 0;
-        for (int y = 0; y < distance.length; y++) {
-            for (int x = 0, i = x+y*distance[0].length; x < distance[0].length; x++, i++) {
-                float v = distance[y][x];
-                float vTrue = trueEdmHeight(x, y, distance1D, distance[0].length, distance.length);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, i = x+y*width; x < width; x++, i++) {
+                float v = distance[i];
+                float vTrue = trueEdmHeight(x, y, distance, width, height);
                 if(!(v==globalMin)){
-                    if (!(x==0 || x==distance[0].length-1 || y==0 || y==distance.length-1)){
+                    if (!(x==0 || x==width-1 || y==0 || y==height-1)){
                         if (!(v<threshold)){
                             boolean isMax = true;
                             /* check wheter we have a local maximum.
                              Note: For an EDM, we need all maxima: those of the EDM-corrected values
                              (needed by findMaxima) and those of the raw values (needed by cleanupMaxima) */
-                            boolean isInner = (y!=0 && y!=distance.length-1) && (x!=0 && x!=distance[0].length-1); //not necessary, but faster than isWithin
+                            boolean isInner = (y!=0 && y!=height-1) && (x!=0 && x!=width-1); //not necessary, but faster than isWithin
                             for (int d=0; d<8; d++) {                         // compare with the 8 neighbor pixels
-                                if (isInner || isWithin(x, y, d, distance[0].length, distance.length)) {
-                                    float vNeighbor = distance[y+DIR_Y_OFFSET[d]][x+DIR_X_OFFSET[d]];
-                                    float vNeighborTrue = trueEdmHeight(x+DIR_X_OFFSET[d], y+DIR_Y_OFFSET[d], distance1D, distance[0].length, distance.length);
+                                if (isInner || isWithin(x, y, d, width, height)) {
+                                    float vNeighbor = distance[i+dirOffset[d]];
+                                    float vNeighborTrue = trueEdmHeight(x+DIR_X_OFFSET[d], y+DIR_Y_OFFSET[d], distance, width, height);
                                     if (vNeighbor > v && vNeighborTrue > vTrue) {
                                         isMax = false;
                                         break;
@@ -139,10 +130,10 @@ public class UltimateErodedPoints {
         float vFactor = (float)(2e9/(globalMax-globalMin)); //for converting float values into a 32-bit int
         long[] maxPoints = new long[nMax];                  //value (int) is in the upper 32 bit, pixel offset in the lower
         int iMax = 0;
-        for (int y=0; y<distance.length; y++)           //enter all maxima into an array
-            for (int x=0, pp=x+y*distance[0].length; x<distance[0].length; x++, pp++)
+        for (int y=0; y<height; y++)           //enter all maxima into an array
+            for (int x=0, pp=x+y*width; x<width; x++, pp++)
                 if (types[pp]==(byte)1) {
-                    float fValue = trueEdmHeight(x,y,distance1D, distance[0].length, distance.length);
+                    float fValue = trueEdmHeight(x,y,distance, width, height);
                     int iValue = (int)((fValue-globalMin)*vFactor); //32-bit int, linear function of float value
                     maxPoints[iMax++] = (long)iValue<<32|pp;
                 }
@@ -0,0 +1,253 @@
+// Catalano Imaging Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Imaging.Tools;
+
+import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Imaging.FastBitmap;
+import java.util.Arrays;
+
+/**
+ * Marker controlled watershed.
+ * <p>
+ * The basins are flooded from the markers in order of increasing gray level,
+ * with a priority queue of one bucket per level. A pixel reached by two
+ * different basins becomes a watershed line, so the basins never touch in the
+ * 8 neighborhood. Connected regions of the mask are flooded in parallel.
+ * 
+ * <p><li>Supported types: Grayscale.
+ * <br><li>Coordinate System: Matrix.
+ * 
+ * @author Diego Catalano
+ */
+public class Watershed {
+    
+    // states of the pixels while flooding
+    private static final int QUEUED = -2;
+    private static final int LINE = -3;
+
+    /**
+     * Initializes a new instance of the Watershed class.
+     */
+    public Watershed() {}
+    
+    /**
+     * Flood the image from the markers.
+     * @param fastBitmap Relief, the gray level of each pixel.
+     * @param markers Labels of each pixel, x * width + y. Greater than 0 for the markers, 0 for the pixels to be flooded and -1 for the pixels out of the mask.
+     * @return The markers, flooded pixels get the label of their basin, the watershed lines and the pixels unreachable from any marker get 0.
+     */
+    public int[] Compute(FastBitmap fastBitmap, final int[] markers) {
+        
+        if(!fastBitmap.isGrayscale())
+            throw new IllegalArgumentException("Watershed only works in grayscale images.");
+        
+        final int width = fastBitmap.getWidth();
+        final int height = fastBitmap.getHeight();
+        final int size = width * height;
+        if(markers.length != size)
+            throw new IllegalArgumentException("The markers must have the size of the image.");
+        
+        final byte[] levels = fastBitmap.getGrayData();
+        
+        //Group the markers by connected region of the mask, each region is flooded by one thread
+        int regions = 1;
+        int[] region = null;
+        if(MulticoreExecutor.getThreadPoolSize() > 1){
+            FastBitmap mask = new FastBitmap(width, height, FastBitmap.ColorSpace.Grayscale);
+            byte[] m = mask.getGrayData();
+            for (int i = 0; i < size; i++)
+                if(markers[i] >= 0) m[i] = (byte)255;
+            
+            ConnectedComponentsLabeling ccl = new ConnectedComponentsLabeling(BlobDetection.Algorithm.EightWay);
+            region = ccl.Compute(mask);
+            regions = ccl.getNumberOfComponents();
+        }
+        
+        final int[] start = new int[regions + 1];
+        for (int i = 0; i < size; i++)
+            if(markers[i] > 0) start[region == null ? 1 : region[i]]++;
+        for (int r = 0; r < regions; r++)
+            start[r + 1] += start[r];
+        
+        final int[] seeds = new int[start[regions]];
+        int[] fill = Arrays.copyOf(start, regions);
+        for (int i = 0; i < size; i++)
+            if(markers[i] > 0) seeds[fill[region == null ? 0 : region[i] - 1]++] = i;
+        
+        final int[] next = new int[size];
+        ParallelFor.Run(regions, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                BucketQueue queue = new BucketQueue(next);
+                for (int r = from; r < to; r++)
+                    Flood(levels, markers, width, height, seeds, start[r], start[r + 1], queue);
+            }
+        });
+        
+        for (int i = 0; i < size; i++)
+            if(markers[i] < -1) markers[i] = 0;
+        
+        return markers;
+    }
+    
+    /**
+     * Flood one region of the mask.
+     * @param levels Relief.
+     * @param labels Labels.
+     * @param width Width.
+     * @param height Height.
+     * @param seeds Markers, grouped by region.
+     * @param from First marker of the region.
+     * @param to Last marker of the region, exclusive.
+     * @param queue Empty queue.
+     */
+    private void Flood(byte[] levels, int[] labels, int width, int height, int[] seeds, int from, int to, BucketQueue queue){
+        
+        int[] offset = {-width - 1, -width, -width + 1, -1, 1, width - 1, width, width + 1};
+        int[] neighbors = new int[8];
+        
+        for (int k = from; k < to; k++) {
+            int n = Neighbors(seeds[k], width, height, offset, neighbors);
+            for (int i = 0; i < n; i++) {
+                int q = neighbors[i];
+                if(labels[q] == 0){
+                    labels[q] = QUEUED;
+                    queue.Add(q, levels[q] & 0xFF);
+                }
+            }
+        }
+        
+        while(!queue.isEmpty()){
+            int level = queue.getLevel();
+            int p = queue.Poll();
+            
+            //The pixel takes the label of its flooded neighbors, or becomes a line if they disagree
+            int n = Neighbors(p, width, height, offset, neighbors);
+            int label = 0;
+            int free = 0;
+            for (int i = 0; i < n; i++) {
+                int q = neighbors[i];
+                int l = labels[q];
+                if(l > 0){
+                    if(label == 0){
+                        label = l;
+                    }
+                    else if(l != label){
+                        label = LINE;
+                        break;
+                    }
+                }
+                else if(l == 0){
+                    neighbors[free++] = q;
+                }
+            }
+            
+            labels[p] = label;
+            if(label > 0){
+                //Queue the free neighbors, at their level or at the current one if lower
+                for (int i = 0; i < free; i++) {
+                    int q = neighbors[i];
+                    labels[q] = QUEUED;
+                    queue.Add(q, Math.max(level, levels[q] & 0xFF));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the 8 neighbors of a pixel inside the image.
+     * @param p Pixel.
+     * @param width Width.
+     * @param height Height.
+     * @param offset Offsets of the neighbors.
+     * @param neighbors Neighbors.
+     * @return Number of neighbors.
+     */
+    private int Neighbors(int p, int width, int height, int[] offset, int[] neighbors){
+        int x = p / width;
+        int y = p - x * width;
+        if(x > 0 && x < height - 1 && y > 0 && y < width - 1){
+            for (int i = 0; i < 8; i++)
+                neighbors[i] = p + offset[i];
+            return 8;
+        }
+        
+        int n = 0;
+        for (int i = Math.max(0, x - 1); i <= Math.min(height - 1, x + 1); i++) {
+            for (int j = Math.max(0, y - 1); j <= Math.min(width - 1, y + 1); j++) {
+                if(i != x || j != y) neighbors[n++] = i * width + j;
+            }
+        }
+        return n;
+    }
+    
+    /**
+     * Priority queue of pixels with one FIFO bucket per gray level.
+     * The buckets are linked lists in an array shared by the queues of disjoint regions.
+     */
+    private static class BucketQueue {
+        
+        private final int[] next;
+        private final int[] head = new int[256];
+        private final int[] tail = new int[256];
+        private int level = 256;
+        private int count;
+
+        public BucketQueue(int[] next) {
+            this.next = next;
+            Arrays.fill(head, -1);
+        }
+        
+        public boolean isEmpty(){
+            return count == 0;
+        }
+        
+        /**
+         * Level of the next pixel.
+         */
+        public int getLevel(){
+            while(head[level] < 0) level++;
+            return level;
+        }
+        
+        public void Add(int p, int l){
+            next[p] = -1;
+            if(head[l] < 0)
+                head[l] = p;
+            else
+                next[tail[l]] = p;
+            tail[l] = p;
+            if(l < level) level = l;
+            count++;
+        }
+        
+        public int Poll(){
+            int l = getLevel();
+            int p = head[l];
+            head[l] = next[p];
+            count--;
+            return p;
+        }
+    }
+}
\ No newline at end of file
@@ -24,11 +24,15 @@ package Catalano.MachineLearning;
 
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.MachineLearning.Classification.IClassifier;
+import Catalano.MachineLearning.Performance.IFoldValidation;
 import Catalano.MachineLearning.Performance.IValidation;
+import Catalano.MachineLearning.Performance.ParallelValidation;
+import Catalano.MachineLearning.Performance.ValidationReport;
 import java.util.List;
 
 /**
  * Benchmark classifier.
+ * The classifiers are validated concurrently when the validation splits the samples in folds.
  * @author Diego Catalano
  */
 public class BenchmarkClassifier {
@@ -38,6 +42,8 @@ public class BenchmarkClassifier {
     
     private IClassifier bestClassifier;
     private double[] rank;
+    private ValidationReport report;
+    private int maxConcurrentTasks = new ParallelValidation().getMaxConcurrentTasks();
 
     /**
      * Get the interface of the best classifier.
@@ -55,6 +61,31 @@ public class BenchmarkClassifier {
         return rank;
     }
     
+    /**
+     * Get the report of the validation, null if the validation doesn't split the samples in folds.
+     * @return Report.
+     */
+    public ValidationReport getReport() {
+        return report;
+    }
+
+    /**
+     * Get maximum number of concurrent tasks.
+     * @return Maximum number of concurrent tasks.
+     */
+    public int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+
+    /**
+     * Set maximum number of concurrent tasks.
+     * Each task keeps one trained classifier in memory.
+     * @param maxConcurrentTasks Maximum number of concurrent tasks.
+     */
+    public void setMaxConcurrentTasks(int maxConcurrentTasks) {
+        this.maxConcurrentTasks = Math.max(1, maxConcurrentTasks);
+    }
+    
     /**
      * Initializes a new instance of the BenchmarkClassifier class.
      * @param dataset Dataset.
@@ -75,6 +106,9 @@ public class BenchmarkClassifier {
     
     /**
      * Run the benchmark.
+     * If the validation splits the samples in folds, all the folds of all the classifiers are
+     * computed in parallel with clones of the classifiers, and the best classifier is trained with the samples out of the last fold,
+     * as the validation does.
      * @param classifiers List of classifiers.
      * @param validation Validation method.
      */
@@ -85,15 +119,32 @@ public class BenchmarkClassifier {
         
         //Initialize rank.
         rank = new double[classifiers.size()];
+        report = null;
+        bestClassifier = null;
+        int[][] folds = null;
+        
+        if(validation instanceof IFoldValidation){
+            folds = ((IFoldValidation)validation).Folds(input, output);
+            report = new ParallelValidation(maxConcurrentTasks).Run(classifiers, input, output, folds);
+            for (int i = 0; i < rank.length; i++) {
+                rank[i] = report.getMeanAccuracy(i);
+            }
+        }
+        else{
+            for (int i = 0; i < rank.length; i++) {
+                rank[i] = validation.Run(classifiers.get(i), input, output);
+            }
+        }
         
         double bestC = 0;
-        for (int i = 0; i < classifiers.size(); i++) {
-            IClassifier c = classifiers.get(i);
-            rank[i] = validation.Run(c, input, output);
+        for (int i = 0; i < rank.length; i++) {
             if(rank[i] > bestC){
                 bestC = rank[i];
-                bestClassifier = c;
+                bestClassifier = classifiers.get(i);
             }
         }
+        
+        if(report != null && bestClassifier != null)
+            ParallelValidation.Learn(bestClassifier, input, output, folds[folds.length - 1]);
     }   
 }
\ No newline at end of file
@@ -27,9 +27,11 @@ package Catalano.MachineLearning.Classification.DecisionTrees;
 import Catalano.MachineLearning.Dataset.DecisionVariable;
 import Catalano.Core.ArraysUtil;
 import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Classification.IClassifier;
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.Math.Matrix;
+import Catalano.Math.Random.Random;
 import Catalano.Math.Tools;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -163,6 +165,11 @@ public class DecisionTree implements IClassifier, Serializable {
      * attributes will be sorted.
      */
     private transient int[][] order;
+    
+    /**
+     * Random number generator of the variables to split on, null to use the shared generator.
+     */
+    private transient Random random;
 
     /**
      * Get number maximum of leafs.
@@ -381,8 +388,12 @@ public class DecisionTree implements IClassifier, Serializable {
             }
             
             if (M < p) {
-                synchronized (DecisionTree.class) {
-                    Tools.Permutate(variables);
+                if (random != null) {
+                    random.permutate(variables);
+                } else {
+                    synchronized (DecisionTree.class) {
+                        Tools.Permutate(variables);
+                    }
                 }
 
                 // Random forest already runs on parallel.
@@ -899,6 +910,27 @@ public class DecisionTree implements IClassifier, Serializable {
      * samples[i] is the number of sampling for instance i.
      */
     public DecisionTree(DecisionVariable[] attributes, double[][] x, int[] y, int M, int[] samples, int[][] order, SplitRule rule) {
+        this(attributes, x, y, M, samples, order, rule, null);
+    }
+    
+    /**
+     * Initialize a new instance of the DecisionTree class (Random Forest).
+     * 
+     * Learns a classification tree for random forest.
+     *
+     * @param attributes the attribute properties.
+     * @param x the training instances. 
+     * @param y the response variable.
+     * @param M the number of input variables to pick to split on at each
+     * node. It seems that dim/3 give generally good performance, where dim
+     * is the number of variables.
+     * @param order the index of training values in ascending order. Note
+     * that only numeric attributes need be sorted.
+     * @param samples the sample set of instances for stochastic learning.
+     * samples[i] is the number of sampling for instance i.
+     * @param random Random number generator of the variables to split on, null to use the shared generator.
+     */
+    public DecisionTree(DecisionVariable[] attributes, double[][] x, int[] y, int M, int[] samples, int[][] order, SplitRule rule, Random random) {
         if (x.length != y.length) {
             throw new IllegalArgumentException(String.format("The sizes of X and Y don't match: %d != %d", x.length, y.length));
         }
@@ -930,6 +962,7 @@ public class DecisionTree implements IClassifier, Serializable {
         this.M = M;
         this.order = order;
         this.rule = rule;
+        this.random = random;
         importance = new double[attributes.length];
 
         int n = y.length;
@@ -960,7 +993,68 @@ public class DecisionTree implements IClassifier, Serializable {
     public int Predict(double[] feature) {
         return root.predict(feature);
     }
+    
+    /**
+     * Compile the trained tree into flat arrays for fast prediction.
+     * @return Compiled decision tree.
+     */
+    public CompiledDecisionTree Compile() {
+        // Breadth-first layout, the children of a node are stored side by side.
+        List<Node> nodes = new ArrayList<Node>();
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node.trueChild != null && node.falseChild != null) {
+                nodes.add(node.trueChild);
+                nodes.add(node.falseChild);
+            }
+        }
+        
+        int n = nodes.size();
+        int[] feature = new int[n];
+        double[] threshold = new double[n];
+        int[] child = new int[n];
+        boolean[] discrete = new boolean[n];
+        int[] output = new int[n];
+        boolean hasDiscrete = false;
+        
+        int next = 1;
+        for (int i = 0; i < n; i++) {
+            Node node = nodes.get(i);
+            output[i] = node.output;
+            if (node.trueChild != null && node.falseChild != null) {
+                feature[i] = node.splitFeature;
+                threshold[i] = node.splitValue;
+                child[i] = next;
+                next += 2;
+                
+                if (attributes[node.splitFeature].type == DecisionVariable.Type.Discrete) {
+                    discrete[i] = true;
+                    hasDiscrete = true;
+                } else if (attributes[node.splitFeature].type != DecisionVariable.Type.Continuous) {
+                    throw new IllegalStateException("Unsupported decision variable type.");
+                }
+            }
+        }
+        
+        return new CompiledDecisionTree(feature, threshold, child, hasDiscrete ? discrete : null, output);
+    }
 
+    @Override
+    public int[] Predict(final double[][] features) {
+        final CompiledDecisionTree tree = Compile();
+        final int[] result = new int[features.length];
+        ParallelFor.Run(features.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int[] labels = new int[to - from];
+                tree.Predict(features, from, to - from, labels);
+                System.arraycopy(labels, 0, result, from, labels.length);
+            }
+        });
+        return result;
+    }
+    
     @Override
     public IClassifier clone() {
         try {
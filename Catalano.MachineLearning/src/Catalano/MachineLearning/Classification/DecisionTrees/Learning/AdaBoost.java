@@ -25,6 +25,8 @@
 package Catalano.MachineLearning.Classification.DecisionTrees.Learning;
 
 import Catalano.Core.ArraysUtil;
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.MachineLearning.Classification.DecisionTrees.CompiledDecisionTree;
 import Catalano.MachineLearning.Classification.DecisionTrees.DecisionTree;
 import Catalano.MachineLearning.Dataset.DecisionVariable;
 import Catalano.MachineLearning.Classification.IClassifier;
@@ -81,6 +83,16 @@ public class AdaBoost implements IClassifier, Serializable {
      */
     private DecisionTree[] trees;
     
+    /**
+     * Compiled trees used for prediction.
+     */
+    private CompiledDecisionTree[] compiled;
+    
+    /**
+     * Number of samples predicted by each tree at once in batch prediction.
+     */
+    private static final int BLOCK_SIZE = 256;
+    
     /**
      * The weight of each decision tree.
      */
@@ -320,6 +332,11 @@ public class AdaBoost implements IClassifier, Serializable {
                 importance[i] += imp[i];
             }
         }
+        
+        compiled = new CompiledDecisionTree[trees.length];
+        for (int i = 0; i < trees.length; i++) {
+            compiled[i] = trees[i].Compile();
+        }
     }
 
     @Override
@@ -336,21 +353,63 @@ public class AdaBoost implements IClassifier, Serializable {
     public int Predict(double[] feature) {   
         if (k == 2) {
             double y = 0.0;
-            for (int i = 0; i < trees.length; i++) {
-                y += alpha[i] * trees[i].Predict(feature);
+            for (int i = 0; i < compiled.length; i++) {
+                y += alpha[i] * compiled[i].Predict(feature);
             }
 
             return y > 0 ? 1 : 0;
         } else {
             double[] y = new double[k];
-            for (int i = 0; i < trees.length; i++) {
-                y[trees[i].Predict(feature)] += alpha[i];
+            for (int i = 0; i < compiled.length; i++) {
+                y[compiled[i].Predict(feature)] += alpha[i];
             }
             
             return Matrix.MaxIndex(y);
         }
     }
     
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each tree is evaluated over a block of samples before moving to the
+     * next tree, so the nodes stay in cache.
+     * @param features Features.
+     * @return Labels.
+     */
+    @Override
+    public int[] Predict(final double[][] features) {
+        final int[] labels = new int[features.length];
+        ParallelFor.Run(features.length, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int[] pred = new int[Math.min(BLOCK_SIZE, to - from)];
+                double[][] y = new double[pred.length][k];
+                
+                for (int offset = from; offset < to; offset += BLOCK_SIZE) {
+                    int length = Math.min(BLOCK_SIZE, to - offset);
+                    for (int i = 0; i < length; i++) {
+                        Arrays.fill(y[i], 0);
+                    }
+                    
+                    for (int t = 0; t < compiled.length; t++) {
+                        compiled[t].Predict(features, offset, length, pred);
+                        for (int i = 0; i < length; i++) {
+                            y[i][pred[i]] += alpha[t];
+                        }
+                    }
+                    
+                    for (int i = 0; i < length; i++) {
+                        if (k == 2) {
+                            labels[offset + i] = y[i][1] > 0 ? 1 : 0;
+                        } else {
+                            labels[offset + i] = Matrix.MaxIndex(y[i]);
+                        }
+                    }
+                }
+            }
+        });
+        return labels;
+    }
+    
     /**
      * Given a set of m probabilities, draw with replacement a set of n random
      * number in [0, m).
@@ -434,6 +493,7 @@ public class AdaBoost implements IClassifier, Serializable {
         
         if (T < trees.length) {
             trees = Arrays.copyOf(trees, T);
+            compiled = Arrays.copyOf(compiled, T);
             alpha = Arrays.copyOf(alpha, T);
             error = Arrays.copyOf(error, T);
         }
@@ -25,9 +25,12 @@
 package Catalano.MachineLearning.Classification.DecisionTrees.Learning;
 
 import Catalano.Core.ArraysUtil;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Classification.IClassifier;
+import Catalano.MachineLearning.Classification.IProbabilisticClassifier;
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.MachineLearning.Dataset.DecisionVariable;
+import Catalano.MachineLearning.Regression.RegressionTrees.CompiledRegressionTree;
 import Catalano.MachineLearning.Regression.RegressionTrees.RegressionTree;
 import Catalano.Math.Matrix;
 import Catalano.Math.Tools;
@@ -107,7 +110,7 @@ import java.util.Arrays;
  * 
  * @author Haifeng Li
  */
-public class GradientBoostingTree implements IClassifier, Serializable{
+public class GradientBoostingTree implements IProbabilisticClassifier, Serializable{
     
     private DecisionVariable[] attributes;
     /**
@@ -122,6 +125,14 @@ public class GradientBoostingTree implements IClassifier, Serializable{
      * Forest of regression trees for multi-class classification.
      */
     private RegressionTree[][] forest;
+    /**
+     * Compiled trees used for prediction, one grove per class (a single one for binary classification).
+     */
+    private CompiledRegressionTree[][] compiled;
+    /**
+     * Number of samples predicted by each tree at once in batch prediction.
+     */
+    private static final int BLOCK_SIZE = 256;
     /**
      * Variable importance. Every time a split of a node is made on variable
      * the impurity criterion for the two descendent nodes is less than the
@@ -315,6 +326,22 @@ public class GradientBoostingTree implements IClassifier, Serializable{
                 }
             }
         }
+        
+        compile();
+    }
+    
+    /**
+     * Compiles the trees into flat arrays. For two classes only the first grove is used.
+     */
+    private void compile() {
+        RegressionTree[][] groves = k == 2 ? new RegressionTree[][] {trees} : forest;
+        compiled = new CompiledRegressionTree[groves.length][];
+        for (int j = 0; j < groves.length; j++) {
+            compiled[j] = new CompiledRegressionTree[groves[j].length];
+            for (int i = 0; i < groves[j].length; i++) {
+                compiled[j][i] = groves[j][i].Compile();
+            }
+        }
     }
     
     /**
@@ -549,6 +576,7 @@ public class GradientBoostingTree implements IClassifier, Serializable{
 
             if (T < trees.length) {
                 trees = Arrays.copyOf(trees, T);
+                compiled[0] = Arrays.copyOf(compiled[0], T);
             }
         } else {
             if (T > forest[0].length) {
@@ -562,6 +590,7 @@ public class GradientBoostingTree implements IClassifier, Serializable{
             if (T < forest[0].length) {
                 for (int i = 0; i < forest.length; i++) {
                     forest[i] = Arrays.copyOf(forest[i], T);
+                    compiled[i] = Arrays.copyOf(compiled[i], T);
                 }
             }
         }
@@ -600,8 +629,8 @@ public class GradientBoostingTree implements IClassifier, Serializable{
     public int Predict(double[] x) {
         if (k == 2) {
             double y = b;
-            for (int i = 0; i < T; i++) {
-                y += shrinkage * trees[i].Predict(x);
+            for (CompiledRegressionTree tree : compiled[0]) {
+                y += shrinkage * tree.Predict(x);
             }
             
             return y > 0 ? 1 : 0;
@@ -610,8 +639,8 @@ public class GradientBoostingTree implements IClassifier, Serializable{
             int y = -1;
             for (int j = 0; j < k; j++) {
                 double yj = 0.0;
-                for (int i = 0; i < T; i++) {
-                    yj += shrinkage * forest[j][i].Predict(x);
+                for (CompiledRegressionTree tree : compiled[j]) {
+                    yj += shrinkage * tree.Predict(x);
                 }
                 
                 if (yj > max) {
@@ -631,8 +660,8 @@ public class GradientBoostingTree implements IClassifier, Serializable{
 
         if (k == 2) {
             double y = b;
-            for (int i = 0; i < T; i++) {
-                y += shrinkage * trees[i].Predict(x);
+            for (CompiledRegressionTree tree : compiled[0]) {
+                y += shrinkage * tree.Predict(x);
             }
 
             posteriori[0] = 1.0 / (1.0 + Math.exp(2*y));
@@ -649,8 +678,8 @@ public class GradientBoostingTree implements IClassifier, Serializable{
             for (int j = 0; j < k; j++) {
                 posteriori[j] = 0.0;
                 
-                for (int i = 0; i < T; i++) {
-                    posteriori[j] += shrinkage * forest[j][i].Predict(x);
+                for (CompiledRegressionTree tree : compiled[j]) {
+                    posteriori[j] += shrinkage * tree.Predict(x);
                 }
                 
                 if (posteriori[j] > max) {
@@ -673,6 +702,106 @@ public class GradientBoostingTree implements IClassifier, Serializable{
         }
     }
     
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each tree is evaluated over a block of samples before moving to the
+     * next tree, so the nodes stay in cache.
+     * @param x Features.
+     * @return Labels.
+     */
+    @Override
+    public int[] Predict(final double[][] x) {
+        final int[] labels = new int[x.length];
+        ParallelFor.Run(x.length, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                double[][] y = scores(x, from, to);
+                for (int i = 0; i < to - from; i++) {
+                    if (k == 2) {
+                        labels[from + i] = y[0][i] > 0 ? 1 : 0;
+                    } else {
+                        int label = -1;
+                        double max = Double.NEGATIVE_INFINITY;
+                        for (int j = 0; j < k; j++) {
+                            if (y[j][i] > max) {
+                                max = y[j][i];
+                                label = j;
+                            }
+                        }
+                        labels[from + i] = label;
+                    }
+                }
+            }
+        });
+        return labels;
+    }
+    
+    @Override
+    public double[] PredictProbabilities(double[] x) {
+        double[] posteriori = new double[k];
+        Predict(x, posteriori);
+        return posteriori;
+    }
+    
+    @Override
+    public double[][] PredictProbabilities(final double[][] x) {
+        final double[][] posteriori = new double[x.length][k];
+        ParallelFor.Run(x.length, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                double[][] y = scores(x, from, to);
+                for (int i = 0; i < to - from; i++) {
+                    double[] p = posteriori[from + i];
+                    if (k == 2) {
+                        p[0] = 1.0 / (1.0 + Math.exp(2 * y[0][i]));
+                        p[1] = 1.0 - p[0];
+                    } else {
+                        double max = Double.NEGATIVE_INFINITY;
+                        for (int j = 0; j < k; j++) {
+                            max = Math.max(max, y[j][i]);
+                        }
+                        
+                        double Z = 0.0;
+                        for (int j = 0; j < k; j++) {
+                            p[j] = Math.exp(y[j][i] - max);
+                            Z += p[j];
+                        }
+                        
+                        for (int j = 0; j < k; j++) {
+                            p[j] /= Z;
+                        }
+                    }
+                }
+            }
+        });
+        return posteriori;
+    }
+    
+    /**
+     * Computes the boosted output of each grove for the samples in [from, to).
+     * @param x Features.
+     * @param from First sample, inclusive.
+     * @param to Last sample, exclusive.
+     * @return Output of each grove (a single one for binary classification) for each sample.
+     */
+    private double[][] scores(double[][] x, int from, int to) {
+        double[][] y = new double[compiled.length][to - from];
+        double[] block = new double[Math.min(BLOCK_SIZE, to - from)];
+        
+        for (int j = 0; j < compiled.length; j++) {
+            for (int offset = from; offset < to; offset += BLOCK_SIZE) {
+                int length = Math.min(BLOCK_SIZE, to - offset);
+                Arrays.fill(block, k == 2 ? b : 0.0);
+                for (CompiledRegressionTree tree : compiled[j]) {
+                    tree.Predict(x, offset, length, shrinkage, block);
+                }
+                System.arraycopy(block, 0, y[j], offset - from, length);
+            }
+        }
+        
+        return y;
+    }
+    
     @Override
     public IClassifier clone() {
         try {
@@ -26,18 +26,22 @@ package Catalano.MachineLearning.Classification.DecisionTrees.Learning;
 
 import Catalano.Core.ArraysUtil;
 import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.MachineLearning.Classification.DecisionTrees.CompiledDecisionTree;
 import Catalano.MachineLearning.Classification.DecisionTrees.DecisionTree;
 import Catalano.MachineLearning.Classification.DecisionTrees.DecisionTree.SplitRule;
 import Catalano.MachineLearning.Dataset.DecisionVariable;
 import Catalano.MachineLearning.Classification.IClassifier;
+import Catalano.MachineLearning.Classification.IProbabilisticClassifier;
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.Math.Matrix;
+import Catalano.Math.Random.Pcg32;
+import Catalano.Math.Random.Random;
 import Catalano.Math.Tools;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 import java.util.concurrent.Callable;
 
 /**
@@ -80,7 +84,7 @@ import java.util.concurrent.Callable;
  * 
  * @author Haifeng Li
  */
-public class RandomForest implements IClassifier, Serializable {
+public class RandomForest implements IProbabilisticClassifier, Serializable {
     
     /**
      * Method for choose number of random feature.
@@ -101,7 +105,7 @@ public class RandomForest implements IClassifier, Serializable {
     private int T;
     private int M;
     private RandomSelection rs;
-    //private long seed = 1;
+    private long seed;
     private SplitRule rule;
     
     /**
@@ -109,6 +113,16 @@ public class RandomForest implements IClassifier, Serializable {
      */
     private List<DecisionTree> trees;
     
+    /**
+     * Compiled trees used for prediction.
+     */
+    private CompiledDecisionTree[] compiled;
+    
+    /**
+     * Number of samples predicted by each tree at once in batch prediction.
+     */
+    private static final int BLOCK_SIZE = 256;
+    
     /**
      * The number of classes.
      */
@@ -181,23 +195,23 @@ public class RandomForest implements IClassifier, Serializable {
         this.rule = rule;
     }
 
-//    /**
-//     * Random seed.
-//     * @return Random seed.
-//     */
-//    public long getSeed() {
-//        if(seed == 0)
-//            return Thread.currentThread().getId() * System.currentTimeMillis();
-//        return seed;
-//    }
-//
-//    /**
-//     * Set Random seed.
-//     * @param seed Seed.
-//     */
-//    public void setSeed(long seed) {
-//        this.seed = seed;
-//    }
+    /**
+     * Get random seed.
+     * @return Random seed, 0 if a new seed is chosen in each training.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set random seed.
+     * Each tree is trained with its own stream of the seed, so the forest is
+     * the same regardless of the number of threads.
+     * @param seed Seed, 0 to choose a new seed in each training.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
     
     /**
      * Trains a regression tree.
@@ -232,11 +246,19 @@ public class RandomForest implements IClassifier, Serializable {
          * Split rule decision tree.
          */
         SplitRule rule;
+        /**
+         * Seed of the forest.
+         */
+        long seed;
+        /**
+         * Index of the tree, which is the stream of the seed.
+         */
+        int index;
 
         /**
          * Constructor.
          */
-        TrainingTask(DecisionVariable[] attributes, double[][] x, int[] y, int M, int[][] order, int[][] prediction, SplitRule rule) {
+        TrainingTask(DecisionVariable[] attributes, double[][] x, int[] y, int M, int[][] order, int[][] prediction, SplitRule rule, long seed, int index) {
             this.attributes = attributes;
             this.x = x;
             this.y = y;
@@ -244,18 +266,20 @@ public class RandomForest implements IClassifier, Serializable {
             this.M = M;
             this.prediction = prediction;
             this.rule = rule;
+            this.seed = seed;
+            this.index = index;
         }
 
         @Override
         public DecisionTree call() {            
             int n = x.length;
-            Random random = new Random(Thread.currentThread().getId() * System.currentTimeMillis());
+            Random random = new Random(Pcg32.stream(seed, index));
             int[] samples = new int[n]; // Training samples draw with replacement.
             for (int i = 0; i < n; i++) {
                 samples[random.nextInt(n)]++;
             }
             
-            DecisionTree tree = new DecisionTree(attributes, x, y, M, samples, order, rule);
+            DecisionTree tree = new DecisionTree(attributes, x, y, M, samples, order, rule, random);
             
             for (int i = 0; i < n; i++) {
                 if (samples[i] == 0) {
@@ -370,7 +394,6 @@ public class RandomForest implements IClassifier, Serializable {
         this.attributes = attributes;
         this.T = T;
         this.M = M;
-        //this.seed = seed;
         this.rule = rule;
     }
     
@@ -459,9 +482,10 @@ public class RandomForest implements IClassifier, Serializable {
         int n = x.length;
         int[][] prediction = new int[n][k]; // out-of-bag prediction
         int[][] order = sort(attributes, x);
+        long s = seed != 0 ? seed : new Pcg32().nextLong();
         List<TrainingTask> tasks = new ArrayList<TrainingTask>();
         for (int i = 0; i < T; i++) {
-            tasks.add(new TrainingTask(attributes, x, y, M, order, prediction, rule));
+            tasks.add(new TrainingTask(attributes, x, y, M, order, prediction, rule, s, i));
         }
         
         try {
@@ -475,6 +499,7 @@ public class RandomForest implements IClassifier, Serializable {
             }
         }
         
+        error = 0;
         int m = 0;
         for (int i = 0; i < n; i++) {
             int pred = Matrix.MaxIndex(prediction[i]);
@@ -497,6 +522,18 @@ public class RandomForest implements IClassifier, Serializable {
                 importance[i] += imp[i];
             }
         }
+        
+        compile();
+    }
+    
+    /**
+     * Compiles the trees of the forest into flat arrays.
+     */
+    private void compile() {
+        compiled = new CompiledDecisionTree[trees.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = trees.get(i).Compile();
+        }
     }
     
     /**
@@ -550,6 +587,7 @@ public class RandomForest implements IClassifier, Serializable {
         }
         
         trees = model;
+        compiled = Arrays.copyOf(compiled, T);
     }
 
     @Override
@@ -574,13 +612,84 @@ public class RandomForest implements IClassifier, Serializable {
         
         int[] y = new int[k];
 
-        for (DecisionTree tree : trees) {
+        for (CompiledDecisionTree tree : compiled) {
             y[tree.Predict(feature)]++;
         }
 
         return Matrix.MaxIndex(y);
     }
     
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each tree is evaluated over a block of samples before moving to the
+     * next tree, so the nodes stay in cache.
+     * @param features Features.
+     * @return Labels.
+     */
+    @Override
+    public int[] Predict(final double[][] features) {
+        final int[] labels = new int[features.length];
+        ParallelFor.Run(features.length, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int[][] y = votes(features, from, to);
+                for (int i = 0; i < y.length; i++) {
+                    labels[from + i] = Matrix.MaxIndex(y[i]);
+                }
+            }
+        });
+        return labels;
+    }
+    
+    @Override
+    public double[] PredictProbabilities(double[] feature) {
+        double[] posteriori = new double[k];
+        Predict(feature, posteriori);
+        return posteriori;
+    }
+    
+    @Override
+    public double[][] PredictProbabilities(final double[][] features) {
+        final double[][] posteriori = new double[features.length][k];
+        ParallelFor.Run(features.length, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int[][] y = votes(features, from, to);
+                double n = compiled.length;
+                for (int i = 0; i < y.length; i++) {
+                    for (int j = 0; j < k; j++) {
+                        posteriori[from + i][j] = y[i][j] / n;
+                    }
+                }
+            }
+        });
+        return posteriori;
+    }
+    
+    /**
+     * Counts the votes of the trees for the samples in [from, to).
+     * @param features Features.
+     * @param from First sample, inclusive.
+     * @param to Last sample, exclusive.
+     * @return Votes of each sample.
+     */
+    private int[][] votes(double[][] features, int from, int to) {
+        int[][] y = new int[to - from][k];
+        int[] pred = new int[Math.min(BLOCK_SIZE, to - from)];
+        
+        for (int offset = from; offset < to; offset += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, to - offset);
+            for (CompiledDecisionTree tree : compiled) {
+                tree.Predict(features, offset, length, pred);
+                for (int i = 0; i < length; i++) {
+                    y[offset - from + i][pred[i]]++;
+                }
+            }
+        }
+        
+        return y;
+    }
+    
     public int Predict(double[] feature, double[] posteriori) {
         if (posteriori.length != k) {
             throw new IllegalArgumentException(String.format("Invalid posteriori vector size: %d, expected: %d", posteriori.length, k));
@@ -588,11 +697,11 @@ public class RandomForest implements IClassifier, Serializable {
 
         int[] y = new int[k];
         
-        for (DecisionTree tree : trees) {
+        for (CompiledDecisionTree tree : compiled) {
             y[tree.Predict(feature)]++;
         }
         
-        double n = trees.size();
+        double n = compiled.length;
         for (int i = 0; i < k; i++) {
             posteriori[i] = y[i] / n;
         }
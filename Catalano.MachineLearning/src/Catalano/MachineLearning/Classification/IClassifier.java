@@ -50,6 +50,13 @@ public interface IClassifier extends Cloneable{
      */
     public int Predict(double[] feature);
     
+    /**
+     * Predict a set of samples.
+     * @param features Features.
+     * @return Labels.
+     */
+    public int[] Predict(double[][] features);
+    
     /**
      * Clone of the object.
      * @return A new copy of the object.
@@ -0,0 +1,44 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.MachineLearning.Classification;
+
+/**
+ * The interface describe the classifiers that estimate the posteriori probabilities of the classes.
+ * @author Diego Catalano
+ */
+public interface IProbabilisticClassifier extends IClassifier{
+    
+    /**
+     * Predict the posteriori probabilities.
+     * @param feature Feature.
+     * @return Posteriori probability of each class.
+     */
+    public double[] PredictProbabilities(double[] feature);
+    
+    /**
+     * Predict the posteriori probabilities of a set of samples.
+     * @param features Features.
+     * @return Posteriori probabilities of each sample.
+     */
+    public double[][] PredictProbabilities(double[][] features);
+}
\ No newline at end of file
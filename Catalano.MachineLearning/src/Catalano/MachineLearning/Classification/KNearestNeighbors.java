@@ -23,13 +23,16 @@
 package Catalano.MachineLearning.Classification;
 
 import Catalano.Core.ArraysUtil;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.Math.Distances.IDivergence;
 import Catalano.Math.Distances.SquaredEuclideanDistance;
 import Catalano.Math.Matrix;
+import Catalano.Statistics.Kernels.IBatchMercerKernel;
 import Catalano.Statistics.Kernels.IMercerKernel;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -37,14 +40,15 @@ import java.util.List;
  * K Nearest Neighbour classifier.
  * @author Diego Catalano
  */
-public class KNearestNeighbors implements IClassifier, Serializable {
+public class KNearestNeighbors implements IProbabilisticClassifier, Serializable {
     
     private int k;
     private double[][] input;
     private int[] output;
-    private IDivergence divergence = new SquaredEuclideanDistance();
-    private IMercerKernel kernel;
+    private IDivergence<double[]> divergence = new SquaredEuclideanDistance();
+    private IMercerKernel<double[]> kernel;
     private boolean useKernel = false;
+    private double[] norms;
 
     /**
      * Get number of neighbours.
@@ -66,7 +70,7 @@ public class KNearestNeighbors implements IClassifier, Serializable {
      * Get the kernel metric.
      * @return Kernel.
      */
-    public IMercerKernel getKernel() {
+    public IMercerKernel<double[]> getKernel() {
         return kernel;
     }
 
@@ -74,16 +78,17 @@ public class KNearestNeighbors implements IClassifier, Serializable {
      * Set the kernel metric.
      * @param kernel Kernel.
      */
-    public void setMercerKernel(IMercerKernel kernel) {
+    public void setMercerKernel(IMercerKernel<double[]> kernel) {
         this.kernel = kernel;
         this.useKernel = true;
+        this.norms = null;
     }
 
     /**
      * Get the divergence function.
      * @return Divergence.
      */
-    public IDivergence getDistance() {
+    public IDivergence<double[]> getDistance() {
         return divergence;
     }
 
@@ -91,7 +96,7 @@ public class KNearestNeighbors implements IClassifier, Serializable {
      * Set the divergence function.
      * @param divergence Divergence.
      */
-    public void setDistance(IDivergence divergence) {
+    public void setDistance(IDivergence<double[]> divergence) {
         this.divergence = divergence;
         this.useKernel = false;
     }
@@ -116,7 +121,7 @@ public class KNearestNeighbors implements IClassifier, Serializable {
      * @param k Number of neighbors.
      * @param divergence Distance.
      */
-    public KNearestNeighbors(int k, IDivergence divergence){
+    public KNearestNeighbors(int k, IDivergence<double[]> divergence){
         this.k = k;
         this.divergence = divergence;
     }
@@ -126,7 +131,7 @@ public class KNearestNeighbors implements IClassifier, Serializable {
      * @param k Number of neighbors.
      * @param kernel Kernel.
      */
-    public KNearestNeighbors(int k, IMercerKernel kernel){
+    public KNearestNeighbors(int k, IMercerKernel<double[]> kernel){
         this.k = k;
         this.kernel = kernel;
         this.useKernel = true;
@@ -141,6 +146,7 @@ public class KNearestNeighbors implements IClassifier, Serializable {
     public void Learn(double[][] input, int[] output){
         this.input = input;
         this.output = output;
+        this.norms = null;
     }
     
     /**
@@ -156,8 +162,7 @@ public class KNearestNeighbors implements IClassifier, Serializable {
         
         //Compute distance.
         if(useKernel){
-            for (int i = 0; i < sizeF; i++)
-                dist[i] = this.kernel.Function(feature, input[i]);
+            kernel(feature, dist);
         }else{
             for (int i = 0; i < sizeF; i++)
                 dist[i] = this.divergence.Compute(feature, input[i]);
@@ -180,6 +185,134 @@ public class KNearestNeighbors implements IClassifier, Serializable {
 
     }
     
+    @Override
+    public double[] PredictProbabilities(double[] feature){
+        Neighborhood neighborhood = new Neighborhood(Matrix.Max(output) + 1);
+        return neighborhood.probabilities(feature);
+    }
+    
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each thread reuses its buffers for all of its samples.
+     * @param features Features.
+     * @return Labels.
+     */
+    @Override
+    public int[] Predict(final double[][] features){
+        final int[] labels = new int[features.length];
+        final int classes = Matrix.Max(output) + 1;
+        ParallelFor.Run(features.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                Neighborhood neighborhood = new Neighborhood(classes);
+                for (int i = from; i < to; i++) {
+                    labels[i] = Matrix.MaxIndex(neighborhood.votes(features[i]));
+                }
+            }
+        });
+        return labels;
+    }
+    
+    @Override
+    public double[][] PredictProbabilities(final double[][] features){
+        final double[][] prob = new double[features.length][];
+        final int classes = Matrix.Max(output) + 1;
+        ParallelFor.Run(features.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                Neighborhood neighborhood = new Neighborhood(classes);
+                for (int i = from; i < to; i++) {
+                    prob[i] = neighborhood.probabilities(features[i]);
+                }
+            }
+        });
+        return prob;
+    }
+    
+    /**
+     * Compute the kernel of the feature against the training samples.
+     * The squared norms of the training samples are computed once for the batched kernels.
+     * @param feature Feature.
+     * @param dist Kernel of each training sample.
+     */
+    private void kernel(double[] feature, double[] dist){
+        if(kernel instanceof IBatchMercerKernel){
+            IBatchMercerKernel<double[]> batch = (IBatchMercerKernel<double[]>)kernel;
+            double[] n = norms;
+            if(n == null){
+                n = batch.Norms(input);
+                norms = n;
+            }
+            batch.Function(feature, input, n, 0, input.length, dist);
+        }else{
+            for (int i = 0; i < dist.length; i++)
+                dist[i] = kernel.Function(feature, input[i]);
+        }
+    }
+    
+    /**
+     * Buffers to find the nearest neighbors of many samples.
+     */
+    private class Neighborhood {
+        
+        private final double[] dist;
+        private final double[] nearestDist;
+        private final int[] nearest;
+        private final int[] votes;
+        
+        Neighborhood(int classes) {
+            int size = Math.min(k, input.length);
+            this.dist = new double[input.length];
+            this.nearestDist = new double[size];
+            this.nearest = new int[size];
+            this.votes = new int[classes];
+        }
+        
+        /**
+         * Counts the votes of the k nearest neighbors. Ties keep the order
+         * of the training samples, as the stable sort used by Predict.
+         */
+        int[] votes(double[] feature) {
+            if(useKernel){
+                kernel(feature, dist);
+            }else{
+                for (int i = 0; i < dist.length; i++)
+                    dist[i] = divergence.Compute(feature, input[i]);
+            }
+            
+            //Partial selection of the k smallest distances.
+            int size = 0;
+            for (int i = 0; i < dist.length; i++) {
+                if (size == nearest.length && Double.compare(dist[i], nearestDist[size - 1]) >= 0) continue;
+                
+                int j = size < nearest.length ? size++ : size - 1;
+                while (j > 0 && Double.compare(dist[i], nearestDist[j - 1]) < 0) {
+                    nearestDist[j] = nearestDist[j - 1];
+                    nearest[j] = nearest[j - 1];
+                    j--;
+                }
+                nearestDist[j] = dist[i];
+                nearest[j] = i;
+            }
+            
+            Arrays.fill(votes, 0);
+            for (int i = 0; i < size; i++) {
+                votes[output[nearest[i]]]++;
+            }
+            
+            return votes;
+        }
+        
+        double[] probabilities(double[] feature) {
+            int[] v = votes(feature);
+            double[] prob = new double[v.length];
+            for (int i = 0; i < v.length; i++) {
+                prob[i] = v[i] / (double)nearest.length;
+            }
+            return prob;
+        }
+    }
+    
     @Override
     public IClassifier clone() {
         try {
@@ -24,6 +24,7 @@ package Catalano.MachineLearning.Classification;
 
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.MachineLearning.Dataset.IDataset;
+import Catalano.MachineLearning.ParallelPrediction;
 import Catalano.Math.Distances.IDivergence;
 import Catalano.Math.Distances.SquaredEuclideanDistance;
 import Catalano.Math.Matrix;
@@ -90,6 +91,11 @@ public class MinimumMeanDistance implements IClassifier{
         return Matrix.MinIndex(distance);
     }
     
+    @Override
+    public int[] Predict(double[][] features) {
+        return ParallelPrediction.Predict(this, features);
+    }
+    
     @Override
     public IClassifier clone() {
         try {
@@ -38,6 +38,8 @@ public class MulticlassSupportVectorMachine implements IClassifier, Serializable
     
     private SVM.Strategy strategy;
     private SVM<double[]> svm;
+    private long cacheSize = 100L << 20;
+    private boolean shrinking = true;
     
     /**
      * Initializes a new instance of the MulticlassSupportVectorMachine class.
@@ -89,12 +91,50 @@ public class MulticlassSupportVectorMachine implements IClassifier, Serializable
         Initialize(kernel, c, weight, strategy);
     }
     
+    /**
+     * Get the memory limit of the kernel cache.
+     * @return Memory limit in bytes.
+     */
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the memory limit of the kernel cache.
+     * @param cacheSize Memory limit in bytes.
+     */
+    public void setCacheSize(long cacheSize) {
+        svm.setCacheSize(cacheSize);
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Check if the bounded support vectors are shrunk while finishing.
+     * @return True if shrinking is enabled.
+     */
+    public boolean isShrinking() {
+        return shrinking;
+    }
+
+    /**
+     * Set if the bounded support vectors are shrunk while finishing.
+     * @param shrinking True to enable shrinking.
+     */
+    public void setShrinking(boolean shrinking) {
+        svm.setShrinking(shrinking);
+        this.shrinking = shrinking;
+    }
+    
     private void Initialize(IMercerKernel kernel, double c, int nClasses, SVM.Strategy strategy){
         this.svm = new SVM(kernel, c, nClasses, strategy);
+        svm.setCacheSize(cacheSize);
+        svm.setShrinking(shrinking);
     }
     
     private void Initialize(IMercerKernel kernel, double c, double[] weight, SVM.Strategy strategy){
         this.svm = new SVM(kernel, c, weight, strategy);
+        svm.setCacheSize(cacheSize);
+        svm.setShrinking(shrinking);
     }
 
     @Override
@@ -122,6 +162,11 @@ public class MulticlassSupportVectorMachine implements IClassifier, Serializable
         return svm.Predict(feature);
     }
     
+    @Override
+    public int[] Predict(double[][] features) {
+        return svm.Predict(features);
+    }
+    
     @Override
     public IClassifier clone() {
         try {
@@ -24,6 +24,7 @@ package Catalano.MachineLearning.Classification;
 
 import Catalano.Core.ArraysUtil;
 import Catalano.MachineLearning.Dataset.DatasetClassification;
+import Catalano.MachineLearning.ParallelPrediction;
 import Catalano.Math.Distances.IDivergence;
 import Catalano.Math.Distances.SquaredEuclideanDistance;
 import Catalano.Math.Matrix;
@@ -200,6 +201,11 @@ public class RadiusNearestNeighbors implements IClassifier, Serializable {
         
     }
     
+    @Override
+    public int[] Predict(double[][] features) {
+        return ParallelPrediction.Predict(this, features);
+    }
+    
     @Override
     public IClassifier clone() {
         try {
@@ -22,15 +22,20 @@
 package Catalano.MachineLearning.Classification;
 
 import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Core.Structs.DoubleArrayList;
 import Catalano.Math.Matrix;
 import Catalano.Math.SparseArray;
 import Catalano.Math.Tools;
+import Catalano.Statistics.Kernels.IBatchMercerKernel;
 import Catalano.Statistics.Kernels.IMercerKernel;
 import Catalano.Statistics.Kernels.Linear;
+import Catalano.Statistics.Kernels.SparseLinear;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -142,6 +147,14 @@ public class SVM <T> implements Serializable {
      * The tolerance of convergence test.
      */
     private double tol = 1E-3;
+    /**
+     * Memory limit of the kernel cache in bytes.
+     */
+    private long cacheSize = 100L << 20;
+    /**
+     * Whether to shrink the bounded support vectors while finishing.
+     */
+    private boolean shrinking = true;
 
     /**
      * Online Two-class SVM.
@@ -184,6 +197,14 @@ public class SVM <T> implements Serializable {
              * Kernel value cache.
              */
             DoubleArrayList kcache;
+            /**
+             * False if shrunk out of the working set.
+             */
+            boolean active = true;
+            /**
+             * Squared norm for the batched kernel.
+             */
+            double norm;
         }
         /**
          * The soft margin penalty parameter for positive samples.
@@ -228,6 +249,42 @@ public class SVM <T> implements Serializable {
         transient SupportVector svmax = null;
         transient double gmin = Double.MAX_VALUE;
         transient double gmax = -Double.MAX_VALUE;
+        /**
+         * Support vectors with a cached kernel row, least recently used first.
+         */
+        transient LinkedHashMap<SupportVector, SupportVector> rows;
+        /**
+         * Memory of the cached kernel rows in bytes.
+         */
+        transient long rowsSize = 0;
+        /**
+         * Support vectors gathered for the batched kernel, null if out of date.
+         */
+        transient volatile Expansion expansion;
+
+        /**
+         * Support vectors gathered in an array, for the batched kernel.
+         */
+        final class Expansion {
+            /**
+             * Support vectors.
+             */
+            final T[] x;
+            /**
+             * Squared norms of the support vectors, may be null.
+             */
+            final double[] norms;
+            /**
+             * Slot of each support vector in the list.
+             */
+            final int[] slot;
+
+            Expansion(T[] x, double[] norms, int[] slot) {
+                this.x = x;
+                this.norms = norms;
+                this.slot = slot;
+            }
+        }
 
         /**
          * Constructor.
@@ -258,13 +315,19 @@ public class SVM <T> implements Serializable {
          * to further process support vectors.
          */
         void learn(T[] x, int[] y, double[] weight) {
-            if (p == 0 && kernel instanceof Linear) {
+            if (p == 0 && (kernel instanceof Linear || kernel instanceof SparseLinear)) {
                 if (x instanceof double[][]) {
                     double[] x0 = (double[]) x[0];
                     p = x0.length;
                 } else if (x instanceof float[][]) {
                     float[] x0 = (float[]) x[0];
                     p = x0.length;
+                } else if (x instanceof SparseArray[]) {
+                    for (T xi : x) {
+                        for (SparseArray.Entry e : (SparseArray) xi) {
+                            p = Math.max(p, e.i + 1);
+                        }
+                    }
                 } else {
                     throw new UnsupportedOperationException("Unsupported data type for linear kernel.");
                 }
@@ -327,16 +390,28 @@ public class SVM <T> implements Serializable {
         double predict(T x) {
             double f = b;
 
-            if (kernel instanceof Linear && w != null) {
+            if ((kernel instanceof Linear || kernel instanceof SparseLinear) && w != null) {
                 if (x instanceof double[]) {
                     f += Matrix.InnerProduct(w, (double[]) x);
                 } else if (x instanceof SparseArray) {
+                    // Features not seen in the training have zero weight.
                     for (SparseArray.Entry e : (SparseArray) x) {
-                        f += w[e.i] * e.x;
+                        if (e.i < w.length) {
+                            f += w[e.i] * e.x;
+                        }
                     }
                 } else {
                     throw new UnsupportedOperationException("Unsupported data type for linear kernel");
                 }
+            } else if (kernel instanceof IBatchMercerKernel) {
+                Expansion e = expansion();
+                if (e != null) {
+                    double[] k = new double[e.x.length];
+                    batchKernel().Function(x, e.x, e.norms, 0, k.length, k);
+                    for (int j = 0; j < k.length; j++) {
+                        f += sv.get(e.slot[j]).alpha * k[j];
+                    }
+                }
             } else {
 
                 for (SupportVector v : sv) {
@@ -349,6 +424,206 @@ public class SVM <T> implements Serializable {
             return f;
         }
 
+        /**
+         * Returns the function values of the samples in [from, to) after training.
+         * The support vectors are collected once for all the samples.
+         */
+        void predict(T[] x, int from, int to, double[] f) {
+            if ((kernel instanceof Linear || kernel instanceof SparseLinear) && w != null) {
+                for (int i = from; i < to; i++) {
+                    f[i - from] = predict(x[i]);
+                }
+                return;
+            }
+
+            if (kernel instanceof IBatchMercerKernel) {
+                Expansion e = expansion();
+                if (e == null) {
+                    Arrays.fill(f, 0, to - from, b);
+                    return;
+                }
+
+                double[] alpha = new double[e.x.length];
+                for (int j = 0; j < alpha.length; j++) {
+                    alpha[j] = sv.get(e.slot[j]).alpha;
+                }
+
+                // Blocks of samples against all the support vectors.
+                IBatchMercerKernel<T> batch = batchKernel();
+                double[][] k = new double[Math.min(64, to - from)][alpha.length];
+                for (int s = from; s < to; s += k.length) {
+                    int t = Math.min(s + k.length, to);
+                    double[][] ks = t - s == k.length ? k : Arrays.copyOf(k, t - s);
+                    batch.Function(Arrays.copyOfRange(x, s, t), null, e.x, e.norms, ks);
+                    for (int i = 0; i < ks.length; i++) {
+                        double y = b;
+                        for (int j = 0; j < alpha.length; j++) {
+                            y += alpha[j] * ks[i][j];
+                        }
+                        f[s + i - from] = y;
+                    }
+                }
+                return;
+            }
+            
+            List<T> vx = new ArrayList<T>(sv.size());
+            DoubleArrayList valpha = new DoubleArrayList(sv.size());
+            for (SupportVector v : sv) {
+                if (v != null) {
+                    vx.add(v.x);
+                    valpha.add(v.alpha);
+                }
+            }
+            
+            double[] alpha = valpha.toArray();
+            for (int i = from; i < to; i++) {
+                double y = b;
+                for (int j = 0; j < alpha.length; j++) {
+                    y += alpha[j] * kernel.Function(vx.get(j), x[i]);
+                }
+                f[i - from] = y;
+            }
+        }
+
+        /**
+         * Get the kernel row of a support vector, computing it if it is not cached.
+         * @param v1 Support vector.
+         * @param pinned Support vector whose row must stay in the cache, may be null.
+         * @return Kernel row.
+         */
+        DoubleArrayList row(SupportVector v1, SupportVector pinned) {
+            if (v1.kcache != null) {
+                rows().get(v1);
+                return v1.kcache;
+            }
+
+            DoubleArrayList kcache;
+            if (kernel instanceof IBatchMercerKernel) {
+                kcache = new DoubleArrayList(batch(v1.x));
+            } else {
+                kcache = new DoubleArrayList(sv.size());
+                for (SupportVector v : sv) {
+                    if (v != null) {
+                        kcache.add(kernel.Function(v1.x, v.x));
+                    } else {
+                        kcache.add(0.0);
+                    }
+                }
+            }
+
+            cache(v1, kcache, pinned);
+            return kcache;
+        }
+
+        /**
+         * Compute the kernel of a sample against each slot of the support vectors
+         * with the batched kernel. The empty slots are zero.
+         * @param x Sample.
+         * @return Kernel row.
+         */
+        double[] batch(T x) {
+            double[] kcache = new double[sv.size()];
+            Expansion e = expansion();
+            if (e != null) {
+                double[] k = new double[e.x.length];
+                batchKernel().Function(x, e.x, e.norms, 0, k.length, k);
+                for (int j = 0; j < k.length; j++) {
+                    kcache[e.slot[j]] = k[j];
+                }
+            }
+            return kcache;
+        }
+
+        /**
+         * Gather the support vectors for the batched kernel.
+         * @return Support vectors, null if there are none.
+         */
+        synchronized Expansion expansion() {
+            if (expansion == null) {
+                int n = 0;
+                T first = null;
+                for (SupportVector v : sv) {
+                    if (v != null) {
+                        if (first == null) first = v.x;
+                        n++;
+                    }
+                }
+
+                if (first == null) {
+                    return null;
+                }
+
+                T[] x = newArray(first, n);
+                double[] norms = new double[n];
+                int[] slot = new int[n];
+                for (int i = 0, j = 0; i < sv.size(); i++) {
+                    SupportVector v = sv.get(i);
+                    if (v != null) {
+                        x[j] = v.x;
+                        norms[j] = v.norm;
+                        slot[j++] = i;
+                    }
+                }
+
+                expansion = new Expansion(x, norms, slot);
+            }
+            return expansion;
+        }
+
+        /**
+         * Put a kernel row in the cache.
+         * @param v1 Support vector.
+         * @param kcache Kernel row.
+         * @param pinned Support vector whose row must stay in the cache, may be null.
+         */
+        void cache(SupportVector v1, DoubleArrayList kcache, SupportVector pinned) {
+            v1.kcache = kcache;
+            rows().put(v1, v1);
+            rowsSize += 8L * kcache.size();
+            release(v1, pinned);
+        }
+
+        /**
+         * Release the least recently used rows while the cache is over its memory limit.
+         * @param keep1 Support vector whose row must stay in the cache, may be null.
+         * @param keep2 Support vector whose row must stay in the cache, may be null.
+         */
+        void release(SupportVector keep1, SupportVector keep2) {
+            long limit = svms == null ? cacheSize : cacheSize / svms.size();
+            Iterator<SupportVector> iter = rows().keySet().iterator();
+            while (rowsSize > limit && iter.hasNext()) {
+                SupportVector v = iter.next();
+                if (v != keep1 && v != keep2) {
+                    rowsSize -= 8L * v.kcache.size();
+                    v.kcache = null;
+                    iter.remove();
+                }
+            }
+        }
+
+        /**
+         * Remove the kernel row of a support vector from the cache.
+         * @param v Support vector.
+         */
+        void uncache(SupportVector v) {
+            if (v.kcache != null) {
+                rowsSize -= 8L * v.kcache.size();
+                v.kcache = null;
+                rows().remove(v);
+            }
+        }
+
+        /**
+         * Get the cached rows in access order.
+         * @return Cached rows.
+         */
+        LinkedHashMap<SupportVector, SupportVector> rows() {
+            if (rows == null) {
+                rows = new LinkedHashMap<SupportVector, SupportVector>(16, 0.75f, true);
+            }
+            return rows;
+        }
+
         /**
          * Find support vectors with smallest (of I_up) and largest (of I_down) gradients.
          */
@@ -358,7 +633,7 @@ public class SVM <T> implements Serializable {
                 gmax = -Double.MAX_VALUE;
 
                 for (SupportVector v : sv) {
-                    if (v != null) {
+                    if (v != null && v.active) {
                         double gi = v.g;
                         double ai = v.alpha;
                         if (gi < gmin && ai > v.cmin) {
@@ -397,16 +672,7 @@ public class SVM <T> implements Serializable {
                 }
 
                 if (v2 == null) {
-                    if (v1.kcache == null) {
-                        v1.kcache = new DoubleArrayList(sv.size());
-                        for (SupportVector v : sv) {
-                            if (v != null) {
-                                v1.kcache.add(kernel.Function(v1.x, v.x));
-                            } else {
-                                v1.kcache.add(0.0);
-                            }
-                        }
-                    }
+                    DoubleArrayList row1 = row(v1, null);
 
                     // determine imax
                     double km = v1.k;
@@ -414,12 +680,12 @@ public class SVM <T> implements Serializable {
                     double best = 0.0;
                     for (int i = 0; i < sv.size(); i++) {
                         SupportVector v = sv.get(i);
-                        if (v == null) {
+                        if (v == null || !v.active) {
                             continue;
                         }
 
                         double Z = v.g - gm;
-                        double k = v1.kcache.get(i);
+                        double k = row1.get(i);
                         double curv = km + v.k - 2.0 * k;
                         // double curv = 2.0 - 2.0 * k;   // for Gaussian kernel only
                         if (curv <= 0.0) curv = TAU;
@@ -433,16 +699,7 @@ public class SVM <T> implements Serializable {
                         }
                     }
                 } else {
-                    if (v2.kcache == null) {
-                        v2.kcache = new DoubleArrayList(sv.size());
-                        for (SupportVector v : sv) {
-                            if (v != null) {
-                                v2.kcache.add(kernel.Function(v2.x, v.x));
-                            } else {
-                                v2.kcache.add(0.0);
-                            }
-                        }
-                    }
+                    DoubleArrayList row2 = row(v2, null);
 
                     // determine imin
                     double km = v2.k;
@@ -450,12 +707,12 @@ public class SVM <T> implements Serializable {
                     double best = 0.0;
                     for (int i = 0; i < sv.size(); i++) {
                         SupportVector v = sv.get(i);
-                        if (v == null) {
+                        if (v == null || !v.active) {
                             continue;
                         }
 
                         double Z = gm - v.g;
-                        double k = v2.kcache.get(i);
+                        double k = row2.get(i);
                         double curv = km + v.k - 2.0 * k;
                         // double curv = 2.0 - 2.0 * k;   // for Gaussian kernel only
                         if (curv <= 0.0) curv = TAU;
@@ -476,27 +733,8 @@ public class SVM <T> implements Serializable {
                 return false;
             }
 
-            if (v1.kcache == null) {
-                v1.kcache = new DoubleArrayList(sv.size());
-                for (SupportVector v : sv) {
-                    if (v != null) {
-                        v1.kcache.add(kernel.Function(v1.x, v.x));
-                    } else {
-                        v1.kcache.add(0.0);
-                    }
-                }
-            }
-
-            if (v2.kcache == null) {
-                v2.kcache = new DoubleArrayList(sv.size());
-                for (SupportVector v : sv) {
-                    if (v != null) {
-                        v2.kcache.add(kernel.Function(v2.x, v.x));
-                    } else {
-                        v2.kcache.add(0.0);
-                    }
-                }
-            }
+            DoubleArrayList row1 = row(v1, v2);
+            DoubleArrayList row2 = row(v2, v1);
 
             // Determine curvature
             double curv = v1.k + v2.k - 2 * kernel.Function(v1.x, v2.x);		
@@ -530,8 +768,8 @@ public class SVM <T> implements Serializable {
             v2.alpha += step;
             for (int i = 0; i < sv.size(); i++) {
                 SupportVector v = sv.get(i);
-                if (v != null) {
-                    v.g -= step * (v2.kcache.get(i) - v1.kcache.get(i));
+                if (v != null && v.active) {
+                    v.g -= step * (row2.get(i) - row1.get(i));
                 }
             }
 
@@ -569,7 +807,31 @@ public class SVM <T> implements Serializable {
             // Compute gradient
             double g = y;
             DoubleArrayList kcache = new DoubleArrayList(sv.size() + 1);
-            if (sv.size() > 0) {
+            if (sv.size() > 0 && kernel instanceof IBatchMercerKernel) {
+                for (SupportVector v : sv) {
+                    // Bail out if already in expansion?
+                    if (v != null && v.x == x) {
+                        return true;
+                    }
+                }
+
+                double[] k = batch(x);
+                for (int i = 0; i < k.length; i++) {
+                    SupportVector v = sv.get(i);
+                    if (v != null) {
+                        g -= v.alpha * k[i];
+                    }
+                }
+                kcache.add(k);
+
+                // Decide insertion
+                minmax();
+                if (gmin < gmax) {
+                    if ((y > 0 && g < gmin) || (y < 0 && g > gmax)) {
+                        return false;
+                    }
+                }
+            } else if (sv.size() > 0) {
                 for (SupportVector v : sv) {
                     if (v != null) {
                         // Bail out if already in expansion?
@@ -601,7 +863,12 @@ public class SVM <T> implements Serializable {
             v.alpha = 0.0;
             v.g = g;
             v.k = kernel.Function(x, x);
-            v.kcache = kcache;
+            if (kernel instanceof IBatchMercerKernel) {
+                T[] xv = newArray(x, 1);
+                xv[0] = x;
+                double[] norm = batchKernel().Norms(xv);
+                v.norm = norm == null ? 0.0 : norm[0];
+            }
             if (y > 0) {
                 v.cmin = 0;
                 v.cmax = weight * Cp;
@@ -610,7 +877,7 @@ public class SVM <T> implements Serializable {
                 v.cmax = 0;
             }
 
-            int i = sv.size();
+            int i = 0;
             for (; i < sv.size(); i++) {
                 if (sv.get(i) == null) {
                     sv.set(i, v);
@@ -632,12 +899,15 @@ public class SVM <T> implements Serializable {
                     SupportVector v1 = sv.get(j);
                     if (v1 != null && v1.kcache != null) {
                         v1.kcache.add(kcache.get(j));
+                        rowsSize += 8;
                     }
                 }
 
-                v.kcache.add(v.k);
+                kcache.add(v.k);
                 sv.add(v);
             }
+            expansion = null;
+            cache(v, kcache, null);
 
             // Process
             if (y > 0) {
@@ -673,11 +943,13 @@ public class SVM <T> implements Serializable {
          */
         void finish(double epsgr) {
             //System.out.print("SVM finializes the training.");
-            for (int count = 1; smo(null, null, epsgr); count++) {
-                if (count % 1000 == 0) {
-                    //System.out.print('.');
+            do {
+                for (int count = 1; smo(null, null, epsgr); count++) {
+                    if (shrinking && count % 1000 == 0) {
+                        shrink();
+                    }
                 }
-            }
+            } while (unshrink());
             //System.out.println();
 
             Iterator<SupportVector> iter = sv.iterator();
@@ -693,7 +965,15 @@ public class SVM <T> implements Serializable {
             }
             cleanup();
 
-            if (kernel instanceof Linear) {                
+            if (kernel instanceof Linear || kernel instanceof SparseLinear) {
+                // The online updates may add sparse features beyond the training ones.
+                for (SupportVector v : sv) {
+                    if (v.x instanceof SparseArray) {
+                        for (SparseArray.Entry e : (SparseArray) v.x) {
+                            p = Math.max(p, e.i + 1);
+                        }
+                    }
+                }
                 w = new double[p];
 
                 for (SupportVector v : sv) {
@@ -720,6 +1000,55 @@ public class SVM <T> implements Serializable {
             }
         }
 
+        /**
+         * Remove from the working set the bounded support vectors which can't
+         * be selected by the working set selection.
+         */
+        void shrink() {
+            minmax();
+
+            double hi = Math.max(gmax, gmin);
+            double lo = Math.min(gmax, gmin);
+            for (SupportVector v : sv) {
+                if (v != null && v.active) {
+                    if ((v.alpha == v.cmax && v.g > hi) || (v.alpha == v.cmin && v.g < lo)) {
+                        v.active = false;
+                        uncache(v);
+                    }
+                }
+            }
+
+            minmaxflag = false;
+        }
+
+        /**
+         * Put back the shrunk support vectors in the working set, with their gradients
+         * computed again.
+         * @return True if any support vector was shrunk.
+         */
+        boolean unshrink() {
+            boolean shrunk = false;
+            for (SupportVector v1 : sv) {
+                if (v1 != null && !v1.active) {
+                    DoubleArrayList row1 = row(v1, null);
+                    double g = v1.y;
+                    for (int i = 0; i < sv.size(); i++) {
+                        SupportVector v = sv.get(i);
+                        if (v != null) {
+                            g -= v.alpha * row1.get(i);
+                        }
+                    }
+
+                    v1.g = g;
+                    v1.active = true;
+                    shrunk = true;
+                }
+            }
+
+            minmaxflag = false;
+            return shrunk;
+        }
+
         void evict() {
             minmax();
             
@@ -727,7 +1056,9 @@ public class SVM <T> implements Serializable {
                 SupportVector v = sv.get(i);
                 if (v != null && v.alpha == 0) {
                     if ((v.g >= gmax && 0 >= v.cmax) || (v.g <= gmin && 0 <= v.cmin)) {
+                        uncache(v);
                         sv.set(i, null);
+                        expansion = null;
                     }
                 }
             }
@@ -744,12 +1075,17 @@ public class SVM <T> implements Serializable {
                     nsv++;
 
                     v.kcache = null;
+                    v.active = true;
                     if (v.alpha == v.cmin || v.alpha == v.cmax) {
                         nbsv++;
                     }
                 }
             }
 
+            rows = null;
+            rowsSize = 0;
+            expansion = null;
+
             //System.out.format("%d support vectors, %d bounded\n", nsv, nbsv);
         }
     }
@@ -872,6 +1208,63 @@ public class SVM <T> implements Serializable {
         this.tol = tol;
     }
 
+    /**
+     * Get the memory limit of the kernel cache.
+     * @return Memory limit in bytes.
+     */
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the memory limit of the kernel cache.
+     * The limit is shared by the machines of a multi-class SVM.
+     * @param cacheSize Memory limit in bytes.
+     */
+    public void setCacheSize(long cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("Invalid kernel cache size: " + cacheSize);
+        }
+
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Check if the bounded support vectors are shrunk while finishing.
+     * @return True if shrinking is enabled.
+     */
+    public boolean isShrinking() {
+        return shrinking;
+    }
+
+    /**
+     * Set if the bounded support vectors are shrunk while finishing.
+     * @param shrinking True to enable shrinking.
+     */
+    public void setShrinking(boolean shrinking) {
+        this.shrinking = shrinking;
+    }
+
+    /**
+     * The kernel as a batched kernel of the instances.
+     * @return Batched kernel.
+     */
+    @SuppressWarnings("unchecked")
+    private IBatchMercerKernel<T> batchKernel() {
+        return (IBatchMercerKernel<T>) kernel;
+    }
+
+    /**
+     * Create an array of instances of the same class of the given one.
+     * @param x Instance.
+     * @param n Length of the array.
+     * @return Array.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(T x, int n) {
+        return (T[]) java.lang.reflect.Array.newInstance(x.getClass(), n);
+    }
+
     
     public void Learn(T x, int y) {
         Learn(x, y, 1.0);
@@ -1167,4 +1560,71 @@ public class SVM <T> implements Serializable {
             return label;
         }
     }
+
+    /**
+     * Predict a set of samples. The samples are split across the cores.
+     * @param x Samples.
+     * @return Labels.
+     */
+    public int[] Predict(final T[] x) {
+        final int[] labels = new int[x.length];
+        ParallelFor.Run(x.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int n = to - from;
+                if (k == 2) {
+                    double[] f = new double[n];
+                    svm.predict(x, from, to, f);
+                    for (int i = 0; i < n; i++) {
+                        labels[from + i] = f[i] > 0 ? 1 : 0;
+                    }
+                    return;
+                }
+                
+                double[][] f = new double[svms.size()][n];
+                for (int m = 0; m < f.length; m++) {
+                    svms.get(m).predict(x, from, to, f[m]);
+                }
+                
+                if (strategy == Strategy.ONE_VS_ALL) {
+                    for (int s = 0; s < n; s++) {
+                        int label = 0;
+                        double maxf = Double.NEGATIVE_INFINITY;
+                        for (int i = 0; i < f.length; i++) {
+                            if (f[i][s] > maxf) {
+                                label = i;
+                                maxf = f[i][s];
+                            }
+                        }
+                        labels[from + s] = label;
+                    }
+                } else {
+                    int[] count = new int[k];
+                    for (int s = 0; s < n; s++) {
+                        Arrays.fill(count, 0);
+                        for (int i = 0, m = 0; i < k; i++) {
+                            for (int j = i + 1; j < k; j++, m++) {
+                                if (f[m][s] > 0) {
+                                    count[i]++;
+                                } else {
+                                    count[j]++;
+                                }
+                            }
+                        }
+                        
+                        int max = 0;
+                        int label = 0;
+                        for (int i = 0; i < k; i++) {
+                            if (count[i] > max) {
+                                max = count[i];
+                                label = i;
+                            }
+                        }
+                        labels[from + s] = label;
+                    }
+                }
+            }
+        });
+        return labels;
+    }
 }
\ No newline at end of file
@@ -38,6 +38,8 @@ public class SparseMulticlassSupportVectorMachine implements Serializable{
     
     private SVM.Strategy strategy;
     private SVM<SparseArray> svm;
+    private long cacheSize = 100L << 20;
+    private boolean shrinking = true;
     
     /**
      * Initializes a new instance of the SparseMulticlassSupportVectorMachine class.
@@ -89,12 +91,50 @@ public class SparseMulticlassSupportVectorMachine implements Serializable{
         Initialize(kernel, c, weight, strategy);
     }
     
+    /**
+     * Get the memory limit of the kernel cache.
+     * @return Memory limit in bytes.
+     */
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the memory limit of the kernel cache.
+     * @param cacheSize Memory limit in bytes.
+     */
+    public void setCacheSize(long cacheSize) {
+        svm.setCacheSize(cacheSize);
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Check if the bounded support vectors are shrunk while finishing.
+     * @return True if shrinking is enabled.
+     */
+    public boolean isShrinking() {
+        return shrinking;
+    }
+
+    /**
+     * Set if the bounded support vectors are shrunk while finishing.
+     * @param shrinking True to enable shrinking.
+     */
+    public void setShrinking(boolean shrinking) {
+        svm.setShrinking(shrinking);
+        this.shrinking = shrinking;
+    }
+    
     private void Initialize(IMercerKernel kernel, double c, int nClasses, SVM.Strategy strategy){
         this.svm = new SVM(kernel, c, nClasses, strategy);
+        svm.setCacheSize(cacheSize);
+        svm.setShrinking(shrinking);
     }
     
     private void Initialize(IMercerKernel kernel, double c, double[] weight, SVM.Strategy strategy){
         this.svm = new SVM(kernel, c, weight, strategy);
+        svm.setCacheSize(cacheSize);
+        svm.setShrinking(shrinking);
     }
 
     public void Learn(SparseArray[] input, int[] output) {
@@ -115,6 +155,15 @@ public class SparseMulticlassSupportVectorMachine implements Serializable{
         return svm.Predict(feature);
     }
     
+    /**
+     * Predict a set of samples.
+     * @param features Features.
+     * @return Labels.
+     */
+    public int[] Predict(SparseArray[] features) {
+        return svm.Predict(features);
+    }
+    
     /**
      * Process support vectors until convergence.
      */
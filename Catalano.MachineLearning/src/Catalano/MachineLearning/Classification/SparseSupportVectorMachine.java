@@ -37,6 +37,8 @@ public class SparseSupportVectorMachine implements Serializable{
     private double cn;
     
     private SVM<SparseArray> svm;
+    private long cacheSize = 100L << 20;
+    private boolean shrinking = true;
     
     /**
      * Initializes a new instance of the SparseSupportVectorMachine class.
@@ -60,8 +62,44 @@ public class SparseSupportVectorMachine implements Serializable{
         Initialize(kernel, c, cn);
     }
     
+    /**
+     * Get the memory limit of the kernel cache.
+     * @return Memory limit in bytes.
+     */
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the memory limit of the kernel cache.
+     * @param cacheSize Memory limit in bytes.
+     */
+    public void setCacheSize(long cacheSize) {
+        svm.setCacheSize(cacheSize);
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Check if the bounded support vectors are shrunk while finishing.
+     * @return True if shrinking is enabled.
+     */
+    public boolean isShrinking() {
+        return shrinking;
+    }
+
+    /**
+     * Set if the bounded support vectors are shrunk while finishing.
+     * @param shrinking True to enable shrinking.
+     */
+    public void setShrinking(boolean shrinking) {
+        svm.setShrinking(shrinking);
+        this.shrinking = shrinking;
+    }
+    
     private void Initialize(IMercerKernel kernel, double c, double cn){
         this.svm = new SVM(kernel, c, cn);
+        svm.setCacheSize(cacheSize);
+        svm.setShrinking(shrinking);
     }
 
     
@@ -84,6 +122,15 @@ public class SparseSupportVectorMachine implements Serializable{
         return svm.Predict(feature);
     }
     
+    /**
+     * Predict a set of samples.
+     * @param features Features.
+     * @return Labels.
+     */
+    public int[] Predict(SparseArray[] features) {
+        return svm.Predict(features);
+    }
+    
     /*
      * Process support vectors until converge.
      */
@@ -37,6 +37,8 @@ public class SupportVectorMachine implements IClassifier, Serializable {
     private double cn;
     
     private SVM<double[]> svm;
+    private long cacheSize = 100L << 20;
+    private boolean shrinking = true;
     
     /**
      * Initializes a new instance of the SupportVectorMachine class.
@@ -60,8 +62,44 @@ public class SupportVectorMachine implements IClassifier, Serializable {
         Initialize(kernel, c, cn);
     }
     
+    /**
+     * Get the memory limit of the kernel cache.
+     * @return Memory limit in bytes.
+     */
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Set the memory limit of the kernel cache.
+     * @param cacheSize Memory limit in bytes.
+     */
+    public void setCacheSize(long cacheSize) {
+        svm.setCacheSize(cacheSize);
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Check if the bounded support vectors are shrunk while finishing.
+     * @return True if shrinking is enabled.
+     */
+    public boolean isShrinking() {
+        return shrinking;
+    }
+
+    /**
+     * Set if the bounded support vectors are shrunk while finishing.
+     * @param shrinking True to enable shrinking.
+     */
+    public void setShrinking(boolean shrinking) {
+        svm.setShrinking(shrinking);
+        this.shrinking = shrinking;
+    }
+    
     private void Initialize(IMercerKernel kernel, double c, double cn){
         this.svm = new SVM(kernel, c, cn);
+        svm.setCacheSize(cacheSize);
+        svm.setShrinking(shrinking);
     }
 
     @Override
@@ -89,6 +127,11 @@ public class SupportVectorMachine implements IClassifier, Serializable {
         return svm.Predict(feature);
     }
     
+    @Override
+    public int[] Predict(double[][] features) {
+        return svm.Predict(features);
+    }
+    
     @Override
     public IClassifier clone() {
         try {
@@ -27,6 +27,8 @@ package Catalano.MachineLearning.Clustering;
 import Catalano.Core.Concurrent.MulticoreExecutor;
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.Math.Distances.Distance;
+import Catalano.Math.Random.Pcg32;
+import Catalano.Math.Random.Random;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -52,6 +54,8 @@ import java.util.concurrent.Callable;
  * proceeding with the standard k-means optimization iterations. With the
  * k-means++ initialization, the algorithm is guaranteed to find a solution
  * that is O(log k) competitive to the optimal k-means solution.
+ * For a large number of clusters, k-means|| chooses the initial centers in
+ * a few parallel passes over the data, see {@link Initialization}.
  * <p>
  * We also use k-d trees to speed up each k-means step as described in the filter
  * algorithm by Kanungo, et al.
@@ -74,6 +78,22 @@ import java.util.concurrent.Callable;
  */
 public class KMeans extends PartitionClustering<double[]> implements ICentroidClustering {
     
+    /**
+     * Initialization of the cluster centers.
+     */
+    public enum Initialization {
+        
+        /**
+         * K-Means++, one center per pass over the data.
+         */
+        KMeansPlusPlus,
+        
+        /**
+         * K-Means||, a few parallel passes over the data, suitable for a large number of clusters.
+         */
+        KMeansParallel
+    }
+    
     /**
      * The total distortion.
      */
@@ -86,6 +106,10 @@ public class KMeans extends PartitionClustering<double[]> implements ICentroidCl
     private int maxIteration;
     
     private int maxRuns = 0;
+    
+    private long seed;
+    
+    private Initialization initialization = Initialization.KMeansPlusPlus;
 
     /**
      * Returns the distortion.
@@ -110,6 +134,40 @@ public class KMeans extends PartitionClustering<double[]> implements ICentroidCl
         this.k = k;
     }
 
+    /**
+     * Get random seed.
+     * @return Random seed, 0 if a new seed is chosen in each computation.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set random seed.
+     * Each run is seeded with its own stream of the seed, so the result is
+     * the same regardless of the number of threads.
+     * @param seed Seed, 0 to choose a new seed in each computation.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Get initialization of the cluster centers.
+     * @return Initialization.
+     */
+    public Initialization getInitialization() {
+        return initialization;
+    }
+
+    /**
+     * Set initialization of the cluster centers.
+     * @param initialization Initialization.
+     */
+    public void setInitialization(Initialization initialization) {
+        this.initialization = initialization;
+    }
+
     /**
      * Initializes a new instance of the KMeans class.
      */
@@ -184,28 +242,56 @@ public class KMeans extends PartitionClustering<double[]> implements ICentroidCl
     private void Perform(double[][] input){
         
         BBDTree bbd = new BBDTree(input);
+        long s = seed != 0 ? seed : new Pcg32().nextLong();
+        
+        KMeans km = run(bbd, input, k, maxIteration, initialization, new Random(Pcg32.stream(s, 0)));
+        this.distortion = km.distortion;
+        this.centroids = km.centroids;
+        this.y = km.y;
+        this.size = km.size;
+    }
+    
+    /**
+     * Run the K-Means algorithm over the BBD tree.
+     * @param bbd BBD tree of the input data.
+     * @param input the input data of which each row is a sample.
+     * @param k the number of clusters.
+     * @param maxIteration the maximum number of iterations.
+     * @param initialization initialization of the cluster centers.
+     * @param random random number generator of the initial centers.
+     * @return K-Means.
+     */
+    private static KMeans run(BBDTree bbd, double[][] input, int k, int maxIteration, Initialization initialization, Random random){
 
         int n = input.length;
         int d = input[0].length;
 
-        distortion = Double.MAX_VALUE;
-        y = seed(input, k, DistanceMethod.EUCLIDEAN);
-        size = new int[k];
-        centroids = new double[k][d];
-
-        for (int i = 0; i < n; i++) {
-            size[y[i]]++;
-        }
+        double distortion = Double.MAX_VALUE;
+        int[] y;
+        int[] size = new int[k];
+        double[][] centroids;
+        
+        if (initialization == Initialization.KMeansParallel) {
+            y = new int[n];
+            centroids = seedParallel(input, k, random);
+        } else {
+            y = seed(input, k, DistanceMethod.EUCLIDEAN, random);
+            centroids = new double[k][d];
+            
+            for (int i = 0; i < n; i++) {
+                size[y[i]]++;
+            }
 
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < d; j++) {
-                centroids[y[i]][j] += input[i][j];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < d; j++) {
+                    centroids[y[i]][j] += input[i][j];
+                }
             }
-        }
 
-        for (int i = 0; i < k; i++) {
-            for (int j = 0; j < d; j++) {
-                centroids[i][j] /= size[i];
+            for (int i = 0; i < k; i++) {
+                for (int j = 0; j < d; j++) {
+                    centroids[i][j] /= size[i];
+                }
             }
         }
 
@@ -226,11 +312,20 @@ public class KMeans extends PartitionClustering<double[]> implements ICentroidCl
                 distortion = dist;
             }
         }
+        
+        KMeans kmeans = new KMeans(k, maxIteration);
+        kmeans.distortion = distortion;
+        kmeans.centroids = centroids;
+        kmeans.y = y;
+        kmeans.size = size;
+        return kmeans;
     }
     
     /**
      * Clustering data into k clusters. Run the algorithm for given times
      * and return the best one with smallest distortion.
+     * Each run is seeded with its own stream of the seed, and the ties are
+     * resolved by the order of the runs, so the result is reproducible.
      * @param data the input data of which each row is a sample.
      * @param k the number of clusters.
      * @param maxIteration the maximum number of iterations for each running.
@@ -239,31 +334,32 @@ public class KMeans extends PartitionClustering<double[]> implements ICentroidCl
     private void Perform(double[][] input, int runs) {
 
         BBDTree bbd = new BBDTree(input);
+        long s = seed != 0 ? seed : new Pcg32().nextLong();
 
         List<KMeansThread> tasks = new ArrayList<KMeansThread>();
         for (int i = 0; i < runs; i++) {
-            tasks.add(new KMeansThread(bbd, input, k, maxIteration));
+            tasks.add(new KMeansThread(bbd, input, k, maxIteration, initialization, s, i));
         }
 
         KMeans best = new KMeans();
         best.distortion = Double.MAX_VALUE;
 
+        List<KMeans> clusters;
         try {
-            List<KMeans> clusters = MulticoreExecutor.run(tasks);
-            for (KMeans kmeans : clusters) {
-                if (kmeans.distortion < best.distortion) {
-                    best = kmeans;
-                }
-            }
+            clusters = MulticoreExecutor.run(tasks);
         } catch (Exception ex) {
             System.err.println(ex);
 
+            clusters = new ArrayList<KMeans>(runs);
             for (int i = 0; i < runs; i++) {
-                KMeans kmeans = lloyd(input, k, maxIteration);
-                if (kmeans.distortion < best.distortion) {
-                    best = kmeans;
-                }
-            }            
+                clusters.add(tasks.get(i).call());
+            }
+        }
+        
+        for (KMeans kmeans : clusters) {
+            if (kmeans.distortion < best.distortion) {
+                best = kmeans;
+            }
         }
 
         this.distortion = best.distortion;
@@ -281,19 +377,23 @@ public class KMeans extends PartitionClustering<double[]> implements ICentroidCl
         final double[][] data;
         final int k;
         final int maxIteration;
+        final Initialization initialization;
+        final long seed;
+        final int index;
 
-        KMeansThread(BBDTree bbd, double[][] data, int k, int maxIteration) {
+        KMeansThread(BBDTree bbd, double[][] data, int k, int maxIteration, Initialization initialization, long seed, int index) {
             this.bbd = bbd;
             this.data = data;
             this.k = k;
             this.maxIteration = maxIteration;
+            this.initialization = initialization;
+            this.seed = seed;
+            this.index = index;
         }
 
         @Override
         public KMeans call() {
-            KMeans km = new KMeans(k, maxIteration);
-            km.Compute(data);
-            return km;//new KMeans(data, k, maxIteration);
+            return run(bbd, data, k, maxIteration, initialization, new Random(Pcg32.stream(seed, index)));
         }
     }
 
@@ -0,0 +1,395 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+
+package Catalano.MachineLearning.Clustering;
+
+import Catalano.MachineLearning.Dataset.DatasetClassification;
+import Catalano.Math.Random.Pcg32;
+import Catalano.Math.Random.Random;
+import java.util.Iterator;
+
+/**
+ * Mini-Batch K-Means.
+ * <p>
+ * Each iteration draws a small random batch of samples, assigns them to the
+ * nearest center and moves each center towards the mean of its samples with a
+ * learning rate that decreases with the number of samples the center has received. The cost
+ * of an iteration depends on the batch size instead of the number of samples.
+ * <p>
+ * The same update is used for streaming: each batch of a stream (e.g. a
+ * {@link Catalano.MachineLearning.Dataset.CSVBatchReader}) is processed once,
+ * so the data doesn't need to fit in memory. The assignment of the samples of
+ * a batch is computed in parallel.
+ * 
+ * <h2>References</h2>
+ * <ol>
+ * <li> D. Sculley. "Web-Scale K-Means Clustering". WWW, 2010.</li>
+ * </ol>
+ * 
+ * @see KMeans
+ * 
+ * @author Diego Catalano
+ */
+public class MiniBatchKMeans extends PartitionClustering<double[]> implements ICentroidClustering {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private int batchSize;
+    private int maxIteration;
+    private double tolerance = 1e-4;
+    private long seed;
+    private KMeans.Initialization initialization = KMeans.Initialization.KMeansParallel;
+    
+    /**
+     * The centroids of each cluster.
+     */
+    private double[][] centroids;
+    
+    /**
+     * The number of samples received by each cluster.
+     */
+    private long[] counts;
+    
+    /**
+     * The total distortion.
+     */
+    private double distortion;
+
+    /**
+     * Returns the distortion.
+     * After a stream, it is the distortion of each batch before its update.
+     * @return Distortion.
+     */
+    public double distortion() {
+        return distortion;
+    }
+
+    /**
+     * Returns the centroids.
+     */
+    @Override
+    public double[][] getCentroids() {
+        return centroids;
+    }
+    
+    /**
+     * Get number of samples of each batch.
+     * @return Number of samples of each batch.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Set number of samples of each batch.
+     * @param batchSize Number of samples of each batch.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Get maximum number of iterations.
+     * @return Maximum number of iterations.
+     */
+    public int getMaxIteration() {
+        return maxIteration;
+    }
+
+    /**
+     * Set maximum number of iterations.
+     * @param maxIteration Maximum number of iterations.
+     */
+    public void setMaxIteration(int maxIteration) {
+        this.maxIteration = Math.max(1, maxIteration);
+    }
+
+    /**
+     * Get tolerance.
+     * @return Tolerance.
+     */
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Set tolerance.
+     * The iterations stop when the squared shift of the centers relative to their squared norm is less than the tolerance.
+     * @param tolerance Tolerance.
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = Math.max(0, tolerance);
+    }
+
+    /**
+     * Get random seed.
+     * @return Random seed, 0 if a new seed is chosen in each computation.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set random seed.
+     * @param seed Seed, 0 to choose a new seed in each computation.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Get initialization of the cluster centers.
+     * @return Initialization.
+     */
+    public KMeans.Initialization getInitialization() {
+        return initialization;
+    }
+
+    /**
+     * Set initialization of the cluster centers.
+     * @param initialization Initialization.
+     */
+    public void setInitialization(KMeans.Initialization initialization) {
+        this.initialization = initialization;
+    }
+
+    /**
+     * Initializes a new instance of the MiniBatchKMeans class.
+     */
+    public MiniBatchKMeans() {
+        this(3);
+    }
+    
+    /**
+     * Initializes a new instance of the MiniBatchKMeans class.
+     * @param k Number of the clusters.
+     */
+    public MiniBatchKMeans(int k) {
+        this(k, 1024);
+    }
+    
+    /**
+     * Initializes a new instance of the MiniBatchKMeans class.
+     * @param k Number of the clusters.
+     * @param batchSize Number of samples of each batch.
+     */
+    public MiniBatchKMeans(int k, int batchSize) {
+        this(k, batchSize, 100);
+    }
+    
+    /**
+     * Initializes a new instance of the MiniBatchKMeans class.
+     * @param k Number of the clusters.
+     * @param batchSize Number of samples of each batch.
+     * @param maxIteration Maximum number of iterations.
+     */
+    public MiniBatchKMeans(int k, int batchSize, int maxIteration) {
+        if (k < 2) {
+            throw new IllegalArgumentException("Invalid number of clusters: " + k);
+        }
+        
+        this.k = k;
+        setBatchSize(batchSize);
+        setMaxIteration(maxIteration);
+    }
+
+    @Override
+    public void Compute(DatasetClassification dataset) {
+        Compute(dataset.getInput());
+    }
+
+    /**
+     * Compute the clusters with random batches of the input.
+     * @param input Input.
+     */
+    @Override
+    public void Compute(double[][] input) {
+        int n = input.length;
+        Random r = new Random(Pcg32.stream(seed != 0 ? seed : new Pcg32().nextLong(), 0));
+        
+        centroids = initialize(input, r);
+        counts = new long[k];
+        
+        int b = Math.min(batchSize, n);
+        double[][] batch = new double[b][];
+        int[] labels = new int[b];
+        double[] d = new double[b];
+        
+        for (int iter = 0; iter < maxIteration; iter++) {
+            for (int i = 0; i < b; i++) {
+                batch[i] = input[r.nextInt(n)];
+            }
+            
+            assign(batch, centroids, labels, d);
+            if (update(batch, labels) <= tolerance) {
+                break;
+            }
+        }
+        
+        y = new int[n];
+        distortion = assign(input, centroids, y, new double[n]);
+        size = new int[k];
+        for (int i = 0; i < n; i++) {
+            size[y[i]]++;
+        }
+    }
+    
+    /**
+     * Compute the clusters from a stream of batches in a single pass.
+     * @param batches Batches.
+     */
+    public void Compute(Iterator<double[][]> batches) {
+        centroids = null;
+        while (batches.hasNext()) {
+            Partial(batches.next());
+        }
+    }
+    
+    /**
+     * Update the clusters with the next batch of a stream.
+     * The first batch initializes the centers, so it needs at least k samples.
+     * @param batch Batch.
+     */
+    public void Partial(double[][] batch) {
+        if (batch.length == 0) return;
+        
+        if (centroids == null) {
+            if (batch.length < k) {
+                throw new IllegalArgumentException(String.format("The first batch must have at least %d samples: %d", k, batch.length));
+            }
+            
+            Random r = new Random(Pcg32.stream(seed != 0 ? seed : new Pcg32().nextLong(), 0));
+            centroids = initialize(batch, r);
+            counts = new long[k];
+            distortion = 0;
+            y = null;
+        }
+        
+        int[] labels = new int[batch.length];
+        distortion += assign(batch, centroids, labels, new double[batch.length]);
+        update(batch, labels);
+        
+        size = new int[k];
+        for (int i = 0; i < k; i++) {
+            size[i] = (int)Math.min(Integer.MAX_VALUE, counts[i]);
+        }
+    }
+    
+    /**
+     * Cluster a new instance.
+     * @param x a new instance.
+     * @return the cluster label, which is the index of nearest centroid.
+     */
+    @Override
+    public int Predict(double[] x) {
+        int[] label = new int[1];
+        assign(new double[][] {x}, centroids, label, new double[1]);
+        return label[0];
+    }
+    
+    /**
+     * Cluster a set of instances in parallel.
+     * @param x the instances.
+     * @return the cluster labels.
+     */
+    public int[] Predict(double[][] x) {
+        int[] labels = new int[x.length];
+        assign(x, centroids, labels, new double[x.length]);
+        return labels;
+    }
+    
+    /**
+     * Initialize the centers.
+     * @param data Data.
+     * @param random Random number generator.
+     * @return Centers.
+     */
+    private double[][] initialize(double[][] data, Random random) {
+        if (initialization == KMeans.Initialization.KMeansParallel) {
+            return seedParallel(data, k, random);
+        }
+        
+        int n = data.length;
+        int d = data[0].length;
+        int[] labels = seed(data, k, DistanceMethod.EUCLIDEAN, random);
+        int[] count = new int[k];
+        double[][] c = new double[k][d];
+        for (int i = 0; i < n; i++) {
+            count[labels[i]]++;
+            for (int j = 0; j < d; j++) {
+                c[labels[i]][j] += data[i][j];
+            }
+        }
+        
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < d; j++) {
+                c[i][j] /= count[i];
+            }
+        }
+        
+        return c;
+    }
+    
+    /**
+     * Move each center towards the mean of its samples of the batch.
+     * The weight of the batch is the number of its samples relative to all the samples received by the center.
+     * @param batch Batch.
+     * @param labels Nearest center of each sample.
+     * @return Squared shift of the centers relative to their squared norm.
+     */
+    private double update(double[][] batch, int[] labels) {
+        int d = centroids[0].length;
+        double[][] sums = new double[k][d];
+        int[] m = new int[k];
+        for (int i = 0; i < batch.length; i++) {
+            int c = labels[i];
+            m[c]++;
+            double[] x = batch[i];
+            for (int j = 0; j < d; j++) {
+                sums[c][j] += x[j];
+            }
+        }
+        
+        double shift = 0;
+        double norm = 0;
+        for (int i = 0; i < k; i++) {
+            double[] center = centroids[i];
+            if (m[i] > 0) {
+                counts[i] += m[i];
+                double eta = 1.0 / counts[i];
+                for (int j = 0; j < d; j++) {
+                    double diff = eta * (sums[i][j] - m[i] * center[j]);
+                    norm += center[j] * center[j];
+                    center[j] += diff;
+                    shift += diff * diff;
+                }
+            } else {
+                for (int j = 0; j < d; j++) {
+                    norm += center[j] * center[j];
+                }
+            }
+        }
+        
+        return norm > 0 ? shift / norm : shift;
+    }
+}
\ No newline at end of file
@@ -21,11 +21,15 @@
 
 package Catalano.MachineLearning.Clustering;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.Math.Distances.Distance;
 import Catalano.Math.Distances.IDivergence;
+import Catalano.Math.Random.Random;
 import Catalano.Math.Tools;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Abstract class of partition clustering. Partition methods break
@@ -151,11 +155,21 @@ public abstract class PartitionClustering <T> implements Serializable {
      * @return the cluster labels.
      */
     static int[] seed(double[][] data, int k, DistanceMethod method) {
+        return seed(data, k, method, Tools.Random());
+    }
+    
+    /**
+     * Initialize cluster membership of input objects with KMeans++ algorithm.
+     * @param data data objects to be clustered.
+     * @param k the number of cluster.
+     * @param method distance method.
+     * @param random random number generator of the centers.
+     * @return the cluster labels.
+     */
+    static int[] seed(double[][] data, int k, DistanceMethod method, Random random) {
         int n = data.length;
         int[] y = new int[n];
-        //Random r = new Random(0);
-        //double[] centroid = data[r.nextInt(n)];
-        double[] centroid = data[Tools.Random().nextInt(n)];
+        double[] centroid = data[random.nextInt(n)];
 
         double[] d = new double[n];
         for (int i = 0; i < n; i++) {
@@ -187,7 +201,7 @@ public abstract class PartitionClustering <T> implements Serializable {
                 }
             }
 
-            double cutoff = Math.random() * Tools.Sum(d);//Math.random() * Tools.Sum(d);
+            double cutoff = random.nextDouble() * Tools.Sum(d);
             double cost = 0.0;
             int index = 0;
             for (; index < n; index++) {
@@ -223,6 +237,232 @@ public abstract class PartitionClustering <T> implements Serializable {
 
         return y;
     }
+    
+    /**
+     * Initialize the cluster centers with the K-Means|| algorithm.
+     * <p>
+     * K-Means|| is a parallel version of K-Means++. Instead of one center per
+     * pass over the data, each pass samples about 2k candidates with probability
+     * proportional to the squared distance to the closest candidate. After a
+     * few passes the candidates, weighted by the number of samples closest to
+     * them, are reclustered into k centers with weighted K-Means++ and Lloyd
+     * iterations. The distances of each pass are computed in parallel.
+     * 
+     * <h2>References</h2>
+     * <ol>
+     * <li> B. Bahmani, B. Moseley, A. Vattani, R. Kumar and S. Vassilvitskii. "Scalable K-Means++". VLDB, 2012.</li>
+     * </ol>
+     * 
+     * @param data data objects to be clustered.
+     * @param k the number of clusters.
+     * @param random random number generator of the candidates.
+     * @return the cluster centers.
+     */
+    static double[][] seedParallel(double[][] data, int k, Random random) {
+        int n = data.length;
+        if (k > n) {
+            throw new IllegalArgumentException(String.format("The number of clusters is greater than the number of samples: %d > %d", k, n));
+        }
+        
+        int rounds = 5;
+        double oversampling = 2.0 * k;
+        
+        List<double[]> candidates = new ArrayList<double[]>();
+        candidates.add(data[random.nextInt(n)]);
+        
+        double[] d = new double[n];
+        Arrays.fill(d, Double.MAX_VALUE);
+        int[] nearest = new int[n];
+        
+        double cost = nearer(data, candidates, 0, d, nearest);
+        for (int r = 0; r < rounds && cost > 0; r++) {
+            int start = candidates.size();
+            for (int i = 0; i < n; i++) {
+                if (random.nextDouble() * cost < oversampling * d[i]) {
+                    candidates.add(data[i]);
+                }
+            }
+            cost = nearer(data, candidates, start, d, nearest);
+        }
+        
+        // Not enough distinct samples, complete with random samples.
+        while (candidates.size() < k) {
+            int start = candidates.size();
+            candidates.add(data[random.nextInt(n)]);
+            nearer(data, candidates, start, d, nearest);
+        }
+        
+        double[] w = new double[candidates.size()];
+        for (int i = 0; i < n; i++) {
+            w[nearest[i]]++;
+        }
+        
+        return recluster(candidates.toArray(new double[candidates.size()][]), w, k, random);
+    }
+    
+    /**
+     * Update the distance of each sample to the closest candidate with the new candidates.
+     * @param data data objects.
+     * @param candidates the candidates.
+     * @param start the index of the first new candidate.
+     * @param d the squared distance to the closest candidate of each sample.
+     * @param nearest the index of the closest candidate of each sample.
+     * @return the sum of the squared distances.
+     */
+    private static double nearer(final double[][] data, List<double[]> candidates, final int start, final double[] d, final int[] nearest) {
+        final double[][] c = candidates.toArray(new double[candidates.size()][]);
+        if (start < c.length) {
+            ParallelFor.Run(data.length, 64, new ParallelFor.Body() {
+                @Override
+                public void Compute(int from, int to) {
+                    for (int i = from; i < to; i++) {
+                        for (int j = start; j < c.length; j++) {
+                            double dist = Distance.SquaredEuclidean(data[i], c[j]);
+                            if (dist < d[i]) {
+                                d[i] = dist;
+                                nearest[i] = j;
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        
+        // Summed in order, so the sampling doesn't depend on the number of threads.
+        double cost = 0;
+        for (int i = 0; i < d.length; i++) {
+            cost += d[i];
+        }
+        return cost;
+    }
+    
+    /**
+     * Cluster the weighted candidates into k centers with weighted K-Means++ and Lloyd iterations.
+     * @param c the candidates.
+     * @param w the weight of each candidate.
+     * @param k the number of clusters.
+     * @param random random number generator.
+     * @return the cluster centers.
+     */
+    private static double[][] recluster(double[][] c, double[] w, int k, Random random) {
+        int m = c.length;
+        int p = c[0].length;
+        
+        // Weighted K-Means++
+        double[][] centers = new double[k][];
+        double[] d = new double[m];
+        Arrays.fill(d, Double.MAX_VALUE);
+        int[] y = new int[m];
+        
+        double[] prob = Arrays.copyOf(w, m);
+        for (int j = 0; j < k; j++) {
+            double total = 0;
+            for (int i = 0; i < m; i++) {
+                total += prob[i];
+            }
+            
+            int index = 0;
+            if (total > 0) {
+                double cutoff = random.nextDouble() * total;
+                double cost = 0;
+                for (; index < m - 1; index++) {
+                    cost += prob[index];
+                    if (cost >= cutoff && prob[index] > 0) {
+                        break;
+                    }
+                }
+            } else {
+                index = random.nextInt(m);
+            }
+            
+            centers[j] = Arrays.copyOf(c[index], p);
+            for (int i = 0; i < m; i++) {
+                double dist = Distance.SquaredEuclidean(c[i], centers[j]);
+                if (dist < d[i]) {
+                    d[i] = dist;
+                    y[i] = j;
+                }
+                prob[i] = w[i] * d[i];
+            }
+        }
+        
+        // Weighted Lloyd
+        double[] size = new double[k];
+        for (int iter = 0; iter < 20; iter++) {
+            Arrays.fill(size, 0);
+            double[][] sums = new double[k][p];
+            for (int i = 0; i < m; i++) {
+                size[y[i]] += w[i];
+                for (int j = 0; j < p; j++) {
+                    sums[y[i]][j] += w[i] * c[i][j];
+                }
+            }
+            
+            for (int j = 0; j < k; j++) {
+                if (size[j] > 0) {
+                    for (int l = 0; l < p; l++) {
+                        centers[j][l] = sums[j][l] / size[j];
+                    }
+                }
+            }
+            
+            boolean changed = false;
+            for (int i = 0; i < m; i++) {
+                double best = Double.MAX_VALUE;
+                int label = y[i];
+                for (int j = 0; j < k; j++) {
+                    double dist = Distance.SquaredEuclidean(c[i], centers[j]);
+                    if (dist < best) {
+                        best = dist;
+                        label = j;
+                    }
+                }
+                if (label != y[i]) {
+                    y[i] = label;
+                    changed = true;
+                }
+            }
+            
+            if (!changed) break;
+        }
+        
+        return centers;
+    }
+    
+    /**
+     * Assign each sample to the nearest center. The samples are split across the cores.
+     * @param data data objects.
+     * @param centers the centers.
+     * @param y the index of the nearest center of each sample.
+     * @param d the squared distance to the nearest center of each sample.
+     * @return the sum of the squared distances.
+     */
+    static double assign(final double[][] data, final double[][] centers, final int[] y, final double[] d) {
+        ParallelFor.Run(data.length, 64, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    double nearest = Double.MAX_VALUE;
+                    int label = 0;
+                    for (int j = 0; j < centers.length; j++) {
+                        double dist = Distance.SquaredEuclidean(data[i], centers[j]);
+                        if (dist < nearest) {
+                            nearest = dist;
+                            label = j;
+                        }
+                    }
+                    y[i] = label;
+                    d[i] = nearest;
+                }
+            }
+        });
+        
+        double distortion = 0;
+        for (int i = 0; i < d.length; i++) {
+            distortion += d[i];
+        }
+        return distortion;
+    }
 
     /**
      * Initialize cluster membership of input objects with KMeans++ algorithm.
@@ -0,0 +1,166 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+
+package Catalano.MachineLearning.Dataset;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * CSV batch reader.
+ * Reads the rows of a numeric CSV file in batches, so the file doesn't need to fit in memory.
+ * @author Diego Catalano
+ */
+public class CSVBatchReader implements Iterator<double[][]>, Closeable {
+    
+    private final BufferedReader reader;
+    private final int batchSize;
+    private final int[] columns;
+    private double[][] next;
+    private boolean done;
+
+    /**
+     * Initializes a new instance of the CSVBatchReader class.
+     * The first line is interpreted as header.
+     * @param filepath File path.
+     * @param batchSize Number of rows of each batch.
+     * @throws IOException If the file can't be opened.
+     */
+    public CSVBatchReader(String filepath, int batchSize) throws IOException {
+        this(filepath, batchSize, true, null);
+    }
+    
+    /**
+     * Initializes a new instance of the CSVBatchReader class.
+     * @param filepath File path.
+     * @param batchSize Number of rows of each batch.
+     * @param header True if the first line is the header.
+     * @param columns Index of the columns to be read, null to read all the columns.
+     * @throws IOException If the file can't be opened.
+     */
+    public CSVBatchReader(String filepath, int batchSize, boolean header, int[] columns) throws IOException {
+        this(new InputStreamReader(new FileInputStream(filepath), "UTF-8"), batchSize, header, columns);
+    }
+    
+    /**
+     * Initializes a new instance of the CSVBatchReader class.
+     * @param reader Reader.
+     * @param batchSize Number of rows of each batch.
+     * @param header True if the first line is the header.
+     * @param columns Index of the columns to be read, null to read all the columns.
+     * @throws IOException If the header can't be read.
+     */
+    public CSVBatchReader(Reader reader, int batchSize, boolean header, int[] columns) throws IOException {
+        if(batchSize < 1)
+            throw new IllegalArgumentException("The batch size must be at least 1.");
+        
+        this.reader = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+        this.batchSize = batchSize;
+        this.columns = columns;
+        if(header) this.reader.readLine();
+    }
+
+    /**
+     * Get number of rows of each batch.
+     * @return Number of rows of each batch.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(next == null && !done){
+            try {
+                next = read();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            done = next == null;
+        }
+        return next != null;
+    }
+
+    /**
+     * Get the next batch, the last one can have less rows.
+     * @return Batch.
+     */
+    @Override
+    public double[][] next() {
+        if(!hasNext())
+            throw new NoSuchElementException();
+        
+        double[][] batch = next;
+        next = null;
+        return batch;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Remove is not supported.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    /**
+     * Read the next batch.
+     * @return Batch, null if there are no more rows.
+     * @throws IOException If the rows can't be read.
+     */
+    private double[][] read() throws IOException {
+        List<double[]> rows = new ArrayList<double[]>(batchSize);
+        String line;
+        while(rows.size() < batchSize && (line = reader.readLine()) != null){
+            if(line.trim().isEmpty()) continue;
+            
+            String[] values = line.split(",");
+            double[] row;
+            if(columns == null){
+                row = new double[values.length];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = Double.parseDouble(values[i].trim());
+                }
+            }
+            else{
+                row = new double[columns.length];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = Double.parseDouble(values[columns[i]].trim());
+                }
+            }
+            rows.add(row);
+        }
+        
+        return rows.isEmpty() ? null : rows.toArray(new double[rows.size()][]);
+    }
+}
\ No newline at end of file
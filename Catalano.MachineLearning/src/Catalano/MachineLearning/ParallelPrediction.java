@@ -0,0 +1,105 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.MachineLearning;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.MachineLearning.Classification.IClassifier;
+import Catalano.MachineLearning.Classification.IProbabilisticClassifier;
+import Catalano.MachineLearning.Regression.IRegression;
+
+/**
+ * Default batch prediction. The samples are split across the cores and each
+ * sample is predicted with the single sample method of the model, so the
+ * model must be safe to use from several threads after learning.
+ * 
+ * @author Diego Catalano
+ */
+public final class ParallelPrediction {
+
+    /**
+     * Minimum number of samples predicted by each thread.
+     */
+    private static final int GRAIN = 16;
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private ParallelPrediction() {}
+    
+    /**
+     * Predict a set of samples.
+     * @param classifier Classifier.
+     * @param features Features.
+     * @return Labels.
+     */
+    public static int[] Predict(final IClassifier classifier, final double[][] features){
+        final int[] labels = new int[features.length];
+        ParallelFor.Run(features.length, GRAIN, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    labels[i] = classifier.Predict(features[i]);
+                }
+            }
+        });
+        return labels;
+    }
+    
+    /**
+     * Predict the posteriori probabilities of a set of samples.
+     * @param classifier Classifier.
+     * @param features Features.
+     * @return Posteriori probabilities of each sample.
+     */
+    public static double[][] PredictProbabilities(final IProbabilisticClassifier classifier, final double[][] features){
+        final double[][] prob = new double[features.length][];
+        ParallelFor.Run(features.length, GRAIN, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    prob[i] = classifier.PredictProbabilities(features[i]);
+                }
+            }
+        });
+        return prob;
+    }
+    
+    /**
+     * Predict a set of samples.
+     * @param regression Regression.
+     * @param features Features.
+     * @return Values.
+     */
+    public static double[] Predict(final IRegression regression, final double[][] features){
+        final double[] values = new double[features.length];
+        ParallelFor.Run(features.length, GRAIN, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    values[i] = regression.Predict(features[i]);
+                }
+            }
+        });
+        return values;
+    }
+}
\ No newline at end of file
@@ -28,17 +28,28 @@ import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.MachineLearning.Regression.IRegression;
 import Catalano.MachineLearning.Regression.RegressionMeasure;
 import Catalano.Math.Matrix;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Holdout Validation.
  * Split percentage for training and the rest for the validation.
+ * The training set is a view of the rows of the data, see {@link ParallelValidation}.
  * @author Diego Catalano
  */
-public class HoldoutValidation implements IValidation, IRegressionValidation{
+public class HoldoutValidation implements IFoldValidation, IRegressionValidation{
     
     private float p = .66f;
+    private ValidationReport report;
+
+    /**
+     * Get the report of the last run.
+     * @return Report.
+     */
+    public ValidationReport getReport(){
+        return report;
+    }
 
     /**
      * Get Train percentage.
@@ -76,6 +87,16 @@ public class HoldoutValidation implements IValidation, IRegressionValidation{
     
     @Override
     public double Run(IClassifier classifier, double[][] data, int[] labels){
+        int[][] folds = Folds(data, labels);
+        report = new ParallelValidation().Run(Collections.singletonList(classifier), data, labels, folds);
+        
+        //The classifier keeps the model of the last fold.
+        ParallelValidation.Learn(classifier, data, labels, folds[folds.length - 1]);
+        return report.getMeanAccuracy(0);
+    }
+    
+    @Override
+    public int[][] Folds(double[][] data, int[] labels){
         
         //Count labels and amount.
         HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
@@ -95,20 +116,17 @@ public class HoldoutValidation implements IValidation, IRegressionValidation{
             sizeClass[entry.getKey()] = (int)(entry.getValue() * p);
         }
         
-        //Get the index of training and validation features
+        //Get the index of validation features
         int size = 0;
         for (int i = 0; i < sizeClass.length; i++) {
             size += sizeClass[i];
         }
         
-        int[] indexTraining = new int[size];
         int[] indexValidation = new int[data.length - size];
         
-        int idxT = 0;
         int idxV = 0;
         for (int i = 0; i < data.length; i++) {
             if(sizeClass[labels[i]] > 0){
-                indexTraining[idxT++] = i;
                 sizeClass[labels[i]]--;
             }
             else{
@@ -116,20 +134,7 @@ public class HoldoutValidation implements IValidation, IRegressionValidation{
             }
         }
         
-        //Build data training
-        double[][] train = Matrix.getRows(data, indexTraining);
-        int[] labelsTrain = Matrix.getRows(labels, indexTraining);
-        
-        //Set the model in the classifier
-        classifier.Learn(train, labelsTrain);
-        
-        int pos = 0;
-        for (int i = 0; i < indexValidation.length; i++) {
-            int v = classifier.Predict(data[indexValidation[i]]);
-            if(v == labels[indexValidation[i]]) pos++;
-        }
-        
-        return pos / (double)indexValidation.length;
+        return new int[][] {indexValidation};
     }
 
     @Override
@@ -141,19 +146,15 @@ public class HoldoutValidation implements IValidation, IRegressionValidation{
     public RegressionMeasure Run(IRegression regression, double[][] input, double[] output) {
         int size = (int)(input.length * p);
         
-        //Train data
-        double[][] tempInput = Matrix.Submatrix(input, 0, size, 0, input[0].length - 1);
-        double[] tempOutput = Matrix.getColumns(output, 0, size);
-        
-        regression.Learn(tempInput, tempOutput);
-        
-        //Train validation
+        //Validation data
         int rest = input.length - size;
-        double[] predicted = new double[rest];
+        int[] indexValidation = new int[rest];
         for (int i = 0; i < rest; i++) {
-            predicted[i] = regression.Predict(input[size + i]);
+            indexValidation[i] = size + i;
         }
         
+        double[] predicted = Matrix.getColumns(new ParallelValidation().Run(regression, input, output, new int[][] {indexValidation}), size, output.length - 1);
+        
         //Original labels
         double[] actual = Matrix.getColumns(output, size, output.length - 1);
         
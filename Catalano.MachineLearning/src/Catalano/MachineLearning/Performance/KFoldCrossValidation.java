@@ -26,16 +26,19 @@ import Catalano.Core.ArraysUtil;
 import Catalano.MachineLearning.Classification.IClassifier;
 import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.Math.Matrix;
+import java.util.Collections;
 
 /**
  * KFold Cross Validation.
+ * The folds are trained and validated in parallel, see {@link ParallelValidation}.
  * @author Diego Catalano
  */
-public class KFoldCrossValidation implements IValidation{
+public class KFoldCrossValidation implements IFoldValidation{
     
     private int nFolds;
     private boolean shuffle;
     private long seed;
+    private ValidationReport report;
     
     /**
      * Get number of the folds.
@@ -50,7 +53,15 @@ public class KFoldCrossValidation implements IValidation{
      * @param folds Folds.
      */
     public void setNumberOfFolds(int folds){
-        Math.max(folds, 2);
+        this.nFolds = Math.max(folds, 2);
+    }
+
+    /**
+     * Get the report of the last run.
+     * @return Report.
+     */
+    public ValidationReport getReport(){
+        return report;
     }
 
     /**
@@ -112,6 +123,16 @@ public class KFoldCrossValidation implements IValidation{
 
     @Override
     public double Run(IClassifier classifier, double[][] data, int[] labels) {
+        int[][] folds = Folds(data, labels);
+        report = new ParallelValidation().Run(Collections.singletonList(classifier), data, labels, folds);
+        
+        //The classifier keeps the model of the last fold.
+        ParallelValidation.Learn(classifier, data, labels, folds[folds.length - 1]);
+        return report.getMeanAccuracy(0);
+    }
+
+    @Override
+    public int[][] Folds(double[][] data, int[] labels) {
         
         if(nFolds > data.length)
             throw new IllegalArgumentException("The number of folds must be less or equal than number of samples.");
@@ -134,7 +155,7 @@ public class KFoldCrossValidation implements IValidation{
             ArraysUtil.Shuffle(indexes, seed);
         }    
         
-        double mean = 0;
+        int[][] folds = new int[nFolds][];
         for (int i = 0; i < nFolds; i++) {
             
             //The last fold, we need to select all the rest.
@@ -145,28 +166,15 @@ public class KFoldCrossValidation implements IValidation{
                 end += parts;
             }
             
-            //Get the indexes for train/test
-            int[] ind = Matrix.getColumns(indexes, Matrix.Indices(start, end));
-            
-            //Train data
-            double[][] inputTrain = Matrix.RemoveRows(data, ind);
-            int[] outputTrain = Matrix.RemoveColumns(labels, ind);
-            
-            //Test data
-            double[][] inputTest = Matrix.getRows(data, Matrix.Indices(start, end));
-            int[] outputTest = Matrix.getRows(labels, Matrix.Indices(start, end));
-            
-            classifier.Learn(inputTrain, outputTrain);
-            
-            SuppliedValidation sv = new SuppliedValidation();
-            mean += sv.Run(classifier, inputTest, outputTest);
+            //Get the indexes for test
+            folds[i] = Matrix.getColumns(indexes, Matrix.Indices(start, end));
             
             start = end;
             
         }
         
-        return mean/nFolds;
+        return folds;
         
     }
     
-}
+}
\ No newline at end of file
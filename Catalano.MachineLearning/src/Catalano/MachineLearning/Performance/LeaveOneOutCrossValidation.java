@@ -27,15 +27,26 @@ import Catalano.MachineLearning.Dataset.DatasetClassification;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.MachineLearning.Regression.IRegression;
 import Catalano.MachineLearning.Regression.RegressionMeasure;
-import Catalano.Math.Matrix;
+import java.util.Collections;
 
 /**
  * Leave One Out cross validation.
  * Leave one out for validation and the rest for train.
+ * The folds are trained and validated in parallel, see {@link ParallelValidation}.
  * 
  * @author Diego Catalano
  */
-public class LeaveOneOutCrossValidation implements IValidation, IRegressionValidation{
+public class LeaveOneOutCrossValidation implements IFoldValidation, IRegressionValidation{
+    
+    private ValidationReport report;
+
+    /**
+     * Get the report of the last run.
+     * @return Report.
+     */
+    public ValidationReport getReport(){
+        return report;
+    }
 
     /**
      * Initializes a new instance of the LeaveOneOutCrossValidation class.
@@ -49,18 +60,21 @@ public class LeaveOneOutCrossValidation implements IValidation, IRegressionValid
 
     @Override
     public double Run(IClassifier classifier, final double[][] data, final int[] labels) {
-        int p = 0;
-        for (int i = 0; i < data.length; i++) {
-            double[][] a = Matrix.RemoveRow(data, i);
-            int[] b = Matrix.RemoveColumn(labels, i);
-            classifier.Learn(a, b);
-            if(classifier.Predict(data[i]) == labels[i])
-                p++;
-            
-        }
-        
-        return p / (double)data.length;
+        int[][] folds = Folds(data, labels);
+        report = new ParallelValidation().Run(Collections.singletonList(classifier), data, labels, folds);
         
+        //The classifier keeps the model of the last fold.
+        ParallelValidation.Learn(classifier, data, labels, folds[folds.length - 1]);
+        return report.getMeanAccuracy(0);
+    }
+
+    @Override
+    public int[][] Folds(double[][] data, int[] labels) {
+        int[][] folds = new int[data.length][];
+        for (int i = 0; i < folds.length; i++) {
+            folds[i] = new int[] {i};
+        }
+        return folds;
     }
 
     @Override
@@ -70,14 +84,7 @@ public class LeaveOneOutCrossValidation implements IValidation, IRegressionValid
 
     @Override
     public RegressionMeasure Run(IRegression regression, double[][] input, double[] output) {
-        double[] predicted = new double[input.length];
-        for (int i = 0; i < input.length; i++) {
-            double[][] tempInput = Matrix.RemoveRow(input, i);
-            double[] tempOutput = Matrix.RemoveColumn(output, i);
-            
-            regression.Learn(tempInput, tempOutput);
-            predicted[i] = regression.Predict(input[i]);
-        }
+        double[] predicted = new ParallelValidation().Run(regression, input, output, Folds(input, null));
         
         double mae = RegressionMeasure.MeanAbsoluteError(output, predicted);
         double mse = RegressionMeasure.MeanSquaredError(output, predicted);
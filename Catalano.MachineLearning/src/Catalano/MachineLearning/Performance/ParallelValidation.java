@@ -0,0 +1,248 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+
+package Catalano.MachineLearning.Performance;
+
+import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.MachineLearning.Classification.IClassifier;
+import Catalano.MachineLearning.Regression.IRegression;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel validation.
+ * <p>
+ * Each pair of classifier and fold is a task: a clone of the classifier is trained
+ * with the samples out of the fold and validated with the samples of the fold.
+ * The tasks are computed concurrently, but no more than the maximum of concurrent tasks,
+ * so only that number of trained models are kept in memory at the same time.
+ * The training sets are views of the rows of the data, the samples are not copied.
+ * 
+ * @author Diego Catalano
+ */
+public class ParallelValidation {
+    
+    private int maxConcurrentTasks;
+
+    /**
+     * Get maximum number of concurrent tasks.
+     * @return Maximum number of concurrent tasks.
+     */
+    public int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+
+    /**
+     * Set maximum number of concurrent tasks.
+     * @param maxConcurrentTasks Maximum number of concurrent tasks.
+     */
+    public void setMaxConcurrentTasks(int maxConcurrentTasks) {
+        this.maxConcurrentTasks = Math.max(1, maxConcurrentTasks);
+    }
+
+    /**
+     * Initializes a new instance of the ParallelValidation class.
+     */
+    public ParallelValidation() {
+        this(MulticoreExecutor.getThreadPoolSize());
+    }
+
+    /**
+     * Initializes a new instance of the ParallelValidation class.
+     * @param maxConcurrentTasks Maximum number of concurrent tasks.
+     */
+    public ParallelValidation(int maxConcurrentTasks) {
+        setMaxConcurrentTasks(maxConcurrentTasks);
+    }
+    
+    /**
+     * Run the validation.
+     * The classifiers are not modified, each task trains a clone.
+     * @param classifiers List of classifiers.
+     * @param data Data.
+     * @param labels Labels.
+     * @param folds Indexes of the validation samples of each fold.
+     * @return Report.
+     */
+    public ValidationReport Run(final List<IClassifier> classifiers, final double[][] data, final int[] labels, final int[][] folds){
+        
+        if(data.length != labels.length)
+            throw new IllegalArgumentException(String.format("The sizes of data and labels don't match: %d != %d", data.length, labels.length));
+        
+        final ValidationReport report = new ValidationReport(classifiers.size(), folds.length);
+        final int nFolds = folds.length;
+        
+        run(classifiers.size() * nFolds, new Task() {
+            @Override
+            public void Compute(int index) {
+                int c = index / nFolds;
+                int f = index % nFolds;
+                int[] test = folds[f];
+                
+                //Train data
+                int[] train = Complement(data.length, test);
+                double[][] inputTrain = new double[train.length][];
+                int[] outputTrain = new int[train.length];
+                for (int i = 0; i < train.length; i++) {
+                    inputTrain[i] = data[train[i]];
+                    outputTrain[i] = labels[train[i]];
+                }
+                
+                IClassifier classifier = classifiers.get(c).clone();
+                
+                long start = System.nanoTime();
+                classifier.Learn(inputTrain, outputTrain);
+                long learned = System.nanoTime();
+                
+                int pos = 0;
+                for (int i = 0; i < test.length; i++) {
+                    if(classifier.Predict(data[test[i]]) == labels[test[i]])
+                        pos++;
+                }
+                long predicted = System.nanoTime();
+                
+                double accuracy = test.length == 0 ? 0 : pos / (double)test.length;
+                report.set(c, f, accuracy, (learned - start) / 1e6, (predicted - learned) / 1e6);
+            }
+        });
+        
+        return report;
+    }
+    
+    /**
+     * Run the validation.
+     * The regression is not modified, each fold trains a clone.
+     * @param regression Regression.
+     * @param input Input.
+     * @param output Output.
+     * @param folds Indexes of the validation samples of each fold.
+     * @return Predicted value of each sample by the model of its fold.
+     */
+    public double[] Run(final IRegression regression, final double[][] input, final double[] output, final int[][] folds){
+        
+        if(input.length != output.length)
+            throw new IllegalArgumentException(String.format("The sizes of input and output don't match: %d != %d", input.length, output.length));
+        
+        final double[] predicted = new double[input.length];
+        
+        run(folds.length, new Task() {
+            @Override
+            public void Compute(int index) {
+                int[] test = folds[index];
+                
+                //Train data
+                int[] train = Complement(input.length, test);
+                double[][] inputTrain = new double[train.length][];
+                double[] outputTrain = new double[train.length];
+                for (int i = 0; i < train.length; i++) {
+                    inputTrain[i] = input[train[i]];
+                    outputTrain[i] = output[train[i]];
+                }
+                
+                IRegression r = regression.clone();
+                r.Learn(inputTrain, outputTrain);
+                
+                for (int i = 0; i < test.length; i++) {
+                    predicted[test[i]] = r.Predict(input[test[i]]);
+                }
+            }
+        });
+        
+        return predicted;
+    }
+    
+    /**
+     * Train the classifier with the samples out of the fold.
+     * @param classifier Classifier.
+     * @param data Data.
+     * @param labels Labels.
+     * @param fold Indexes of the validation samples of the fold.
+     */
+    public static void Learn(IClassifier classifier, double[][] data, int[] labels, int[] fold){
+        int[] train = Complement(data.length, fold);
+        double[][] inputTrain = new double[train.length][];
+        int[] outputTrain = new int[train.length];
+        for (int i = 0; i < train.length; i++) {
+            inputTrain[i] = data[train[i]];
+            outputTrain[i] = labels[train[i]];
+        }
+        classifier.Learn(inputTrain, outputTrain);
+    }
+    
+    /**
+     * Compute the indexes which are not in the fold.
+     * @param n Number of samples.
+     * @param fold Indexes of the fold.
+     * @return Indexes out of the fold.
+     */
+    public static int[] Complement(int n, int[] fold){
+        boolean[] in = new boolean[n];
+        int size = n;
+        for (int i = 0; i < fold.length; i++) {
+            if(!in[fold[i]]){
+                in[fold[i]] = true;
+                size--;
+            }
+        }
+        
+        int[] idx = new int[size];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if(!in[i]) idx[k++] = i;
+        }
+        return idx;
+    }
+    
+    /**
+     * Task of the validation.
+     */
+    private static interface Task {
+        void Compute(int index);
+    }
+    
+    /**
+     * Compute the tasks [0, n), each worker takes the next task until all of them are done.
+     * @param n Number of tasks.
+     * @param task Task.
+     */
+    private void run(final int n, final Task task){
+        int workers = Math.min(maxConcurrentTasks, Math.min(n, MulticoreExecutor.getThreadPoolSize()));
+        if(workers <= 1){
+            for (int i = 0; i < n; i++) task.Compute(i);
+            return;
+        }
+        
+        // One partition per worker, an error of a task is thrown from here.
+        final AtomicInteger next = new AtomicInteger();
+        ParallelFor.Run(workers, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                int index;
+                while((index = next.getAndIncrement()) < n){
+                    task.Compute(index);
+                }
+            }
+        });
+    }
+}
\ No newline at end of file
@@ -47,9 +47,10 @@ public class SuppliedValidation implements IValidation{
     public double Run(IClassifier classifier, double[][] data, int[] labels) {
         
         //Predict
+        int[] predicted = classifier.Predict(data);
         int pos = 0;
         for (int i = 0; i < data.length; i++) {
-            if(classifier.Predict(data[i]) == labels[i])
+            if(predicted[i] == labels[i])
                 pos++;
         }
         return pos / (double)data.length;
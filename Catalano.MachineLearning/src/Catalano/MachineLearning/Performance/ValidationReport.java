@@ -0,0 +1,143 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+
+package Catalano.MachineLearning.Performance;
+
+/**
+ * Report of a validation.
+ * Keeps the correctly classified rate and the elapsed time of each classifier in each fold.
+ * @author Diego Catalano
+ */
+public class ValidationReport {
+    
+    private final double[][] accuracy;
+    private final double[][] learnTime;
+    private final double[][] predictTime;
+
+    /**
+     * Initializes a new instance of the ValidationReport class.
+     * @param classifiers Number of classifiers.
+     * @param folds Number of folds.
+     */
+    ValidationReport(int classifiers, int folds) {
+        this.accuracy = new double[classifiers][folds];
+        this.learnTime = new double[classifiers][folds];
+        this.predictTime = new double[classifiers][folds];
+    }
+    
+    /**
+     * Set the result of a fold.
+     * @param classifier Index of the classifier.
+     * @param fold Index of the fold.
+     * @param accuracy Correctly classified rate.
+     * @param learnTime Elapsed time of the training in milliseconds.
+     * @param predictTime Elapsed time of the validation in milliseconds.
+     */
+    void set(int classifier, int fold, double accuracy, double learnTime, double predictTime){
+        this.accuracy[classifier][fold] = accuracy;
+        this.learnTime[classifier][fold] = learnTime;
+        this.predictTime[classifier][fold] = predictTime;
+    }
+
+    /**
+     * Get number of classifiers.
+     * @return Number of classifiers.
+     */
+    public int getNumberOfClassifiers(){
+        return accuracy.length;
+    }
+    
+    /**
+     * Get number of folds.
+     * @return Number of folds.
+     */
+    public int getNumberOfFolds(){
+        return accuracy.length == 0 ? 0 : accuracy[0].length;
+    }
+    
+    /**
+     * Get the correctly classified rate.
+     * @param classifier Index of the classifier.
+     * @param fold Index of the fold.
+     * @return Correctly classified rate.
+     */
+    public double getAccuracy(int classifier, int fold){
+        return accuracy[classifier][fold];
+    }
+    
+    /**
+     * Get the mean of the correctly classified rate over the folds.
+     * @param classifier Index of the classifier.
+     * @return Mean of the correctly classified rate.
+     */
+    public double getMeanAccuracy(int classifier){
+        return mean(accuracy[classifier]);
+    }
+    
+    /**
+     * Get the elapsed time of the training.
+     * @param classifier Index of the classifier.
+     * @param fold Index of the fold.
+     * @return Elapsed time in milliseconds.
+     */
+    public double getLearnTime(int classifier, int fold){
+        return learnTime[classifier][fold];
+    }
+    
+    /**
+     * Get the mean of the elapsed time of the training over the folds.
+     * @param classifier Index of the classifier.
+     * @return Elapsed time in milliseconds.
+     */
+    public double getMeanLearnTime(int classifier){
+        return mean(learnTime[classifier]);
+    }
+    
+    /**
+     * Get the elapsed time of the validation.
+     * @param classifier Index of the classifier.
+     * @param fold Index of the fold.
+     * @return Elapsed time in milliseconds.
+     */
+    public double getPredictTime(int classifier, int fold){
+        return predictTime[classifier][fold];
+    }
+    
+    /**
+     * Get the mean of the elapsed time of the validation over the folds.
+     * @param classifier Index of the classifier.
+     * @return Elapsed time in milliseconds.
+     */
+    public double getMeanPredictTime(int classifier){
+        return mean(predictTime[classifier]);
+    }
+    
+    private static double mean(double[] v){
+        if(v.length == 0) return 0;
+        double sum = 0;
+        for (int i = 0; i < v.length; i++) {
+            sum += v[i];
+        }
+        return sum / v.length;
+    }
+}
\ No newline at end of file
@@ -22,11 +22,14 @@
 
 package Catalano.MachineLearning.Regression;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.Math.Matrix;
+import Catalano.Math.Random.Pcg32;
+import Catalano.Math.Random.Random;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Bagging Learning (Bootstrap aggregation).
@@ -34,6 +37,9 @@ import java.util.Random;
  * Bootstrap aggregating, also called bagging, is a machine learning ensemble meta-algorithm designed
  * to improve the stability and accuracy of machine learning algorithms used in statistical classification and regression.
  * 
+ * The models are trained in parallel, each one with its own stream of the seed,
+ * so the ensemble is the same regardless of the number of threads.
+ * 
  * @author Diego Catalano
  */
 public class BaggingLearning implements IRegression{
@@ -42,6 +48,8 @@ public class BaggingLearning implements IRegression{
     private List<IRegression> regressions;
     private IRegression regression;
     private boolean includeAttributes;
+    private int[][] attributes;
+    private long seed;
     
     /**
      * Check if features are drawn with replacement.
@@ -59,6 +67,22 @@ public class BaggingLearning implements IRegression{
         this.includeAttributes = includeAttributes;
     }
 
+    /**
+     * Get random seed.
+     * @return Random seed, 0 if a new seed is chosen in each training.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set random seed.
+     * @param seed Seed, 0 to choose a new seed in each training.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
     /**
      * Initializes a new instance of the BaggingLearning class.
      * @param regression Regression.
@@ -95,45 +119,78 @@ public class BaggingLearning implements IRegression{
     }
     
     @Override
-    public void Learn(double[][] input, double[] output){
+    public void Learn(final double[][] input, final double[] output){
         
-        for (int i = 0; i < times; i++) {
-            
-            //Create random trainning sample
-            Random r = new Random();
-            int[] index = new int[input.length];
-            for (int j = 0; j < index.length; j++) {
-                index[j] = r.nextInt(input.length);
-            }
-            
-            double[][] train = Matrix.getRows(input, index);
-            double[] outputTrain = Matrix.getColumns(output, index);
-            
-            //Create random features subspace
-            if(includeAttributes){
-                index = new int[input[0].length];
-                for (int j = 0; j < index.length; j++) {
-                    index[j] = r.nextInt(input[0].length);
+        final long s = seed != 0 ? seed : new Pcg32().nextLong();
+        final int[][] features = new int[times][];
+        
+        final IRegression[] models = new IRegression[times];
+        ParallelFor.Run(times, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int t = from; t < to; t++) {
+                    
+                    //Create random trainning sample
+                    Random r = new Random(Pcg32.stream(s, t));
+                    int[] index = new int[input.length];
+                    for (int j = 0; j < index.length; j++) {
+                        index[j] = r.nextInt(input.length);
+                    }
+
+                    double[][] train = Matrix.getRows(input, index);
+                    double[] outputTrain = Matrix.getColumns(output, index);
+
+                    //Create random features subspace
+                    if(includeAttributes){
+                        index = new int[input[0].length];
+                        for (int j = 0; j < index.length; j++) {
+                            index[j] = r.nextInt(input[0].length);
+                        }
+
+                        train = Matrix.getColumns(train, index);
+                        features[t] = index;
+                    }
+
+                    IRegression model = regression.clone();
+                    model.Learn(train, outputTrain);
+                    models[t] = model;
                 }
-                
-                train = Matrix.getColumns(train, index);
             }
-            
-            regression.Learn(train, outputTrain);
-            regressions.add(regression.clone());
-        }
+        });
+        
+        regressions = new ArrayList<IRegression>(Arrays.asList(models));
+        attributes = includeAttributes ? features : null;
     }
     
     @Override
     public double Predict(double[] sample){
         double[] map = new double[regressions.size()];
         for (int i = 0; i < map.length; i++) {
-            map[i] = regressions.get(i).Predict(sample);
+            double[] x = attributes == null ? sample : Matrix.getColumns(sample, attributes[i]);
+            map[i] = regressions.get(i).Predict(x);
         }
         
         return Catalano.Statistics.Tools.Mean(map);
     }
     
+    @Override
+    public double[] Predict(double[][] features) {
+        double[] y = new double[features.length];
+        for (int j = 0; j < regressions.size(); j++) {
+            double[][] x = attributes == null ? features : Matrix.getColumns(features, attributes[j]);
+            double[] r = regressions.get(j).Predict(x);
+            for (int i = 0; i < y.length; i++) {
+                y[i] += r[i];
+            }
+        }
+        
+        for (int i = 0; i < y.length; i++) {
+            y[i] /= regressions.size();
+        }
+        
+        return y;
+    }
+    
     @Override
     public IRegression clone() {
         try {
@@ -50,6 +50,13 @@ public interface IRegression extends Cloneable{
      */
     public double Predict(double[] feature);
     
+    /**
+     * Predict a set of samples.
+     * @param features Features.
+     * @return Values.
+     */
+    public double[] Predict(double[][] features);
+    
     /**
      * Clone of the object.
      * @return A new copy of the object.
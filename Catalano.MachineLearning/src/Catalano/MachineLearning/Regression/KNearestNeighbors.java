@@ -23,6 +23,7 @@
 package Catalano.MachineLearning.Regression;
 
 import Catalano.Core.ArraysUtil;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.Math.Distances.IDivergence;
 import Catalano.Math.Distances.SquaredEuclideanDistance;
@@ -42,8 +43,8 @@ public class KNearestNeighbors implements IRegression, Serializable{
     private int k = 3;
     private double[][] input;
     private double[] output;
-    private IDivergence divergence;
-    private IMercerKernel kernel;
+    private IDivergence<double[]> divergence;
+    private IMercerKernel<double[]> kernel;
 
     /**
      * Get number of neighbors.
@@ -81,7 +82,7 @@ public class KNearestNeighbors implements IRegression, Serializable{
      * @param k Number of neighbors.
      * @param divergence Divergence.
      */
-    public KNearestNeighbors(int k, IDivergence divergence) {
+    public KNearestNeighbors(int k, IDivergence<double[]> divergence) {
         this.k = k;
         this.divergence = divergence;
     }
@@ -91,7 +92,7 @@ public class KNearestNeighbors implements IRegression, Serializable{
      * @param k Number of neighbors.
      * @param kernel Kernel.
      */
-    public KNearestNeighbors(int k, IMercerKernel kernel) {
+    public KNearestNeighbors(int k, IMercerKernel<double[]> kernel) {
         this.k = k;
         this.kernel = kernel;
     }
@@ -134,6 +135,56 @@ public class KNearestNeighbors implements IRegression, Serializable{
         return result / (double)k;
     }
     
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each thread reuses its buffers for all of its samples.
+     * @param features Features.
+     * @return Values.
+     */
+    @Override
+    public double[] Predict(final double[][] features){
+        final double[] values = new double[features.length];
+        ParallelFor.Run(features.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                double[] dist = new double[input.length];
+                double[] nearestDist = new double[Math.min(k, input.length)];
+                int[] nearest = new int[nearestDist.length];
+                
+                for (int f = from; f < to; f++) {
+                    if(kernel == null)
+                        for (int i = 0; i < input.length; i++)
+                            dist[i] = divergence.Compute(input[i], features[f]);
+                    else
+                        for (int i = 0; i < input.length; i++)
+                            dist[i] = kernel.Function(input[i], features[f]);
+                    
+                    //Partial selection of the k smallest distances.
+                    int size = 0;
+                    for (int i = 0; i < dist.length; i++) {
+                        if (size == nearest.length && Double.compare(dist[i], nearestDist[size - 1]) >= 0) continue;
+
+                        int j = size < nearest.length ? size++ : size - 1;
+                        while (j > 0 && Double.compare(dist[i], nearestDist[j - 1]) < 0) {
+                            nearestDist[j] = nearestDist[j - 1];
+                            nearest[j] = nearest[j - 1];
+                            j--;
+                        }
+                        nearestDist[j] = dist[i];
+                        nearest[j] = i;
+                    }
+                    
+                    double result = 0;
+                    for (int i = 0; i < size; i++) {
+                        result += output[nearest[i]];
+                    }
+                    values[f] = result / (double)k;
+                }
+            }
+        });
+        return values;
+    }
+    
     @Override
     public IRegression clone() {
         try {
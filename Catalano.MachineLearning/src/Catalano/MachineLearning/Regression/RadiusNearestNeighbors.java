@@ -24,6 +24,7 @@ package Catalano.MachineLearning.Regression;
 
 import Catalano.Core.ArraysUtil;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
+import Catalano.MachineLearning.ParallelPrediction;
 import Catalano.Math.Distances.IDivergence;
 import Catalano.Math.Distances.SquaredEuclideanDistance;
 import Catalano.Math.Tools;
@@ -154,6 +155,11 @@ public class RadiusNearestNeighbors implements IRegression, Serializable{
         
     }
     
+    @Override
+    public double[] Predict(double[][] features) {
+        return ParallelPrediction.Predict(this, features);
+    }
+    
     @Override
     public IRegression clone() {
         try {
@@ -0,0 +1,147 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.MachineLearning.Regression.RegressionTrees;
+
+import java.io.Serializable;
+
+/**
+ * Compiled regression tree.
+ * <p>
+ * The nodes of a trained {@link RegressionTree} are laid out in breadth-first
+ * order as flat arrays (split feature, threshold, child index and output).
+ * The two children of a node are stored side by side, so the traversal
+ * only computes the offset of the next node instead of following references.
+ * Use {@link RegressionTree#Compile()} to build it.
+ *
+ * @author Diego Catalano
+ */
+public class CompiledRegressionTree implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Split feature of each node.
+     */
+    private final int[] feature;
+
+    /**
+     * Split value of each node.
+     */
+    private final double[] threshold;
+
+    /**
+     * Index of the true child of each node. The false child is the next one. Zero for leafs.
+     */
+    private final int[] child;
+
+    /**
+     * Discrete split flag of each node, null if all the splits are continuous.
+     */
+    private final boolean[] discrete;
+
+    /**
+     * Predicted real value of each node.
+     */
+    private final double[] output;
+
+    /**
+     * Initializes a new instance of the CompiledRegressionTree class.
+     * @param feature Split feature of each node.
+     * @param threshold Split value of each node.
+     * @param child Index of the true child of each node.
+     * @param discrete Discrete split flag of each node.
+     * @param output Predicted real value of each node.
+     */
+    CompiledRegressionTree(int[] feature, double[] threshold, int[] child, boolean[] discrete, double[] output) {
+        this.feature = feature;
+        this.threshold = threshold;
+        this.child = child;
+        this.discrete = discrete;
+        this.output = output;
+    }
+
+    /**
+     * Get the number of nodes.
+     * @return Number of nodes.
+     */
+    public int getNumberOfNodes(){
+        return output.length;
+    }
+
+    /**
+     * Predict.
+     * @param feature Feature.
+     * @return Value.
+     */
+    public double Predict(double[] feature){
+        return output[leaf(feature)];
+    }
+
+    /**
+     * Predict sparse binary feature.
+     * @param feature Sparse binary feature.
+     * @return Value.
+     */
+    public double Predict(int[] feature){
+        int node = 0;
+        while (child[node] != 0) {
+            node = child[node] + (feature[this.feature[node]] == (int) threshold[node] ? 0 : 1);
+        }
+        return output[node];
+    }
+
+    /**
+     * Predict a block of samples and accumulate the weighted values.
+     * @param features Features.
+     * @param offset Index of the first sample.
+     * @param length Number of samples.
+     * @param weight Weight of the tree.
+     * @param values Values, values[i] is incremented by weight times the value of features[offset + i].
+     */
+    public void Predict(double[][] features, int offset, int length, double weight, double[] values){
+        for (int i = 0; i < length; i++) {
+            values[i] += weight * output[leaf(features[offset + i])];
+        }
+    }
+
+    /**
+     * Find the leaf of the sample.
+     * @param x Sample.
+     * @return Index of the leaf.
+     */
+    private int leaf(double[] x){
+        int node = 0;
+        if (discrete == null) {
+            while (child[node] != 0) {
+                node = child[node] + (x[feature[node]] <= threshold[node] ? 0 : 1);
+            }
+        } else {
+            while (child[node] != 0) {
+                double v = x[feature[node]];
+                boolean t = discrete[node] ? v == threshold[node] : v <= threshold[node];
+                node = child[node] + (t ? 0 : 1);
+            }
+        }
+        return node;
+    }
+}
@@ -25,9 +25,11 @@
 package Catalano.MachineLearning.Regression.RegressionTrees.Learning;
 
 import Catalano.Core.ArraysUtil;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.MachineLearning.Dataset.DecisionVariable;
 import Catalano.MachineLearning.Regression.IRegression;
+import Catalano.MachineLearning.Regression.RegressionTrees.CompiledRegressionTree;
 import Catalano.MachineLearning.Regression.RegressionTrees.RegressionTree;
 import Catalano.Math.Tools;
 import java.io.Serializable;
@@ -139,6 +141,14 @@ public class GradientBoostingTree implements IRegression, Serializable{
      * Forest of regression trees.
      */
     private RegressionTree[] trees;
+    /**
+     * Compiled trees used for prediction.
+     */
+    private CompiledRegressionTree[] compiled;
+    /**
+     * Number of samples predicted by each tree at once in batch prediction.
+     */
+    private static final int BLOCK_SIZE = 256;
     /**
      * The intercept.
      */
@@ -395,6 +405,11 @@ public class GradientBoostingTree implements IRegression, Serializable{
                 importance[i] += imp[i];
             }
         }
+        
+        compiled = new CompiledRegressionTree[trees.length];
+        for (int i = 0; i < trees.length; i++) {
+            compiled[i] = trees[i].Compile();
+        }
     }
     
     
@@ -602,19 +617,47 @@ public class GradientBoostingTree implements IRegression, Serializable{
         
         if (T < trees.length) {
             trees = Arrays.copyOf(trees, T);
+            compiled = Arrays.copyOf(compiled, T);
         }
     }
     
     @Override
     public double Predict(double[] feature) {
         double y = b;
-        for (int i = 0; i < T; i++) {
-            y += shrinkage * trees[i].Predict(feature);
+        for (CompiledRegressionTree tree : compiled) {
+            y += shrinkage * tree.Predict(feature);
         }
         
         return y;
     }
     
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each tree is evaluated over a block of samples before moving to the
+     * next tree, so the nodes stay in cache.
+     * @param features Features.
+     * @return Values.
+     */
+    @Override
+    public double[] Predict(final double[][] features) {
+        final double[] y = new double[features.length];
+        ParallelFor.Run(features.length, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                double[] block = new double[Math.min(BLOCK_SIZE, to - from)];
+                for (int offset = from; offset < to; offset += BLOCK_SIZE) {
+                    int length = Math.min(BLOCK_SIZE, to - offset);
+                    Arrays.fill(block, b);
+                    for (CompiledRegressionTree tree : compiled) {
+                        tree.Predict(features, offset, length, shrinkage, block);
+                    }
+                    System.arraycopy(block, 0, y, offset, length);
+                }
+            }
+        });
+        return y;
+    }
+    
     @Override
     public IRegression clone() {
         try {
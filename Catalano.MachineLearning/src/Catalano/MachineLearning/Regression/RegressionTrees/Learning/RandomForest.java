@@ -26,14 +26,18 @@ package Catalano.MachineLearning.Regression.RegressionTrees.Learning;
 
 import Catalano.Core.ArraysUtil;
 import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.MachineLearning.Dataset.DecisionVariable;
 import Catalano.MachineLearning.Regression.IRegression;
+import Catalano.MachineLearning.Regression.RegressionTrees.CompiledRegressionTree;
 import Catalano.MachineLearning.Regression.RegressionTrees.RegressionTree;
+import Catalano.Math.Random.Pcg32;
 import Catalano.Math.Random.Random;
 import Catalano.Math.Tools;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -82,12 +86,22 @@ public class RandomForest implements IRegression, Serializable{
     private int T;
     private int M;
     private int S;
-    
+    private long seed;
     
     /**
      * Forest of regression trees.
      */
     private List<RegressionTree> trees;
+    
+    /**
+     * Compiled trees used for prediction.
+     */
+    private CompiledRegressionTree[] compiled;
+    
+    /**
+     * Number of samples predicted by each tree at once in batch prediction.
+     */
+    private static final int BLOCK_SIZE = 256;
     /**
      * Out-of-bag estimation of RMSE, which is quite accurate given that
      * enough trees have been grown (otherwise the OOB estimate can
@@ -133,46 +147,47 @@ public class RandomForest implements IRegression, Serializable{
          */
         int S;
         /**
-         * Predictions of of out-of-bag samples.
+         * Seed of the forest.
          */
-        double[] prediction;
+        long seed;
         /**
-         * Out-of-bag sample
+         * Index of the tree, which is the stream of the seed.
          */
-        int[] oob;
+        int index;
+        /**
+         * Out-of-bag samples, bit i is set if the sample i was not drawn.
+         */
+        long[] outOfBag;
 
         /**
          * Constructor.
          */
-        TrainingTask(DecisionVariable[] attributes, double[][] x, double[] y, int[][] order, int M, int S, double[] prediction, int[] oob) {
+        TrainingTask(DecisionVariable[] attributes, double[][] x, double[] y, int[][] order, int M, int S, long seed, int index) {
             this.attributes = attributes;
             this.x = x;
             this.y = y;
             this.order = order;
             this.M = M;
             this.S = S;
-            this.prediction = prediction;
-            this.oob = oob;
+            this.seed = seed;
+            this.index = index;
         }
 
         @Override
         public RegressionTree call() {
             int n = x.length;
-            Random random = new Random(Thread.currentThread().getId() * System.currentTimeMillis());
+            Random random = new Random(Pcg32.stream(seed, index));
             int[] samples = new int[n]; // Training samples draw with replacement.
             for (int i = 0; i < n; i++) {
                 samples[random.nextInt(n)]++;
             }
             
-            RegressionTree tree = new RegressionTree(attributes, x, y, M, S, order, samples);
+            RegressionTree tree = new RegressionTree(attributes, x, y, M, S, order, samples, random);
             
+            outOfBag = new long[(n + 63) >>> 6];
             for (int i = 0; i < n; i++) {
                 if (samples[i] == 0) {
-                    double pred = tree.Predict(x[i]);
-                    synchronized (x[i]) {
-                        prediction[i] += pred;
-                        oob[i]++;
-                    }
+                    outOfBag[i >>> 6] |= 1L << i;
                 }
             }
             
@@ -330,6 +345,24 @@ public class RandomForest implements IRegression, Serializable{
         return trees.size();
     }
     
+    /**
+     * Get random seed.
+     * @return Random seed, 0 if a new seed is chosen in each training.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set random seed.
+     * Each tree is trained with its own stream of the seed, so the forest is
+     * the same regardless of the number of threads.
+     * @param seed Seed, 0 to choose a new seed in each training.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
     /**
      * Trims the tree model set to a smaller size in case of over-fitting.
      * Or if extra decision trees in the model don't improve the performance,
@@ -353,6 +386,7 @@ public class RandomForest implements IRegression, Serializable{
         }
         
         trees = model;
+        compiled = Arrays.copyOf(compiled, T);
     }
     
     private void BuildModel(DecisionVariable[] attributes, double[][] x, double[] y, int T, int M, int S){
@@ -376,14 +410,13 @@ public class RandomForest implements IRegression, Serializable{
             throw new IllegalArgumentException("Invalid minimum leaf node size: " + S);
         }
         
-        int n = x.length;
-        double[] prediction = new double[n];
-        int[] oob = new int[n];
+        final int n = x.length;
         
+        long s = seed != 0 ? seed : new Pcg32().nextLong();
         int[][] order = sort(attributes, x);
-        List<TrainingTask> tasks = new ArrayList<TrainingTask>();
+        final List<TrainingTask> tasks = new ArrayList<TrainingTask>();
         for (int i = 0; i < T; i++) {
-            tasks.add(new TrainingTask(attributes, x, y, order, M, S, prediction, oob));
+            tasks.add(new TrainingTask(attributes, x, y, order, M, S, s, i));
         }
         
         try {
@@ -397,6 +430,39 @@ public class RandomForest implements IRegression, Serializable{
             }
         }
         
+        importance = new double[attributes.length];
+        for (RegressionTree tree : trees) {
+            double[] imp = tree.getImportance();
+            for (int i = 0; i < imp.length; i++) {
+                importance[i] += imp[i];
+            }
+        }
+        
+        compiled = new CompiledRegressionTree[trees.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = trees.get(i).Compile();
+        }
+        
+        // Out-of-bag predictions, summed in the order of the trees.
+        final double[] prediction = new double[n];
+        final int[] oob = new int[n];
+        final double[][] data = x;
+        ParallelFor.Run(n, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int t = 0; t < compiled.length; t++) {
+                    long[] outOfBag = tasks.get(t).outOfBag;
+                    for (int i = from; i < to; i++) {
+                        if ((outOfBag[i >>> 6] & (1L << i)) != 0) {
+                            prediction[i] += compiled[t].Predict(data[i]);
+                            oob[i]++;
+                        }
+                    }
+                }
+            }
+        });
+        
+        error = 0;
         int m = 0;
         for (int i = 0; i < n; i++) {
             if (oob[i] > 0) {
@@ -409,14 +475,6 @@ public class RandomForest implements IRegression, Serializable{
         if (m > 0) {
             error = Math.sqrt(error / m);
         }
-        
-        importance = new double[attributes.length];
-        for (RegressionTree tree : trees) {
-            double[] imp = tree.getImportance();
-            for (int i = 0; i < imp.length; i++) {
-                importance[i] += imp[i];
-            }
-        }
     }
     
     @Override
@@ -432,11 +490,39 @@ public class RandomForest implements IRegression, Serializable{
     @Override
     public double Predict(double[] x) {
         double y = 0;
-        for (RegressionTree tree : trees) {
+        for (CompiledRegressionTree tree : compiled) {
             y += tree.Predict(x);
         }
         
-        return y / trees.size();
+        return y / compiled.length;
+    }
+    
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each tree is evaluated over a block of samples before moving to the
+     * next tree, so the nodes stay in cache.
+     * @param features Features.
+     * @return Values.
+     */
+    @Override
+    public double[] Predict(final double[][] features) {
+        final double[] y = new double[features.length];
+        final double w = 1.0 / compiled.length;
+        ParallelFor.Run(features.length, BLOCK_SIZE, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                double[] block = new double[Math.min(BLOCK_SIZE, to - from)];
+                for (int offset = from; offset < to; offset += BLOCK_SIZE) {
+                    int length = Math.min(BLOCK_SIZE, to - offset);
+                    Arrays.fill(block, 0);
+                    for (CompiledRegressionTree tree : compiled) {
+                        tree.Predict(features, offset, length, w, block);
+                    }
+                    System.arraycopy(block, 0, y, offset, length);
+                }
+            }
+        });
+        return y;
     }
     
     @Override
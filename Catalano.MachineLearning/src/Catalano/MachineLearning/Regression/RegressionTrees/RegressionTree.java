@@ -26,10 +26,12 @@ package Catalano.MachineLearning.Regression.RegressionTrees;
 
 import Catalano.Core.ArraysUtil;
 import Catalano.Core.Concurrent.MulticoreExecutor;
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Dataset.DecisionVariable;
 import Catalano.MachineLearning.Classification.DecisionTrees.Learning.RandomForest;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.MachineLearning.Regression.IRegression;
+import Catalano.Math.Random.Random;
 import Catalano.Math.Tools;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -127,6 +129,11 @@ public class RegressionTree implements IRegression, Serializable{
      * attributes will be sorted.
      */
     private transient int[][] order;
+    
+    /**
+     * Random number generator of the variables to split on, null to use the shared generator.
+     */
+    private transient Random random;
 
     /**
      * Get number of maximum leafs.
@@ -345,8 +352,12 @@ public class RegressionTree implements IRegression, Serializable{
             if (M < p) {
                 // Training of Random Forest will get into this race condition.
                 // smile.math.Math uses a static object of random number generator.
-                synchronized (RegressionTree.class) {
-                    Tools.Permutate(variables);
+                if (random != null) {
+                    random.permutate(variables);
+                } else {
+                    synchronized (RegressionTree.class) {
+                        Tools.Permutate(variables);
+                    }
                 }
                 
                 // Random forest already runs on parallel.
@@ -947,6 +958,27 @@ public class RegressionTree implements IRegression, Serializable{
      * samples[i] is the number of sampling for instance i.
      */
     public RegressionTree(DecisionVariable[] attributes, double[][] x, double[] y, int M, int S, int[][] order, int[] samples) {
+        this(attributes, x, y, M, S, order, samples, null);
+    }
+    
+    /**
+     * Constructor. Learns a regression tree for random forest.
+     *
+     * @param attributes the attribute properties.
+     * @param x the training instances. 
+     * @param y the response variable.
+     * @param order the index of training values in ascending order. Note
+     * that only numeric attributes need be sorted.
+     * @param M the number of input variables to pick to split on at each
+     * node. It seems that dim/3 give generally good performance, where dim
+     * is the number of variables.
+     * @param S number of instances in a node below which the tree will
+     * not split, setting S = 5 generally gives good results.
+     * @param samples the sample set of instances for stochastic learning.
+     * samples[i] is the number of sampling for instance i.
+     * @param random Random number generator of the variables to split on, null to use the shared generator.
+     */
+    public RegressionTree(DecisionVariable[] attributes, double[][] x, double[] y, int M, int S, int[][] order, int[] samples, Random random) {
         if (x.length != y.length) {
             throw new IllegalArgumentException(String.format("The sizes of X and Y don't match: %d != %d", x.length, y.length));
         }
@@ -976,6 +1008,7 @@ public class RegressionTree implements IRegression, Serializable{
         this.M = M;
         this.S = S;
         this.order = order;
+        this.random = random;
         importance = new double[attributes.length];
         
         int n = 0;
@@ -1089,6 +1122,68 @@ public class RegressionTree implements IRegression, Serializable{
         return root.predict(feature);
     }
     
+    /**
+     * Compile the trained tree into flat arrays for fast prediction.
+     * @return Compiled regression tree.
+     */
+    public CompiledRegressionTree Compile() {
+        // Breadth-first layout, the children of a node are stored side by side.
+        List<Node> nodes = new ArrayList<Node>();
+        nodes.add(root);
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (node.trueChild != null && node.falseChild != null) {
+                nodes.add(node.trueChild);
+                nodes.add(node.falseChild);
+            }
+        }
+        
+        int n = nodes.size();
+        int[] feature = new int[n];
+        double[] threshold = new double[n];
+        int[] child = new int[n];
+        boolean[] discrete = new boolean[n];
+        double[] output = new double[n];
+        boolean hasDiscrete = false;
+        
+        int next = 1;
+        for (int i = 0; i < n; i++) {
+            Node node = nodes.get(i);
+            output[i] = node.output;
+            if (node.trueChild != null && node.falseChild != null) {
+                feature[i] = node.splitFeature;
+                threshold[i] = node.splitValue;
+                child[i] = next;
+                next += 2;
+                
+                // Trees learned on sparse binary samples don't have attributes.
+                if (attributes == null || attributes[node.splitFeature].type == DecisionVariable.Type.Discrete) {
+                    discrete[i] = true;
+                    hasDiscrete = true;
+                } else if (attributes[node.splitFeature].type != DecisionVariable.Type.Continuous) {
+                    throw new IllegalStateException("Unsupported attribute type: " + attributes[node.splitFeature].type);
+                }
+            }
+        }
+        
+        return new CompiledRegressionTree(feature, threshold, child, hasDiscrete ? discrete : null, output);
+    }
+    
+    @Override
+    public double[] Predict(final double[][] features) {
+        final CompiledRegressionTree tree = Compile();
+        final double[] result = new double[features.length];
+        ParallelFor.Run(features.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                double[] values = new double[to - from];
+                tree.Predict(features, from, to - from, 1, values);
+                System.arraycopy(values, 0, result, from, values.length);
+            }
+        });
+        return result;
+    }
+    
     @Override
     public IRegression clone() {
         try {
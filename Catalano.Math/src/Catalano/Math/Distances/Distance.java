@@ -395,6 +395,23 @@ public final class Distance {
         return diff;
     }
     
+    /**
+     * Gets the Hamming distance between two bit-packed binary strings.
+     * @param first First binary string, 64 bits per word.
+     * @param second Second binary string, 64 bits per word.
+     * @return The Hamming distance between p and q.
+     */
+    public static int Hamming(long[] first, long[] second){
+        
+        if(first.length != second.length)
+            throw new IllegalArgumentException("The size of binary string must be the same.");
+        
+        int diff = 0;
+        for (int i = 0; i < first.length; i++)
+            diff += Long.bitCount(first[i] ^ second[i]);
+        return diff;
+    }
+    
     /**
      * Gets the Jaccard distance between two points.
      * @param p A point in space.
@@ -69,6 +69,22 @@ public class Pcg32 implements IRandomNumberGenerator{
         seed(initState, initSeq);
     }
 
+    /**
+     * Creates the random number generator of an independent stream derived from a seed.
+     * <p>
+     * Parallel tasks that take the stream of their own index get the same sequences
+     * regardless of the number of threads and of the order the tasks run.
+     * The state is scrambled from the seed and the stream number, so the
+     * sequences of consecutive streams are not correlated.
+     *
+     * @param seed Seed shared by all the streams.
+     * @param stream Stream number.
+     * @return Random number generator of the stream.
+     */
+    public static Pcg32 stream(long seed, long stream) {
+        return new Pcg32(mix(seed + (stream + 1) * 0x9E3779B97F4A7C15L), stream);
+    }
+
     /**
      * Creates a new random number generator using current time (returned by {@link System#nanoTime()}) as the seed
      * and a unique stream number.
@@ -263,6 +279,15 @@ public class Pcg32 implements IRandomNumberGenerator{
         seed(System.nanoTime(), streamUniquifier());
     }
 
+    /**
+     * Finalizer of the SplitMix64 generator, spreads the bits of the value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
     private static long streamUniquifier() {
         for (;;) {
             long current = streamUniquifier.get();
@@ -28,16 +28,23 @@
 
 package Catalano.Neuro.Regression;
 
+import Catalano.Core.Concurrent.ParallelFor;
 import Catalano.MachineLearning.Dataset.DatasetRegression;
 import Catalano.MachineLearning.Regression.IRegression;
 import Catalano.Math.Matrix;
 import Catalano.Neuro.ActivationFunction.IActivationFunction;
 import Catalano.Neuro.ActivationFunction.LinearFunction;
+import Catalano.Neuro.SequentialLeastSquares;
 import java.io.Serializable;
 import java.util.Random;
 
 /**
  * Extreme Learning Machine.
+ * <p>
+ * The samples are learned in chunks, so only a chunk of the hidden layer is
+ * kept in memory, and the model can be updated with new samples by
+ * {@link #Update(double[][], double[])}, online sequential learning.
+ * 
  * @author Diego Catalano
  */
 public class ExtremeLearningMachine implements IRegression, Serializable{
@@ -46,10 +53,12 @@ public class ExtremeLearningMachine implements IRegression, Serializable{
     private IActivationFunction function;
     private double c = 1;
     private long seed = 0;
+    private int chunkSize = 1000;
     
     private double[] bias;
     private double[][] inputWeight;
     private double[] outputWeight;
+    private SequentialLeastSquares leastSquares;
 
     /**
      * Get the number of hidden nodes.
@@ -83,6 +92,24 @@ public class ExtremeLearningMachine implements IRegression, Serializable{
         this.c = Math.max(1, c);
     }
 
+    /**
+     * Get the number of samples of each chunk.
+     * @return Chunk size.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Set the number of samples of each chunk.
+     * @param chunkSize Chunk size.
+     */
+    public void setChunkSize(int chunkSize) {
+        if(chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be at least 1.");
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * Get the bias of the hidden nodes.
      * @return Bias of the hidden nodes.
@@ -218,54 +245,87 @@ public class ExtremeLearningMachine implements IRegression, Serializable{
 
     @Override
     public void Learn(double[][] input, double[] output) {
+        leastSquares = null;
+        Update(input, output);
+    }
+    
+    /**
+     * Update the model with new samples.
+     * The output weights are the same of learning all the samples at once.
+     * @param input Input.
+     * @param output Output.
+     */
+    public void Update(double[][] input, double[] output) {
         
-        Random r = new Random();
-        if(seed != 0) r.setSeed(seed);
-        
-        //Transpose initial data
-        double[][] _input = Matrix.Transpose(input);
-        
-        //Create InputWeight (w_i)
-        inputWeight = new double[nHiddenNodes][_input.length];
-        for (int i = 0; i < inputWeight.length; i++) {
-            for (int j = 0; j < inputWeight[0].length; j++) {
-                inputWeight[i][j] = r.nextDouble()* 2 - 1;
+        if(leastSquares == null){
+            Random r = new Random();
+            if(seed != 0) r.setSeed(seed);
+            
+            //Create InputWeight (w_i)
+            inputWeight = new double[nHiddenNodes][input[0].length];
+            for (int i = 0; i < inputWeight.length; i++) {
+                for (int j = 0; j < inputWeight[0].length; j++) {
+                    inputWeight[i][j] = r.nextDouble()* 2 - 1;
+                }
             }
-        }
-        
-        //Create random biases BiasofHiddenNeurons
-        bias = new double[nHiddenNodes];
-        for (int i = 0; i < bias.length; i++) {
-            bias[i] = r.nextDouble();
-        }
-        
-        //Add bias
-        double[][] h = Matrix.Multiply(inputWeight, _input);
-        for (int i = 0; i < h.length; i++) {
-            for (int j = 0; j < h[0].length; j++) {
-                h[i][j] += bias[i];
+
+            //Create random biases BiasofHiddenNeurons
+            bias = new double[nHiddenNodes];
+            for (int i = 0; i < bias.length; i++) {
+                bias[i] = r.nextDouble();
             }
+            
+            leastSquares = new SequentialLeastSquares(nHiddenNodes, 1, c);
         }
         
-        //Compute functions
-        for (int i = 0; i < h.length; i++) {
-            for (int j = 0; j < h[0].length; j++) {
-                h[i][j] = function.Function(h[i][j]);
+        int size = Math.min(chunkSize, input.length);
+        double[][] h = new double[size][inputWeight.length];
+        double[][] t = new double[size][1];
+        for (int from = 0; from < input.length; from += size) {
+            int length = Math.min(size, input.length - from);
+            
+            Hidden(input, from, length, h);
+            for (int i = 0; i < length; i++) {
+                t[i][0] = output[from + i];
             }
-        }
-        
-        //Add regularization factor.
-        double[][] b = Matrix.MultiplyByTranspose(h);
-        
-        for (int i = 0; i < b.length; i++) {
-            b[i][i] += 1.0/c;
+            leastSquares.Add(h, t, length);
         }
         
         //Calculate the output weight
-        double[][] temp = Matrix.Multiply(Matrix.Inverse(b), h);
-        outputWeight = Matrix.MultiplyByTranspose(temp, output);
+        double[][] beta = leastSquares.Solve();
+        outputWeight = new double[beta.length];
+        for (int i = 0; i < beta.length; i++) {
+            outputWeight[i] = beta[i][0];
+        }
         
     }
+    
+    /**
+     * Compute the hidden layer of a chunk of samples in parallel.
+     * @param input Input.
+     * @param offset Index of the first sample.
+     * @param length Number of samples.
+     * @param h Receives the hidden layer of each sample.
+     */
+    private void Hidden(final double[][] input, final int offset, int length, final double[][] h) {
+        ParallelFor.Run(length, 64, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int s = from; s < to; s++) {
+                    double[] x = input[offset + s];
+                    double[] hs = h[s];
+                    for (int i = 0; i < hs.length; i++) {
+                        double[] w = inputWeight[i];
+                        double r = 0;
+                        for (int j = 0; j < w.length; j++) {
+                            r += w[j] * x[j];
+                        }
+                        hs[i] = function.Function(r + bias[i]);
+                    }
+                }
+            }
+        });
+    }
 
     @Override
     public double Predict(double[] feature) {
@@ -282,10 +342,43 @@ public class ExtremeLearningMachine implements IRegression, Serializable{
         
     }
 
+    /**
+     * Predict a set of samples. The samples are split across the cores and
+     * each thread reuses the hidden layer buffer for all of its samples.
+     * @param features Features.
+     * @return Values.
+     */
+    @Override
+    public double[] Predict(final double[][] features) {
+        final double[] values = new double[features.length];
+        ParallelFor.Run(features.length, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                double[] h = new double[inputWeight.length];
+                for (int s = from; s < to; s++) {
+                    double[] x = features[s];
+                    for (int i = 0; i < h.length; i++) {
+                        double[] w = inputWeight[i];
+                        double r = 0;
+                        for (int j = 0; j < w.length; j++) {
+                            r += w[j] * x[j];
+                        }
+                        h[i] = function.Function(r + bias[i]);
+                    }
+                    
+                    values[s] = Matrix.InnerProduct(h, outputWeight);
+                }
+            }
+        });
+        return values;
+    }
+
     @Override
     public IRegression clone() {
         try {
-            return (IRegression)super.clone();
+            ExtremeLearningMachine elm = (ExtremeLearningMachine)super.clone();
+            if(leastSquares != null) elm.leastSquares = leastSquares.clone();
+            return elm;
         } catch (CloneNotSupportedException ex) {
             throw new IllegalArgumentException("Clone not supported: " + ex.getMessage());
         }
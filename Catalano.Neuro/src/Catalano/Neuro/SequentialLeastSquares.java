@@ -0,0 +1,184 @@
+// Catalano Machine Learning Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Neuro;
+
+import Catalano.Core.Concurrent.ParallelFor;
+import Catalano.Math.Decompositions.CholeskyDecomposition;
+import java.io.Serializable;
+
+/**
+ * Sequential least squares of the output layer of an extreme learning machine.
+ * <p>
+ * The hidden layer outputs H and the targets T are added chunk by chunk,
+ * keeping only K = H'H + I/c and Q = H'T. The output weights K^-1 Q are
+ * the same of learning all the samples at once, with memory independent of
+ * the number of samples, and are solved by a Cholesky decomposition instead
+ * of an inverse.
+ * 
+ * @author Diego Catalano
+ */
+public class SequentialLeastSquares implements Cloneable, Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private int inputs;
+    private int outputs;
+    private long count;
+    
+    // upper triangle of H'H + I/c
+    private double[][] k;
+    private double[][] q;
+    private double[] sum;
+
+    /**
+     * Get the number of inputs, the hidden nodes.
+     * @return Number of inputs.
+     */
+    public int getNumberOfInputs() {
+        return inputs;
+    }
+
+    /**
+     * Get the number of outputs.
+     * @return Number of outputs.
+     */
+    public int getNumberOfOutputs() {
+        return outputs;
+    }
+    
+    /**
+     * Add outputs, the targets of the samples already added are set to a value.
+     * @param outputs Number of outputs.
+     * @param value Target of the new outputs of the previous samples.
+     */
+    public void setNumberOfOutputs(int outputs, double value) {
+        if(outputs < this.outputs)
+            throw new IllegalArgumentException("The number of outputs can't decrease.");
+        
+        for (int i = 0; i < inputs; i++) {
+            double[] row = new double[outputs];
+            System.arraycopy(q[i], 0, row, 0, this.outputs);
+            for (int j = this.outputs; j < outputs; j++)
+                row[j] = value * sum[i];
+            q[i] = row;
+        }
+        this.outputs = outputs;
+    }
+
+    /**
+     * Get the number of samples added.
+     * @return Number of samples.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Initializes a new instance of the SequentialLeastSquares class.
+     * @param inputs Number of inputs, the hidden nodes.
+     * @param outputs Number of outputs.
+     * @param c Regularization factor.
+     */
+    public SequentialLeastSquares(int inputs, int outputs, double c) {
+        if(c <= 0)
+            throw new IllegalArgumentException("The regularization factor must be positive.");
+        
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.k = new double[inputs][inputs];
+        this.q = new double[inputs][outputs];
+        this.sum = new double[inputs];
+        for (int i = 0; i < inputs; i++)
+            k[i][i] = 1.0 / c;
+    }
+    
+    /**
+     * Add a chunk of samples.
+     * @param h Hidden layer output of each sample.
+     * @param t Targets of each sample.
+     * @param length Number of samples, the first rows of h and t.
+     */
+    public void Add(final double[][] h, final double[][] t, final int length) {
+        // rows i and inputs - 1 - i together, so the triangle is split evenly
+        ParallelFor.Run((inputs + 1) / 2, new ParallelFor.Body() {
+            @Override
+            public void Compute(int from, int to) {
+                for (int s = 0; s < length; s++) {
+                    double[] hs = h[s];
+                    double[] ts = t[s];
+                    for (int p = from; p < to; p++) {
+                        Accumulate(p, hs, ts);
+                        if(inputs - 1 - p != p)
+                            Accumulate(inputs - 1 - p, hs, ts);
+                    }
+                }
+            }
+        });
+        count += length;
+    }
+    
+    private void Accumulate(int i, double[] hs, double[] ts) {
+        double v = hs[i];
+        if(v == 0) return;
+        
+        sum[i] += v;
+        double[] row = k[i];
+        for (int j = i; j < inputs; j++)
+            row[j] += v * hs[j];
+        
+        row = q[i];
+        for (int j = 0; j < outputs; j++)
+            row[j] += v * ts[j];
+    }
+    
+    /**
+     * Solve the output weights.
+     * @return Output weights, [input][output].
+     */
+    public double[][] Solve() {
+        double[][] a = new double[inputs][inputs];
+        for (int i = 0; i < inputs; i++) {
+            for (int j = i; j < inputs; j++) {
+                a[i][j] = a[j][i] = k[i][j];
+            }
+        }
+        return new CholeskyDecomposition(a).solve(q);
+    }
+
+    @Override
+    public SequentialLeastSquares clone() {
+        try {
+            SequentialLeastSquares ls = (SequentialLeastSquares)super.clone();
+            ls.k = new double[inputs][];
+            ls.q = new double[inputs][];
+            for (int i = 0; i < inputs; i++) {
+                ls.k[i] = k[i].clone();
+                ls.q[i] = q[i].clone();
+            }
+            ls.sum = sum.clone();
+            return ls;
+        } catch (CloneNotSupportedException ex) {
+            throw new IllegalArgumentException("Clone not supported: " + ex.getMessage());
+        }
+    }
+}
\ No newline at end of file
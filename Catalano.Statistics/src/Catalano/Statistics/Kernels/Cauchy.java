@@ -33,7 +33,7 @@ package Catalano.Statistics.Kernels;
  * 
  * @author Diego Catalano
  */
-public class Cauchy implements IMercerKernel<double[]> {
+public class Cauchy extends DistanceKernel {
     
     private double sigma;
 
@@ -70,18 +70,7 @@ public class Cauchy implements IMercerKernel<double[]> {
     }
 
     @Override
-    public double Function(double[] x, double[] y) {
-        // Optimization in case x and y are
-        // exactly the same object reference.
-        if (x == y) return 1.0;
-
-        double norm = 0.0, d;
-        for (int i = 0; i < x.length; i++)
-        {
-            d = x[i] - y[i];
-            norm += d * d;
-        }
-
-        return (1.0 / (1.0 + norm / sigma));
+    protected double Function(double distance) {
+        return (1.0 / (1.0 + distance / sigma));
     }
 }
\ No newline at end of file
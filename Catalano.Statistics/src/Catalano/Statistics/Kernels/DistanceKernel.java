@@ -0,0 +1,114 @@
+// Catalano Statistics Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Statistics.Kernels;
+
+/**
+ * Base class of the kernels which are a function of the squared euclidean distance.
+ * <para> The batched functions expand the distance as ||x||² + ||y||² - 2 x·y, so only the
+ * dot product is computed for each pair when the squared norms are given.</para>
+ * @author Diego Catalano
+ */
+public abstract class DistanceKernel implements IBatchMercerKernel<double[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of vectors of y computed against each vector of x, in the block function.
+     */
+    private static final int BLOCK = 64;
+
+    /**
+     * The kernel function of the squared distance.
+     * @param distance Squared euclidean distance.
+     * @return Dot product in feature (kernel) space.
+     */
+    protected abstract double Function(double distance);
+
+    @Override
+    public double Function(double[] x, double[] y) {
+        // Optimization in case x and y are
+        // exactly the same object reference.
+        if (x == y) return Function(0.0);
+
+        double norm = 0.0, d;
+        for (int i = 0; i < x.length; i++) {
+            d = x[i] - y[i];
+            norm += d * d;
+        }
+
+        return Function(norm);
+    }
+
+    @Override
+    public double[] Norms(double[][] x) {
+        double[] norms = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            norms[i] = Dot(x[i], x[i]);
+        }
+        return norms;
+    }
+
+    @Override
+    public void Function(double[] x, double[][] y, double[] norms, int from, int to, double[] result) {
+        double xx = Dot(x, x);
+        for (int i = from; i < to; i++) {
+            double yy = norms == null ? Dot(y[i], y[i]) : norms[i];
+            result[i - from] = Function(Distance(x, xx, y[i], yy));
+        }
+    }
+
+    @Override
+    public void Function(double[][] x, double[] xNorms, double[][] y, double[] yNorms, double[][] result) {
+        if (xNorms == null) xNorms = Norms(x);
+        if (yNorms == null) yNorms = Norms(y);
+
+        for (int b = 0; b < y.length; b += BLOCK) {
+            int e = Math.min(b + BLOCK, y.length);
+            for (int i = 0; i < x.length; i++) {
+                double[] r = result[i];
+                for (int j = b; j < e; j++) {
+                    r[j] = Function(Distance(x[i], xNorms[i], y[j], yNorms[j]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Squared distance from the dot product and the squared norms.
+     */
+    private static double Distance(double[] x, double xx, double[] y, double yy) {
+        if (x == y) return 0.0;
+        double d = xx + yy - 2.0 * Dot(x, y);
+        return d > 0.0 ? d : 0.0;
+    }
+
+    /**
+     * Dot product.
+     */
+    static double Dot(double[] x, double[] y) {
+        double sum = 0.0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+}
\ No newline at end of file
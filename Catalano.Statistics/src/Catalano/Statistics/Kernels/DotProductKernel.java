@@ -0,0 +1,73 @@
+// Catalano Statistics Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Statistics.Kernels;
+
+/**
+ * Base class of the kernels which are a function of the dot product.
+ * @author Diego Catalano
+ */
+public abstract class DotProductKernel implements IBatchMercerKernel<double[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of vectors of y computed against each vector of x, in the block function.
+     */
+    private static final int BLOCK = 64;
+
+    /**
+     * The kernel function of the dot product.
+     * @param dot Dot product in input space.
+     * @return Dot product in feature (kernel) space.
+     */
+    protected abstract double Function(double dot);
+
+    @Override
+    public double Function(double[] x, double[] y) {
+        return Function(DistanceKernel.Dot(x, y));
+    }
+
+    @Override
+    public double[] Norms(double[][] x) {
+        return null;
+    }
+
+    @Override
+    public void Function(double[] x, double[][] y, double[] norms, int from, int to, double[] result) {
+        for (int i = from; i < to; i++) {
+            result[i - from] = Function(DistanceKernel.Dot(x, y[i]));
+        }
+    }
+
+    @Override
+    public void Function(double[][] x, double[] xNorms, double[][] y, double[] yNorms, double[][] result) {
+        for (int b = 0; b < y.length; b += BLOCK) {
+            int e = Math.min(b + BLOCK, y.length);
+            for (int i = 0; i < x.length; i++) {
+                double[] r = result[i];
+                for (int j = b; j < e; j++) {
+                    r[j] = Function(DistanceKernel.Dot(x[i], y[j]));
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -21,7 +21,7 @@
 
 package Catalano.Statistics.Kernels;
 
-public class Gaussian implements IMercerKernel<double[]>{
+public class Gaussian extends DistanceKernel {
     
     private double gamma;
     
@@ -58,21 +58,11 @@ public class Gaussian implements IMercerKernel<double[]>{
 
     /**
      * Gaussian Kernel function.
-     * @param x Vector <c>x</c> in input space.
-     * @param y Vector <c>y</c> in input space.
+     * @param distance Squared euclidean distance.
      * @return Dot product in feature (kernel) space.
      */
-    public double Function(double[] x, double[] y){
-        // Optimization in case x and y are
-        // exactly the same object reference.
-        if (x == y) return 1.0;
-
-        double norm = 0.0, d;
-        for (int i = 0; i < x.length; i++){
-            d = x[i] - y[i];
-            norm += d * d;
-        }
-
-        return Math.exp(-gamma * norm);
+    @Override
+    protected double Function(double distance) {
+        return Math.exp(-gamma * distance);
     }
 }
\ No newline at end of file
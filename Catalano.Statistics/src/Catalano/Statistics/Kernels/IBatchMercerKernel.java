@@ -0,0 +1,60 @@
+// Catalano Statistics Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Statistics.Kernels;
+
+/**
+ * Kernel function evaluated for many vectors at once.
+ * <para> The values which don't depend on the pair, like the squared norms of the
+ * distance based kernels, are computed once by {@link #Norms(Object[])} and given
+ * back to the batched functions.</para>
+ * @author Diego Catalano
+ */
+public interface IBatchMercerKernel<T> extends IMercerKernel<T> {
+
+    /**
+     * Compute the squared norms of the vectors.
+     * @param x Vectors in input space.
+     * @return Squared norms, null if the kernel doesn't use them.
+     */
+    public double[] Norms(T[] x);
+
+    /**
+     * The kernel function of a vector against a range of vectors.
+     * @param x Vector <c>x</c> in input space.
+     * @param y Vectors <c>y</c> in input space.
+     * @param norms Squared norms of y, may be null.
+     * @param from Index of the first vector of y.
+     * @param to Index after the last vector of y.
+     * @param result Dot products in feature space, result[i - from] of y[i].
+     */
+    public void Function(T x, T[] y, double[] norms, int from, int to, double[] result);
+
+    /**
+     * The kernel function of each vector of x against each vector of y.
+     * @param x Vectors <c>x</c> in input space.
+     * @param xNorms Squared norms of x, may be null.
+     * @param y Vectors <c>y</c> in input space.
+     * @param yNorms Squared norms of y, may be null.
+     * @param result Dot products in feature space, result[i][j] of x[i] and y[j].
+     */
+    public void Function(T[] x, double[] xNorms, T[] y, double[] yNorms, double[][] result);
+}
\ No newline at end of file
@@ -29,7 +29,7 @@ package Catalano.Statistics.Kernels;
  * The inverse multiquadric kernel is only conditionally positive definite.
  * @author Diego Catalano
  */
-public class InverseMultiquadric implements IMercerKernel<double[]>{
+public class InverseMultiquadric extends DistanceKernel {
     
     private double constant;
 
@@ -65,14 +65,7 @@ public class InverseMultiquadric implements IMercerKernel<double[]>{
     }
 
     @Override
-    public double Function(double[] x, double[] y) {
-        double norm = 0.0;
-        for (int i = 0; i < x.length; i++)
-        {
-            double d = x[i] - y[i];
-            norm += d * d;
-        }
-
-        return 1.0 / (norm + constant * constant);
+    protected double Function(double distance) {
+        return 1.0 / (distance + constant * constant);
     }
 }
\ No newline at end of file
@@ -21,7 +21,7 @@
 
 package Catalano.Statistics.Kernels;
 
-public class Linear implements IMercerKernel<double[]>{
+public class Linear extends DotProductKernel {
     
     private double constant;
 
@@ -58,15 +58,11 @@ public class Linear implements IMercerKernel<double[]>{
 
     /**
      * Linear kernel function.
-     * @param x Vector <c>x</c> in input space.
-     * @param y Vector <c>y</c> in input space.
+     * @param dot Dot product in input space.
      * @return Dot product in feature (kernel) space.
      */
-    public double Function(double[] x, double[] y){
-        double sum = constant;
-        for (int i = 0; i < x.length; i++)
-            sum += x[i] * y[i];
-
-        return sum;
+    @Override
+    protected double Function(double dot) {
+        return dot + constant;
     }
 }
\ No newline at end of file
@@ -30,7 +30,7 @@ package Catalano.Statistics.Kernels;
  * 
  * @author Diego Catalano
  */
-public class Multiquadric implements IMercerKernel<double[]>{
+public class Multiquadric extends DistanceKernel {
     
     private double constant;
 
@@ -66,14 +66,7 @@ public class Multiquadric implements IMercerKernel<double[]>{
     }
 
     @Override
-    public double Function(double[] x, double[] y) {
-        double norm = 0.0;
-        for (int i = 0; i < x.length; i++)
-        {
-            double d = x[i] - y[i];
-            norm += d * d;
-        }
-
-        return -(norm + constant * constant);
+    protected double Function(double distance) {
+        return -(distance + constant * constant);
     }
 }
\ No newline at end of file
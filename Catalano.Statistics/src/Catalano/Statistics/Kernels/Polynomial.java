@@ -28,7 +28,7 @@ package Catalano.Statistics.Kernels;
  * Polynomial Kernel.
  * @author Diego Catalano
  */
-public class Polynomial implements IMercerKernel<double[]>{
+public class Polynomial extends DotProductKernel {
     
     private int degree;
     private double constant;
@@ -91,12 +91,8 @@ public class Polynomial implements IMercerKernel<double[]>{
     }
 
     @Override
-    public double Function(double[] x, double[] y) {
-        double sum = constant;
-        for (int i = 0; i < x.length; i++)
-            sum += x[i] * y[i];
-
-        return Math.pow(sum, degree);
+    protected double Function(double dot) {
+        return Math.pow(dot + constant, degree);
     }
     
 }
\ No newline at end of file
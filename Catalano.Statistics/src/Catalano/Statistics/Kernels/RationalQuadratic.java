@@ -10,7 +10,7 @@ package Catalano.Statistics.Kernels;
  *
  * @author Diego
  */
-public class RationalQuadratic implements IMercerKernel<double[]>{
+public class RationalQuadratic extends DistanceKernel {
     
     private double constant;
 
@@ -31,14 +31,7 @@ public class RationalQuadratic implements IMercerKernel<double[]>{
     }
 
     @Override
-    public double Function(double[] x, double[] y) {
-        double norm = 0.0;
-        for (int i = 0; i < x.length; i++)
-        {
-            double d = x[i] - y[i];
-            norm += d * d;
-        }
-
-        return 1.0 - (norm / (norm - constant));
+    protected double Function(double distance) {
+        return 1.0 - (distance / (distance - constant));
     }
 }
\ No newline at end of file
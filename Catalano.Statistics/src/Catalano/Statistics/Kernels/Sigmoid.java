@@ -21,7 +21,7 @@
 
 package Catalano.Statistics.Kernels;
 
-public class Sigmoid implements IMercerKernel<double[]>{
+public class Sigmoid extends DotProductKernel {
     
     private double alpha;
     private double constant;
@@ -76,15 +76,11 @@ public class Sigmoid implements IMercerKernel<double[]>{
 
     /**
      * Sigmoid kernel function.
-     * @param x Vector <c>x</c> in input space.
-     * @param y Vector <c>y</c> in input space.
+     * @param dot Dot product in input space.
      * @return Dot product in feature (kernel) space.
      */
-    public double Function(double[] x, double[] y){
-        double sum = 0;
-        for (int i = 0; i < x.length; i++)
-            sum += x[i] * y[i];
-
-        return Math.tanh(alpha * sum + constant);
+    @Override
+    protected double Function(double dot) {
+        return Math.tanh(alpha * dot + constant);
     }
 }
\ No newline at end of file
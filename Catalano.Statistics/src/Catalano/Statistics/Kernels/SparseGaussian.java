@@ -0,0 +1,109 @@
+// Catalano Statistics Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Statistics.Kernels;
+
+import Catalano.Math.SparseArray;
+
+/**
+ * Gaussian Kernel for sparse arrays.
+ * <para> The squared distance is expanded as ||x||² + ||y||² - 2 x·y, so only the
+ * entries present in both arrays are visited for each pair.</para>
+ * @author Diego Catalano
+ */
+public class SparseGaussian implements IBatchMercerKernel<SparseArray> {
+
+    private static final long serialVersionUID = 1L;
+
+    private double gamma;
+
+    /**
+     * Constructs a new Sparse Gaussian Kernel.
+     */
+    public SparseGaussian() {
+        this(1);
+    }
+
+    /**
+     * Constructs a new Sparse Gaussian Kernel.
+     * @param gamma The smooth of the Gaussian Kernel.
+     */
+    public SparseGaussian(double gamma) {
+        setGamma(gamma);
+    }
+
+    /**
+     * Gets the gamma value for the kernel.
+     * @return Gamma value.
+     */
+    public double getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Sets the gamma value for the kernel.
+     * @param gamma Gamma value.
+     */
+    public void setGamma(double gamma) {
+        this.gamma = gamma / 100;
+    }
+
+    @Override
+    public double Function(SparseArray x, SparseArray y) {
+        if (x == y) return 1.0;
+        return Function(x, SparseLinear.Dot(x, x), y, SparseLinear.Dot(y, y));
+    }
+
+    @Override
+    public double[] Norms(SparseArray[] x) {
+        double[] norms = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            norms[i] = SparseLinear.Dot(x[i], x[i]);
+        }
+        return norms;
+    }
+
+    @Override
+    public void Function(SparseArray x, SparseArray[] y, double[] norms, int from, int to, double[] result) {
+        double xx = SparseLinear.Dot(x, x);
+        for (int i = from; i < to; i++) {
+            double yy = norms == null ? SparseLinear.Dot(y[i], y[i]) : norms[i];
+            result[i - from] = Function(x, xx, y[i], yy);
+        }
+    }
+
+    @Override
+    public void Function(SparseArray[] x, double[] xNorms, SparseArray[] y, double[] yNorms, double[][] result) {
+        if (yNorms == null) yNorms = Norms(y);
+        for (int i = 0; i < x.length; i++) {
+            Function(x[i], y, yNorms, 0, y.length, result[i]);
+        }
+    }
+
+    /**
+     * Kernel function from the squared norms.
+     */
+    private double Function(SparseArray x, double xx, SparseArray y, double yy) {
+        if (x == y) return 1.0;
+        double d = xx + yy - 2.0 * SparseLinear.Dot(x, y);
+        return Math.exp(-gamma * (d > 0.0 ? d : 0.0));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+// Catalano Statistics Library
+// The Catalano Framework
+//
+// Copyright © Diego Catalano, 2012-2016
+// diego.catalano at live.com
+//
+//    This library is free software; you can redistribute it and/or
+//    modify it under the terms of the GNU Lesser General Public
+//    License as published by the Free Software Foundation; either
+//    version 2.1 of the License, or (at your option) any later version.
+//
+//    This library is distributed in the hope that it will be useful,
+//    but WITHOUT ANY WARRANTY; without even the implied warranty of
+//    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+//    Lesser General Public License for more details.
+//
+//    You should have received a copy of the GNU Lesser General Public
+//    License along with this library; if not, write to the Free Software
+//    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+//
+
+package Catalano.Statistics.Kernels;
+
+import Catalano.Math.SparseArray;
+import java.util.Iterator;
+
+/**
+ * Linear Kernel for sparse arrays.
+ * @author Diego Catalano
+ */
+public class SparseLinear implements IBatchMercerKernel<SparseArray> {
+
+    private static final long serialVersionUID = 1L;
+
+    private double constant;
+
+    /**
+     * Constructs a new Sparse Linear Kernel.
+     */
+    public SparseLinear() {
+        this(1);
+    }
+
+    /**
+     * Constructs a new Sparse Linear kernel.
+     * @param constant A constant intercept term. Default is 1.
+     */
+    public SparseLinear(double constant) {
+        this.constant = constant;
+    }
+
+    /**
+     * Gets the kernel's intercept term.
+     * @return Kernel's intercept term.
+     */
+    public double getConstant() {
+        return constant;
+    }
+
+    /**
+     * Sets the kernel's intercept term.
+     * @param value Kernel's intercept term.
+     */
+    public void setConstant(double value) {
+        constant = value;
+    }
+
+    @Override
+    public double Function(SparseArray x, SparseArray y) {
+        return Dot(x, y) + constant;
+    }
+
+    @Override
+    public double[] Norms(SparseArray[] x) {
+        return null;
+    }
+
+    @Override
+    public void Function(SparseArray x, SparseArray[] y, double[] norms, int from, int to, double[] result) {
+        for (int i = from; i < to; i++) {
+            result[i - from] = Dot(x, y[i]) + constant;
+        }
+    }
+
+    @Override
+    public void Function(SparseArray[] x, double[] xNorms, SparseArray[] y, double[] yNorms, double[][] result) {
+        for (int i = 0; i < x.length; i++) {
+            Function(x[i], y, yNorms, 0, y.length, result[i]);
+        }
+    }
+
+    /**
+     * Dot product of two sparse arrays with the entries sorted by index.
+     */
+    static double Dot(SparseArray x, SparseArray y) {
+        Iterator<SparseArray.Entry> it1 = x.iterator();
+        Iterator<SparseArray.Entry> it2 = y.iterator();
+        if (!it1.hasNext() || !it2.hasNext()) return 0.0;
+
+        double sum = 0.0;
+        SparseArray.Entry e1 = it1.next();
+        SparseArray.Entry e2 = it2.next();
+        while (true) {
+            if (e1.i == e2.i) {
+                sum += e1.x * e2.x;
+                if (!it1.hasNext() || !it2.hasNext()) break;
+                e1 = it1.next();
+                e2 = it2.next();
+            } else if (e1.i < e2.i) {
+                if (!it1.hasNext()) break;
+                e1 = it1.next();
+            } else {
+                if (!it2.hasNext()) break;
+                e2 = it2.next();
+            }
+        }
+
+        return sum;
+    }
+}
\ No newline at end of file